@@ -18,7 +18,10 @@
 
 package org.eclipse.jetty.client;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -40,6 +43,7 @@ public abstract class AbstractConnectionPool implements ConnectionPool, Dumpable
 
     private final AtomicBoolean closed = new AtomicBoolean();
     private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger pendingCount = new AtomicInteger();
     private final Destination destination;
     private final int maxConnections;
     private final Callback requester;
@@ -80,11 +84,50 @@ public abstract class AbstractConnectionPool implements ConnectionPool, Dumpable
     {
         Connection connection = activate();
         if (connection == null)
-            connection = tryCreate();
+        {
+            tryCreate(-1);
+            // Try again the idle connections
+            connection = activate();
+        }
         return connection;
     }
 
-    private Connection tryCreate()
+    /**
+     * <p>Opens connections until this pool has the given number of connections,
+     * or until the max number of connections is reached.</p>
+     * <p>The connections are made idle when opened, so that the first requests
+     * do not pay the latency of opening connections.</p>
+     *
+     * @param connectionCount the desired number of connections
+     * @return a CompletableFuture that is completed when all the connections have been opened
+     */
+    public CompletableFuture<Void> preCreateConnections(int connectionCount)
+    {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = getConnectionCount(); i < connectionCount; ++i)
+        {
+            CompletableFuture<Void> future = tryCreate(-1);
+            if (future == null)
+                break;
+            futures.add(future);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    @ManagedAttribute(value = "The number of connections being opened", readonly = true)
+    public int getPendingConnectionCount()
+    {
+        return pendingCount.get();
+    }
+
+    /**
+     * <p>Opens a new connection, unless the max number of connections
+     * or the given max number of pending connections is reached.</p>
+     *
+     * @param maxPending the max number of connections being opened, or a negative value for no limit
+     * @return a CompletableFuture completed when the connection is opened, or null if no connection is opened
+     */
+    protected CompletableFuture<Void> tryCreate(int maxPending)
     {
         while (true)
         {
@@ -95,8 +138,14 @@ public abstract class AbstractConnectionPool implements ConnectionPool, Dumpable
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("Max connections {}/{} reached", current, maxConnections);
-                // Try again the idle connections
-                return activate();
+                return null;
+            }
+
+            if (maxPending >= 0 && pendingCount.get() >= maxPending)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Max pending connections {} reached", maxPending);
+                return null;
             }
 
             if (connectionCount.compareAndSet(current, next))
@@ -104,6 +153,8 @@ public abstract class AbstractConnectionPool implements ConnectionPool, Dumpable
                 if (LOG.isDebugEnabled())
                     LOG.debug("Connection {}/{} creation", next, maxConnections);
 
+                pendingCount.incrementAndGet();
+                CompletableFuture<Void> future = new CompletableFuture<>();
                 destination.newConnection(new Promise<Connection>()
                 {
                     @Override
@@ -111,7 +162,9 @@ public abstract class AbstractConnectionPool implements ConnectionPool, Dumpable
                     {
                         if (LOG.isDebugEnabled())
                             LOG.debug("Connection {}/{} creation succeeded {}", next, maxConnections, connection);
+                        pendingCount.decrementAndGet();
                         onCreated(connection);
+                        future.complete(null);
                         proceed();
                     }
 
@@ -120,13 +173,13 @@ public abstract class AbstractConnectionPool implements ConnectionPool, Dumpable
                     {
                         if (LOG.isDebugEnabled())
                             LOG.debug("Connection " + next + "/" + maxConnections + " creation failed", x);
+                        pendingCount.decrementAndGet();
                         connectionCount.decrementAndGet();
+                        future.completeExceptionally(x);
                         requester.failed(x);
                     }
                 });
-
-                // Try again the idle connections
-                return activate();
+                return future;
             }
         }
     }
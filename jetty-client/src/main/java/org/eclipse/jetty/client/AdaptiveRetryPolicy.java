@@ -0,0 +1,315 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+
+/**
+ * <p>A {@link RetryPolicy} that retries idempotent requests without content
+ * with exponential backoff, and that hedges requests after a delay derived
+ * from a percentile of the recently observed response latencies of the
+ * destination.</p>
+ * <p>The delay before a retry is chosen randomly between
+ * {@link #getMinRetryDelay()} and the backoff delay, which doubles at every
+ * retry starting from the min delay, up to {@link #getMaxRetryDelay()}.</p>
+ * <p>Retries and hedges are limited by a retry budget: the budget starts with
+ * {@link #getMaxRetryTokens()} tokens, each retry or hedge consumes one token,
+ * and each response that begins adds {@link #getRetryBudgetRatio()} tokens, so
+ * that in the long run retries and hedges cannot exceed that ratio of the
+ * successful requests, and a failing destination is not overloaded by retries.</p>
+ * <p>Hedging is disabled by default, see {@link #setMaxHedges(int)}.</p>
+ */
+@ManagedObject("Adaptive retry policy")
+public class AdaptiveRetryPolicy implements RetryPolicy
+{
+    private static final long TOKEN = 1000;
+
+    private final AtomicLong retryTokens = new AtomicLong();
+    private volatile HistogramStatistic latencies = new HistogramStatistic();
+    private volatile HistogramStatistic previousLatencies;
+    private int maxRetries = 2;
+    private long minRetryDelay = 50;
+    private long maxRetryDelay = 2000;
+    private double retryBudgetRatio = 0.1;
+    private int maxRetryTokens = 10;
+    private int maxHedges;
+    private double hedgePercentile = 95;
+    private long minHedgeDelay = 10;
+    private int minHedgeSamples = 100;
+    private int latencyWindow = 1000;
+
+    public AdaptiveRetryPolicy()
+    {
+        retryTokens.set(maxRetryTokens * TOKEN);
+    }
+
+    @ManagedAttribute("The max number of retries per request")
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries)
+    {
+        this.maxRetries = maxRetries;
+    }
+
+    @ManagedAttribute("The min delay, in milliseconds, before a retry")
+    public long getMinRetryDelay()
+    {
+        return minRetryDelay;
+    }
+
+    public void setMinRetryDelay(long minRetryDelay)
+    {
+        this.minRetryDelay = minRetryDelay;
+    }
+
+    @ManagedAttribute("The max delay, in milliseconds, before a retry")
+    public long getMaxRetryDelay()
+    {
+        return maxRetryDelay;
+    }
+
+    public void setMaxRetryDelay(long maxRetryDelay)
+    {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    @ManagedAttribute("The ratio of retries and hedges to responses allowed by the retry budget")
+    public double getRetryBudgetRatio()
+    {
+        return retryBudgetRatio;
+    }
+
+    public void setRetryBudgetRatio(double retryBudgetRatio)
+    {
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    @ManagedAttribute("The max number of tokens of the retry budget")
+    public int getMaxRetryTokens()
+    {
+        return maxRetryTokens;
+    }
+
+    public void setMaxRetryTokens(int maxRetryTokens)
+    {
+        this.maxRetryTokens = maxRetryTokens;
+        retryTokens.set(maxRetryTokens * TOKEN);
+    }
+
+    @ManagedAttribute(value = "The number of tokens available in the retry budget", readonly = true)
+    public double getRetryTokens()
+    {
+        return (double)retryTokens.get() / TOKEN;
+    }
+
+    @ManagedAttribute("The max number of hedged attempts per request, 0 to disable hedging")
+    public int getMaxHedges()
+    {
+        return maxHedges;
+    }
+
+    public void setMaxHedges(int maxHedges)
+    {
+        this.maxHedges = maxHedges;
+    }
+
+    @ManagedAttribute("The percentile of the response latency after which requests are hedged")
+    public double getHedgePercentile()
+    {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile)
+    {
+        if (hedgePercentile < 0 || hedgePercentile > 100)
+            throw new IllegalArgumentException("Invalid percentile " + hedgePercentile);
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    @ManagedAttribute("The min delay, in milliseconds, before a hedged attempt")
+    public long getMinHedgeDelay()
+    {
+        return minHedgeDelay;
+    }
+
+    public void setMinHedgeDelay(long minHedgeDelay)
+    {
+        this.minHedgeDelay = minHedgeDelay;
+    }
+
+    @ManagedAttribute("The min number of latency samples required before hedging")
+    public int getMinHedgeSamples()
+    {
+        return minHedgeSamples;
+    }
+
+    public void setMinHedgeSamples(int minHedgeSamples)
+    {
+        this.minHedgeSamples = minHedgeSamples;
+    }
+
+    @ManagedAttribute("The number of latency samples after which old samples are discarded")
+    public int getLatencyWindow()
+    {
+        return latencyWindow;
+    }
+
+    public void setLatencyWindow(int latencyWindow)
+    {
+        this.latencyWindow = latencyWindow;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the given percentile of the recent response latencies, in microseconds
+     */
+    public long getLatencyPercentile(double percentile)
+    {
+        return getLatencies().getPercentile(percentile);
+    }
+
+    @ManagedAttribute(value = "The median response latency in microseconds", readonly = true)
+    public long getLatencyMedian()
+    {
+        return getLatencyPercentile(50);
+    }
+
+    @ManagedAttribute(value = "The 99th percentile response latency in microseconds", readonly = true)
+    public long getLatency99thPercentile()
+    {
+        return getLatencyPercentile(99);
+    }
+
+    private HistogramStatistic getLatencies()
+    {
+        HistogramStatistic previous = previousLatencies;
+        return previous != null ? previous : latencies;
+    }
+
+    @Override
+    public boolean isRetryable(Request request)
+    {
+        HttpMethod method = HttpMethod.fromString(request.getMethod());
+        return method != null && method.isIdempotent() && request.getContent() == null;
+    }
+
+    @Override
+    public long getRetryDelay(Request request, int retries, Throwable failure)
+    {
+        if (retries >= getMaxRetries() || !isRetryable(failure) || !acquireRetryToken())
+            return -1;
+        long maxDelay = getMaxRetryDelay();
+        long minDelay = Math.min(getMinRetryDelay(), maxDelay);
+        long delay = maxDelay;
+        if (retries < 32)
+            delay = Math.min(maxDelay, minDelay << retries);
+        return minDelay + ThreadLocalRandom.current().nextLong(delay - minDelay + 1);
+    }
+
+    /**
+     * @param failure the failure of an attempt
+     * @return whether the failure is transient, so that the request may be retried
+     */
+    protected boolean isRetryable(Throwable failure)
+    {
+        return failure instanceof IOException || failure instanceof TimeoutException;
+    }
+
+    @Override
+    public long getHedgeDelay(Request request)
+    {
+        if (getMaxHedges() <= 0)
+            return -1;
+        HistogramStatistic latencies = getLatencies();
+        if (latencies.getCount() < getMinHedgeSamples())
+            return -1;
+        long latency = TimeUnit.MICROSECONDS.toMillis(latencies.getPercentile(getHedgePercentile())) + 1;
+        return Math.max(getMinHedgeDelay(), latency);
+    }
+
+    @Override
+    public boolean canHedge(Request request, int hedges)
+    {
+        return hedges < getMaxHedges() && acquireRetryToken();
+    }
+
+    @Override
+    public void onResponseBegin(Request request, long latency)
+    {
+        HistogramStatistic latencies = this.latencies;
+        latencies.set(TimeUnit.NANOSECONDS.toMicros(latency));
+        if (latencies.getCount() >= getLatencyWindow())
+        {
+            synchronized (this)
+            {
+                if (this.latencies == latencies)
+                {
+                    previousLatencies = latencies;
+                    this.latencies = new HistogramStatistic();
+                }
+            }
+        }
+
+        long deposit = (long)(getRetryBudgetRatio() * TOKEN);
+        long max = getMaxRetryTokens() * TOKEN;
+        while (true)
+        {
+            long tokens = retryTokens.get();
+            if (tokens >= max || retryTokens.compareAndSet(tokens, Math.min(max, tokens + deposit)))
+                break;
+        }
+    }
+
+    private boolean acquireRetryToken()
+    {
+        while (true)
+        {
+            long tokens = retryTokens.get();
+            if (tokens < TOKEN)
+                return false;
+            if (retryTokens.compareAndSet(tokens, tokens - TOKEN))
+                return true;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[retries=%d,hedges=%d,tokens=%.1f,latency=%s]",
+                getClass().getSimpleName(),
+                hashCode(),
+                getMaxRetries(),
+                getMaxHedges(),
+                getRetryTokens(),
+                getLatencies());
+    }
+}
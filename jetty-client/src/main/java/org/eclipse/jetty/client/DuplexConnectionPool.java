@@ -48,6 +48,7 @@ public class DuplexConnectionPool extends AbstractConnectionPool implements Swee
     private final ReentrantLock lock = new ReentrantLock();
     private final Deque<Connection> idleConnections;
     private final Set<Connection> activeConnections;
+    private int minIdleConnections;
 
     public DuplexConnectionPool(Destination destination, int maxConnections, Callback requester)
     {
@@ -94,6 +95,69 @@ public class DuplexConnectionPool extends AbstractConnectionPool implements Swee
         }
     }
 
+    @ManagedAttribute("The min number of idle connections")
+    public int getMinIdleConnections()
+    {
+        return minIdleConnections;
+    }
+
+    /**
+     * <p>Sets the min number of idle connections that this pool maintains,
+     * opening new connections in background when idle connections are used
+     * or removed, so that bursts of requests do not pay the latency of
+     * opening connections.</p>
+     * <p>The max number of connections is never exceeded.</p>
+     *
+     * @param minIdleConnections the min number of idle connections
+     */
+    public void setMinIdleConnections(int minIdleConnections)
+    {
+        this.minIdleConnections = minIdleConnections;
+    }
+
+    @Override
+    public Connection acquire()
+    {
+        Connection connection = super.acquire();
+        fillIdle();
+        return connection;
+    }
+
+    /**
+     * <p>Opens connections in background until there are
+     * {@link #getMinIdleConnections() the min number of idle connections},
+     * counting those being opened.</p>
+     */
+    protected void fillIdle()
+    {
+        int minIdle = getMinIdleConnections();
+        if (minIdle <= 0 || isClosed())
+            return;
+
+        int idle;
+        lock();
+        try
+        {
+            idle = idleConnections.size();
+        }
+        finally
+        {
+            unlock();
+        }
+
+        int missing = minIdle - idle;
+        if (missing <= 0)
+            return;
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("Filling {} idle connections {}", missing, this);
+        for (int i = 0; i < missing; ++i)
+        {
+            if (tryCreate(missing) == null)
+                break;
+        }
+    }
+
     public Queue<Connection> getIdleConnections()
     {
         return idleConnections;
@@ -208,7 +272,10 @@ public class DuplexConnectionPool extends AbstractConnectionPool implements Swee
             released(connection);
         boolean removed = activeRemoved || idleRemoved || force;
         if (removed)
+        {
             removed(connection);
+            fillIdle();
+        }
         return removed;
     }
 
@@ -301,11 +368,12 @@ public class DuplexConnectionPool extends AbstractConnectionPool implements Swee
             unlock();
         }
 
-        return String.format("%s@%x[c=%d/%d,a=%d,i=%d]",
+        return String.format("%s@%x[c=%d/%d,p=%d,a=%d,i=%d]",
                 getClass().getSimpleName(),
                 hashCode(),
                 getConnectionCount(),
                 getMaxConnectionCount(),
+                getPendingConnectionCount(),
                 activeSize,
                 idleSize);
     }
@@ -21,6 +21,7 @@ package org.eclipse.jetty.client;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.CookieStore;
+import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
@@ -146,6 +147,8 @@ public class HttpClient extends ContainerLifeCycle
     private HttpField encodingField;
     private boolean removeIdleDestinations = false;
     private boolean connectBlocking = false;
+    private long connectAttemptDelay;
+    private RetryPolicy.Factory retryPolicyFactory;
 
     /**
      * Creates a {@link HttpClient} instance that can perform requests to non-TLS destinations only
@@ -577,10 +580,18 @@ public class HttpClient extends ContainerLifeCycle
             @Override
             public void succeeded(List<InetSocketAddress> socketAddresses)
             {
-                Map<String, Object> context = new HashMap<>();
-                context.put(ClientConnectionFactory.CONNECTOR_CONTEXT_KEY, HttpClient.this);
-                context.put(HttpClientTransport.HTTP_DESTINATION_CONTEXT_KEY, destination);
-                connect(socketAddresses, 0, context);
+                long delay = getConnectAttemptDelay();
+                if (delay > 0 && socketAddresses.size() > 1)
+                {
+                    new ConnectRace(destination, interleave(socketAddresses), delay, promise).attempt();
+                }
+                else
+                {
+                    Map<String, Object> context = new HashMap<>();
+                    context.put(ClientConnectionFactory.CONNECTOR_CONTEXT_KEY, HttpClient.this);
+                    context.put(HttpClientTransport.HTTP_DESTINATION_CONTEXT_KEY, destination);
+                    connect(socketAddresses, 0, context);
+                }
             }
 
             @Override
@@ -608,6 +619,34 @@ public class HttpClient extends ContainerLifeCycle
         });
     }
 
+    /**
+     * <p>Reorders the given addresses so that address families alternate,
+     * starting with the family of the first address, as suggested by RFC 8305.</p>
+     *
+     * @param socketAddresses the addresses to reorder
+     * @return the reordered addresses
+     */
+    private static List<InetSocketAddress> interleave(List<InetSocketAddress> socketAddresses)
+    {
+        boolean firstIPv6 = socketAddresses.get(0).getAddress() instanceof Inet6Address;
+        List<InetSocketAddress> first = new ArrayList<>();
+        List<InetSocketAddress> second = new ArrayList<>();
+        for (InetSocketAddress socketAddress : socketAddresses)
+        {
+            boolean ipv6 = socketAddress.getAddress() instanceof Inet6Address;
+            (ipv6 == firstIPv6 ? first : second).add(socketAddress);
+        }
+        List<InetSocketAddress> result = new ArrayList<>(socketAddresses.size());
+        for (int i = 0; i < Math.max(first.size(), second.size()); ++i)
+        {
+            if (i < first.size())
+                result.add(first.get(i));
+            if (i < second.size())
+                result.add(second.get(i));
+        }
+        return result;
+    }
+
     private HttpConversation newConversation()
     {
         return new HttpConversation();
@@ -1044,6 +1083,67 @@ public class HttpClient extends ContainerLifeCycle
         this.connectBlocking = connectBlocking;
     }
 
+    /**
+     * @return the delay, in milliseconds, before a connection attempt to the next address of a destination
+     * is started while the previous attempts are still in progress, or zero if connection attempts are sequential
+     * @see #setConnectAttemptDelay(long)
+     */
+    @ManagedAttribute("The delay, in milliseconds, before racing a connection attempt to the next address")
+    public long getConnectAttemptDelay()
+    {
+        return connectAttemptDelay;
+    }
+
+    /**
+     * <p>Sets the delay before a connection attempt to the next address of a destination is started
+     * while the previous attempts are still in progress ("happy eyeballs", RFC 8305).</p>
+     * <p>When a host resolves to multiple addresses, they are tried alternating IPv6 and IPv4 addresses;
+     * the first connection that is established wins, and the others are closed.
+     * A failed attempt immediately starts the attempt to the next address.</p>
+     * <p>If the delay is zero (the default), addresses are tried sequentially, each one
+     * after the failure of the previous one.</p>
+     *
+     * @param connectAttemptDelay the delay, in milliseconds, before racing a connection attempt
+     * to the next address, typically 250 ms, or zero to try addresses sequentially
+     */
+    public void setConnectAttemptDelay(long connectAttemptDelay)
+    {
+        this.connectAttemptDelay = connectAttemptDelay;
+    }
+
+    /**
+     * @return the factory of the per-destination retry policies, or null if requests are not retried
+     * @see #setRetryPolicyFactory(RetryPolicy.Factory)
+     */
+    public RetryPolicy.Factory getRetryPolicyFactory()
+    {
+        return retryPolicyFactory;
+    }
+
+    /**
+     * <p>Sets the factory of the {@link RetryPolicy} of each destination.</p>
+     * <p>When set, requests that the policy deems retryable are retried if they fail
+     * before the response begins, and may be hedged if their response is slow to begin.
+     * For example, to retry idempotent requests and hedge them after the 95th
+     * percentile of their response latency:</p>
+     * <pre>
+     * httpClient.setRetryPolicyFactory(destination -&gt;
+     * {
+     *     AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy();
+     *     policy.setMaxHedges(1);
+     *     return policy;
+     * });
+     * </pre>
+     * <p>The factory applies to destinations created after this method is called.</p>
+     *
+     * @param retryPolicyFactory the factory of the per-destination retry policies, or null to not retry requests
+     * @see AdaptiveRetryPolicy
+     */
+    public void setRetryPolicyFactory(RetryPolicy.Factory retryPolicyFactory)
+    {
+        this.retryPolicyFactory = retryPolicyFactory;
+    }
+
     /**
      * @return the forward proxy configuration
      */
@@ -1226,4 +1326,124 @@ public class HttpClient extends ContainerLifeCycle
             }
         }
     }
+
+    /**
+     * <p>Races connection attempts to the addresses of a destination, starting an attempt
+     * to the next address after a delay or after the failure of the previous attempt.</p>
+     */
+    private class ConnectRace
+    {
+        private final HttpDestination destination;
+        private final List<InetSocketAddress> socketAddresses;
+        private final long delay;
+        private final Promise<Connection> promise;
+        private int index;
+        private int pending;
+        private boolean complete;
+        private Scheduler.Task task;
+
+        private ConnectRace(HttpDestination destination, List<InetSocketAddress> socketAddresses, long delay, Promise<Connection> promise)
+        {
+            this.destination = destination;
+            this.socketAddresses = socketAddresses;
+            this.delay = delay;
+            this.promise = promise;
+        }
+
+        private void attempt()
+        {
+            InetSocketAddress socketAddress;
+            synchronized (this)
+            {
+                if (complete || index == socketAddresses.size())
+                    return;
+                socketAddress = socketAddresses.get(index++);
+                ++pending;
+                if (index < socketAddresses.size())
+                    task = scheduler.schedule(this::attempt, delay, TimeUnit.MILLISECONDS);
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Connecting to {} for {}", socketAddress, destination);
+
+            Map<String, Object> context = new HashMap<>();
+            context.put(ClientConnectionFactory.CONNECTOR_CONTEXT_KEY, HttpClient.this);
+            context.put(HttpClientTransport.HTTP_DESTINATION_CONTEXT_KEY, destination);
+            context.put(HttpClientTransport.HTTP_CONNECTION_PROMISE_CONTEXT_KEY, new Promise<Connection>()
+            {
+                @Override
+                public void succeeded(Connection connection)
+                {
+                    connected(connection);
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    connectFailed(x);
+                }
+            });
+            transport.connect(socketAddress, context);
+        }
+
+        private void connected(Connection connection)
+        {
+            boolean winner;
+            Scheduler.Task task;
+            synchronized (this)
+            {
+                --pending;
+                winner = !complete;
+                complete = true;
+                task = this.task;
+                this.task = null;
+            }
+
+            if (task != null)
+                task.cancel();
+
+            if (winner)
+            {
+                promise.succeeded(connection);
+            }
+            else
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Closing {}, lost connect race for {}", connection, destination);
+                connection.close();
+            }
+        }
+
+        private void connectFailed(Throwable x)
+        {
+            boolean next = false;
+            boolean failed = false;
+            Scheduler.Task task = null;
+            synchronized (this)
+            {
+                --pending;
+                if (complete)
+                    return;
+                if (index < socketAddresses.size())
+                {
+                    next = true;
+                    task = this.task;
+                    this.task = null;
+                }
+                else if (pending == 0)
+                {
+                    complete = true;
+                    failed = true;
+                }
+            }
+
+            if (task != null)
+                task.cancel();
+
+            if (next)
+                attempt();
+            else if (failed)
+                promise.failed(x);
+        }
+    }
 }
@@ -61,6 +61,7 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
     private final ClientConnectionFactory connectionFactory;
     private final HttpField hostField;
     private ConnectionPool connectionPool;
+    private RetryPolicy retryPolicy;
 
     public HttpDestination(HttpClient client, Origin origin)
     {
@@ -99,6 +100,9 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
     {
         this.connectionPool = newConnectionPool(client);
         addBean(connectionPool);
+        this.retryPolicy = newRetryPolicy(client);
+        if (retryPolicy != null)
+            addBean(retryPolicy);
         super.doStart();
         Sweeper sweeper = client.getBean(Sweeper.class);
         if (sweeper != null && connectionPool instanceof Sweeper.Sweepable)
@@ -113,6 +117,8 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
             sweeper.remove((Sweeper.Sweepable)connectionPool);
         super.doStop();
         removeBean(connectionPool);
+        if (retryPolicy != null)
+            removeBean(retryPolicy);
     }
 
     protected ConnectionPool newConnectionPool(HttpClient client)
@@ -120,6 +126,12 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
         return client.getTransport().getConnectionPoolFactory().newConnectionPool(this);
     }
 
+    protected RetryPolicy newRetryPolicy(HttpClient client)
+    {
+        RetryPolicy.Factory factory = client.getRetryPolicyFactory();
+        return factory == null ? null : factory.newRetryPolicy(this);
+    }
+
     protected Queue<HttpExchange> newExchangeQueue(HttpClient client)
     {
         return new BlockingArrayQueue<>(client.getMaxRequestsQueuedPerDestination());
@@ -215,6 +227,12 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
         return connectionPool;
     }
 
+    @ManagedAttribute(value = "The retry policy", readonly = true)
+    public RetryPolicy getRetryPolicy()
+    {
+        return retryPolicy;
+    }
+
     @Override
     public void succeeded()
     {
@@ -237,8 +255,19 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
         if (port >= 0 && getPort() != port)
             throw new IllegalArgumentException("Invalid request port " + port + " for destination " + this);
 
-        HttpExchange exchange = new HttpExchange(this, request, listeners);
+        RetryPolicy retryPolicy = this.retryPolicy;
+        if (retryPolicy != null && retryPolicy.isRetryable(request) && request.getURI() != null)
+        {
+            new RetryingResponseListener(this, retryPolicy, request, listeners).send();
+            return;
+        }
 
+        send(new HttpExchange(this, request, listeners));
+    }
+
+    void send(HttpExchange exchange)
+    {
+        HttpRequest request = exchange.getRequest();
         if (client.isRunning())
         {
             if (enqueue(exchanges, exchange))
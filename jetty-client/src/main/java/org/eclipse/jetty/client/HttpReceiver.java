@@ -21,13 +21,16 @@ package org.eclipse.jetty.client;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
 
 import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.api.Result;
@@ -53,7 +56,9 @@ import org.eclipse.jetty.util.log.Logger;
  * is available</li>
  * <li>{@link #responseHeader(HttpExchange, HttpField)}, when a HTTP field is available</li>
  * <li>{@link #responseHeaders(HttpExchange)}, when all HTTP headers are available</li>
- * <li>{@link #responseContent(HttpExchange, ByteBuffer, Callback)}, when HTTP content is available</li>
+ * <li>{@link #responseContent(HttpExchange, ByteBuffer, Callback)}, when HTTP content is available;
+ * subclasses must not read more content until the callback is completed, so that
+ * {@link Response.DemandedContentListener}s can apply backpressure</li>
  * <li>{@link #responseSuccess(HttpExchange)}, when the response is successful</li>
  * </ol>
  * At any time, subclasses may invoke {@link #responseFailure(Throwable)} to indicate that the response has failed
@@ -73,6 +78,7 @@ public abstract class HttpReceiver
     private final AtomicReference<ResponseState> responseState = new AtomicReference<>(ResponseState.IDLE);
     private final HttpChannel channel;
     private ContentDecoder decoder;
+    private volatile List<ContentDemand> demands = Collections.emptyList();
     private Throwable failure;
 
     protected HttpReceiver(HttpChannel channel)
@@ -257,7 +263,26 @@ public abstract class HttpReceiver
         if (LOG.isDebugEnabled())
             LOG.debug("Response headers {}{}{}", response, System.lineSeparator(), response.getHeaders().toString().trim());
         ResponseNotifier notifier = getHttpDestination().getResponseNotifier();
-        notifier.notifyHeaders(exchange.getConversation().getResponseListeners(), response);
+        List<Response.ResponseListener> listeners = exchange.getConversation().getResponseListeners();
+        notifier.notifyHeaders(listeners, response);
+
+        List<ContentDemand> demands = null;
+        for (int i = 0; i < listeners.size(); ++i)
+        {
+            Response.ResponseListener listener = listeners.get(i);
+            if (listener instanceof Response.DemandedContentListener)
+            {
+                if (demands == null)
+                    demands = new ArrayList<>(1);
+                demands.add(new ContentDemand(exchange, (Response.DemandedContentListener)listener));
+            }
+        }
+        if (demands != null)
+        {
+            this.demands = demands;
+            for (ContentDemand demand : demands)
+                notifier.notifyBeforeContent(demand.listener, response, demand);
+        }
 
         Enumeration<String> contentEncodings = response.getHeaders().getValues(HttpHeader.CONTENT_ENCODING.asString(), ",");
         if (contentEncodings != null)
@@ -318,13 +343,12 @@ public abstract class HttpReceiver
         if (LOG.isDebugEnabled())
             LOG.debug("Response content {}{}{}", response, System.lineSeparator(), BufferUtil.toDetailString(buffer));
 
-        ResponseNotifier notifier = getHttpDestination().getResponseNotifier();
         List<Response.ResponseListener> listeners = exchange.getConversation().getResponseListeners();
 
         ContentDecoder decoder = this.decoder;
         if (decoder == null)
         {
-            notifier.notifyContent(listeners, response, buffer, callback);
+            notifyContent(listeners, response, buffer, callback);
         }
         else
         {
@@ -350,7 +374,7 @@ public abstract class HttpReceiver
                     int size = decodeds.size();
                     CountingCallback counter = new CountingCallback(callback, size);
                     for (int i = 0; i < size; ++i)
-                        notifier.notifyContent(listeners, response, decodeds.get(i), counter);
+                        notifyContent(listeners, response, decodeds.get(i), counter);
                 }
             }
             catch (Throwable x)
@@ -366,6 +390,29 @@ public abstract class HttpReceiver
         return false;
     }
 
+    private void notifyContent(List<Response.ResponseListener> listeners, HttpResponse response, ByteBuffer buffer, Callback callback)
+    {
+        ResponseNotifier notifier = getHttpDestination().getResponseNotifier();
+        List<ContentDemand> demands = this.demands;
+        if (demands.isEmpty())
+        {
+            notifier.notifyContent(listeners, response, buffer, callback);
+        }
+        else
+        {
+            // The callback is completed only when all the listeners, including
+            // those that have no demand yet, have consumed the content.
+            int size = demands.size();
+            ByteBuffer[] slices = new ByteBuffer[size];
+            for (int i = 0; i < size; ++i)
+                slices[i] = buffer.slice();
+            CountingCallback counter = new CountingCallback(callback, size + 1);
+            notifier.notifyContent(listeners, response, buffer, counter);
+            for (int i = 0; i < size; ++i)
+                demands.get(i).content(slices[i], counter);
+        }
+    }
+
     /**
      * Method to be invoked when the response is successful.
      * <p>
@@ -473,6 +520,7 @@ public abstract class HttpReceiver
     {
         destroyDecoder(decoder);
         decoder = null;
+        failDemands(new IllegalStateException("Response completed"));
     }
 
     /**
@@ -486,6 +534,17 @@ public abstract class HttpReceiver
     {
         destroyDecoder(decoder);
         decoder = null;
+        failDemands(failure != null ? failure : new IllegalStateException("Response disposed"));
+    }
+
+    private void failDemands(Throwable failure)
+    {
+        List<ContentDemand> demands = this.demands;
+        if (demands.isEmpty())
+            return;
+        this.demands = Collections.emptyList();
+        for (ContentDemand demand : demands)
+            demand.fail(failure);
     }
 
     private static void destroyDecoder(ContentDecoder decoder)
@@ -569,6 +628,122 @@ public abstract class HttpReceiver
                 failure);
     }
 
+    /**
+     * <p>Tracks the demand of a {@link Response.DemandedContentListener}, holding
+     * the content received while the listener has no demand.</p>
+     * <p>The callback of held content is not completed, so that transports
+     * do not read more content until the listener demands it.</p>
+     */
+    private class ContentDemand implements LongConsumer
+    {
+        private final Queue<ContentChunk> chunks = new ArrayDeque<>();
+        private final HttpExchange exchange;
+        private final Response.DemandedContentListener listener;
+        private long demand;
+        private boolean delivering;
+        private Throwable failure;
+
+        private ContentDemand(HttpExchange exchange, Response.DemandedContentListener listener)
+        {
+            this.exchange = exchange;
+            this.listener = listener;
+        }
+
+        @Override
+        public void accept(long n)
+        {
+            if (n <= 0)
+            {
+                exchange.getRequest().abort(new IllegalArgumentException("Invalid demand " + n));
+                return;
+            }
+
+            synchronized (this)
+            {
+                demand += n;
+                // Overflow means unbounded demand.
+                if (demand < 0)
+                    demand = Long.MAX_VALUE;
+                if (delivering)
+                    return;
+                delivering = true;
+            }
+            deliver();
+        }
+
+        private void content(ByteBuffer buffer, Callback callback)
+        {
+            Throwable failure;
+            synchronized (this)
+            {
+                failure = this.failure;
+                if (failure == null)
+                {
+                    chunks.offer(new ContentChunk(buffer, callback));
+                    if (delivering)
+                        return;
+                    delivering = true;
+                }
+            }
+
+            if (failure == null)
+                deliver();
+            else
+                callback.failed(failure);
+        }
+
+        private void deliver()
+        {
+            // Only one thread at a time delivers, so that chunks are delivered in order;
+            // demand from within the listener is accumulated and processed by this loop.
+            while (true)
+            {
+                ContentChunk chunk;
+                synchronized (this)
+                {
+                    chunk = demand > 0 && failure == null ? chunks.poll() : null;
+                    if (chunk == null)
+                    {
+                        delivering = false;
+                        return;
+                    }
+                    --demand;
+                }
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Delivering demanded content {} to {}", BufferUtil.toDetailString(chunk.buffer), listener);
+                ResponseNotifier notifier = getHttpDestination().getResponseNotifier();
+                notifier.notifyContent(listener, exchange.getResponse(), this, chunk.buffer, chunk.callback);
+            }
+        }
+
+        private void fail(Throwable x)
+        {
+            List<ContentChunk> failed;
+            synchronized (this)
+            {
+                if (failure != null)
+                    return;
+                failure = x;
+                failed = new ArrayList<>(chunks);
+                chunks.clear();
+            }
+            for (ContentChunk chunk : failed)
+                chunk.callback.failed(x);
+        }
+    }
+
+    private static class ContentChunk
+    {
+        private final ByteBuffer buffer;
+        private final Callback callback;
+
+        private ContentChunk(ByteBuffer buffer, Callback callback)
+        {
+            this.buffer = buffer;
+            this.callback = callback;
+        }
+    }
+
     /**
      * The request states {@link HttpReceiver} goes through when receiving a response.
      */
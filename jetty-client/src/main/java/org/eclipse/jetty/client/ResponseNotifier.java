@@ -21,6 +21,7 @@ package org.eclipse.jetty.client;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.LongConsumer;
 
 import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
@@ -129,6 +130,50 @@ public class ResponseNotifier
         }
     }
 
+    void notifyBeforeContent(Response.DemandedContentListener listener, Response response, LongConsumer demand)
+    {
+        try
+        {
+            listener.onBeforeContent(response, demand);
+        }
+        catch (Throwable x)
+        {
+            LOG.info("Exception while notifying listener " + listener, x);
+        }
+    }
+
+    void notifyContent(Response.DemandedContentListener listener, Response response, LongConsumer demand, ByteBuffer buffer, Callback callback)
+    {
+        try
+        {
+            listener.onContent(response, demand, buffer, callback);
+        }
+        catch (Throwable x)
+        {
+            LOG.info("Exception while notifying listener " + listener, x);
+        }
+    }
+
+    private void forwardContent(List<Response.ResponseListener> listeners, Response response)
+    {
+        ByteBuffer buffer = response instanceof ContentResponse ? ByteBuffer.wrap(((ContentResponse)response).getContent()) : null;
+        if (buffer != null)
+            notifyContent(listeners, response, buffer, Callback.NOOP);
+        // The content has already been received, so the demand is ignored.
+        LongConsumer demand = n -> {};
+        for (int i = 0; i < listeners.size(); ++i)
+        {
+            Response.ResponseListener listener = listeners.get(i);
+            if (listener instanceof Response.DemandedContentListener)
+            {
+                Response.DemandedContentListener demanded = (Response.DemandedContentListener)listener;
+                notifyBeforeContent(demanded, response, demand);
+                if (buffer != null)
+                    notifyContent(demanded, response, demand, buffer.slice(), Callback.NOOP);
+            }
+        }
+    }
+
     public void notifySuccess(List<Response.ResponseListener> listeners, Response response)
     {
         // Optimized to avoid allocations of iterator instances
@@ -208,8 +253,7 @@ public class ResponseNotifier
                 iterator.remove();
         }
         notifyHeaders(listeners, response);
-        if (response instanceof ContentResponse)
-            notifyContent(listeners, response, ByteBuffer.wrap(((ContentResponse)response).getContent()), Callback.NOOP);
+        forwardContent(listeners, response);
         notifySuccess(listeners, response);
     }
 
@@ -229,8 +273,7 @@ public class ResponseNotifier
                 iterator.remove();
         }
         notifyHeaders(listeners, response);
-        if (response instanceof ContentResponse)
-            notifyContent(listeners, response, ByteBuffer.wrap(((ContentResponse)response).getContent()), Callback.NOOP);
+        forwardContent(listeners, response);
         notifyFailure(listeners, response, failure);
     }
 
@@ -263,7 +306,14 @@ public class ResponseNotifier
                 return Action.SUCCEEDED;
 
             Response.ResponseListener listener = listeners.get(index);
-            if (listener instanceof Response.AsyncContentListener)
+            if (listener instanceof Response.DemandedContentListener)
+            {
+                // Demanded listeners get the content when they demand it,
+                // even if they also implement AsyncContentListener.
+                succeeded();
+                return Action.SCHEDULED;
+            }
+            else if (listener instanceof Response.AsyncContentListener)
             {
                 // The buffer was sliced, so we always clear it
                 // (clear => position=0, limit=capacity) before
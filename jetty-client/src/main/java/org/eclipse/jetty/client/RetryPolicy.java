@@ -0,0 +1,93 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import org.eclipse.jetty.client.api.Request;
+
+/**
+ * <p>A per-{@link HttpDestination} policy that decides whether requests
+ * that failed before a response arrived are retried, and whether requests
+ * whose response is slow to arrive are hedged, that is, sent again
+ * concurrently on a different connection.</p>
+ * <p>Only requests that are {@link #isRetryable(Request) retryable} are
+ * subject to the policy. Those requests are never sent themselves: each
+ * attempt is a copy of the original request in its own conversation, and
+ * the response of the first attempt that begins is forwarded to the
+ * original request listeners, while the other attempts are aborted.</p>
+ * <p>Aborting the original request aborts all its attempts.</p>
+ *
+ * @see HttpClient#setRetryPolicyFactory(Factory)
+ */
+public interface RetryPolicy
+{
+    /**
+     * @param request the request to check
+     * @return whether the given request can be safely sent more than once
+     */
+    boolean isRetryable(Request request);
+
+    /**
+     * <p>Returns the delay before retrying a request whose last attempt failed
+     * before the response began.</p>
+     * <p>A non-negative value consumes one retry from the policy budget, if any.</p>
+     *
+     * @param request the original request
+     * @param retries the number of retries already performed
+     * @param failure the failure of the last attempt
+     * @return the delay in milliseconds before retrying, or a negative value to not retry
+     */
+    long getRetryDelay(Request request, int retries, Throwable failure);
+
+    /**
+     * @param request the original request
+     * @return the delay in milliseconds after which a hedged attempt is sent
+     * if the response did not begin, or a negative value to not hedge
+     */
+    long getHedgeDelay(Request request);
+
+    /**
+     * <p>Returns whether a hedged attempt can be sent now.</p>
+     * <p>A true value consumes one hedge from the policy budget, if any.</p>
+     *
+     * @param request the original request
+     * @param hedges the number of hedged attempts already sent
+     * @return whether a hedged attempt can be sent
+     */
+    boolean canHedge(Request request, int hedges);
+
+    /**
+     * <p>Callback method invoked when the response of an attempt begins.</p>
+     *
+     * @param request the original request
+     * @param latency the time, in nanoseconds, between the send of the attempt and the response begin
+     */
+    void onResponseBegin(Request request, long latency);
+
+    /**
+     * Factory for {@link RetryPolicy} instances.
+     */
+    interface Factory
+    {
+        /**
+         * @param destination the destination the retry policy applies to
+         * @return a new retry policy for the given destination
+         */
+        RetryPolicy newRetryPolicy(HttpDestination destination);
+    }
+}
@@ -0,0 +1,596 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.net.HttpCookie;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+/**
+ * <p>Sends attempts of a request on behalf of a {@link RetryPolicy}.</p>
+ * <p>The original request is never sent: each attempt is a copy of the
+ * original request, in its own conversation so that protocol handlers
+ * work independently for each attempt.
+ * The events of the first attempt whose response begins are forwarded to
+ * the original response listeners; the other attempts are aborted.
+ * Attempts that fail before their response begins are retried as long as
+ * the policy allows it, and only the last failure is forwarded.</p>
+ * <p>The request listeners of the original request are notified of the
+ * events of every attempt, with the original request as argument, except
+ * for the failures of attempts that have been superseded.
+ * The response and result events carry the original request as well.</p>
+ * <p>The original request is associated to an exchange that is never sent,
+ * so that aborting the original request (explicitly or because of its
+ * total timeout) aborts all the attempts.</p>
+ */
+class RetryingResponseListener implements Response.Listener
+{
+    private static final Logger LOG = Log.getLogger(RetryingResponseListener.class);
+
+    private final List<Attempt> attempts = new ArrayList<>();
+    private final HttpDestination destination;
+    private final RetryPolicy policy;
+    private final HttpRequest request;
+    private final List<Response.ResponseListener> listeners;
+    private final ResponseNotifier notifier;
+    private Attempt winner;
+    private Response winnerResponse;
+    private int retries;
+    private int hedges;
+    private boolean complete;
+    private Scheduler.Task task;
+
+    RetryingResponseListener(HttpDestination destination, RetryPolicy policy, HttpRequest request, List<Response.ResponseListener> listeners)
+    {
+        this.destination = destination;
+        this.policy = policy;
+        this.request = request;
+        this.listeners = listeners;
+        this.notifier = destination.getResponseNotifier();
+    }
+
+    void send()
+    {
+        new HttpExchange(destination, request, Collections.singletonList(this));
+        attempt();
+    }
+
+    private void attempt()
+    {
+        if (send(false))
+            scheduleHedge();
+    }
+
+    private void hedge()
+    {
+        synchronized (this)
+        {
+            if (complete || winner != null || !policy.canHedge(request, hedges))
+                return;
+            ++hedges;
+        }
+        if (send(true))
+            scheduleHedge();
+    }
+
+    private boolean send(boolean hedge)
+    {
+        Attempt attempt = new Attempt(copyRequest());
+        synchronized (this)
+        {
+            if (complete)
+                return false;
+            attempts.add(attempt);
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Sending {}attempt {} of {}", hedge ? "hedged " : "", attempt.request, request);
+        destination.send(new HttpExchange(destination, attempt.request, Collections.singletonList(this)));
+        return true;
+    }
+
+    private HttpRequest copyRequest()
+    {
+        HttpRequest copy = destination.getHttpClient().newHttpRequest(new HttpConversation(), request.getURI());
+        copy.method(request.getMethod())
+                .version(request.getVersion())
+                .idleTimeout(request.getIdleTimeout(), TimeUnit.MILLISECONDS)
+                .followRedirects(request.isFollowRedirects());
+        HttpFields headers = copy.getHeaders();
+        headers.clear();
+        headers.add(request.getHeaders());
+        for (HttpCookie cookie : request.getCookies())
+            copy.cookie(cookie);
+        for (Map.Entry<String, Object> entry : request.getAttributes().entrySet())
+            copy.attribute(entry.getKey(), entry.getValue());
+        copy.listener(new RequestForwarder());
+        return copy;
+    }
+
+    private void scheduleHedge()
+    {
+        long delay = policy.getHedgeDelay(request);
+        if (delay >= 0)
+            schedule(this::hedge, delay);
+    }
+
+    private void schedule(Runnable action, long delay)
+    {
+        Scheduler.Task task = destination.getHttpClient().getScheduler().schedule(action, delay, TimeUnit.MILLISECONDS);
+        Scheduler.Task existing;
+        boolean cancel;
+        synchronized (this)
+        {
+            existing = this.task;
+            cancel = complete;
+            this.task = cancel ? null : task;
+        }
+        if (existing != null)
+            existing.cancel();
+        if (cancel)
+            task.cancel();
+    }
+
+    private Scheduler.Task cancelTask()
+    {
+        Scheduler.Task task = this.task;
+        this.task = null;
+        return task;
+    }
+
+    private Attempt attemptOf(Request request)
+    {
+        HttpConversation conversation = ((HttpRequest)request).getConversation();
+        for (Attempt attempt : attempts)
+        {
+            if (attempt.request.getConversation() == conversation)
+                return attempt;
+        }
+        return null;
+    }
+
+    private boolean isWinner(Response response)
+    {
+        synchronized (this)
+        {
+            return !complete && winner != null && winner == attemptOf(response.getRequest());
+        }
+    }
+
+    @Override
+    public void onBegin(Response response)
+    {
+        Attempt attempt;
+        List<Attempt> losers = null;
+        Scheduler.Task task = null;
+        boolean first = false;
+        boolean forward;
+        synchronized (this)
+        {
+            attempt = attemptOf(response.getRequest());
+            if (complete || attempt == null)
+                return;
+            if (winner == null)
+            {
+                first = true;
+                winner = attempt;
+                task = cancelTask();
+                winnerResponse = new OriginalResponse(response);
+                losers = new ArrayList<>(attempts);
+                losers.remove(attempt);
+                for (Attempt loser : losers)
+                    loser.superseded = true;
+            }
+            forward = winner == attempt;
+        }
+
+        if (task != null)
+            task.cancel();
+
+        if (first)
+        {
+            policy.onResponseBegin(request, System.nanoTime() - attempt.nanoTime);
+            abort(losers, new CancellationException("Superseded by " + attempt.request));
+        }
+
+        if (forward)
+            notifier.notifyBegin(listeners, winnerResponse);
+    }
+
+    @Override
+    public boolean onHeader(Response response, HttpField field)
+    {
+        return !isWinner(response) || notifier.notifyHeader(listeners, winnerResponse, field);
+    }
+
+    @Override
+    public void onHeaders(Response response)
+    {
+        if (isWinner(response))
+            notifier.notifyHeaders(listeners, winnerResponse);
+    }
+
+    @Override
+    public void onContent(Response response, ByteBuffer content)
+    {
+        // Content is notified via the asynchronous method.
+    }
+
+    @Override
+    public void onContent(Response response, ByteBuffer content, Callback callback)
+    {
+        if (isWinner(response))
+            notifier.notifyContent(listeners, winnerResponse, content, callback);
+        else
+            callback.succeeded();
+    }
+
+    @Override
+    public void onSuccess(Response response)
+    {
+        if (isWinner(response))
+            notifier.notifySuccess(listeners, winnerResponse);
+    }
+
+    @Override
+    public void onFailure(Response response, Throwable failure)
+    {
+        // Failures before the response begins are notified in onComplete(),
+        // only when the policy does not allow to retry.
+        if (isWinner(response))
+            notifier.notifyFailure(listeners, winnerResponse, failure);
+    }
+
+    @Override
+    public void onComplete(Result result)
+    {
+        HttpRequest attemptRequest = (HttpRequest)result.getRequest();
+        if (attemptRequest.getConversation() == request.getConversation())
+        {
+            // The original request has been aborted.
+            List<Attempt> attempts;
+            Scheduler.Task task;
+            synchronized (this)
+            {
+                if (complete)
+                    return;
+                complete = true;
+                task = cancelTask();
+                attempts = new ArrayList<>(this.attempts);
+            }
+            if (task != null)
+                task.cancel();
+            abort(attempts, result.getFailure());
+            notifyFailureComplete(result.getResponse(), result);
+            return;
+        }
+
+        boolean forward = false;
+        boolean fail = false;
+        long delay = -1;
+        synchronized (this)
+        {
+            Attempt attempt = attemptOf(attemptRequest);
+            if (complete || attempt == null || attempt.done)
+                return;
+            attempt.done = true;
+            if (winner != null)
+            {
+                if (winner != attempt)
+                    return;
+                complete = true;
+                forward = true;
+            }
+            else
+            {
+                for (Attempt other : attempts)
+                {
+                    // Wait for the other attempts to complete.
+                    if (!other.done)
+                        return;
+                }
+                delay = policy.getRetryDelay(request, retries, result.getFailure());
+                if (delay < 0)
+                {
+                    complete = true;
+                    fail = true;
+                }
+                else
+                {
+                    ++retries;
+                }
+            }
+        }
+
+        if (forward)
+        {
+            notifier.notifyComplete(listeners, originalResult(winnerResponse, result));
+        }
+        else if (fail)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Not retrying {} after {} retries", request, retries, result.getFailure());
+            notifyFailureComplete(new OriginalResponse(result.getResponse()), result);
+        }
+        else
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Retrying {} in {} ms", request, delay, result.getFailure());
+            schedule(this::attempt, delay);
+        }
+    }
+
+    private void notifyFailureComplete(Response response, Result result)
+    {
+        notifier.notifyFailure(listeners, response, result.getFailure());
+        notifier.notifyComplete(listeners, originalResult(response, result));
+    }
+
+    private Result originalResult(Response response, Result result)
+    {
+        return new Result(request, result.getRequestFailure(), response, result.getResponseFailure());
+    }
+
+    private boolean isSuperseded(Request request)
+    {
+        synchronized (this)
+        {
+            Attempt attempt = attemptOf(request);
+            return attempt != null && attempt.superseded;
+        }
+    }
+
+    private void abort(List<Attempt> attempts, Throwable failure)
+    {
+        for (Attempt attempt : attempts)
+            attempt.request.abort(failure);
+    }
+
+    @Override
+    public String toString()
+    {
+        synchronized (this)
+        {
+            return String.format("%s@%x[%s,attempts=%d,retries=%d,hedges=%d,complete=%b]",
+                    getClass().getSimpleName(),
+                    hashCode(),
+                    request,
+                    attempts.size(),
+                    retries,
+                    hedges,
+                    complete);
+        }
+    }
+
+    private static class Attempt
+    {
+        private final long nanoTime = System.nanoTime();
+        private final HttpRequest request;
+        private boolean done;
+        private boolean superseded;
+
+        private Attempt(HttpRequest request)
+        {
+            this.request = request;
+        }
+    }
+
+    /**
+     * <p>Notifies the request listeners of the original request
+     * of the events of an attempt.</p>
+     */
+    private class RequestForwarder implements Request.Listener
+    {
+        @Override
+        public void onQueued(Request attempt)
+        {
+            for (Request.QueuedListener listener : request.getRequestListeners(Request.QueuedListener.class))
+            {
+                try
+                {
+                    listener.onQueued(request);
+                }
+                catch (Throwable x)
+                {
+                    LOG.info("Exception while notifying listener " + listener, x);
+                }
+            }
+        }
+
+        @Override
+        public void onBegin(Request attempt)
+        {
+            for (Request.BeginListener listener : request.getRequestListeners(Request.BeginListener.class))
+            {
+                try
+                {
+                    listener.onBegin(request);
+                }
+                catch (Throwable x)
+                {
+                    LOG.info("Exception while notifying listener " + listener, x);
+                }
+            }
+        }
+
+        @Override
+        public void onHeaders(Request attempt)
+        {
+            for (Request.HeadersListener listener : request.getRequestListeners(Request.HeadersListener.class))
+            {
+                try
+                {
+                    listener.onHeaders(request);
+                }
+                catch (Throwable x)
+                {
+                    LOG.info("Exception while notifying listener " + listener, x);
+                }
+            }
+        }
+
+        @Override
+        public void onCommit(Request attempt)
+        {
+            for (Request.CommitListener listener : request.getRequestListeners(Request.CommitListener.class))
+            {
+                try
+                {
+                    listener.onCommit(request);
+                }
+                catch (Throwable x)
+                {
+                    LOG.info("Exception while notifying listener " + listener, x);
+                }
+            }
+        }
+
+        @Override
+        public void onContent(Request attempt, ByteBuffer content)
+        {
+            for (Request.ContentListener listener : request.getRequestListeners(Request.ContentListener.class))
+            {
+                try
+                {
+                    listener.onContent(request, content.slice());
+                }
+                catch (Throwable x)
+                {
+                    LOG.info("Exception while notifying listener " + listener, x);
+                }
+            }
+        }
+
+        @Override
+        public void onSuccess(Request attempt)
+        {
+            for (Request.SuccessListener listener : request.getRequestListeners(Request.SuccessListener.class))
+            {
+                try
+                {
+                    listener.onSuccess(request);
+                }
+                catch (Throwable x)
+                {
+                    LOG.info("Exception while notifying listener " + listener, x);
+                }
+            }
+        }
+
+        @Override
+        public void onFailure(Request attempt, Throwable failure)
+        {
+            // Attempts aborted because another attempt won are not failures of the original request.
+            if (isSuperseded(attempt))
+                return;
+            for (Request.FailureListener listener : request.getRequestListeners(Request.FailureListener.class))
+            {
+                try
+                {
+                    listener.onFailure(request, failure);
+                }
+                catch (Throwable x)
+                {
+                    LOG.info("Exception while notifying listener " + listener, x);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>The response of an attempt, as seen by the original request.</p>
+     */
+    private class OriginalResponse implements Response
+    {
+        private final Response response;
+
+        private OriginalResponse(Response response)
+        {
+            this.response = response;
+        }
+
+        @Override
+        public Request getRequest()
+        {
+            return request;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends ResponseListener> List<T> getListeners(Class<T> type)
+        {
+            ArrayList<T> result = new ArrayList<>();
+            for (ResponseListener listener : listeners)
+                if (type == null || type.isInstance(listener))
+                    result.add((T)listener);
+            return result;
+        }
+
+        @Override
+        public HttpVersion getVersion()
+        {
+            return response.getVersion();
+        }
+
+        @Override
+        public int getStatus()
+        {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getReason()
+        {
+            return response.getReason();
+        }
+
+        @Override
+        public HttpFields getHeaders()
+        {
+            return response.getHeaders();
+        }
+
+        @Override
+        public boolean abort(Throwable cause)
+        {
+            return request.abort(cause);
+        }
+
+        @Override
+        public String toString()
+        {
+            return response.toString();
+        }
+    }
+}
@@ -19,8 +19,11 @@
 package org.eclipse.jetty.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -55,6 +58,14 @@ import org.eclipse.jetty.util.thread.Scheduler;
  * This case is however unavoidable and may be mitigated by
  * tuning the idle timeout of the servers to be larger than
  * that of the client.</p>
+ * <p>Additionally, idle connections can be validated in background:
+ * idle connections that have been closed, or that have been idle for
+ * longer than {@link #getMaxIdleTime() the max idle time}, are removed
+ * from the pool and closed, and replaced with new connections if they
+ * are needed to maintain {@link #getMinIdleConnections() the min number
+ * of idle connections}. Setting the max idle time shorter than the idle
+ * timeout of the servers makes the client close idle connections before
+ * the servers do, avoiding the race described above.</p>
  */
 public class ValidatingConnectionPool extends DuplexConnectionPool
 {
@@ -63,6 +74,9 @@ public class ValidatingConnectionPool extends DuplexConnectionPool
     private final Scheduler scheduler;
     private final long timeout;
     private final Map<Connection, Holder> quarantine;
+    private final Map<Connection, Long> idleTimestamps = new ConcurrentHashMap<>();
+    private long maxIdleTime;
+    private Scheduler.Task validationTask;
 
     public ValidatingConnectionPool(Destination destination, int maxConnections, Callback requester, Scheduler scheduler, long timeout)
     {
@@ -78,6 +92,21 @@ public class ValidatingConnectionPool extends DuplexConnectionPool
         return quarantine.size();
     }
 
+    @ManagedAttribute("The max time, in milliseconds, a connection may be idle before being replaced")
+    public long getMaxIdleTime()
+    {
+        return maxIdleTime;
+    }
+
+    /**
+     * @param maxIdleTime the max time, in milliseconds, a connection may be idle
+     * before being replaced, or zero to not validate idle connections
+     */
+    public void setMaxIdleTime(long maxIdleTime)
+    {
+        this.maxIdleTime = maxIdleTime;
+    }
+
     @Override
     public boolean release(Connection connection)
     {
@@ -128,6 +157,122 @@ public class ValidatingConnectionPool extends DuplexConnectionPool
         return super.remove(connection);
     }
 
+    @Override
+    protected boolean idle(Connection connection, boolean close)
+    {
+        boolean idle = super.idle(connection, close);
+        if (idle && getMaxIdleTime() > 0)
+        {
+            idleTimestamps.put(connection, System.nanoTime());
+            scheduleValidation();
+        }
+        return idle;
+    }
+
+    @Override
+    protected void acquired(Connection connection)
+    {
+        idleTimestamps.remove(connection);
+        super.acquired(connection);
+    }
+
+    @Override
+    protected void removed(Connection connection)
+    {
+        idleTimestamps.remove(connection);
+        super.removed(connection);
+    }
+
+    @Override
+    public void close()
+    {
+        Scheduler.Task task;
+        lock();
+        try
+        {
+            task = validationTask;
+            validationTask = null;
+        }
+        finally
+        {
+            unlock();
+        }
+        if (task != null)
+            task.cancel();
+        idleTimestamps.clear();
+        super.close();
+    }
+
+    private void scheduleValidation()
+    {
+        long now = System.nanoTime();
+        long oldest = idleTimestamps.values().stream().mapToLong(Long::longValue).min().orElse(now);
+        long delay = getMaxIdleTime() - TimeUnit.NANOSECONDS.toMillis(now - oldest);
+        lock();
+        try
+        {
+            if (validationTask != null || isClosed())
+                return;
+            validationTask = scheduler.schedule(this::validateIdle, Math.max(1, delay), TimeUnit.MILLISECONDS);
+        }
+        finally
+        {
+            unlock();
+        }
+    }
+
+    private void validateIdle()
+    {
+        lock();
+        try
+        {
+            validationTask = null;
+        }
+        finally
+        {
+            unlock();
+        }
+
+        long now = System.nanoTime();
+        long maxIdle = TimeUnit.MILLISECONDS.toNanos(getMaxIdleTime());
+        List<Connection> expired = new ArrayList<>();
+        for (Map.Entry<Connection, Long> entry : idleTimestamps.entrySet())
+        {
+            Connection connection = entry.getKey();
+            if (connection.isClosed() || now - entry.getValue() >= maxIdle)
+                expired.add(connection);
+        }
+
+        for (Connection connection : expired)
+        {
+            boolean removed;
+            lock();
+            try
+            {
+                // Only idle connections are replaced, as the
+                // connection may have been acquired concurrently.
+                removed = getIdleConnections().remove(connection);
+            }
+            finally
+            {
+                unlock();
+            }
+
+            idleTimestamps.remove(connection);
+            if (removed)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Replacing idle {}", connection);
+                removed(connection);
+                connection.close();
+                fillIdle();
+            }
+        }
+
+        if (!idleTimestamps.isEmpty())
+            scheduleValidation();
+    }
+
     @Override
     public void dump(Appendable out, String indent) throws IOException
     {
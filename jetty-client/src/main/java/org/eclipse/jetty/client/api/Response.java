@@ -21,6 +21,7 @@ package org.eclipse.jetty.client.api;
 import java.nio.ByteBuffer;
 import java.util.EventListener;
 import java.util.List;
+import java.util.function.LongConsumer;
 
 import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.http.HttpField;
@@ -160,6 +161,40 @@ public interface Response
         public void onContent(Response response, ByteBuffer content, Callback callback);
     }
 
+    /**
+     * <p>Asynchronous listener for the response content events, with demand-driven flow control.</p>
+     * <p>Content is delivered to this listener only if it has demanded it: each invocation of
+     * {@link #onContent(Response, LongConsumer, ByteBuffer, Callback)} consumes one unit of demand,
+     * and further demand is expressed by calling {@link LongConsumer#accept(long)} on the
+     * {@code demand} object, from any thread and at any time.</p>
+     * <p>The network is not read until the content delivered to this listener has been consumed
+     * (by completing the {@code callback}) and there is demand for more content, so that a slow
+     * consumer applies backpressure to the server (via TCP or HTTP/2 flow control) without
+     * blocking threads nor buffering content.</p>
+     */
+    public interface DemandedContentListener extends ResponseListener
+    {
+        /**
+         * <p>Callback method invoked after the response headers have been received and before
+         * the response content, if any, is delivered.</p>
+         * <p>Implementations must call {@code demand.accept(n)}, with {@code n > 0}, to receive content.</p>
+         *
+         * @param response the response containing the response line data and the headers
+         * @param demand the object to demand content
+         */
+        public void onBeforeContent(Response response, LongConsumer demand);
+
+        /**
+         * Callback method invoked asynchronously when the demanded response content has been received.
+         *
+         * @param response the response containing the response line data and the headers
+         * @param demand the object to demand more content
+         * @param content the content bytes received
+         * @param callback the callback to call when the content is consumed
+         */
+        public void onContent(Response response, LongConsumer demand, ByteBuffer content, Callback callback);
+    }
+
     /**
      * Listener for the response succeeded event.
      */
@@ -28,11 +28,14 @@ import org.eclipse.jetty.client.Origin;
 import org.eclipse.jetty.client.api.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 
 @ManagedObject("The HTTP/1.1 client transport")
 public class HttpClientTransportOverHTTP extends AbstractConnectorHttpClientTransport
 {
+    private int maxRequestsPipelined = 1;
+
     public HttpClientTransportOverHTTP()
     {
         this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
@@ -44,6 +47,30 @@ public class HttpClientTransportOverHTTP extends AbstractConnectorHttpClientTran
         setConnectionPoolFactory(destination -> new DuplexConnectionPool(destination, getHttpClient().getMaxConnectionsPerDestination(), destination));
     }
 
+    @ManagedAttribute("The max number of requests pipelined per connection")
+    public int getMaxRequestsPipelined()
+    {
+        return maxRequestsPipelined;
+    }
+
+    /**
+     * <p>Sets the max number of requests that may be outstanding on a single connection.</p>
+     * <p>The default value of 1 disables pipelining; a larger value enables HTTP/1.1
+     * pipelining of idempotent requests without content, so that requests queued in a
+     * destination are written back-to-back on connections already in use.
+     * Pipelining is most effective when combined with a small
+     * {@link org.eclipse.jetty.client.HttpClient#setMaxConnectionsPerDestination(int)
+     * max number of connections per destination}.</p>
+     * <p>The value applies to connections opened after this method is called.</p>
+     *
+     * @param maxRequestsPipelined the max number of requests pipelined per connection
+     * @see HttpConnectionOverHTTP#setMaxRequestsPipelined(int)
+     */
+    public void setMaxRequestsPipelined(int maxRequestsPipelined)
+    {
+        this.maxRequestsPipelined = maxRequestsPipelined;
+    }
+
     @Override
     public HttpDestination newHttpDestination(Origin origin)
     {
@@ -57,6 +84,7 @@ public class HttpClientTransportOverHTTP extends AbstractConnectorHttpClientTran
         @SuppressWarnings("unchecked")
         Promise<Connection> promise = (Promise<Connection>)context.get(HTTP_CONNECTION_PROMISE_CONTEXT_KEY);
         HttpConnectionOverHTTP connection = newHttpConnection(endPoint, destination, promise);
+        connection.setMaxRequestsPipelined(getMaxRequestsPipelined());
         if (LOG.isDebugEnabled())
             LOG.debug("Created {}", connection);
         return customize(connection, context);
@@ -20,6 +20,11 @@ package org.eclipse.jetty.client.http;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -31,8 +36,16 @@ import org.eclipse.jetty.client.SendFailure;
 import org.eclipse.jetty.client.api.Connection;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
@@ -47,6 +60,11 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
     private final Promise<Connection> promise;
     private final Delegate delegate;
     private final HttpChannelOverHTTP channel;
+    private final Deque<HttpChannelOverHTTP> pipeline = new ArrayDeque<>();
+    private final Queue<HttpChannelOverHTTP> idleChannels = new ArrayDeque<>();
+    private int maxRequestsPipelined = 1;
+    private int activeChannels;
+    private HttpChannelOverHTTP sendingChannel;
     private long idleTimeout;
 
     public HttpConnectionOverHTTP(EndPoint endPoint, HttpDestination destination, Promise<Connection> promise)
@@ -72,6 +90,62 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
         return (HttpDestinationOverHTTP)delegate.getHttpDestination();
     }
 
+    /**
+     * @return the max number of requests that may be outstanding on this connection
+     * @see #setMaxRequestsPipelined(int)
+     */
+    public int getMaxRequestsPipelined()
+    {
+        return maxRequestsPipelined;
+    }
+
+    /**
+     * <p>Sets the max number of requests that may be outstanding on this connection.</p>
+     * <p>A value greater than 1 enables HTTP/1.1 pipelining: after a request has been
+     * written, queued requests of the destination that are {@link #isPipelinable(Request)
+     * pipelinable} are written on this connection without waiting for the previous
+     * responses, which are then received in order.</p>
+     * <p>This method must be called before the connection is used to send requests.</p>
+     *
+     * @param maxRequestsPipelined the max number of outstanding requests
+     */
+    public void setMaxRequestsPipelined(int maxRequestsPipelined)
+    {
+        this.maxRequestsPipelined = Math.max(1, maxRequestsPipelined);
+    }
+
+    /**
+     * @return whether HTTP/1.1 pipelining is enabled for this connection
+     */
+    public boolean isPipelining()
+    {
+        return maxRequestsPipelined > 1;
+    }
+
+    /**
+     * <p>Returns whether the given request may be pipelined.</p>
+     * <p>Only requests with an idempotent method, HTTP/1.1 version, no content
+     * and no headers that require the connection to change state (such as
+     * {@code Connection: close}, {@code Upgrade} or {@code Expect}) are pipelined.</p>
+     *
+     * @param request the request to check
+     * @return whether the request may be pipelined
+     */
+    protected boolean isPipelinable(Request request)
+    {
+        HttpMethod method = HttpMethod.fromString(request.getMethod());
+        if (method == null || !method.isIdempotent())
+            return false;
+        if (request.getVersion() != HttpVersion.HTTP_1_1)
+            return false;
+        if (request.getContent() != null)
+            return false;
+        HttpFields headers = request.getHeaders();
+        return !headers.contains(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE.asString()) &&
+                !headers.containsKey(HttpHeader.UPGRADE.asString()) &&
+                !headers.containsKey(HttpHeader.EXPECT.asString());
+    }
+
     @Override
     public void send(Request request, Response.CompleteListener listener)
     {
@@ -88,9 +162,33 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
     {
         super.onOpen();
         fillInterested();
+        handshake();
         promise.succeeded(this);
     }
 
+    /**
+     * <p>Starts the TLS handshake, if any, so that it proceeds while the connection
+     * is idle, rather than when the first request is sent.</p>
+     */
+    private void handshake()
+    {
+        EndPoint endPoint = getEndPoint();
+        if (endPoint instanceof SslConnection.DecryptedEndPoint)
+        {
+            try
+            {
+                // Flushing no application data produces the TLS handshake data;
+                // the rest of the handshake is driven by fill interest.
+                endPoint.flush(BufferUtil.EMPTY_BUFFER);
+            }
+            catch (Throwable x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Could not start TLS handshake " + this, x);
+            }
+        }
+    }
+
     @Override
     public boolean isClosed()
     {
@@ -110,17 +208,182 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
     @Override
     public void onFillable()
     {
+        HttpChannelOverHTTP channel = getReceivingChannel();
         HttpExchange exchange = channel.getHttpExchange();
         if (exchange != null)
         {
             channel.receive();
         }
+        else if (fillIdle() == 0)
+        {
+            // No application bytes, for example TLS
+            // handshake bytes consumed by the fill.
+            fillInterested();
+        }
         else
         {
             // If there is no exchange, then could be either a remote close,
-            // or garbage bytes; in both cases we close the connection
+            // or garbage bytes; in both cases we close the connection, so
+            // the bytes read while idle are never passed to an exchange.
+            close();
+        }
+    }
+
+    /**
+     * @return the number of bytes read while there is no exchange, -1 if the
+     * connection was closed or failed; any non-zero value means that the
+     * connection cannot be reused
+     */
+    private int fillIdle()
+    {
+        try
+        {
+            int filled = getEndPoint().fill(BufferUtil.allocate(1));
+            if (filled > 0 && LOG.isDebugEnabled())
+                LOG.debug("Unexpected bytes while idle on {}", this);
+            return filled;
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug(x);
+            return -1;
+        }
+    }
+
+    private HttpChannelOverHTTP getReceivingChannel()
+    {
+        if (isPipelining())
+        {
+            synchronized (this)
+            {
+                HttpChannelOverHTTP head = pipeline.peek();
+                if (head != null)
+                    return head;
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * <p>Called when the response of the given channel has been received, before
+     * the response is notified, in order to let the next pipelined channel receive.</p>
+     *
+     * @param channel the channel whose response has been received
+     */
+    void responseComplete(HttpChannelOverHTTP channel)
+    {
+        synchronized (this)
+        {
+            pipeline.remove(channel);
+        }
+        pipelineNext(null);
+    }
+
+    /**
+     * <p>Called when the request of the given channel has been written.</p>
+     *
+     * @param channel the channel whose request has been written
+     */
+    void requestComplete(HttpChannelOverHTTP channel)
+    {
+        if (isPipelining())
+            pipelineNext(channel);
+    }
+
+    /**
+     * <p>Hands the given buffer, that may contain the beginning of the next
+     * pipelined response, to the channel at the head of the pipeline.</p>
+     *
+     * @param buffer the buffer to hand off, or null
+     */
+    void receiveNext(ByteBuffer buffer)
+    {
+        HttpChannelOverHTTP next;
+        synchronized (this)
+        {
+            next = pipeline.peek();
+        }
+
+        if (next != null && !isClosed())
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Receiving pipelined response on {}", next);
+            next.getHttpReceiver().receive(buffer);
+            return;
+        }
+
+        boolean garbage = BufferUtil.hasContent(buffer);
+        if (buffer != null)
+        {
+            BufferUtil.clear(buffer);
+            ByteBufferPool bufferPool = getHttpDestination().getHttpClient().getByteBufferPool();
+            bufferPool.release(buffer);
+        }
+
+        if (isClosed())
+            return;
+        // Bytes without a pipelined request waiting for them.
+        if (garbage)
             close();
+        else
+            fillInterested();
+    }
+
+    /**
+     * <p>Called when exchanges are queued on the destination while this connection is
+     * in use, to pipeline them if the previous request has already been written.</p>
+     */
+    void pipelineQueued()
+    {
+        pipelineNext(null);
+    }
+
+    private void pipelineNext(HttpChannelOverHTTP written)
+    {
+        HttpDestinationOverHTTP destination = getHttpDestination();
+        HttpExchange exchange;
+        HttpChannelOverHTTP next;
+        synchronized (this)
+        {
+            if (written != null)
+            {
+                if (sendingChannel != written)
+                    return;
+                sendingChannel = null;
+            }
+
+            if (sendingChannel != null || isClosed())
+                return;
+            // Only pipeline on a connection that is in use, otherwise the
+            // connection is in the pool and may be acquired by another thread.
+            if (activeChannels == 0 || activeChannels >= maxRequestsPipelined)
+                return;
+            // Do not pipeline after a request that may change the connection state.
+            for (HttpChannelOverHTTP pipelined : pipeline)
+            {
+                HttpExchange pending = pipelined.getHttpExchange();
+                if (pending == null || !isPipelinable(pending.getRequest()) || pipelined.getHttpSender().isShutdown())
+                    return;
+            }
+
+            exchange = destination.getHttpExchanges().peek();
+            if (exchange == null || !isPipelinable(exchange.getRequest()) || !destination.remove(exchange))
+                return;
+
+            next = idleChannels.poll();
+            if (next == null)
+                next = newHttpChannel();
+            ++activeChannels;
+            pipeline.offer(next);
+            sendingChannel = next;
         }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("Pipelining {} on {}", exchange, this);
+        SendFailure result = delegate.pipeline(next, exchange);
+        if (result != null)
+            exchange.getRequest().abort(result.failure);
     }
 
     @Override
@@ -137,6 +400,27 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
         getHttpDestination().release(this);
     }
 
+    void release(HttpChannelOverHTTP channel)
+    {
+        if (isPipelining())
+        {
+            synchronized (this)
+            {
+                pipeline.remove(channel);
+                if (sendingChannel == channel)
+                    sendingChannel = null;
+                if (channel != this.channel)
+                    idleChannels.offer(channel);
+                // The connection is released only when
+                // all the pipelined exchanges are terminated.
+                if (--activeChannels > 0)
+                    return;
+            }
+            getHttpDestination().removePipeliningConnection(this);
+        }
+        release();
+    }
+
     @Override
     public void close()
     {
@@ -147,6 +431,7 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
     {
         if (closed.compareAndSet(false, true))
         {
+            getHttpDestination().removePipeliningConnection(this);
             getHttpDestination().close(this);
 
             abort(failure);
@@ -162,8 +447,26 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
 
     protected boolean abort(Throwable failure)
     {
+        boolean aborted = false;
+        if (isPipelining())
+        {
+            List<HttpChannelOverHTTP> pipelined;
+            synchronized (this)
+            {
+                pipelined = new ArrayList<>(pipeline);
+            }
+            // Pipelined exchanges cannot complete on a closed connection.
+            for (HttpChannelOverHTTP pending : pipelined)
+            {
+                if (pending == channel)
+                    continue;
+                HttpExchange exchange = pending.getHttpExchange();
+                if (exchange != null && exchange.getRequest().abort(failure))
+                    aborted = true;
+            }
+        }
         HttpExchange exchange = channel.getHttpExchange();
-        return exchange != null && exchange.getRequest().abort(failure);
+        return (exchange != null && exchange.getRequest().abort(failure)) || aborted;
     }
 
     @Override
@@ -184,12 +487,18 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
     @Override
     public String toConnectionString()
     {
-        return String.format("%s@%x(l:%s <-> r:%s,closed=%b)=>%s",
+        int pipelined;
+        synchronized (this)
+        {
+            pipelined = pipeline.size();
+        }
+        return String.format("%s@%x(l:%s <-> r:%s,closed=%b,pipelined=%d)=>%s",
             getClass().getSimpleName(),
             hashCode(),
             getEndPoint().getLocalAddress(),
             getEndPoint().getRemoteAddress(),
             closed.get(),
+            pipelined,
             channel);
     }
 
@@ -211,10 +520,27 @@ public class HttpConnectionOverHTTP extends AbstractConnection implements Connec
             idleTimeout = endPoint.getIdleTimeout();
             endPoint.setIdleTimeout(request.getIdleTimeout());
 
+            if (isPipelining())
+            {
+                synchronized (HttpConnectionOverHTTP.this)
+                {
+                    ++activeChannels;
+                    pipeline.offer(channel);
+                    sendingChannel = channel;
+                }
+                HttpConnectionOverHTTP.this.getHttpDestination().addPipeliningConnection(HttpConnectionOverHTTP.this);
+            }
+
             // One channel per connection, just delegate the send.
             return send(channel, exchange);
         }
 
+        private SendFailure pipeline(HttpChannelOverHTTP channel, HttpExchange exchange)
+        {
+            normalizeRequest(exchange.getRequest());
+            return send(channel, exchange);
+        }
+
         @Override
         public void close()
         {
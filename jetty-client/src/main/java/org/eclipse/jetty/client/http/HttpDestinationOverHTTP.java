@@ -18,6 +18,9 @@
 
 package org.eclipse.jetty.client.http;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.HttpExchange;
 import org.eclipse.jetty.client.Origin;
@@ -27,11 +30,37 @@ import org.eclipse.jetty.client.api.Connection;
 
 public class HttpDestinationOverHTTP extends PoolingHttpDestination
 {
+    private final Set<HttpConnectionOverHTTP> pipeliningConnections = ConcurrentHashMap.newKeySet();
+
     public HttpDestinationOverHTTP(HttpClient client, Origin origin)
     {
         super(client, origin);
     }
 
+    @Override
+    public void send()
+    {
+        super.send();
+        // Connections in use only look for queued exchanges after writing
+        // a request, so they are offered the exchanges queued since then.
+        for (HttpConnectionOverHTTP connection : pipeliningConnections)
+        {
+            if (getHttpExchanges().isEmpty())
+                break;
+            connection.pipelineQueued();
+        }
+    }
+
+    void addPipeliningConnection(HttpConnectionOverHTTP connection)
+    {
+        pipeliningConnections.add(connection);
+    }
+
+    void removePipeliningConnection(HttpConnectionOverHTTP connection)
+    {
+        pipeliningConnections.remove(connection);
+    }
+
     @Override
     protected SendFailure send(Connection connection, HttpExchange exchange)
     {
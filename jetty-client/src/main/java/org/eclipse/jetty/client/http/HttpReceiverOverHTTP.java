@@ -41,6 +41,7 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
     private final HttpParser parser = new HttpParser(this);
     private ByteBuffer buffer;
     private boolean shutdown;
+    private boolean complete;
 
     public HttpReceiverOverHTTP(HttpChannelOverHTTP channel)
     {
@@ -70,6 +71,20 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
         process();
     }
 
+    /**
+     * <p>Receives using the given buffer, handed off by the previous
+     * pipelined receiver and possibly containing response bytes.</p>
+     *
+     * @param buffer the buffer to use, or null to acquire a new one
+     */
+    void receive(ByteBuffer buffer)
+    {
+        if (this.buffer != null)
+            throw new IllegalStateException();
+        this.buffer = buffer;
+        receive();
+    }
+
     private void acquireBuffer()
     {
         HttpClient client = getHttpDestination().getHttpClient();
@@ -120,7 +135,20 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
                 }
 
                 if (parse())
+                {
+                    receiveNext();
                     return;
+                }
+
+                // The response is complete and the connection may already be
+                // idle: bytes read from now on must not be swallowed by the
+                // parser, so leave them to the idle check of the connection.
+                if (getHttpExchange() == null)
+                {
+                    releaseBuffer();
+                    fillInterested();
+                    return;
+                }
 
                 int read = endPoint.fill(buffer);
                 if (LOG.isDebugEnabled())
@@ -129,7 +157,10 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
                 if (read > 0)
                 {
                     if (parse())
+                    {
+                        receiveNext();
                         return;
+                    }
                 }
                 else if (read == 0)
                 {
@@ -175,6 +206,27 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
         }
     }
 
+    /**
+     * <p>When a pipelined response is complete, the remaining bytes belong to
+     * the next pipelined response, so the buffer is handed off to the connection.</p>
+     */
+    private void receiveNext()
+    {
+        if (!complete)
+            return;
+        complete = false;
+
+        ByteBuffer remaining = buffer;
+        buffer = null;
+        if (!BufferUtil.hasContent(remaining))
+        {
+            HttpClient client = getHttpDestination().getHttpClient();
+            client.getByteBufferPool().release(remaining);
+            remaining = null;
+        }
+        getHttpConnection().receiveNext(remaining);
+    }
+
     protected void fillInterested()
     {
         getHttpConnection().fillInterested();
@@ -220,7 +272,9 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
                 (HttpMethod.CONNECT.is(method) && status == HttpStatus.OK_200));
         exchange.getResponse().version(version).status(status).reason(reason);
 
-        return !responseBegin(exchange);
+        if (responseBegin(exchange))
+            return false;
+        return exchangeFailed();
     }
 
     @Override
@@ -240,7 +294,9 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
         if (exchange == null)
             return false;
 
-        return !responseHeaders(exchange);
+        if (responseHeaders(exchange))
+            return false;
+        return exchangeFailed();
     }
 
     @Override
@@ -268,6 +324,9 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
         // Do not short circuit these calls.
         boolean proceed = responseContent(exchange, buffer, callback);
         boolean async = callback.tryComplete();
+        // The content may still be in use if the callback is not completed.
+        if (!proceed && !async)
+            return exchangeFailed();
         return !proceed || async;
     }
 
@@ -294,9 +353,12 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
         if (exchange == null)
             return false;
 
+        HttpConnectionOverHTTP connection = getHttpConnection();
+        boolean pipelining = connection.isPipelining();
+        if (pipelining)
+            connection.responseComplete(getHttpChannel());
+
         boolean proceed = responseSuccess(exchange);
-        if (!proceed)
-            return true;
 
         int status = exchange.getResponse().getStatus();
         if (status == HttpStatus.SWITCHING_PROTOCOLS_101)
@@ -306,7 +368,30 @@ public class HttpReceiverOverHTTP extends HttpReceiver implements HttpParser.Res
                 status == HttpStatus.OK_200)
             return true;
 
-        return false;
+        if (pipelining)
+        {
+            // Stop parsing, the next response belongs to the next
+            // pipelined channel, even if this exchange has failed.
+            complete = true;
+            return true;
+        }
+
+        return !proceed;
+    }
+
+    /**
+     * <p>Called when the exchange has been aborted or has failed while its
+     * response is parsed. When pipelining, the buffer is handed off to the
+     * connection when the parsing stops, as for a complete response, so
+     * that it is not retained and the following responses are not stalled.</p>
+     *
+     * @return true, to stop the parsing
+     */
+    private boolean exchangeFailed()
+    {
+        if (getHttpConnection().isPipelining())
+            complete = true;
+        return true;
     }
 
     @Override
@@ -138,6 +138,18 @@ public class HttpSenderOverHTTP extends HttpSender
         }
     }
 
+    @Override
+    protected boolean someToSuccess(HttpExchange exchange)
+    {
+        boolean result = super.someToSuccess(exchange);
+        if (result)
+        {
+            HttpChannelOverHTTP channel = getHttpChannel();
+            channel.getHttpConnection().requestComplete(channel);
+        }
+        return result;
+    }
+
     @Override
     protected void sendTrailers(HttpExchange exchange, Callback callback)
     {
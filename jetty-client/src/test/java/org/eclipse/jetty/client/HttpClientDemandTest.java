@@ -0,0 +1,201 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HttpClientDemandTest extends AbstractHttpClientServerTest
+{
+    public HttpClientDemandTest(SslContextFactory sslContextFactory)
+    {
+        super(sslContextFactory);
+    }
+
+    @Test
+    public void testContentIsNotDeliveredWithoutDemand() throws Exception
+    {
+        byte[] content = new byte[64 * 1024];
+        Arrays.fill(content, (byte)'x');
+        start(new ChunkedContentHandler(content, 4));
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicInteger contents = new AtomicInteger();
+        AtomicReference<LongConsumer> demandRef = new AtomicReference<>();
+        CountDownLatch contentLatch = new CountDownLatch(1);
+        CountDownLatch completeLatch = new CountDownLatch(1);
+        client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .onResponseContentDemanded(new Response.DemandedContentListener()
+                {
+                    @Override
+                    public void onBeforeContent(Response response, LongConsumer demand)
+                    {
+                        demand.accept(1);
+                    }
+
+                    @Override
+                    public void onContent(Response response, LongConsumer demand, ByteBuffer buffer, Callback callback)
+                    {
+                        contents.incrementAndGet();
+                        byte[] bytes = new byte[buffer.remaining()];
+                        buffer.get(bytes);
+                        received.write(bytes, 0, bytes.length);
+                        callback.succeeded();
+                        demandRef.set(demand);
+                        contentLatch.countDown();
+                    }
+                })
+                .send(result ->
+                {
+                    if (result.isSucceeded())
+                        completeLatch.countDown();
+                });
+
+        Assert.assertTrue(contentLatch.await(5, TimeUnit.SECONDS));
+        // Without demand, no more content is delivered.
+        Assert.assertFalse(completeLatch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, contents.get());
+
+        // Unbounded demand receives the rest of the content.
+        demandRef.get().accept(Long.MAX_VALUE);
+
+        Assert.assertTrue(completeLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void testDemandFromListener() throws Exception
+    {
+        byte[] content = new byte[64 * 1024];
+        Arrays.fill(content, (byte)'y');
+        start(new ChunkedContentHandler(content, 8));
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        CountDownLatch completeLatch = new CountDownLatch(1);
+        client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .onResponseContentDemanded(new Response.DemandedContentListener()
+                {
+                    @Override
+                    public void onBeforeContent(Response response, LongConsumer demand)
+                    {
+                        demand.accept(1);
+                    }
+
+                    @Override
+                    public void onContent(Response response, LongConsumer demand, ByteBuffer buffer, Callback callback)
+                    {
+                        byte[] bytes = new byte[buffer.remaining()];
+                        buffer.get(bytes);
+                        received.write(bytes, 0, bytes.length);
+                        // Demand before completing the callback.
+                        demand.accept(1);
+                        callback.succeeded();
+                    }
+                })
+                .send(result ->
+                {
+                    if (result.isSucceeded())
+                        completeLatch.countDown();
+                });
+
+        Assert.assertTrue(completeLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void testInvalidDemandAbortsRequest() throws Exception
+    {
+        start(new ChunkedContentHandler(new byte[1024], 1));
+
+        AtomicReference<Result> resultRef = new AtomicReference<>();
+        CountDownLatch completeLatch = new CountDownLatch(1);
+        client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .onResponseContentDemanded(new Response.DemandedContentListener()
+                {
+                    @Override
+                    public void onBeforeContent(Response response, LongConsumer demand)
+                    {
+                        demand.accept(0);
+                    }
+
+                    @Override
+                    public void onContent(Response response, LongConsumer demand, ByteBuffer buffer, Callback callback)
+                    {
+                        callback.succeeded();
+                    }
+                })
+                .send(result ->
+                {
+                    resultRef.set(result);
+                    completeLatch.countDown();
+                });
+
+        Assert.assertTrue(completeLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(resultRef.get().isFailed());
+        Assert.assertTrue(resultRef.get().getFailure() instanceof IllegalArgumentException);
+    }
+
+    private static class ChunkedContentHandler extends EmptyServerHandler
+    {
+        private final byte[] content;
+        private final int chunks;
+
+        private ChunkedContentHandler(byte[] content, int chunks)
+        {
+            this.content = content;
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+        {
+            ServletOutputStream output = response.getOutputStream();
+            int chunkSize = content.length / chunks;
+            for (int i = 0; i < chunks; ++i)
+            {
+                int offset = i * chunkSize;
+                int length = i == chunks - 1 ? content.length - offset : chunkSize;
+                output.write(content, offset, length);
+                output.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.client.util.FutureResponseListener;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.toolchain.test.TestTracker;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class HttpClientPipeliningTest
+{
+    @Rule
+    public final TestTracker tracker = new TestTracker();
+    private HttpClient client;
+    private final AtomicInteger buffers = new AtomicInteger();
+
+    private void startClient(int maxRequestsPipelined) throws Exception
+    {
+        QueuedThreadPool clientThreads = new QueuedThreadPool();
+        clientThreads.setName("client");
+        HttpClientTransportOverHTTP transport = new HttpClientTransportOverHTTP(1);
+        transport.setMaxRequestsPipelined(maxRequestsPipelined);
+        client = new HttpClient(transport, null);
+        client.setExecutor(clientThreads);
+        client.setByteBufferPool(new MappedByteBufferPool()
+        {
+            @Override
+            public ByteBuffer acquire(int size, boolean direct)
+            {
+                buffers.incrementAndGet();
+                return super.acquire(size, direct);
+            }
+
+            @Override
+            public void release(ByteBuffer buffer)
+            {
+                buffers.decrementAndGet();
+                super.release(buffer);
+            }
+        });
+        client.setMaxConnectionsPerDestination(1);
+        client.start();
+    }
+
+    @After
+    public void dispose() throws Exception
+    {
+        if (client != null)
+            client.stop();
+    }
+
+    @Test
+    public void testIdempotentRequestsArePipelined() throws Exception
+    {
+        try (ServerSocket server = new ServerSocket(0))
+        {
+            int port = server.getLocalPort();
+            startClient(4);
+
+            int count = 3;
+            List<FutureResponseListener> listeners = send(port, HttpMethod.GET, count);
+
+            try (Socket socket = server.accept())
+            {
+                // All the requests must arrive before any response is sent.
+                InputStream input = socket.getInputStream();
+                for (int i = 0; i < count; ++i)
+                    Assert.assertFalse(consumeRequest(input));
+
+                OutputStream output = socket.getOutputStream();
+                StringBuilder responses = new StringBuilder();
+                for (int i = 0; i < count; ++i)
+                    responses.append(response(String.valueOf(i), false));
+                output.write(responses.toString().getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                for (int i = 0; i < count; ++i)
+                {
+                    ContentResponse response = listeners.get(i).get(5, TimeUnit.SECONDS);
+                    Assert.assertEquals(HttpStatus.OK_200, response.getStatus());
+                    Assert.assertEquals(String.valueOf(i), response.getContentAsString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNonIdempotentRequestsAreNotPipelined() throws Exception
+    {
+        try (ServerSocket server = new ServerSocket(0))
+        {
+            int port = server.getLocalPort();
+            startClient(4);
+
+            int count = 2;
+            List<FutureResponseListener> listeners = send(port, HttpMethod.POST, count);
+
+            try (Socket socket = server.accept())
+            {
+                InputStream input = socket.getInputStream();
+                OutputStream output = socket.getOutputStream();
+                for (int i = 0; i < count; ++i)
+                {
+                    Assert.assertFalse(consumeRequest(input));
+
+                    // The next request must not be sent before the response.
+                    socket.setSoTimeout(1000);
+                    try
+                    {
+                        input.read();
+                        Assert.fail();
+                    }
+                    catch (SocketTimeoutException expected)
+                    {
+                    }
+                    socket.setSoTimeout(0);
+
+                    output.write(response(String.valueOf(i), false).getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+
+                    ContentResponse response = listeners.get(i).get(5, TimeUnit.SECONDS);
+                    Assert.assertEquals(HttpStatus.OK_200, response.getStatus());
+                    Assert.assertEquals(String.valueOf(i), response.getContentAsString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testServerCloseFailsPipelinedRequests() throws Exception
+    {
+        try (ServerSocket server = new ServerSocket(0))
+        {
+            int port = server.getLocalPort();
+            startClient(4);
+
+            int count = 3;
+            List<FutureResponseListener> listeners = send(port, HttpMethod.GET, count);
+
+            try (Socket socket = server.accept())
+            {
+                InputStream input = socket.getInputStream();
+                for (int i = 0; i < count; ++i)
+                    Assert.assertFalse(consumeRequest(input));
+
+                // Respond only to the first request, then close.
+                OutputStream output = socket.getOutputStream();
+                output.write(response("0", true).getBytes(StandardCharsets.UTF_8));
+                output.flush();
+                socket.shutdownOutput();
+
+                ContentResponse response = listeners.get(0).get(5, TimeUnit.SECONDS);
+                Assert.assertEquals(HttpStatus.OK_200, response.getStatus());
+
+                for (int i = 1; i < count; ++i)
+                {
+                    try
+                    {
+                        listeners.get(i).get(5, TimeUnit.SECONDS);
+                        Assert.fail();
+                    }
+                    catch (ExecutionException expected)
+                    {
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAbortedPipelinedResponseDoesNotStallConnection() throws Exception
+    {
+        try (ServerSocket server = new ServerSocket(0))
+        {
+            int port = server.getLocalPort();
+            startClient(4);
+
+            // Abort the first exchange when its response headers arrive.
+            Request aborted = client.newRequest("localhost", port).path("/0");
+            aborted.onResponseHeaders(response -> response.abort(new Exception("explicitly aborted")));
+            FutureResponseListener first = new FutureResponseListener(aborted);
+            aborted.send(first);
+            int count = 2;
+            List<FutureResponseListener> listeners = send(port, HttpMethod.GET, count);
+
+            try (Socket socket = server.accept())
+            {
+                InputStream input = socket.getInputStream();
+                for (int i = 0; i <= count; ++i)
+                    Assert.assertFalse(consumeRequest(input));
+
+                OutputStream output = socket.getOutputStream();
+                StringBuilder responses = new StringBuilder();
+                for (int i = 0; i <= count; ++i)
+                    responses.append(response(String.valueOf(i), false));
+                output.write(responses.toString().getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                try
+                {
+                    first.get(5, TimeUnit.SECONDS);
+                    Assert.fail();
+                }
+                catch (ExecutionException expected)
+                {
+                }
+
+                // The following exchanges terminate, failed by the
+                // close of the connection, rather than being stalled.
+                for (int i = 0; i < count; ++i)
+                {
+                    try
+                    {
+                        listeners.get(i).get(5, TimeUnit.SECONDS);
+                        Assert.fail();
+                    }
+                    catch (ExecutionException expected)
+                    {
+                    }
+                }
+
+                // The buffer was not retained by the aborted receiver.
+                long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (buffers.get() > 0 && System.nanoTime() < end)
+                    Thread.sleep(10);
+                Assert.assertEquals(0, buffers.get());
+            }
+        }
+    }
+
+    private List<FutureResponseListener> send(int port, HttpMethod method, int count)
+    {
+        List<FutureResponseListener> listeners = new ArrayList<>();
+        for (int i = 0; i < count; ++i)
+        {
+            Request request = client.newRequest("localhost", port)
+                    .method(method)
+                    .path("/" + i);
+            FutureResponseListener listener = new FutureResponseListener(request);
+            request.send(listener);
+            listeners.add(listener);
+        }
+        return listeners;
+    }
+
+    private String response(String content, boolean close)
+    {
+        return "" +
+                "HTTP/1.1 200 OK\r\n" +
+                (close ? "Connection: close\r\n" : "") +
+                "Content-Length: " + content.length() + "\r\n" +
+                "\r\n" +
+                content;
+    }
+
+    private boolean consumeRequest(InputStream input) throws IOException
+    {
+        int crlfs = 0;
+        while (true)
+        {
+            int read = input.read();
+            if (read < 0)
+                return true;
+            if (read == '\r' || read == '\n')
+                ++crlfs;
+            else
+                crlfs = 0;
+            if (crlfs == 4)
+                return false;
+        }
+    }
+}
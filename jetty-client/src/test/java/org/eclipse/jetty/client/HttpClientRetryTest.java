@@ -0,0 +1,195 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.util.log.StacklessLogging;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HttpClientRetryTest extends AbstractHttpClientServerTest
+{
+    public HttpClientRetryTest(SslContextFactory sslContextFactory)
+    {
+        super(sslContextFactory);
+    }
+
+    @Test
+    public void testIdempotentRequestIsRetried() throws Exception
+    {
+        AtomicInteger requests = new AtomicInteger();
+        start(new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                if (requests.incrementAndGet() == 1)
+                    jettyRequest.getHttpChannel().getEndPoint().close();
+            }
+        });
+        client.setRetryPolicyFactory(destination -> new AdaptiveRetryPolicy());
+
+        try (StacklessLogging stackless = new StacklessLogging(org.eclipse.jetty.server.HttpChannel.class))
+        {
+            ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                    .scheme(scheme)
+                    .timeout(5, TimeUnit.SECONDS)
+                    .send();
+
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    public void testNonIdempotentRequestIsNotRetried() throws Exception
+    {
+        AtomicInteger requests = new AtomicInteger();
+        start(new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                requests.incrementAndGet();
+                jettyRequest.getHttpChannel().getEndPoint().close();
+            }
+        });
+        client.setRetryPolicyFactory(destination -> new AdaptiveRetryPolicy());
+
+        try (StacklessLogging stackless = new StacklessLogging(org.eclipse.jetty.server.HttpChannel.class))
+        {
+            client.newRequest("localhost", connector.getLocalPort())
+                    .scheme(scheme)
+                    .method(HttpMethod.POST)
+                    .timeout(5, TimeUnit.SECONDS)
+                    .send();
+            Assert.fail();
+        }
+        catch (ExecutionException x)
+        {
+            Assert.assertEquals(1, requests.get());
+        }
+    }
+
+    @Test
+    public void testSlowRequestIsHedged() throws Exception
+    {
+        CountDownLatch serverLatch = new CountDownLatch(1);
+        AtomicInteger requests = new AtomicInteger();
+        start(new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                try
+                {
+                    if (requests.incrementAndGet() == 1)
+                        serverLatch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new ServletException(x);
+                }
+            }
+        });
+        client.setRetryPolicyFactory(destination ->
+        {
+            AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy();
+            policy.setMaxHedges(1);
+            policy.setMinHedgeSamples(0);
+            policy.setMinHedgeDelay(100);
+            return policy;
+        });
+
+        try
+        {
+            ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                    .scheme(scheme)
+                    .timeout(2, TimeUnit.SECONDS)
+                    .send();
+
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals(2, requests.get());
+        }
+        finally
+        {
+            serverLatch.countDown();
+        }
+    }
+
+    @Test
+    public void testAbortRetryableRequest() throws Exception
+    {
+        CountDownLatch serverLatch = new CountDownLatch(1);
+        start(new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                try
+                {
+                    serverLatch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new ServletException(x);
+                }
+            }
+        });
+        client.setRetryPolicyFactory(destination -> new AdaptiveRetryPolicy());
+
+        try
+        {
+            Exception cause = new Exception("explicitly_thrown_by_test");
+            AtomicReference<Result> resultRef = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            Request request = client.newRequest("localhost", connector.getLocalPort())
+                    .scheme(scheme)
+                    .onRequestCommit(r -> r.abort(cause));
+            request.send(result ->
+            {
+                resultRef.set(result);
+                latch.countDown();
+            });
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(resultRef.get().isFailed());
+            Assert.assertSame(cause, resultRef.get().getFailure());
+        }
+        finally
+        {
+            serverLatch.countDown();
+        }
+    }
+}
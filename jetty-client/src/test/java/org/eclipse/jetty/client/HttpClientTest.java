@@ -27,6 +27,7 @@ import java.net.HttpCookie;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.UnknownHostException;
@@ -878,6 +879,59 @@ public class HttpClientTest extends AbstractHttpClientServerTest
                 .send();
     }
 
+    @Test
+    public void testConnectRaceToHostWithMultipleAddresses() throws Exception
+    {
+        String unroutable = "10.255.255.1";
+        assumeConnectTimeout(unroutable, 80, 1000);
+
+        start(new EmptyServerHandler());
+
+        long connectAttemptDelay = 250;
+        client.setConnectAttemptDelay(connectAttemptDelay);
+        client.setSocketAddressResolver((host, port, promise) ->
+        {
+            // The first address is not routable, so that the connect
+            // attempt stalls and the second address wins the race.
+            List<InetSocketAddress> result = new ArrayList<>();
+            result.add(new InetSocketAddress(unroutable, port));
+            result.add(new InetSocketAddress("127.0.0.1", port));
+            promise.succeeded(result);
+        });
+
+        long begin = System.nanoTime();
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .timeout(5, TimeUnit.SECONDS)
+                .send();
+
+        Assert.assertEquals(200, response.getStatus());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        Assert.assertThat(elapsed, Matchers.lessThan(client.getConnectTimeout()));
+    }
+
+    private void assumeConnectTimeout(String host, int port, int connectTimeout) throws IOException
+    {
+        try (Socket socket = new Socket())
+        {
+            // The connect race needs an address that hangs the connection
+            // attempt, which private addresses that are not routed usually do.
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            // Abort the test if we can connect.
+            Assume.assumeTrue(false);
+        }
+        catch (SocketTimeoutException x)
+        {
+            // Expected timeout during connect, continue the test.
+            Assume.assumeTrue(true);
+        }
+        catch (Throwable x)
+        {
+            // Abort if any other exception happens.
+            Assume.assumeTrue(false);
+        }
+    }
+
     @Test
     public void testCustomUserAgent() throws Exception
     {
@@ -1556,6 +1610,58 @@ public class HttpClientTest extends AbstractHttpClientServerTest
         }
     }
 
+    @Test
+    public void testIdleConnectionWithUnexpectedBytesIsNotReused() throws Exception
+    {
+        try (ServerSocket server = new ServerSocket(0))
+        {
+            startClient();
+
+            String host = "localhost";
+            int port = server.getLocalPort();
+            FutureResponseListener listener = new FutureResponseListener(client.newRequest(host, port));
+            client.newRequest(host, port).send(listener);
+
+            try (Socket socket = server.accept())
+            {
+                socket.setSoTimeout(5000);
+                InputStream input = socket.getInputStream();
+                consume(input, false);
+
+                String httpResponse = "" +
+                        "HTTP/1.1 200 OK\r\n" +
+                        "Content-Length: 0\r\n" +
+                        "\r\n";
+                OutputStream output = socket.getOutputStream();
+                output.write(httpResponse.getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                ContentResponse response = listener.get(5, TimeUnit.SECONDS);
+                Assert.assertEquals(200, response.getStatus());
+
+                HttpDestination destination = (HttpDestination)client.getDestination("http", host, port);
+                DuplexConnectionPool connectionPool = (DuplexConnectionPool)destination.getConnectionPool();
+                long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (connectionPool.getIdleConnectionCount() == 0 && System.nanoTime() < end)
+                    Thread.sleep(10);
+                Connection connection = connectionPool.getIdleConnections().peek();
+                Assert.assertNotNull(connection);
+
+                // A byte that does not belong to any exchange arrives while the connection is idle.
+                output.write('X');
+                output.flush();
+
+                // The connection is closed rather than reused.
+                Assert.assertEquals(-1, input.read());
+                Assert.assertTrue(connection.isClosed());
+                end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (connectionPool.getConnectionCount() > 0 && System.nanoTime() < end)
+                    Thread.sleep(10);
+                Assert.assertEquals(0, connectionPool.getConnectionCount());
+            }
+        }
+    }
+
     @Test
     public void test_IPv6_Host() throws Exception
     {
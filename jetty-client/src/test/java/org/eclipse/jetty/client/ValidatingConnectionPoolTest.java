@@ -26,6 +26,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.client.api.Connection;
 import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
@@ -75,6 +76,59 @@ public class ValidatingConnectionPoolTest extends AbstractHttpClientServerTest
         Assert.assertEquals(200, response.getStatus());
     }
 
+    @Test
+    public void testPreCreateConnections() throws Exception
+    {
+        start(new EmptyServerHandler());
+
+        HttpDestination destination = (HttpDestination)client.getDestination(scheme, "localhost", connector.getLocalPort());
+        ValidatingConnectionPool connectionPool = (ValidatingConnectionPool)destination.getConnectionPool();
+        connectionPool.preCreateConnections(2).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, connectionPool.getConnectionCount());
+        Assert.assertEquals(2, connectionPool.getIdleConnectionCount());
+
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .send();
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals(2, connectionPool.getConnectionCount());
+    }
+
+    @Test
+    public void testIdleConnectionsAreReplaced() throws Exception
+    {
+        long maxIdleTime = 500;
+        startServer(new EmptyServerHandler());
+        HttpClientTransportOverHTTP transport = new HttpClientTransportOverHTTP(1);
+        transport.setConnectionPoolFactory(destination ->
+        {
+            ValidatingConnectionPool connectionPool = new ValidatingConnectionPool(destination, destination.getHttpClient().getMaxConnectionsPerDestination(), destination, destination.getHttpClient().getScheduler(), 1000);
+            connectionPool.setMinIdleConnections(1);
+            connectionPool.setMaxIdleTime(maxIdleTime);
+            return connectionPool;
+        });
+        startClient(transport);
+
+        HttpDestination destination = (HttpDestination)client.getDestination(scheme, "localhost", connector.getLocalPort());
+        ValidatingConnectionPool connectionPool = (ValidatingConnectionPool)destination.getConnectionPool();
+        connectionPool.preCreateConnections(1).get(5, TimeUnit.SECONDS);
+        Connection connection = connectionPool.getIdleConnections().peek();
+        Assert.assertNotNull(connection);
+
+        Thread.sleep(3 * maxIdleTime);
+
+        Assert.assertTrue(connection.isClosed());
+        Assert.assertEquals(1, connectionPool.getConnectionCount());
+        Assert.assertEquals(1, connectionPool.getIdleConnectionCount());
+        Assert.assertNotSame(connection, connectionPool.getIdleConnections().peek());
+
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scheme)
+                .send();
+        Assert.assertEquals(200, response.getStatus());
+    }
+
     @Test
     public void testServerClosesConnectionAfterRedirectWithoutConnectionCloseHeader() throws Exception
     {
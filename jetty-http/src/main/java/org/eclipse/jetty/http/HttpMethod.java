@@ -162,6 +162,40 @@ public enum HttpMethod
         return toString().equalsIgnoreCase(s);
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * @return true if this method is safe as defined by RFC 7231, section 4.2.1
+     */
+    public boolean isSafe()
+    {
+        switch (this)
+        {
+            case GET:
+            case HEAD:
+            case OPTIONS:
+            case TRACE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return true if this method is idempotent as defined by RFC 7231, section 4.2.2
+     */
+    public boolean isIdempotent()
+    {
+        switch (this)
+        {
+            case PUT:
+            case DELETE:
+                return true;
+            default:
+                return isSafe();
+        }
+    }
+
     /* ------------------------------------------------------------ */
     public ByteBuffer asBuffer()
     {
@@ -37,7 +37,6 @@ public abstract class NoSqlSessionDataStore extends AbstractSessionDataStore
     public class NoSqlSessionData extends SessionData
     {
         private Object _version;
-        private Set<String> _dirtyAttributes = new HashSet<String>();
         
 
         public NoSqlSessionData(String id, String cpath, String vhost, long created, long accessed, long lastAccessed, long maxInactiveMs)
@@ -54,21 +53,32 @@ public abstract class NoSqlSessionDataStore extends AbstractSessionDataStore
         {
             return _version;
         }
-
+        
         @Override
-        public void setDirty(String name)
+        public void copy (SessionData data)
         {
-            super.setDirty(name);
-            _dirtyAttributes.add(name);
+            super.copy(data);
+            if (data instanceof NoSqlSessionData)
+                setVersion(((NoSqlSessionData)data).getVersion());
         }
         
-        
+        @Override
+        public void copySaveState (SessionData saved)
+        {
+            super.copySaveState(saved);
+            if (saved instanceof NoSqlSessionData)
+                setVersion(((NoSqlSessionData)saved).getVersion());
+        }
+
+        /**
+         * @return the names of the attributes changed since the last save
+         * @deprecated use {@link #getDirtyAttributes()}, the names are
+         * cleared once the session has been successfully saved
+         */
+        @Deprecated
         public Set<String> takeDirtyAttributes()
         {
-            Set<String> copy = new HashSet<>(_dirtyAttributes);
-            _dirtyAttributes.clear();
-            return copy;
-            
+            return getDirtyAttributes();
         }
         
         public Set<String> getAllAttributeNames ()
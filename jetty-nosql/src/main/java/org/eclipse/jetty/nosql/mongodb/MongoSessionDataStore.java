@@ -364,6 +364,30 @@ public class MongoSessionDataStore extends NoSqlSessionDataStore
     }
 
 
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#getLastSaved(java.lang.String)
+     */
+    @Override
+    public long getLastSaved(String id) throws Exception
+    {
+        DBObject fields = new BasicDBObject();
+        fields.put(__VALID, 1);
+        fields.put(getContextSubfield(__LASTSAVED), 1);
+        
+        DBObject sessionDocument = _dbSessions.findOne(new BasicDBObject(__ID, id), fields);
+        
+        if (sessionDocument == null)
+            return 0; //doesn't exist
+        
+        Boolean valid = (Boolean)sessionDocument.get(__VALID);
+        if (valid == null || !valid)
+            return 0; //invalid
+        
+        Long lastSaved = (Long)getNestedValue(sessionDocument, getContextSubfield(__LASTSAVED));
+        return (lastSaved == null ? 0 : lastSaved.longValue()); //no data for this context
+    }
+
+
     /** 
      * @see org.eclipse.jetty.server.session.SessionDataStore#getExpired(Set)
      */
@@ -498,7 +522,7 @@ public class MongoSessionDataStore extends NoSqlSessionDataStore
 
         sets.put(__ACCESSED, nsqd.getAccessed());
 
-        Set<String> names = nsqd.takeDirtyAttributes();
+        Set<String> names = nsqd.getDirtyAttributes();
 
         if (lastSaveTime <= 0)
         {         
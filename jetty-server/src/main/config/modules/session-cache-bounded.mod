@@ -0,0 +1,25 @@
+[description]
+Enable first level session cache in memory, bounded by the number
+and/or estimated size of sessions. The least recently used sessions
+are evicted to the session store when a bound is exceeded, so a
+persistent session store should be enabled too.
+
+[tags]
+session
+
+[provides]
+session-cache
+
+[depends]
+sessions
+
+[xml]
+etc/sessions/session-cache-bounded.xml
+
+[ini-template]
+#jetty.session.evictionPolicy=-1
+#jetty.session.saveOnInactiveEvict=false
+#jetty.session.saveOnCreate=false
+#jetty.session.removeUnloadableSessions=false
+#jetty.session.maxSessions=-1
+#jetty.session.maxSessionsSize=-1
@@ -21,3 +21,4 @@ etc/sessions/session-cache-hash.xml
 #jetty.session.saveOnInactiveEvict=false
 #jetty.session.saveOnCreate=false
 #jetty.session.removeUnloadableSessions=false
+#jetty.session.nearCacheSize=0
@@ -0,0 +1,25 @@
+[description]
+Enables session persistent storage in append-only,
+memory mapped segment files.
+
+[tags]
+session
+
+[provides]
+session-store
+
+[depends]
+sessions
+
+[xml]
+etc/sessions/file-log/session-store.xml
+
+[files]
+sessions/
+
+[ini-template]
+jetty.session.file.storeDir=${jetty.base}/sessions
+#jetty.session.file.segmentSize=16777216
+#jetty.session.file.compactionRatio=0.5
+#jetty.session.file.syncOnWrite=false
+#jetty.session.savePeriod.seconds=0
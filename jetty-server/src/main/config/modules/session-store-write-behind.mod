@@ -0,0 +1,16 @@
+[description]
+Enables deferred writes of SessionData to a SessionDataStore,
+so that sessions are not written by the request threads.
+
+[tags]
+session
+
+[depend]
+session-store
+
+[xml]
+etc/sessions/session-write-behind-store.xml
+
+[ini-template]
+#jetty.session.writeBehind.maxDelayMs=1000
+#jetty.session.writeBehind.maxPending=10000
@@ -22,17 +22,23 @@ package org.eclipse.jetty.server.session;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.Locker.Lock;
 
 /**
@@ -100,6 +106,34 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
      */
     protected boolean _removeUnloadableSessions;
     
+    
+    /**
+     * If greater than 0, the max number of SessionData of evicted sessions
+     * that are kept to be reused if the SessionDataStore shows that they
+     * have not been saved since.
+     */
+    protected int _nearCacheSize = 0;
+    
+    
+    /**
+     * SessionData of evicted sessions, least recently used first. Guarded by itself.
+     */
+    private final LinkedHashMap<String, SessionData> _nearCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong _nearCacheHits = new AtomicLong();
+    private final AtomicLong _nearCacheMisses = new AtomicLong();
+    
+    
+    /**
+     * Statistics of the sessions found in or missing from this cache, of the
+     * time in us to load sessions from the SessionDataStore, and of the sessions 
+     * passivated and evicted.
+     */
+    protected final CounterStatistic _hitStats = new CounterStatistic();
+    protected final CounterStatistic _missStats = new CounterStatistic();
+    protected final HistogramStatistic _loadTimeStats = new HistogramStatistic();
+    protected final CounterStatistic _passivationStats = new CounterStatistic();
+    protected final CounterStatistic _evictionStats = new CounterStatistic();
+    
  
 
     /**
@@ -231,6 +265,10 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
     @Override
     protected void doStop() throws Exception
     {
+        synchronized (_nearCache)
+        {
+            _nearCache.clear();
+        }
         _sessionDataStore.stop();
         super.doStop();
     }
@@ -318,6 +356,157 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
     }
 
 
+    /**
+     * @return the max number of SessionData of evicted sessions kept for reuse, or 0 if none are kept
+     */
+    @ManagedAttribute(value="max number of evicted sessions kept for reuse", readonly=true)
+    public int getNearCacheSize()
+    {
+        return _nearCacheSize;
+    }
+
+
+    /**
+     * Keep the SessionData of sessions evicted from this cache after they
+     * have been saved. When the session is next needed, the SessionDataStore
+     * is asked for the time it was last saved: if that has not changed, the
+     * kept data is reused instead of fully loading and deserializing it again.
+     * Only stores that implement {@link SessionDataStore#getLastSaved(String)}
+     * benefit from this.
+     * 
+     * @param size the max number of SessionData kept, or 0 to keep none
+     */
+    public void setNearCacheSize(int size)
+    {
+        _nearCacheSize = size;
+        if (size <= 0)
+        {
+            synchronized (_nearCache)
+            {
+                _nearCache.clear();
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of sessions reused from the near cache
+     */
+    @ManagedAttribute(value="number of evicted sessions reused without reloading", readonly=true)
+    public long getNearCacheHits()
+    {
+        return _nearCacheHits.get();
+    }
+
+
+    /**
+     * @return the number of sessions in the near cache that had to be reloaded
+     */
+    @ManagedAttribute(value="number of evicted sessions reloaded as they were saved elsewhere", readonly=true)
+    public long getNearCacheMisses()
+    {
+        return _nearCacheMisses.get();
+    }
+
+
+    /**
+     * @return the number of sessions found in this cache
+     */
+    @ManagedAttribute(value="number of sessions found in cache", readonly=true)
+    public long getCacheHits()
+    {
+        return _hitStats.getTotal();
+    }
+
+
+    /**
+     * @return the number of sessions not found in this cache, that were looked for in the SessionDataStore
+     */
+    @ManagedAttribute(value="number of sessions not found in cache", readonly=true)
+    public long getCacheMisses()
+    {
+        return _missStats.getTotal();
+    }
+
+
+    /**
+     * @return the fraction of sessions found in this cache, or 0 if none were looked for
+     */
+    @ManagedAttribute(value="fraction of sessions found in cache", readonly=true)
+    public double getCacheHitRatio()
+    {
+        long hits = _hitStats.getTotal();
+        long total = hits + _missStats.getTotal();
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+
+    /**
+     * @return the mean time to load a session from the SessionDataStore (in us)
+     */
+    @ManagedAttribute(value="mean time to load a session (in us)", readonly=true)
+    public double getLoadTimeMean()
+    {
+        return _loadTimeStats.getMean();
+    }
+
+
+    /**
+     * @return the max time to load a session from the SessionDataStore (in us)
+     */
+    @ManagedAttribute(value="max time to load a session (in us)", readonly=true)
+    public long getLoadTimeMax()
+    {
+        return _loadTimeStats.getMax();
+    }
+
+
+    /**
+     * @return the 99th percentile of the time to load a session from the SessionDataStore (in us)
+     */
+    @ManagedAttribute(value="99th percentile of the time to load a session (in us)", readonly=true)
+    public long getLoadTime99th()
+    {
+        return _loadTimeStats.getPercentile(99);
+    }
+
+
+    /**
+     * @return the number of sessions passivated
+     */
+    @ManagedAttribute(value="number of sessions passivated", readonly=true)
+    public long getSessionsPassivated()
+    {
+        return _passivationStats.getTotal();
+    }
+
+
+    /**
+     * @return the number of sessions evicted from this cache
+     */
+    @ManagedAttribute(value="number of sessions evicted", readonly=true)
+    public long getEvictions()
+    {
+        return _evictionStats.getTotal();
+    }
+
+
+    /**
+     * Reset the statistics
+     */
+    @ManagedOperation(value="reset statistics", impact="ACTION")
+    public void resetStats()
+    {
+        _hitStats.reset();
+        _missStats.reset();
+        _loadTimeStats.reset();
+        _passivationStats.reset();
+        _evictionStats.reset();
+        _nearCacheHits.set(0);
+        _nearCacheMisses.set(0);
+    }
+
+
     /** 
      *  Get a session object.
      * 
@@ -352,6 +541,7 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
                 if (s == null)
                 {
                     //My placeholder won, go ahead and load the full session data
+                    _missStats.increment();
                     try
                     {
                         session = loadSession(id);
@@ -408,6 +598,7 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
                             continue;
                         }
                         session = s;
+                        _hitStats.increment();
                         break;
                     }
                 }
@@ -426,6 +617,7 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
                     }
 
                     //got the session
+                    _hitStats.increment();
                     break;
                 }
             }
@@ -454,7 +646,13 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
 
         try
         {
-            data =_sessionDataStore.load(id);
+            data = takeNearCached(id);
+            if (data == null)
+            {
+                long start = System.nanoTime();
+                data =_sessionDataStore.load(id);
+                _loadTimeStats.set(TimeUnit.NANOSECONDS.toMicros(System.nanoTime()-start));
+            }
 
             if (data == null) //session doesn't exist
                 return null;
@@ -472,6 +670,79 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
         }
     }
 
+    /**
+     * Keep the data of a session that has just been saved and evicted, if
+     * the near cache is enabled.
+     * 
+     * @param id the id of the session
+     * @param data the data of the session
+     */
+    protected void addNearCached (String id, SessionData data)
+    {
+        int size = _nearCacheSize;
+        if (size <= 0 || data == null || data.isDirty() || data.getLastSaved() <= 0)
+            return; //not saved, or changed since it was saved
+
+        synchronized (_nearCache)
+        {
+            _nearCache.put(id, data);
+            while (_nearCache.size() > size)
+                _nearCache.remove(_nearCache.keySet().iterator().next());
+        }
+    }
+
+
+    /**
+     * Remove and return kept session data if the SessionDataStore shows
+     * that it has not been saved since it was kept.
+     * 
+     * @param id the id of the session
+     * @return the kept data if still current, otherwise null
+     * @throws Exception if the SessionDataStore cannot be checked
+     */
+    private SessionData takeNearCached (String id) throws Exception
+    {
+        if (_nearCacheSize <= 0)
+            return null;
+
+        SessionData data;
+        synchronized (_nearCache)
+        {
+            data = _nearCache.remove(id);
+        }
+        if (data == null)
+            return null;
+
+        long lastSaved = _sessionDataStore.getLastSaved(id);
+        if (lastSaved > 0 && lastSaved == data.getLastSaved())
+        {
+            if (LOG.isDebugEnabled()) LOG.debug("Reusing kept data for session {}, lastSaved={}", id, lastSaved);
+            _nearCacheHits.incrementAndGet();
+            return data;
+        }
+
+        if (LOG.isDebugEnabled()) LOG.debug("Kept data for session {} is stale, lastSaved={} stored={}", id, data.getLastSaved(), lastSaved);
+        _nearCacheMisses.incrementAndGet();
+        return null;
+    }
+
+
+    /**
+     * Forget any kept data for the session.
+     * 
+     * @param id the id of the session
+     */
+    private void removeNearCached (String id)
+    {
+        if (_nearCacheSize <= 0)
+            return;
+        synchronized (_nearCache)
+        {
+            _nearCache.remove(id);
+        }
+    }
+
+
     /** 
      * Put the Session object back into the session store. 
      * 
@@ -524,6 +795,8 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
                         if (LOG.isDebugEnabled()) LOG.debug("Eviction on request exit id={}", id);
                         doDelete(session.getId());
                         session.setResident(false);
+                        _evictionStats.increment();
+                        addNearCached(id, session.getSessionData());
                     }
                     else
                     {
@@ -537,6 +810,7 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
                 {
                     //backing store supports passivation, call the listeners
                     session.willPassivate();
+                    _passivationStats.increment();
                     if (LOG.isDebugEnabled()) LOG.debug("Session passivating id={}", id);
                     _sessionDataStore.store(id, session.getSessionData());
                
@@ -545,6 +819,8 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
                         //throw out the passivated session object from the map
                         doDelete(id);
                         session.setResident(false);
+                        _evictionStats.increment();
+                        addNearCached(id, session.getSessionData());
                         if (LOG.isDebugEnabled()) LOG.debug("Evicted on request exit id={}", id);
                     }
                     else
@@ -621,6 +897,7 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
     {
         //get the session, if its not in memory, this will load it
         Session session = get(id); 
+        removeNearCached(id);
 
  
         //Always delete it from the backing data store
@@ -712,13 +989,19 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
                     if (isSaveOnInactiveEviction() && _sessionDataStore != null)
                     {
                         if (_sessionDataStore.isPassivating())
+                        {
                             session.willPassivate();
+                            _passivationStats.increment();
+                        }
 
                         _sessionDataStore.store(session.getId(), session.getSessionData());
                     }
                
                     doDelete(session.getId()); //detach from this cache
                     session.setResident(false);
+                    _evictionStats.increment();
+                    if (isSaveOnInactiveEviction() && _sessionDataStore != null)
+                        addNearCached(session.getId(), session.getSessionData());
                 }
                 catch (Exception e)
                 {
@@ -746,6 +1029,7 @@ public abstract class AbstractSessionCache extends ContainerLifeCycle implements
             throw new IllegalArgumentException ("New session id is null");
 
         Session session = get(oldId);
+        removeNearCached(oldId);
         if (session == null)
             return null;
 
@@ -20,15 +20,23 @@
 package org.eclipse.jetty.server.session;
 
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 
 /**
  * AbstractSessionDataStore
@@ -44,6 +52,9 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
     protected int _gracePeriodSec = 60 * 60; //default of 1hr 
     protected long _lastExpiryCheckTime = 0; //last time in ms that getExpired was called
     protected int _savePeriodSec = 0; //time in sec between saves
+    protected SessionDataSerializer _serializer = new DefaultSessionDataSerializer(); //encoding of session attributes
+    protected final HistogramStatistic _storeTimeStats = new HistogramStatistic(); //time in us to persist sessions
+    protected final SampleStatistic _serializedSizeStats = new SampleStatistic(); //bytes of serialized attributes
 
     /**
      * Store the session data persistently.
@@ -55,6 +66,29 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
      */
     public abstract void doStore(String id, SessionData data, long lastSaveTime) throws Exception;
 
+    
+    /**
+     * Store only the changes made to session data that has been 
+     * previously saved. 
+     * <p>
+     * By default, all of the session data is stored by calling 
+     * {@link #doStore(String, SessionData, long)}. Subclasses that are able
+     * to write individual attributes, or to update the session metadata
+     * without the attributes, should override this method so that the
+     * cost of a save is proportional to what changed.
+     * 
+     * @param id identity of session to store
+     * @param data info of the session
+     * @param dirtyAttributes names of the attributes added, changed or removed since
+     * the last save; empty if only the session metadata (eg access time) changed
+     * @param lastSaveTime time of previous save, always greater than 0
+     * @throws Exception if unable to store data
+     */
+    public void doStoreDelta(String id, SessionData data, Set<String> dirtyAttributes, long lastSaveTime) throws Exception
+    {
+        doStore(id, data, lastSaveTime);
+    }
+
    
     /**
      * Implemented by subclasses to resolve which sessions this node
@@ -97,11 +131,18 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
         {
             //set the last saved time to now
             data.setLastSaved(System.currentTimeMillis());
+            long start = System.nanoTime();
             try
             {
                 //call the specific store method, passing in previous save time
-                doStore(id, data, lastSave);
-                data.setDirty(false); //only undo the dirty setting if we saved it
+                long generation = data.getDirtyGeneration();
+                Set<String> dirtyAttributes = data.getDirtyAttributes();
+                if (lastSave <= 0)
+                    doStore(id, data, lastSave);
+                else
+                    doStoreDelta(id, data, dirtyAttributes, lastSave);
+                data.setClean(dirtyAttributes, generation); //only undo the dirty setting if we saved it
+                _storeTimeStats.set(TimeUnit.NANOSECONDS.toMicros(System.nanoTime()-start));
             }
             catch (Exception e)
             {
@@ -202,6 +243,154 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
     }
 
 
+    /**
+     * @return the serializer used to encode session attributes
+     */
+    @ManagedAttribute(value="session attribute serializer", readonly=true)
+    public SessionDataSerializer getSessionDataSerializer()
+    {
+        return _serializer;
+    }
+
+
+    /**
+     * Set the serializer used to encode session attributes. Data
+     * previously written with java serialization can still be read.
+     * 
+     * @param serializer the serializer to use
+     */
+    public void setSessionDataSerializer(SessionDataSerializer serializer)
+    {
+        checkStarted();
+        if (serializer == null)
+            throw new IllegalArgumentException("Null serializer");
+        _serializer = serializer;
+    }
+
+
+    /**
+     * Write session attributes with the {@link SessionDataSerializer}, 
+     * counting the bytes written.
+     * 
+     * @param attributes the session attributes
+     * @param out the stream to write to, which is not closed
+     * @throws IOException if the attributes cannot be written
+     */
+    protected void serializeAttributes (Map<String,Object> attributes, OutputStream out) throws IOException
+    {
+        CountingOutputStream counter = new CountingOutputStream(out);
+        _serializer.writeAttributes(attributes, counter);
+        _serializedSizeStats.set(counter._count);
+    }
+
+
+    /**
+     * @return the number of sessions stored
+     */
+    @ManagedAttribute(value="number of sessions stored", readonly=true)
+    public long getStoreCount()
+    {
+        return _storeTimeStats.getCount();
+    }
+
+
+    /**
+     * @return the mean time to store a session (in us)
+     */
+    @ManagedAttribute(value="mean time to store a session (in us)", readonly=true)
+    public double getStoreTimeMean()
+    {
+        return _storeTimeStats.getMean();
+    }
+
+
+    /**
+     * @return the max time to store a session (in us)
+     */
+    @ManagedAttribute(value="max time to store a session (in us)", readonly=true)
+    public long getStoreTimeMax()
+    {
+        return _storeTimeStats.getMax();
+    }
+
+
+    /**
+     * @return the 99th percentile of the time to store a session (in us)
+     */
+    @ManagedAttribute(value="99th percentile of the time to store a session (in us)", readonly=true)
+    public long getStoreTime99th()
+    {
+        return _storeTimeStats.getPercentile(99);
+    }
+
+
+    /**
+     * @return the total bytes of session attributes serialized
+     */
+    @ManagedAttribute(value="total bytes of session attributes serialized", readonly=true)
+    public long getSerializedBytesTotal()
+    {
+        return _serializedSizeStats.getTotal();
+    }
+
+
+    /**
+     * @return the mean bytes of session attributes serialized per store
+     */
+    @ManagedAttribute(value="mean bytes of session attributes serialized per store", readonly=true)
+    public double getSerializedBytesMean()
+    {
+        return _serializedSizeStats.getMean();
+    }
+
+
+    /**
+     * @return the max bytes of session attributes serialized by a store
+     */
+    @ManagedAttribute(value="max bytes of session attributes serialized per store", readonly=true)
+    public long getSerializedBytesMax()
+    {
+        return _serializedSizeStats.getMax();
+    }
+
+
+    /**
+     * Reset the statistics
+     */
+    @ManagedOperation(value="reset statistics", impact="ACTION")
+    public void resetStats()
+    {
+        _storeTimeStats.reset();
+        _serializedSizeStats.reset();
+    }
+
+
+    /**
+     * Check if the stream contains data written with java serialization,
+     * rather than with a {@link SessionDataSerializer}. The stream is
+     * not consumed.
+     * 
+     * @param in the stream, able to push back at least 2 bytes
+     * @return true if the stream starts with the java serialization magic number
+     * @throws IOException if the stream cannot be read
+     */
+    protected static boolean isJavaSerialized (PushbackInputStream in) throws IOException
+    {
+        byte[] magic = new byte[2];
+        int len = 0;
+        while (len < magic.length)
+        {
+            int read = in.read(magic, len, magic.length - len);
+            if (read < 0)
+                break;
+            len += read;
+        }
+        if (len > 0)
+            in.unread(magic, 0, len);
+        return len == 2 && (magic[0]&0xFF) == 0xAC && (magic[1]&0xFF) == 0xED;
+    }
+
+
     /** 
      * @see java.lang.Object#toString()
      */
@@ -211,6 +400,40 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
        return String.format("%s@%x[passivating=%b,graceSec=%d]",this.getClass().getName(),this.hashCode(),isPassivating(),getGracePeriodSec());
 
     }
+    
+    
+    /**
+     * Counts the bytes written through it, without closing the stream.
+     */
+    private static class CountingOutputStream extends FilterOutputStream
+    {
+        private long _count;
+
+        private CountingOutputStream(OutputStream out)
+        {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            out.write(b);
+            _count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+            _count += len;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
+    }
 
     
 }
@@ -29,6 +29,7 @@ public abstract class AbstractSessionDataStoreFactory implements SessionDataStor
 
     int _gracePeriodSec;
     int _savePeriodSec;
+    SessionDataSerializer _sessionDataSerializer;
     
     
     
@@ -68,4 +69,22 @@ public abstract class AbstractSessionDataStoreFactory implements SessionDataStor
     }
    
 
+
+
+    /**
+     * @return the sessionDataSerializer, or null to use the store's default
+     */
+    public SessionDataSerializer getSessionDataSerializer()
+    {
+        return _sessionDataSerializer;
+    }
+
+
+    /**
+     * @param sessionDataSerializer the sessionDataSerializer to set
+     */
+    public void setSessionDataSerializer(SessionDataSerializer sessionDataSerializer)
+    {
+        _sessionDataSerializer = sessionDataSerializer;
+    }
 }
@@ -0,0 +1,378 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Locker.Lock;
+
+/**
+ * BoundedSessionCache
+ *
+ * A session cache that keeps its sessions in memory, like the {@link DefaultSessionCache},
+ * but that bounds the number of sessions and/or their estimated size in bytes.
+ * <p>
+ * When a bound is exceeded, the least recently used sessions that are not in use
+ * by any request are evicted from the cache: they are passivated and written to
+ * the {@link SessionDataStore}, from which they will be reloaded on their next use.
+ * A persistent SessionDataStore should therefore be configured, otherwise evicted
+ * sessions are lost.
+ * <p>
+ * The size of a session is estimated from the types of its attributes values, see
+ * {@link #estimateSize(SessionData)}.
+ */
+@ManagedObject
+public class BoundedSessionCache extends DefaultSessionCache
+{
+    private  final static Logger LOG = Log.getLogger("org.eclipse.jetty.server.session");
+
+    /**
+     * The estimated sizes of the resident sessions, in least recently used order
+     */
+    private final LinkedHashMap<String, Long> _lru = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong _evictions = new AtomicLong();
+    private long _size; //guarded by _lru
+    private int _maxSessions = -1;
+    private long _maxSessionsSize = -1;
+
+
+
+    /**
+     * @param manager the SessionHandler
+     */
+    public BoundedSessionCache(SessionHandler manager)
+    {
+        super(manager);
+    }
+    
+    
+    /**
+     * @return the max number of sessions in the cache, or -1 if unbounded
+     */
+    @ManagedAttribute(value="max number of sessions in cache before eviction", readonly=true)
+    public int getMaxSessions()
+    {
+        return _maxSessions;
+    }
+
+
+    /**
+     * @param maxSessions the max number of sessions in the cache, or -1 for unbounded
+     */
+    public void setMaxSessions(int maxSessions)
+    {
+        _maxSessions = maxSessions;
+    }
+
+
+    /**
+     * @return the max estimated size in bytes of the sessions in the cache, or -1 if unbounded
+     */
+    @ManagedAttribute(value="max estimated bytes of sessions in cache before eviction", readonly=true)
+    public long getMaxSessionsSize()
+    {
+        return _maxSessionsSize;
+    }
+
+
+    /**
+     * @param maxSessionsSize the max estimated size in bytes of the sessions in the cache, or -1 for unbounded
+     */
+    public void setMaxSessionsSize(long maxSessionsSize)
+    {
+        _maxSessionsSize = maxSessionsSize;
+    }
+
+
+    /**
+     * @return the estimated size in bytes of the sessions in the cache
+     */
+    @ManagedAttribute(value="estimated bytes of sessions in cache", readonly=true)
+    public long getSessionsSize()
+    {
+        synchronized (_lru)
+        {
+            return _size;
+        }
+    }
+
+
+    /**
+     * @return the number of sessions evicted to keep the cache within its bounds
+     */
+    @ManagedAttribute(value="sessions evicted to bound the cache", readonly=true)
+    public long getSessionsEvicted()
+    {
+        return _evictions.get();
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.DefaultSessionCache#resetStats()
+     */
+    @Override
+    public void resetStats()
+    {
+        super.resetStats();
+        _evictions.set(0);
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.AbstractSessionCache#doStart()
+     */
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        if ((_maxSessions >= 0 || _maxSessionsSize >= 0) && _sessionDataStore instanceof NullSessionDataStore)
+            LOG.warn("Sessions evicted from {} will be lost with {}", this, _sessionDataStore);
+    }
+
+
+    /** 
+     * Put the session into the cache, then evict the least recently used 
+     * sessions if the cache exceeds its bounds.
+     * 
+     * @see org.eclipse.jetty.server.session.AbstractSessionCache#put(java.lang.String, org.eclipse.jetty.server.session.Session)
+     */
+    @Override
+    public void put(String id, Session session) throws Exception
+    {
+        super.put(id, session);
+        evict();
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.DefaultSessionCache#doGet(java.lang.String)
+     */
+    @Override
+    public Session doGet(String id)
+    {
+        Session session = super.doGet(id);
+        if (session != null && !(session instanceof PlaceHolderSession))
+        {
+            synchronized (_lru)
+            {
+                _lru.get(id); //record the access
+            }
+        }
+        return session;
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.DefaultSessionCache#doPutIfAbsent(java.lang.String, org.eclipse.jetty.server.session.Session)
+     */
+    @Override
+    public Session doPutIfAbsent(String id, Session session)
+    {
+        Session s = super.doPutIfAbsent(id, session);
+        if ((s == null || s == session) && !(session instanceof PlaceHolderSession))
+            track(id, session);
+        return s;
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.DefaultSessionCache#doReplace(java.lang.String, org.eclipse.jetty.server.session.Session, org.eclipse.jetty.server.session.Session)
+     */
+    @Override
+    public boolean doReplace(String id, Session oldValue, Session newValue)
+    {
+        boolean result = super.doReplace(id, oldValue, newValue);
+        if (result)
+        {
+            if (newValue instanceof PlaceHolderSession)
+                untrack(id);
+            else
+                track(id, newValue);
+        }
+        return result;
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.DefaultSessionCache#doDelete(java.lang.String)
+     */
+    @Override
+    public Session doDelete(String id)
+    {
+        Session s = super.doDelete(id);
+        if (s != null)
+            untrack(id);
+        return s;
+    }
+
+
+    /**
+     * Estimate the memory used by the data of a session. The estimate
+     * is based on the types of the attribute values, and does not
+     * follow object references other than those of collections.
+     * 
+     * @param data the session data
+     * @return the estimated size in bytes
+     */
+    protected long estimateSize(SessionData data)
+    {
+        long size = 256; //ids, timestamps and maps
+        for (Map.Entry<String, Object> entry : data.getAllAttributes().entrySet())
+            size += 64 + 2L * entry.getKey().length() + estimateSize(entry.getValue());
+        return size;
+    }
+
+
+    private long estimateSize(Object value)
+    {
+        if (value == null)
+            return 0;
+        if (value instanceof CharSequence)
+            return 40 + 2L * ((CharSequence)value).length();
+        if (value instanceof byte[])
+            return 16 + ((byte[])value).length;
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character)
+            return 16;
+        if (value instanceof Collection)
+            return 64 + 32L * ((Collection<?>)value).size();
+        if (value instanceof Map)
+            return 64 + 48L * ((Map<?,?>)value).size();
+        return 128;
+    }
+
+
+    private void track(String id, Session session)
+    {
+        long size = estimateSize(session.getSessionData());
+        synchronized (_lru)
+        {
+            Long old = _lru.put(id, size);
+            _size += size - (old == null ? 0 : old);
+        }
+    }
+
+
+    private void untrack(String id)
+    {
+        synchronized (_lru)
+        {
+            Long old = _lru.remove(id);
+            if (old != null)
+                _size -= old;
+        }
+    }
+
+
+    private boolean isOverBounds()
+    {
+        synchronized (_lru)
+        {
+            return (_maxSessions >= 0 && _lru.size() > _maxSessions) || (_maxSessionsSize >= 0 && _size > _maxSessionsSize);
+        }
+    }
+
+
+    /**
+     * Evict the least recently used sessions until the cache is within its bounds,
+     * skipping the sessions that are in use.
+     */
+    protected void evict()
+    {
+        Set<String> tried = null;
+        while (isOverBounds())
+        {
+            String id = null;
+            synchronized (_lru)
+            {
+                for (String candidate : _lru.keySet())
+                {
+                    if (tried == null || !tried.contains(candidate))
+                    {
+                        id = candidate;
+                        break;
+                    }
+                }
+            }
+            if (id == null)
+                return; //all sessions are in use
+
+            if (tried == null)
+                tried = new HashSet<>();
+            tried.add(id);
+            
+            Session session = super.doGet(id);
+            if (session == null || session instanceof PlaceHolderSession)
+                continue;
+            evict(session);
+        }
+    }
+
+
+    private void evict(Session session)
+    {
+        Lock lock = session.lock();
+        try
+        {
+            if (!session.isValid() || !session.isResident() || session.getRequests() > 0)
+                return;
+            
+            if (LOG.isDebugEnabled())
+                LOG.debug("Evicting least recently used session {}", session.getId());
+            
+            if (_sessionDataStore.isPassivating())
+            {
+                session.willPassivate();
+                _passivationStats.increment();
+            }
+            _sessionDataStore.store(session.getId(), session.getSessionData());
+            
+            doDelete(session.getId()); //detach from this cache
+            session.setResident(false);
+            _evictions.incrementAndGet();
+            _evictionStats.increment();
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Passivation of least recently used session {} failed", session.getId(), e);
+        }
+        finally
+        {
+            lock.close();
+        }
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.AbstractSessionCache#toString()
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("%s[maxSessions=%d,maxSessionsSize=%d]", super.toString(), _maxSessions, _maxSessionsSize);
+    }
+}
@@ -0,0 +1,83 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+/**
+ * BoundedSessionCacheFactory
+ *
+ * Factory for creating new BoundedSessionCaches.
+ */
+public class BoundedSessionCacheFactory extends DefaultSessionCacheFactory
+{
+    int _maxSessions = -1;
+    long _maxSessionsSize = -1;
+    
+    
+    /**
+     * @return the max number of sessions in the cache, or -1 if unbounded
+     */
+    public int getMaxSessions()
+    {
+        return _maxSessions;
+    }
+
+
+    /**
+     * @param maxSessions the max number of sessions in the cache, or -1 for unbounded
+     */
+    public void setMaxSessions(int maxSessions)
+    {
+        _maxSessions = maxSessions;
+    }
+
+
+    /**
+     * @return the max estimated size in bytes of the sessions in the cache, or -1 if unbounded
+     */
+    public long getMaxSessionsSize()
+    {
+        return _maxSessionsSize;
+    }
+
+
+    /**
+     * @param maxSessionsSize the max estimated size in bytes of the sessions in the cache, or -1 for unbounded
+     */
+    public void setMaxSessionsSize(long maxSessionsSize)
+    {
+        _maxSessionsSize = maxSessionsSize;
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.DefaultSessionCacheFactory#getSessionCache(org.eclipse.jetty.server.session.SessionHandler)
+     */
+    @Override
+    public SessionCache getSessionCache(SessionHandler handler)
+    {
+        BoundedSessionCache cache = new BoundedSessionCache(handler);
+        cache.setEvictionPolicy(getEvictionPolicy());
+        cache.setSaveOnInactiveEviction(isSaveOnInactiveEvict());
+        cache.setSaveOnCreate(isSaveOnCreate());
+        cache.setRemoveUnloadableSessions(isRemoveUnloadableSessions());
+        cache.setMaxSessions(getMaxSessions());
+        cache.setMaxSessionsSize(getMaxSessionsSize());
+        return cache;
+    }
+}
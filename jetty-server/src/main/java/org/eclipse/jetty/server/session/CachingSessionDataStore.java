@@ -209,6 +209,17 @@ public class CachingSessionDataStore extends ContainerLifeCycle implements Sessi
     }
 
 
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#getLastSaved(java.lang.String)
+     */
+    @Override
+    public long getLastSaved(String id) throws Exception
+    {
+        //the delegate store is authoritative
+        return _store.getLastSaved(id);
+    }
+
+
     /** 
      * @see org.eclipse.jetty.server.session.SessionDataStore#initialize(org.eclipse.jetty.server.session.SessionContext)
      */
@@ -89,11 +89,13 @@ public class DefaultSessionCache extends AbstractSessionCache
     }
     
     /**
-     * 
+     * @see org.eclipse.jetty.server.session.AbstractSessionCache#resetStats()
      */
+    @Override
     @ManagedOperation(value="reset statistics", impact="ACTION")
     public void resetStats()
     {
+        super.resetStats();
         _stats.reset();
     }
     
@@ -30,6 +30,7 @@ public class DefaultSessionCacheFactory implements SessionCacheFactory
     boolean _saveOnInactiveEvict;
     boolean _saveOnCreate;
     boolean _removeUnloadableSessions;
+    int _nearCacheSize;
 
     
     /**
@@ -52,6 +53,27 @@ public class DefaultSessionCacheFactory implements SessionCacheFactory
 
 
 
+    /**
+     * @return the max number of evicted sessions kept for reuse
+     */
+    public int getNearCacheSize()
+    {
+        return _nearCacheSize;
+    }
+
+
+
+    /**
+     * @param nearCacheSize the max number of evicted sessions kept for reuse
+     * @see AbstractSessionCache#setNearCacheSize(int)
+     */
+    public void setNearCacheSize(int nearCacheSize)
+    {
+        _nearCacheSize = nearCacheSize;
+    }
+
+
+
     
     
     
@@ -132,6 +154,7 @@ public class DefaultSessionCacheFactory implements SessionCacheFactory
         cache.setSaveOnInactiveEviction(isSaveOnInactiveEvict());
         cache.setSaveOnCreate(isSaveOnCreate());
         cache.setRemoveUnloadableSessions(isRemoveUnloadableSessions());
+        cache.setNearCacheSize(getNearCacheSize());
         return cache;
     }
 
@@ -0,0 +1,382 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.eclipse.jetty.util.ClassLoadingObjectInputStream;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * DefaultSessionDataSerializer
+ *
+ * A compact binary {@link SessionDataSerializer}.
+ * <p>
+ * Attributes whose values are Strings, boxed primitives or byte arrays are 
+ * written directly; the values of all other attributes are written with a
+ * single java serialization stream, so that references shared between
+ * attributes are preserved.
+ * <p>
+ * The data starts with a header containing a magic number, a format
+ * version and flags, so that the format can evolve while data written by
+ * previous versions can still be read. If a compression threshold is set,
+ * data larger than the threshold is deflated.
+ */
+@ManagedObject
+public class DefaultSessionDataSerializer implements SessionDataSerializer
+{
+    public static final int MAGIC = 0x4A53;
+    public static final int VERSION = 1;
+
+    private static final int FLAG_COMPRESSED = 0x01;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte SHORT = 7;
+    private static final byte BYTE = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BYTES = 10;
+    private static final byte SERIALIZED = 11;
+
+    private int _compressionThreshold = -1;
+    private int _compressionLevel = Deflater.BEST_SPEED;
+    
+    
+    /**
+     * @return the min size in bytes of the data to compress it, or -1 if data is never compressed
+     */
+    @ManagedAttribute(value="min size in bytes of compressed session data", readonly=true)
+    public int getCompressionThreshold()
+    {
+        return _compressionThreshold;
+    }
+
+
+    /**
+     * @param compressionThreshold the min size in bytes of the data to compress it, or -1 to never compress data
+     */
+    public void setCompressionThreshold(int compressionThreshold)
+    {
+        _compressionThreshold = compressionThreshold;
+    }
+
+
+    /**
+     * @return the deflater compression level
+     */
+    @ManagedAttribute(value="compression level of session data", readonly=true)
+    public int getCompressionLevel()
+    {
+        return _compressionLevel;
+    }
+
+
+    /**
+     * @param compressionLevel the deflater compression level
+     * @see Deflater#setLevel(int)
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        _compressionLevel = compressionLevel;
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataSerializer#writeAttributes(java.util.Map, java.io.OutputStream)
+     */
+    @Override
+    public void writeAttributes(Map<String, Object> attributes, OutputStream out) throws IOException
+    {
+        //take a snapshot, as attributes may be concurrently modified
+        List<Map.Entry<String,Object>> entries = new ArrayList<>(attributes.entrySet());
+        
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64 + entries.size() * 32);
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeInt(entries.size());
+        List<Object> serializables = null;
+        for (Map.Entry<String,Object> entry : entries)
+        {
+            writeString(data, entry.getKey());
+            Object value = entry.getValue();
+            if (!writeValue(data, value))
+            {
+                data.writeByte(SERIALIZED);
+                if (serializables == null)
+                    serializables = new ArrayList<>();
+                serializables.add(value);
+            }
+        }
+        if (serializables != null)
+        {
+            ObjectOutputStream oos = new ObjectOutputStream(data);
+            for (Object value : serializables)
+                oos.writeObject(value);
+            oos.flush();
+        }
+        data.flush();
+
+        int flags = 0;
+        byte[] bytes = payload.toByteArray();
+        if (_compressionThreshold >= 0 && bytes.length >= _compressionThreshold)
+        {
+            byte[] compressed = compress(bytes);
+            if (compressed.length < bytes.length)
+            {
+                bytes = compressed;
+                flags |= FLAG_COMPRESSED;
+            }
+        }
+
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeShort(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(flags);
+        header.writeInt(bytes.length);
+        header.write(bytes);
+        header.flush();
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataSerializer#readAttributes(java.io.InputStream)
+     */
+    @Override
+    public Map<String, Object> readAttributes(InputStream in) throws IOException, ClassNotFoundException
+    {
+        DataInputStream header = new DataInputStream(in);
+        int magic = header.readUnsignedShort();
+        if (magic != MAGIC)
+            throw new StreamCorruptedException("Invalid session data magic "+Integer.toHexString(magic));
+        int version = header.readUnsignedByte();
+        if (version > VERSION)
+            throw new StreamCorruptedException("Unsupported session data version "+version);
+        int flags = header.readUnsignedByte();
+        byte[] bytes = new byte[header.readInt()];
+        header.readFully(bytes);
+
+        InputStream payload = new ByteArrayInputStream(bytes);
+        if ((flags & FLAG_COMPRESSED) != 0)
+            payload = new InflaterInputStream(payload);
+        DataInputStream data = new DataInputStream(payload);
+
+        int size = data.readInt();
+        Map<String,Object> attributes = new HashMap<>();
+        List<String> serializables = null;
+        for (int i=0; i<size; i++)
+        {
+            String name = readString(data);
+            byte type = data.readByte();
+            if (type == SERIALIZED)
+            {
+                if (serializables == null)
+                    serializables = new ArrayList<>();
+                serializables.add(name);
+            }
+            else
+            {
+                Object value = readValue(data, type);
+                if (value != null)
+                    attributes.put(name, value);
+            }
+        }
+        if (serializables != null)
+        {
+            ClassLoadingObjectInputStream ois = new ClassLoadingObjectInputStream(data);
+            for (String name : serializables)
+            {
+                Object value = ois.readObject();
+                if (value != null)
+                    attributes.put(name, value);
+            }
+        }
+        return attributes;
+    }
+
+
+    /**
+     * @param out the stream to write to
+     * @param value the attribute value
+     * @return true if the value was written, false if it must be serialized
+     * @throws IOException if the value cannot be written
+     */
+    private boolean writeValue (DataOutputStream out, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeByte(NULL);
+        }
+        else if (value instanceof String)
+        {
+            out.writeByte(STRING);
+            writeString(out, (String)value);
+        }
+        else if (value instanceof Integer)
+        {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer)value);
+        }
+        else if (value instanceof Long)
+        {
+            out.writeByte(LONG);
+            out.writeLong((Long)value);
+        }
+        else if (value instanceof Boolean)
+        {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean)value);
+        }
+        else if (value instanceof Double)
+        {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double)value);
+        }
+        else if (value instanceof Float)
+        {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float)value);
+        }
+        else if (value instanceof Short)
+        {
+            out.writeByte(SHORT);
+            out.writeShort((Short)value);
+        }
+        else if (value instanceof Byte)
+        {
+            out.writeByte(BYTE);
+            out.writeByte((Byte)value);
+        }
+        else if (value instanceof Character)
+        {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character)value);
+        }
+        else if (value instanceof byte[])
+        {
+            byte[] bytes = (byte[])value;
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        else
+        {
+            return false;
+        }
+        return true;
+    }
+
+
+    private Object readValue (DataInputStream in, byte type) throws IOException
+    {
+        switch (type)
+        {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case CHARACTER:
+                return in.readChar();
+            case BYTES:
+            {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            }
+            default:
+                throw new StreamCorruptedException("Unknown session attribute type "+type);
+        }
+    }
+
+
+    private void writeString (DataOutputStream out, String string) throws IOException
+    {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    private String readString (DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    private byte[] compress (byte[] bytes) throws IOException
+    {
+        Deflater deflater = new Deflater(_compressionLevel);
+        try
+        {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater))
+            {
+                out.write(bytes);
+            }
+            return compressed.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+    
+    
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[compressionThreshold=%d,compressionLevel=%d]", getClass().getSimpleName(), hashCode(), _compressionThreshold, _compressionLevel);
+    }
+}
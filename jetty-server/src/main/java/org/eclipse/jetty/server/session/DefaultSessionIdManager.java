@@ -19,6 +19,7 @@
 package org.eclipse.jetty.server.session;
 
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
@@ -49,6 +50,11 @@ import org.eclipse.jetty.util.log.Logger;
  * 
  * Runs a HouseKeeper thread to periodically check for expired Sessions.
  * 
+ * Unless a {@link Random} is explicitly set, ids are generated from a pool
+ * of {@link SecureRandom} instances, selected by thread, that each buffer
+ * their random bytes. Each id carries 128 random bits encoded in a compact,
+ * URL and cookie safe base 64 alphabet.
+ * 
  * @see HouseKeeper
  */
 @ManagedObject
@@ -59,8 +65,17 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
     private final static String __NEW_SESSION_ID="org.eclipse.jetty.server.newSessionId";
     
     protected static final AtomicLong COUNTER = new AtomicLong();
+    
+    /**
+     * URL safe base 64 alphabet. '~' is used rather than the '_' of base64url, 
+     * as '_' separates the fields of session file names.
+     */
+    private static final char[] ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-~".toCharArray();
+    private static final int ID_RANDOM_BYTES = 16;
 
-    protected Random _random;
+    protected volatile Random _random;
+    protected volatile SecureRandomStripe[] _stripes;
+    protected int _randomStripes = -1;
     protected boolean _weakRandom;
     protected String _workerName;
     protected String _workerAttr;
@@ -174,7 +189,8 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
 
     /* ------------------------------------------------------------ */
     /**
-     * @return the random number generator
+     * @return the random number generator, or null if ids are generated
+     * from the pool of {@link SecureRandom}s
      */
     public Random getRandom()
     {
@@ -183,14 +199,41 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
 
     /* ------------------------------------------------------------ */
     /**
+     * Set a random number generator to use for all ids, rather than the
+     * pool of {@link SecureRandom}s. Access to it is serialized.
+     * 
      * @param random a random number generator for generating ids
      */
-    public synchronized void setRandom(Random random)
+    public void setRandom(Random random)
     {
         _random=random;
         _weakRandom=false;
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the number of {@link SecureRandom} instances used to generate ids
+     */
+    @ManagedAttribute(value="number of SecureRandom instances used to generate ids", readonly=true)
+    public int getRandomStripes()
+    {
+        SecureRandomStripe[] stripes = _stripes;
+        return stripes == null ? _randomStripes : stripes.length;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param stripes the number of {@link SecureRandom} instances used to 
+     * generate ids, rounded up to a power of 2. If less than 1, the number of 
+     * available processors is used.
+     */
+    public void setRandomStripes(int stripes)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _randomStripes = stripes;
+    }
+
     /* ------------------------------------------------------------ */
     /**
      * @return the reseed probability
@@ -252,6 +295,10 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
      */
     public String newSessionId(long seedTerm)
     {
+        SecureRandomStripe[] stripes = _stripes;
+        if (stripes != null)
+            return newSessionId(stripes);
+
         // pick a new unique ID!
         String id=null;
 
@@ -300,6 +347,45 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
         }
         return id;
     }
+    
+    
+    /* ------------------------------------------------------------ */
+    /**
+     * Generate an id from the stripe of the pool allocated to the 
+     * calling thread.
+     * 
+     * @param stripes the pool of SecureRandoms
+     * @return a new unique session id
+     */
+    private String newSessionId(SecureRandomStripe[] stripes)
+    {
+        byte[] bytes = new byte[ID_RANDOM_BYTES];
+        stripes[(int)(Thread.currentThread().getId() & (stripes.length-1))].nextBytes(bytes,_reseed);
+
+        //add in the id of the node to ensure unique id across cluster
+        //NOTE this is different to the node suffix which denotes which node the request was received on
+        String worker = _workerName;
+        StringBuilder id = new StringBuilder((worker==null?0:worker.length()) + 22);
+        if (!StringUtil.isBlank(worker))
+            id.append(worker);
+
+        int i = 0;
+        for (; i + 3 <= bytes.length; i += 3)
+        {
+            int b = ((bytes[i]&0xFF)<<16)|((bytes[i+1]&0xFF)<<8)|(bytes[i+2]&0xFF);
+            id.append(ID_ALPHABET[(b>>>18)&0x3F]);
+            id.append(ID_ALPHABET[(b>>>12)&0x3F]);
+            id.append(ID_ALPHABET[(b>>>6)&0x3F]);
+            id.append(ID_ALPHABET[b&0x3F]);
+        }
+        if (i < bytes.length)
+        {
+            int b = bytes[i]&0xFF;
+            id.append(ID_ALPHABET[b>>>2]);
+            id.append(ID_ALPHABET[(b&0x03)<<4]);
+        }
+        return id.toString();
+    }
 
 
 
@@ -389,13 +475,14 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
             _houseKeeper = null;
         }
         _random = null;
+        _stripes = null;
     }
 
     /* ------------------------------------------------------------ */
     /**
      * Set up a random number generator for the sessionids.
      *
-     * By preference, use a SecureRandom but allow to be injected.
+     * By preference, use a pool of SecureRandoms but allow a Random to be injected.
      */
     public void initRandom ()
     {
@@ -403,7 +490,14 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
         {
             try
             {
-                _random=new SecureRandom();
+                int stripes = _randomStripes > 0 ? _randomStripes : Runtime.getRuntime().availableProcessors();
+                int size = 1;
+                while (size < stripes)
+                    size <<= 1;
+                SecureRandomStripe[] pool = new SecureRandomStripe[size];
+                for (int i = 0; i < pool.length; i++)
+                    pool[i] = new SecureRandomStripe();
+                _stripes = pool;
             }
             catch (Exception e)
             {
@@ -538,4 +632,45 @@ public class DefaultSessionIdManager extends ContainerLifeCycle implements Sessi
     }
     
     
+
+    
+    /* ------------------------------------------------------------ */
+    /**
+     * SecureRandomStripe
+     *
+     * A SecureRandom from the id generation pool, that reads its random
+     * bytes in bulk and hands them out an id at a time.
+     */
+    protected static class SecureRandomStripe
+    {
+        private final SecureRandom _random = new SecureRandom();
+        private final byte[] _buffer = new byte[ID_RANDOM_BYTES*32];
+        private int _position = _buffer.length;
+        private long _ids;
+
+        /**
+         * @param bytes the array to fill with random bytes
+         * @param reseed if greater than 0, the number of ids after which the SecureRandom is reseeded
+         */
+        public synchronized void nextBytes(byte[] bytes, long reseed)
+        {
+            if (_position + bytes.length > _buffer.length)
+            {
+                _random.nextBytes(_buffer);
+                _position = 0;
+            }
+            System.arraycopy(_buffer,_position,bytes,0,bytes.length);
+            //do not keep bytes that have been handed out
+            Arrays.fill(_buffer,_position,_position+bytes.length,(byte)0);
+            _position += bytes.length;
+
+            if (reseed > 0 && ++_ids % reseed == 0)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Reseeding {}",this);
+                _random.setSeed(_random.generateSeed(8));
+                _position = _buffer.length;
+            }
+        }
+    }
 }
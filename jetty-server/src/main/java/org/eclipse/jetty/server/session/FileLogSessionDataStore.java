@@ -0,0 +1,796 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * FileLogSessionDataStore
+ *
+ * A file-based store of session data that appends session records to
+ * memory mapped segment files, rather than writing a file per session.
+ * <p>
+ * The location of the latest record of each session is kept in memory.
+ * It is rebuilt at startup by a sequential scan of the segments, which
+ * reads only the record headers. New records are always appended to the
+ * active segment: when it is full, it is sealed and a new segment is
+ * started. A session that is saved again or deleted leaves dead records
+ * in older segments. When the live data in the sealed segments falls
+ * below the compaction ratio, the oldest segment is compacted: its live
+ * records are copied to the active segment and its file is deleted.
+ * <p>
+ * Each record is:
+ * <pre>
+ * int length (of the rest of the record)
+ * byte type (PUT or DELETE)
+ * long expiry
+ * long lastSaved
+ * short idLength, id bytes (UTF-8)
+ * session data (PUT only)
+ * int crc32 (of type to session data)
+ * </pre>
+ * A zero length marks the end of the records in a segment.
+ */
+@ManagedObject
+public class FileLogSessionDataStore extends AbstractSessionDataStore
+{
+    private  final static Logger LOG = Log.getLogger("org.eclipse.jetty.server.session");
+    
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    
+    protected File _storeDir;
+    protected int _segmentSize = 16*1024*1024;
+    protected double _compactionRatio = 0.5;
+    protected boolean _syncOnWrite = false;
+    
+    /**
+     * The location of the latest record of each session
+     */
+    private final ConcurrentHashMap<String, Entry> _index = new ConcurrentHashMap<>();
+    
+    /**
+     * The segments, by number
+     */
+    private final ConcurrentSkipListMap<Integer, Segment> _segments = new ConcurrentSkipListMap<>();
+    private final Object _writeLock = new Object();
+    private Segment _active; //guarded by _writeLock
+    private String _prefix;
+    
+    
+    /**
+     * A memory mapped segment file
+     */
+    private static class Segment
+    {
+        private final int _number;
+        private final File _file;
+        private final MappedByteBuffer _buffer;
+        private final AtomicLong _liveBytes = new AtomicLong();
+        private int _position; //end of the records, guarded by _writeLock once started
+        
+        private Segment (int number, File file, int capacity, boolean writable) throws IOException
+        {
+            _number = number;
+            _file = file;
+            //the mapping stays valid once the file is closed
+            try (RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r");
+                 FileChannel channel = raf.getChannel())
+            {
+                if (writable)
+                    _buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                else
+                    _buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        
+        private void close ()
+        {
+            //there is no way to unmap, the mapping is released when the buffer is collected
+            if (!_buffer.isReadOnly())
+                _buffer.force();
+        }
+    }
+    
+    
+    /**
+     * The location of a record in a segment
+     */
+    private static class Entry
+    {
+        private final Segment _segment;
+        private final int _offset;
+        private final int _length;
+        private final long _expiry;
+        private final long _lastSaved;
+        
+        private Entry (Segment segment, int offset, int length, long expiry, long lastSaved)
+        {
+            _segment = segment;
+            _offset = offset;
+            _length = length;
+            _expiry = expiry;
+            _lastSaved = lastSaved;
+        }
+    }
+
+
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_storeDir == null)
+            throw new IllegalStateException("No file store specified");
+        if (!_storeDir.exists() && !_storeDir.mkdirs())
+            throw new IllegalStateException("Unable to create store dir "+_storeDir);
+        
+        _prefix = _context.getCanonicalContextPath()+"_"+_context.getVhost();
+        recover();
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        synchronized (_writeLock)
+        {
+            for (Segment segment : _segments.values())
+                segment.close();
+            _segments.clear();
+            _index.clear();
+            _active = null;
+        }
+        super.doStop();
+    }
+
+
+
+    /**
+     * @return the directory holding the segment files
+     */
+    @ManagedAttribute(value="dir where sessions are stored", readonly=true)
+    public File getStoreDir()
+    {
+        return _storeDir;
+    }
+    
+    
+    /**
+     * @param dir the directory holding the segment files
+     */
+    public void setStoreDir(File dir)
+    {
+        checkStarted();
+        _storeDir = dir;
+    }
+    
+    
+    /**
+     * @return the size in bytes of each segment file
+     */
+    @ManagedAttribute(value="size in bytes of segment files", readonly=true)
+    public int getSegmentSize()
+    {
+        return _segmentSize;
+    }
+    
+    
+    /**
+     * @param segmentSize the size in bytes of each segment file. A segment
+     * is made larger if needed to hold a single session record.
+     */
+    public void setSegmentSize(int segmentSize)
+    {
+        checkStarted();
+        _segmentSize = segmentSize;
+    }
+    
+    
+    /**
+     * @return the fraction of live data in the sealed segments below which they are compacted
+     */
+    @ManagedAttribute(value="fraction of live data below which segments are compacted", readonly=true)
+    public double getCompactionRatio()
+    {
+        return _compactionRatio;
+    }
+    
+    
+    /**
+     * @param ratio the fraction of live data in the sealed segments below 
+     * which the oldest segment is compacted, or 0 to never compact
+     */
+    public void setCompactionRatio(double ratio)
+    {
+        _compactionRatio = ratio;
+    }
+    
+    
+    /**
+     * @return true if each record is forced to disk as it is written
+     */
+    @ManagedAttribute(value="force each record to disk", readonly=true)
+    public boolean isSyncOnWrite()
+    {
+        return _syncOnWrite;
+    }
+    
+    
+    /**
+     * @param syncOnWrite true to force each record to disk as it is written,
+     * otherwise the operating system writes out the mapped segments
+     */
+    public void setSyncOnWrite(boolean syncOnWrite)
+    {
+        _syncOnWrite = syncOnWrite;
+    }
+    
+    
+    /**
+     * @return the number of segment files
+     */
+    @ManagedAttribute(value="number of segment files", readonly=true)
+    public int getSegmentCount()
+    {
+        return _segments.size();
+    }
+    
+    
+    /**
+     * @return the number of sessions in the store
+     */
+    @ManagedAttribute(value="number of sessions stored", readonly=true)
+    public int getSessionCount()
+    {
+        return _index.size();
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#isPassivating()
+     */
+    @Override
+    public boolean isPassivating()
+    {
+        return true;
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#exists(java.lang.String)
+     */
+    @Override
+    public boolean exists(String id) throws Exception
+    {
+        Entry entry = _index.get(id);
+        if (entry == null)
+            return false;
+        return (entry._expiry <= 0 || entry._expiry > System.currentTimeMillis());
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#getLastSaved(java.lang.String)
+     */
+    @Override
+    public long getLastSaved(String id) throws Exception
+    {
+        Entry entry = _index.get(id);
+        return (entry == null ? 0 : entry._lastSaved);
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataMap#delete(java.lang.String)
+     */
+    @Override
+    public boolean delete(String id) throws Exception
+    {
+        synchronized (_writeLock)
+        {
+            Entry old = _index.remove(id);
+            if (old == null)
+                return false;
+            old._segment._liveBytes.addAndGet(-old._length);
+            append(DELETE, id, 0, 0, null);
+            return true;
+        }
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.AbstractSessionDataStore#doGetExpired(java.util.Set)
+     */
+    @Override
+    public Set<String> doGetExpired(Set<String> candidates)
+    {
+        long now = System.currentTimeMillis();
+        Set<String> expired = new HashSet<>();
+        
+        for (Map.Entry<String, Entry> e : _index.entrySet())
+        {
+            long expiry = e.getValue()._expiry;
+            if (expiry > 0 && expiry < now)
+                expired.add(e.getKey());
+        }
+        
+        //candidates that we no longer hold should be expired
+        for (String c : candidates)
+        {
+            if (!_index.containsKey(c))
+                expired.add(c);
+        }
+        
+        try
+        {
+            compact();
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Compaction of session segments failed", e);
+        }
+        
+        return expired;
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.AbstractSessionDataStore#doStore(java.lang.String, org.eclipse.jetty.server.session.SessionData, long)
+     */
+    @Override
+    public void doStore(String id, SessionData data, long lastSaveTime) throws Exception
+    {
+        byte[] payload;
+        try
+        {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bout);
+            out.writeUTF(data.getLastNode() == null ? "" : data.getLastNode());
+            out.writeLong(data.getCreated());
+            out.writeLong(data.getAccessed());
+            out.writeLong(data.getLastAccessed());
+            out.writeLong(data.getCookieSet());
+            out.writeLong(data.getMaxInactiveMs());
+            Map<String,Object> attributes = new HashMap<>(data.getAllAttributes());
+            out.writeInt(attributes.size());
+            if (!attributes.isEmpty())
+                serializeAttributes(attributes, out);
+            out.flush();
+            payload = bout.toByteArray();
+        }
+        catch (Exception e)
+        {
+            throw new UnwriteableSessionDataException(id, _context, e);
+        }
+        
+        synchronized (_writeLock)
+        {
+            Entry entry = append(PUT, id, data.getExpiry(), data.getLastSaved(), payload);
+            Entry old = _index.put(id, entry);
+            if (old != null)
+                old._segment._liveBytes.addAndGet(-old._length);
+        }
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataMap#load(java.lang.String)
+     */
+    @Override
+    public SessionData load(String id) throws Exception
+    {
+        final Entry entry = _index.get(id);
+        if (entry == null)
+            return null;
+        
+        final AtomicReference<SessionData> reference = new AtomicReference<>();
+        final AtomicReference<Exception> exception = new AtomicReference<>();
+        
+        //deserialize with the context's classloader
+        _context.run(() ->
+        {
+            try
+            {
+                reference.set(read(id, entry));
+            }
+            catch (Exception e)
+            {
+                exception.set(new UnreadableSessionDataException(id, _context, e));
+            }
+        });
+        
+        if (exception.get() != null)
+        {
+            //the data cannot be used, forget it
+            synchronized (_writeLock)
+            {
+                if (_index.remove(id, entry))
+                    entry._segment._liveBytes.addAndGet(-entry._length);
+            }
+            throw exception.get();
+        }
+        return reference.get();
+    }
+    
+    
+    
+    /**
+     * Read the session data of a record.
+     * 
+     * @param id the session id
+     * @param entry the location of the record
+     * @return the session data
+     * @throws Exception if the record cannot be read
+     */
+    private SessionData read (String id, Entry entry) throws Exception
+    {
+        ByteBuffer buffer = entry._segment._buffer.duplicate();
+        buffer.position(entry._offset + 4);
+        byte[] body = new byte[entry._length - 8];
+        buffer.get(body);
+        
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        in.readByte(); //type
+        long expiry = in.readLong();
+        long lastSaved = in.readLong();
+        byte[] idBytes = new byte[in.readUnsignedShort()];
+        in.readFully(idBytes);
+        if (!id.equals(new String(idBytes, StandardCharsets.UTF_8)))
+            throw new IllegalStateException("Record is not for session "+id);
+        
+        String lastNode = in.readUTF();
+        long created = in.readLong();
+        long accessed = in.readLong();
+        long lastAccessed = in.readLong();
+        long cookieSet = in.readLong();
+        long maxInactiveMs = in.readLong();
+        
+        SessionData data = newSessionData(id, created, accessed, lastAccessed, maxInactiveMs);
+        data.setLastNode(lastNode);
+        data.setCookieSet(cookieSet);
+        data.setExpiry(expiry);
+        data.setLastSaved(lastSaved);
+        
+        int size = in.readInt();
+        if (size > 0)
+            data.putAllAttributes(_serializer.readAttributes(in));
+        return data;
+    }
+    
+    
+    
+    /**
+     * Append a record to the active segment.
+     * 
+     * @param type PUT or DELETE
+     * @param id the session id
+     * @param expiry the expiry time of the session
+     * @param lastSaved the time the session was saved
+     * @param payload the session data or null
+     * @return the location of the new record
+     * @throws IOException if the record cannot be written
+     */
+    private Entry append (byte type, String id, long expiry, long lastSaved, byte[] payload) throws IOException
+    {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 8 + 8 + 2 + idBytes.length + (payload == null ? 0 : payload.length);
+        int length = 4 + bodyLength + 4;
+        
+        Segment segment = _active;
+        //keep room for the zero length that ends the records
+        if (segment == null || segment._position + length + 4 > segment._buffer.capacity())
+            segment = roll(length + 4);
+
+        ByteBuffer buffer = segment._buffer.duplicate();
+        int offset = segment._position;
+        buffer.position(offset + 4);
+        buffer.put(type);
+        buffer.putLong(expiry);
+        buffer.putLong(lastSaved);
+        buffer.putShort((short)idBytes.length);
+        buffer.put(idBytes);
+        if (payload != null)
+            buffer.put(payload);
+        
+        ByteBuffer body = segment._buffer.duplicate();
+        body.position(offset + 4);
+        body.limit(offset + 4 + bodyLength);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        buffer.putInt((int)crc.getValue());
+        
+        //write the length last, so a partly written record reads as the end
+        buffer.putInt(offset, bodyLength + 4);
+        segment._position += length;
+        
+        if (_syncOnWrite)
+            segment._buffer.force();
+        
+        Entry entry = new Entry(segment, offset, length, expiry, lastSaved);
+        if (type == PUT)
+            segment._liveBytes.addAndGet(length);
+        return entry;
+    }
+    
+    
+    
+    /**
+     * Seal the active segment and start a new one.
+     * 
+     * @param minCapacity the space needed in the new segment
+     * @return the new active segment
+     * @throws IOException if the segment file cannot be created
+     */
+    private Segment roll (int minCapacity) throws IOException
+    {
+        if (_active != null)
+            _active._buffer.force();
+        
+        int number = _segments.isEmpty() ? 0 : _segments.lastKey() + 1;
+        File file = new File(_storeDir, _prefix+"."+number+SEGMENT_SUFFIX);
+        Segment segment = new Segment(number, file, Math.max(_segmentSize, minCapacity), true);
+        _segments.put(number, segment);
+        _active = segment;
+        if (LOG.isDebugEnabled())
+            LOG.debug("New session segment {}", file);
+        return segment;
+    }
+    
+    
+    
+    /**
+     * Rebuild the index from the segments of this context.
+     * 
+     * @throws IOException if a segment cannot be read
+     */
+    private void recover () throws IOException
+    {
+        File[] files = _storeDir.listFiles();
+        if (files == null)
+            return;
+        
+        String start = _prefix + ".";
+        for (File file : files)
+        {
+            String name = file.getName();
+            if (!name.startsWith(start) || !name.endsWith(SEGMENT_SUFFIX))
+                continue;
+            try
+            {
+                int number = Integer.parseInt(name.substring(start.length(), name.length() - SEGMENT_SUFFIX.length()));
+                _segments.put(number, new Segment(number, file, 0, false));
+            }
+            catch (NumberFormatException e)
+            {
+                //not one of ours
+            }
+        }
+        
+        for (Segment segment : _segments.values())
+            scan(segment);
+        
+        //never append to a recovered segment, its end may hold a partly written record
+        _active = null;
+        
+        if (LOG.isDebugEnabled())
+            LOG.debug("Recovered {} sessions from {} segments in {}", _index.size(), _segments.size(), _storeDir);
+    }
+    
+    
+    
+    /**
+     * Index the records of a segment.
+     * 
+     * @param segment the segment
+     */
+    private void scan (Segment segment)
+    {
+        ByteBuffer buffer = segment._buffer.duplicate();
+        int limit = buffer.limit();
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        
+        while (offset + 4 <= limit)
+        {
+            int length = buffer.getInt(offset);
+            if (length <= 0)
+                break; //end of records
+            if (length < 8 + 8 + 2 + 1 + 4 || offset + 4 + length > limit)
+            {
+                LOG.warn("Truncated session record at {} in {}", offset, segment._file);
+                break;
+            }
+            
+            ByteBuffer body = segment._buffer.duplicate();
+            body.position(offset + 4);
+            body.limit(offset + length);
+            crc.reset();
+            crc.update(body);
+            if ((int)crc.getValue() != buffer.getInt(offset + length))
+            {
+                LOG.warn("Corrupt session record at {} in {}", offset, segment._file);
+                break;
+            }
+            
+            buffer.position(offset + 4);
+            byte type = buffer.get();
+            long expiry = buffer.getLong();
+            long lastSaved = buffer.getLong();
+            byte[] idBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(idBytes);
+            String id = new String(idBytes, StandardCharsets.UTF_8);
+            
+            Entry old;
+            if (type == PUT)
+            {
+                Entry entry = new Entry(segment, offset, length + 4, expiry, lastSaved);
+                segment._liveBytes.addAndGet(entry._length);
+                old = _index.put(id, entry);
+            }
+            else
+                old = _index.remove(id);
+            if (old != null)
+                old._segment._liveBytes.addAndGet(-old._length);
+            
+            offset += length + 4;
+        }
+        segment._position = offset;
+    }
+    
+    
+    
+    /**
+     * Compact the oldest sealed segments while the live data in the
+     * sealed segments is below the compaction ratio.
+     * <p>
+     * Only the oldest segment is ever compacted, so that delete records
+     * can be dropped: there is no older record that they hide.
+     * 
+     * @throws IOException if a record cannot be copied
+     */
+    protected void compact () throws IOException
+    {
+        if (_compactionRatio <= 0)
+            return;
+        
+        int passes = _segments.size();
+        while (passes-- > 0)
+        {
+            Segment oldest;
+            long total = 0;
+            long live = 0;
+            synchronized (_writeLock)
+            {
+                oldest = null;
+                for (Segment segment : _segments.values())
+                {
+                    if (segment == _active)
+                        continue;
+                    if (oldest == null)
+                        oldest = segment;
+                    total += segment._position;
+                    live += segment._liveBytes.get();
+                }
+            }
+            
+            if (oldest == null || total == 0 || live >= total * _compactionRatio)
+                return;
+            
+            compact(oldest);
+        }
+    }
+    
+    
+    
+    /**
+     * Copy the live records of a sealed segment to the active
+     * segment and delete it.
+     * 
+     * @param segment the segment to compact
+     * @throws IOException if a record cannot be copied
+     */
+    private void compact (Segment segment) throws IOException
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Compacting session segment {} live={}/{}", segment._file, segment._liveBytes.get(), segment._position);
+        
+        //sealed segments do not change, so can be read without the lock
+        List<String> ids = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : _index.entrySet())
+        {
+            if (e.getValue()._segment == segment)
+                ids.add(e.getKey());
+        }
+        
+        for (String id : ids)
+        {
+            synchronized (_writeLock)
+            {
+                Entry entry = _index.get(id);
+                if (entry == null || entry._segment != segment)
+                    continue; //changed since
+                
+                byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+                int headerLength = 4 + 1 + 8 + 8 + 2 + idBytes.length;
+                byte[] payload = new byte[entry._length - headerLength - 4];
+                ByteBuffer buffer = segment._buffer.duplicate();
+                buffer.position(entry._offset + headerLength);
+                buffer.get(payload);
+                
+                Entry moved = append(PUT, id, entry._expiry, entry._lastSaved, payload);
+                _index.put(id, moved);
+                segment._liveBytes.addAndGet(-entry._length);
+            }
+        }
+        
+        synchronized (_writeLock)
+        {
+            _segments.remove(segment._number);
+            segment.close();
+        }
+        //readers holding an entry for this segment can still use the mapping
+        if (!segment._file.delete())
+            LOG.warn("Unable to delete compacted session segment {}", segment._file);
+    }
+
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.AbstractSessionDataStore#toString()
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("%s[dir=%s,segmentSize=%d,segments=%d]",super.toString(),_storeDir,_segmentSize,_segments.size());
+    }
+}
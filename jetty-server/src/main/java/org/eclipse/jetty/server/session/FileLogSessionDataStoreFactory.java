@@ -0,0 +1,126 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.File;
+
+/**
+ * FileLogSessionDataStoreFactory
+ *
+ *
+ */
+public class FileLogSessionDataStoreFactory extends AbstractSessionDataStoreFactory
+{
+    File _storeDir;
+    int _segmentSize = 16*1024*1024;
+    double _compactionRatio = 0.5;
+    boolean _syncOnWrite;
+
+
+    /**
+     * @return the storeDir
+     */
+    public File getStoreDir()
+    {
+        return _storeDir;
+    }
+
+
+    /**
+     * @param storeDir the storeDir to set
+     */
+    public void setStoreDir(File storeDir)
+    {
+        _storeDir = storeDir;
+    }
+
+
+    /**
+     * @return the segmentSize
+     */
+    public int getSegmentSize()
+    {
+        return _segmentSize;
+    }
+
+
+    /**
+     * @param segmentSize the segmentSize to set
+     */
+    public void setSegmentSize(int segmentSize)
+    {
+        _segmentSize = segmentSize;
+    }
+
+
+    /**
+     * @return the compactionRatio
+     */
+    public double getCompactionRatio()
+    {
+        return _compactionRatio;
+    }
+
+
+    /**
+     * @param compactionRatio the compactionRatio to set
+     */
+    public void setCompactionRatio(double compactionRatio)
+    {
+        _compactionRatio = compactionRatio;
+    }
+
+
+    /**
+     * @return the syncOnWrite
+     */
+    public boolean isSyncOnWrite()
+    {
+        return _syncOnWrite;
+    }
+
+
+    /**
+     * @param syncOnWrite the syncOnWrite to set
+     */
+    public void setSyncOnWrite(boolean syncOnWrite)
+    {
+        _syncOnWrite = syncOnWrite;
+    }
+
+    
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStoreFactory#getSessionDataStore(org.eclipse.jetty.server.session.SessionHandler)
+     */
+    @Override
+    public SessionDataStore getSessionDataStore(SessionHandler handler)
+    {
+        FileLogSessionDataStore flsds = new FileLogSessionDataStore();
+        flsds.setStoreDir(getStoreDir());
+        flsds.setSegmentSize(getSegmentSize());
+        flsds.setCompactionRatio(getCompactionRatio());
+        flsds.setSyncOnWrite(isSyncOnWrite());
+        flsds.setGracePeriodSec(getGracePeriodSec());
+        flsds.setSavePeriodSec(getSavePeriodSec());
+        if (getSessionDataSerializer() != null)
+            flsds.setSessionDataSerializer(getSessionDataSerializer());
+        return flsds;
+    }
+
+}
@@ -24,19 +24,19 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.util.ClassLoadingObjectInputStream;
@@ -57,19 +57,68 @@ public class FileSessionDataStore extends AbstractSessionDataStore
     private  final static Logger LOG = Log.getLogger("org.eclipse.jetty.server.session");
     private File _storeDir;
     private boolean _deleteUnrestorableFiles = false;
+    private long _sweepIntervalSec = 0;
+    private long _lastSweepTime;
     
+    /**
+     * The name of the current file of each session, by session id
+     */
+    private final ConcurrentHashMap<String, String> _sessionFileMap = new ConcurrentHashMap<>();
+    
+    /**
+     * The sessions that can expire, ordered by expiry time
+     */
+    private final ConcurrentSkipListSet<Expiry> _expiryIndex = new ConcurrentSkipListSet<>();
+    
+    
+    /**
+     * An entry of the expiry index
+     */
+    private static class Expiry implements Comparable<Expiry>
+    {
+        private final long _time;
+        private final String _id;
+        
+        private Expiry (long time, String id)
+        {
+            _time = time;
+            _id = id;
+        }
+
+        @Override
+        public int compareTo(Expiry o)
+        {
+            int c = Long.compare(_time, o._time);
+            return c != 0 ? c : _id.compareTo(o._id);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Expiry && compareTo((Expiry)o) == 0;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Long.hashCode(_time) ^ _id.hashCode();
+        }
+    }
 
 
     @Override
     protected void doStart() throws Exception
     {
         initializeStore();
+        sweepDisk();
         super.doStart();
     }
 
     @Override
     protected void doStop() throws Exception
     {
+        _sessionFileMap.clear();
+        _expiryIndex.clear();
         super.doStop();
     }
 
@@ -95,6 +144,41 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         checkStarted();
         _deleteUnrestorableFiles = deleteUnrestorableFiles;
     }
+    
+    /**
+     * @return the interval in secs between scans of the store dir, or 0 
+     * if it is only scanned on start
+     */
+    @ManagedAttribute(value="secs between scans of the store dir", readonly=true)
+    public long getSweepIntervalSec()
+    {
+        return _sweepIntervalSec;
+    }
+
+    /**
+     * The sessions stored in the store dir are indexed in memory
+     * when this store starts, and the index is maintained as sessions
+     * are stored and deleted, so that the store dir does not need to be
+     * listed. If other processes write session files into the store dir 
+     * (eg other nodes sharing it), the store dir should also be scanned
+     * periodically, when checking for expired sessions.
+     * 
+     * @param sweepIntervalSec the interval in secs between scans of the store 
+     * dir, or 0 to only scan it on start
+     */
+    public void setSweepIntervalSec(long sweepIntervalSec)
+    {
+        _sweepIntervalSec = sweepIntervalSec;
+    }
+    
+    /**
+     * @return the number of sessions with a file in the store dir
+     */
+    @ManagedAttribute(value="number of session files", readonly=true)
+    public int getSessionFileCount()
+    {
+        return _sessionFileMap.size();
+    }
 
  
 
@@ -104,14 +188,14 @@ public class FileSessionDataStore extends AbstractSessionDataStore
     @Override
     public boolean delete(String id) throws Exception
     {   
-        File file = null;
         if (_storeDir != null)
         {
-            file = getFile(_storeDir, id);
-            if (file != null && file.exists() && file.getParentFile().equals(_storeDir))
-            {
-                return file.delete();
-            }
+            String filename = getFilename(id);
+            if (filename == null)
+                return false;
+            
+            unindex(id, filename);
+            return Files.deleteIfExists(new File(_storeDir, filename).toPath());
         }
          
         return false;
@@ -119,6 +203,9 @@ public class FileSessionDataStore extends AbstractSessionDataStore
 
 
     /** 
+     * Expired sessions are found from the in-memory expiry index, 
+     * so the cost is proportional to the number of expired sessions.
+     * 
      * @see org.eclipse.jetty.server.session.SessionDataStore#getExpired(Set)
      */
     @Override
@@ -127,83 +214,22 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         final long now = System.currentTimeMillis();
         HashSet<String> expired = new HashSet<String>();
         
-        HashSet<String> idsWithContext = new HashSet<>();
-        
-        
-        //one pass to get all idWithContext
-        File [] files = _storeDir.listFiles(new FilenameFilter()
-        {  
-            @Override
-            public boolean accept(File dir, String name)
-            {
-                if (dir != _storeDir)
-                    return false;
-
-                //dir may contain files that don't match our naming pattern      
-                if (!match(name))
-                {
-                    return false;
-                }
-
-                String idWithContext = getIdWithContextFromString(name);
-                if (!StringUtil.isBlank(idWithContext))
-                    idsWithContext.add(idWithContext);
-                return true;
-            }
-        });
-        
-       
-        //got the list of all sessionids with their contexts, remove all old files for each one
-        for (String idWithContext:idsWithContext)
-        {
-            deleteOldFiles(_storeDir, idWithContext);
-        }
-
-        
-        //now find sessions that have expired in any context
-        files = _storeDir.listFiles(new FilenameFilter() 
-        {      
-            @Override
-            public boolean accept(File dir, String name)
-            {
-                if (dir != _storeDir)
-                    return false;
-
-                //dir may contain files that don't match our naming pattern
-                if (!match(name))
-                    return false;
-                
-                try
-                {
-                    long expiry = getExpiryFromString(name);
-                    return expiry > 0 && expiry < now;
-                }
-                catch (Exception e)
-                {
-                    return false;
-                }
-            }
-        });
+        if (_sweepIntervalSec > 0 && (now - _lastSweepTime) > TimeUnit.SECONDS.toMillis(_sweepIntervalSec))
+            sweepDisk();
         
-        if (files != null)
+        for (Expiry expiry : _expiryIndex)
         {
-            for (File f:files)
-            {
-                expired.add(getIdFromFile(f));
-            }
+            if (expiry._time >= now)
+                break;
+            expired.add(expiry._id);
         }
         
         //check candidates that were not found to be expired, perhaps they no
         //longer exist and they should be expired
         for (String c:candidates)
         {
-            if (!expired.contains(c))
-            {
-                //check if the file exists
-                File f = getFile(_storeDir, c);
-                if (f == null || !f.exists())
-                    expired.add(c);
-            }
+            if (!expired.contains(c) && !_sessionFileMap.containsKey(c))
+                expired.add(c);
         }
         
         return expired;
@@ -223,13 +249,20 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         {
             public void run ()
             {
-                //get rid of all but the newest file for a session
-                File file = deleteOldFiles(_storeDir, getIdWithContext(id));
-   
-                if (file == null || !file.exists())
+                String filename = getFilename(id);
+                if (filename == null)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("No file for session {}", id);
+                    return;
+                }
+
+                File file = new File(_storeDir, filename);
+                if (!file.exists())
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("No file: {}",file);
+                    unindex(id, filename);
                     return;
                 }
 
@@ -243,6 +276,7 @@ public class FileSessionDataStore extends AbstractSessionDataStore
                 {
                     if (isDeleteUnrestorableFiles() && file.exists() && file.getParentFile().equals(_storeDir))
                     {
+                        unindex(id, filename);
                         file.delete();
                         LOG.warn("Deleted unrestorable file for session {}", id);
                     }
@@ -275,11 +309,9 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         File file = null;
         if (_storeDir != null)
         {
-            //remove any existing files for the session
-            deleteAllFiles(_storeDir, getIdWithContext(id));
-            
             //make a fresh file using the latest session expiry
-            file = new File(_storeDir, getIdWithContextAndExpiry(data));
+            String filename = getIdWithContextAndExpiry(data);
+            file = new File(_storeDir, filename);
 
             try(FileOutputStream fos = new FileOutputStream(file,false))
             {
@@ -287,11 +319,18 @@ public class FileSessionDataStore extends AbstractSessionDataStore
             }
             catch (Exception e)
             { 
-                e.printStackTrace();
                 if (file != null) 
+                {
+                    unindex(id, filename);
                     file.delete(); // No point keeping the file if we didn't save the whole session
+                }
                 throw new UnwriteableSessionDataException(id, _context,e);             
             }
+            
+            //remove the previous file for the session
+            String old = index(id, filename);
+            if (old != null && !old.equals(filename))
+                Files.deleteIfExists(new File(_storeDir, old).toPath());
         }
     }
     
@@ -326,12 +365,12 @@ public class FileSessionDataStore extends AbstractSessionDataStore
     @Override
     public boolean exists(String id) throws Exception
     {
-       File sessionFile = deleteOldFiles(_storeDir, getIdWithContext(id));
-       if (sessionFile == null || !sessionFile.exists())
+       String filename = getFilename(id);
+       if (filename == null || !new File(_storeDir, filename).exists())
            return false;
        
        //check the expiry
-       long expiry = getExpiryFromFile(sessionFile);
+       long expiry = getExpiryFromString(filename);
        if (expiry <= 0)
            return true; //never expires
        else
@@ -359,14 +398,11 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         out.writeLong(data.getExpiry());
         out.writeLong(data.getMaxInactiveMs());
         
-        List<String> keys = new ArrayList<String>(data.getKeys());
-        out.writeInt(keys.size());
-        ObjectOutputStream oos = new ObjectOutputStream(out);
-        for (String name:keys)
-        {
-            oos.writeUTF(name);
-            oos.writeObject(data.getAttribute(name));
-        }
+        Map<String,Object> attributes = new HashMap<>(data.getAllAttributes());
+        out.writeInt(attributes.size());
+        if (!attributes.isEmpty())
+            serializeAttributes(attributes, out);
+        out.flush();
     }
 
     /**
@@ -392,54 +428,195 @@ public class FileSessionDataStore extends AbstractSessionDataStore
     
     
     /**
-     * Work out which session id the file relates to.
-     * @param file the file to check
-     * @return the session id the file relates to.
+     * Get the name of the current file of a session. If the session
+     * is not in the index, the store dir is searched for its files, in 
+     * case they were written by another process.
+     * 
+     * @param id the session id
+     * @return the name of the file of the session, or null if there is none
      */
-    private String getIdFromFile (File file)
+    private String getFilename (String id)
     {
-        if (file == null)
+        String filename = _sessionFileMap.get(id);
+        if (filename != null)
+            return filename;
+
+        //get rid of all but the newest file for a session
+        final String idWithContext = getIdWithContext(id);
+        File[] files = _storeDir.listFiles((dir, name) -> match(name) && idWithContext.equals(getIdWithContextFromString(name)));
+        if (files == null || files.length == 0)
             return null;
-        String name = file.getName();
-        
-        return name.substring(name.lastIndexOf('_')+1);
+
+        File newest = null;
+        for (File f:files)
+        {
+            try
+            {
+                getExpiryFromString(f.getName());
+                if (newest == null)
+                    newest = f;
+                else
+                {
+                    File keep = getNewestFile(newest, f);
+                    Files.deleteIfExists((keep == f ? newest : f).toPath());
+                    newest = keep;
+                }
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Unable to delete old session file", e);
+            }
+        }
+        if (newest == null)
+            return null;
+
+        return indexIfAbsent(id, newest.getName());
     }
     
+    
     /**
-     * Get the expiry time of the session stored in the file.
-     * @param file the file from which to extract the expiry time
-     * @return the expiry time
+     * Record the file of a session in the index.
+     * 
+     * @param id the session id
+     * @param filename the name of the file of the session
+     * @return the name of the previous file of the session, or null
      */
-    private long getExpiryFromFile (File file)
+    private String index (String id, String filename)
     {
-        if (file == null)
-            return 0;
-        
-        return getExpiryFromString(file.getName());
+        AtomicReference<String> old = new AtomicReference<>();
+        _sessionFileMap.compute(id, (k, current) ->
+        {
+            old.set(current);
+            if (current != null)
+                _expiryIndex.remove(new Expiry(getExpiryFromString(current), k));
+            long expiry = getExpiryFromString(filename);
+            if (expiry > 0)
+                _expiryIndex.add(new Expiry(expiry, k));
+            return filename;
+        });
+        return old.get();
     }
     
     
-    private long getExpiryFromString (String filename)
+    /**
+     * Record the file of a session in the index, unless the session 
+     * is already indexed.
+     * 
+     * @param id the session id
+     * @param filename the name of the file of the session
+     * @return the name of the current file of the session
+     */
+    private String indexIfAbsent (String id, String filename)
     {
-        if (StringUtil.isBlank(filename) || filename.indexOf("_") < 0)
-            throw new IllegalStateException ("Invalid or missing filename");
-        
-        String s = filename.substring(0, filename.indexOf('_'));
-        return (s==null?0:Long.parseLong(s));
+        return _sessionFileMap.computeIfAbsent(id, k ->
+        {
+            long expiry = getExpiryFromString(filename);
+            if (expiry > 0)
+                _expiryIndex.add(new Expiry(expiry, k));
+            return filename;
+        });
     }
     
+    
     /**
-     * Extract the session id and context from the filename.
-     * @param file the file whose name to use
-     * @return the session id plus context
+     * Remove the file of a session from the index, if it is still the
+     * current file of the session.
+     * 
+     * @param id the session id
+     * @param filename the name of the file of the session
      */
-    private String getIdWithContextFromFile (File file)
+    private void unindex (String id, String filename)
     {
-        if (file == null)
+        _sessionFileMap.computeIfPresent(id, (k, current) ->
+        {
+            if (!current.equals(filename))
+                return current;
+            _expiryIndex.remove(new Expiry(getExpiryFromString(current), k));
             return null;
+        });
+    }
+    
+    
+    /**
+     * Scan the store dir to index the files of the sessions of this
+     * context, deleting all but the most recent file of each session.
+     */
+    protected void sweepDisk ()
+    {
+        _lastSweepTime = System.currentTimeMillis();
+        
+        final String prefix = getIdWithContext("");
+        Map<String,File> newest = new HashMap<>();
+        File[] files = _storeDir.listFiles();
+        if (files == null)
+            return;
+        
+        for (File f : files)
+        {
+            String name = f.getName();
+            
+            //dir may contain files that don't match our naming pattern, or belong to other contexts
+            if (!match(name))
+                continue;
+            String idWithContext = getIdWithContextFromString(name);
+            if (idWithContext == null || !idWithContext.startsWith(prefix))
+                continue;
+            String id = idWithContext.substring(prefix.length());
+            if (id.isEmpty() || id.indexOf('_') >= 0)
+                continue;
+            
+            try
+            {
+                getExpiryFromString(name);
+                
+                File other = newest.get(id);
+                if (other == null)
+                    newest.put(id, f);
+                else
+                {
+                    File keep = getNewestFile(other, f);
+                    Files.deleteIfExists((keep == f ? other : f).toPath());
+                    newest.put(id, keep);
+                }
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Unable to index session file {}", f, e);
+            }
+        }
+
+        for (Map.Entry<String,File> entry : newest.entrySet())
+            indexIfAbsent(entry.getKey(), entry.getValue().getName());
         
-        String s =  getIdWithContextFromString(file.getName());
-        return s;
+        if (LOG.isDebugEnabled())
+            LOG.debug("Indexed {} session files in {}", _sessionFileMap.size(), _storeDir);
+    }
+    
+
+    /**
+     * @param f1 a file of a session
+     * @param f2 another file of the same session
+     * @return the most recent of the files
+     */
+    private File getNewestFile (File f1, File f2)
+    {
+        long m1 = f1.lastModified();
+        long m2 = f2.lastModified();
+        if (m1 != m2)
+            return m2 > m1 ? f2 : f1;
+
+        //files have same last modified times, decide based on latest expiry time
+        return getExpiryFromString(f2.getName()) >= getExpiryFromString(f1.getName()) ? f2 : f1;
+    }
+    
+    
+    private long getExpiryFromString (String filename)
+    {
+        if (StringUtil.isBlank(filename) || filename.indexOf("_") < 0)
+            throw new IllegalStateException ("Invalid or missing filename");
+        
+        String s = filename.substring(0, filename.indexOf('_'));
+        return (s==null?0:Long.parseLong(s));
     }
     
     /**
@@ -473,165 +650,6 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         return true;
     }
 
-    
-    /**
-     * Find a File for the session id for the current context.
-     * 
-     * @param storeDir the session storage directory
-     * @param id the session id
-     * @return the file
-     */
-    private File getFile (final File storeDir, final String id)
-    {
-        File[] files = storeDir.listFiles (new FilenameFilter() {
-
-            /** 
-             * @see java.io.FilenameFilter#accept(java.io.File, java.lang.String)
-             */
-            @Override
-            public boolean accept(File dir, String name)
-            {
-                if (dir != storeDir)
-                    return false;
-                return (name.contains(getIdWithContext(id)));
-            }
-            
-        });
-        
-        if (files == null || files.length < 1)
-            return null;
-        return files[0];
-    }
-    
-    
-    /**
-     * Remove all existing session files for the session in the context
-     * @param storeDir where the session files are stored
-     * @param idInContext the session id within a particular context
-     */
-    private void deleteAllFiles(final File storeDir, final String idInContext)
-    {
-        File[] files = storeDir.listFiles (new FilenameFilter() {
-
-            /** 
-             * @see java.io.FilenameFilter#accept(java.io.File, java.lang.String)
-             */
-            @Override
-            public boolean accept(File dir, String name)
-            {
-                if (dir != storeDir)
-                    return false;
-                return (name.contains(idInContext));
-            }
-            
-        });
-        
-        //no files for that id
-        if (files == null || files.length < 1)
-            return;
-        
-        //delete all files
-        for (File f:files)
-        {
-           try
-           {
-               Files.deleteIfExists(f.toPath());
-           }
-           catch (Exception e)
-           {
-               LOG.warn("Unable to delete session file", e);
-           }
-        }
-    }
-    
-    
-    
-    /**
-     * Delete all but the most recent file for a given session id in a context.
-     * 
-     * @param storeDir the directory in which sessions are stored
-     * @param idWithContext the id of the session
-     * @return the most recent remaining file for the session, can be null
-     */
-    private File deleteOldFiles (final File storeDir, final String idWithContext)
-    {
-        File[] files = storeDir.listFiles (new FilenameFilter() {
-
-            /** 
-             * @see java.io.FilenameFilter#accept(java.io.File, java.lang.String)
-             */
-            @Override
-            public boolean accept(File dir, String name)
-            {
-                if (dir != storeDir)
-                    return false;
-                 
-                if (!match(name))
-                    return false;
-
-                return (name.contains(idWithContext));
-            }
-
-        });
-
-        //no file for that session
-        if (files == null || files.length == 0)
-            return null;
-
-
-        //delete all but the most recent file
-        File newest = null;
-
-        for (File f:files)
-        {
-            try
-            {
-                if (newest == null)
-                {
-                    //haven't looked at any files yet
-                    newest = f;
-                }
-                else
-                {
-                    if (f.lastModified() > newest.lastModified())
-                    {
-                        //this file is more recent
-                        Files.deleteIfExists(newest.toPath());
-                        newest = f;
-                    }
-                    else if (f.lastModified() < newest.lastModified())
-                    {
-                        //this file is older
-                        Files.deleteIfExists(f.toPath());
-                    }
-                    else
-                    {
-                        //files have same last modified times, decide based on latest expiry time
-                        long exp1 = getExpiryFromFile(newest);
-                        long exp2 = getExpiryFromFile(f);
-                        if (exp2 >= exp1)
-                        {
-                            //this file has a later expiry date
-                            Files.deleteIfExists(newest.toPath());
-                            newest = f;
-                        }
-                        else
-                        {
-                            //this file has an earlier expiry date
-                            Files.deleteIfExists(f.toPath());
-                        }
-                    }
-                }
-            }
-            catch (Exception e)
-            {
-                LOG.warn("Unable to delete old session file", e);
-            }
-        }
-
-        return newest;
-    }
-
 
     
 
@@ -693,14 +711,22 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         if (size>0)
         {
             // input stream should not be closed here
-            Map<String,Object> attributes = new HashMap<String,Object>();
-            ClassLoadingObjectInputStream ois =  new ClassLoadingObjectInputStream(is);
-            for (int i=0; i<size;i++)
+            PushbackInputStream in = new PushbackInputStream(is, 2);
+            Map<String,Object> attributes;
+            if (isJavaSerialized(in))
             {
-                String key = ois.readUTF();
-                Object value = ois.readObject();
-                attributes.put(key,value);
+                //written by a previous version using java serialization
+                attributes = new HashMap<String,Object>();
+                ClassLoadingObjectInputStream ois =  new ClassLoadingObjectInputStream(in);
+                for (int i=0; i<size;i++)
+                {
+                    String key = ois.readUTF();
+                    Object value = ois.readObject();
+                    attributes.put(key,value);
+                }
             }
+            else
+                attributes = _serializer.readAttributes(in);
             data.putAllAttributes(attributes);
         }
     }
@@ -79,6 +79,8 @@ public class FileSessionDataStoreFactory extends AbstractSessionDataStoreFactory
         fsds.setStoreDir(getStoreDir());
         fsds.setGracePeriodSec(getGracePeriodSec());
         fsds.setSavePeriodSec(getSavePeriodSec());
+        if (getSessionDataSerializer() != null)
+            fsds.setSessionDataSerializer(getSessionDataSerializer());
         return fsds;
     }
 
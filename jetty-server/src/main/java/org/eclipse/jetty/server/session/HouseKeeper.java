@@ -19,6 +19,8 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.server.SessionIdManager;
@@ -48,6 +50,7 @@ public class HouseKeeper extends AbstractLifeCycle
     protected Runner _runner;
     protected boolean _ownScheduler = false;
     private long _intervalMs =  DEFAULT_PERIOD_MS;
+    private int _nextHandler; //index of the next SessionHandler to scavenge
    
    
     
@@ -63,14 +66,15 @@ public class HouseKeeper extends AbstractLifeCycle
         @Override
         public void run()
         {
+           long delay = _intervalMs;
            try
            {
-               scavenge();
+               delay = scavengeNext();
            }
            finally
            {
                if (_scheduler != null && _scheduler.isRunning())
-                   _task = _scheduler.schedule(this, _intervalMs, TimeUnit.MILLISECONDS);
+                   _task = _scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
            }
         }
     }
@@ -281,6 +285,40 @@ public class HouseKeeper extends AbstractLifeCycle
     }
 
 
+    /**
+     * Scavenge the next SessionHandler in turn, so that the scavenging of
+     * the contexts is spread over the scavenge interval rather than done
+     * all at once. Each context is still scavenged once per interval.
+     * 
+     * @return the delay in ms until the next SessionHandler should be scavenged
+     */
+    protected long scavengeNext ()
+    {
+        //don't attempt to scavenge if we are shutting down
+        if (isStopping() || isStopped())
+            return _intervalMs;
+
+        List<SessionHandler> managers = new ArrayList<>(_sessionIdManager.getSessionHandlers());
+        if (managers.isEmpty())
+            return _intervalMs;
+        
+        int index = Math.floorMod(_nextHandler++, managers.size());
+        SessionHandler manager = managers.get(index);
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} scavenging sessions of {}", this, manager);
+        try
+        {
+            manager.scavenge();
+        }
+        catch (Exception e)
+        {
+            LOG.warn(e);
+        }
+        
+        return Math.max(1, _intervalMs / managers.size());
+    }
+
+
     /** 
      * @see java.lang.Object#toString()
      */
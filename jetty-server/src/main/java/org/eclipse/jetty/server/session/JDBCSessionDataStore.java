@@ -22,7 +22,7 @@ package org.eclipse.jetty.server.session;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
+import java.io.PushbackInputStream;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -298,6 +298,37 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
             return statement;
         }
 
+
+        /**
+         * Get a statement to update the session metadata, leaving the
+         * attributes unchanged.
+         * 
+         * @param connection the connection to the database
+         * @param id the session id
+         * @param context the session context
+         * @return the statement
+         * @throws SQLException if the statement cannot be prepared
+         */
+        public PreparedStatement getUpdateSessionAccessStatement(Connection connection, String id, SessionContext context)
+                throws SQLException
+        {
+            String s =  "update "+getSchemaTableName()+
+                    " set "+getLastNodeColumn()+" = ?, "+getAccessTimeColumn()+" = ?, "+
+                    getLastAccessTimeColumn()+" = ?, "+getLastSavedTimeColumn()+" = ?, "+getExpiryTimeColumn()+" = ?, "+
+                    getMaxIntervalColumn()+" = ? where "+getIdColumn()+" = ? and "+getContextPathColumn()+
+                    " = ? and "+getVirtualHostColumn()+" = ?";
+
+            String cp = context.getCanonicalContextPath();
+            if (_dbAdaptor.isEmptyStringNull() && StringUtil.isBlank(cp))
+               cp = NULL_CONTEXT_PATH;
+
+            PreparedStatement statement = connection.prepareStatement(s);
+            statement.setString(7, id);
+            statement.setString(8, cp);
+            statement.setString(9, context.getVhost());
+            return statement;
+        }
+
       
         public PreparedStatement getExpiredSessionsStatement (Connection connection, String canonicalContextPath, String vhost, long expiry)
         throws SQLException
@@ -404,6 +435,29 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
 
         
         
+        public PreparedStatement getLastSavedStatement (Connection connection, String id, SessionContext contextId)
+        throws SQLException
+        { 
+            if (_dbAdaptor == null)
+                throw new IllegalStateException("No DB adaptor");
+
+
+            String cp = contextId.getCanonicalContextPath();
+            if (_dbAdaptor.isEmptyStringNull()&& StringUtil.isBlank(cp))
+                    cp = NULL_CONTEXT_PATH;
+
+            PreparedStatement statement = connection.prepareStatement("select "+getLastSavedTimeColumn()+" from "+getSchemaTableName()+
+                                                                      " where "+getIdColumn()+" = ? and "+getContextPathColumn()+
+                                                                      " = ? and "+getVirtualHostColumn()+" = ?");
+            statement.setString(1, id);
+            statement.setString(2, cp);
+            statement.setString(3, contextId.getVhost());
+
+            return statement;
+        }
+
+        
+        
         public PreparedStatement getUpdateStatement (Connection connection, String id, SessionContext contextId)
         throws SQLException
         {
@@ -650,10 +704,19 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
                         data.setVhost(_context.getVhost());
 
                         try (InputStream is = _dbAdaptor.getBlobInputStream(result, _sessionTableSchema.getMapColumn());
-                             ClassLoadingObjectInputStream ois = new ClassLoadingObjectInputStream(is))
+                             PushbackInputStream in = new PushbackInputStream(is, 2))
                         {
-                            Object o = ois.readObject();
-                            data.putAllAttributes((Map<String,Object>)o);
+                            if (isJavaSerialized(in))
+                            {
+                                //written by a previous version using java serialization
+                                try (ClassLoadingObjectInputStream ois = new ClassLoadingObjectInputStream(in))
+                                {
+                                    Object o = ois.readObject();
+                                    data.putAllAttributes((Map<String,Object>)o);
+                                }
+                            }
+                            else
+                                data.putAllAttributes(_serializer.readAttributes(in));
                         }
                         catch (Exception e)
                         {
@@ -727,6 +790,25 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
     }
 
 
+    /** 
+     * If no attributes changed, only the session metadata is updated, 
+     * otherwise the attribute map is rewritten as well.
+     * 
+     * @see org.eclipse.jetty.server.session.AbstractSessionDataStore#doStoreDelta(String, SessionData, Set, long)
+     */
+    @Override
+    public void doStoreDelta(String id, SessionData data, Set<String> dirtyAttributes, long lastSaveTime) throws Exception
+    {
+        if (data==null || id==null)
+            return;
+        
+        if (dirtyAttributes.isEmpty())
+            doUpdateAccess(id, data);
+        else
+            doUpdate(id, data);
+    }
+
+
     private void doInsert (String id, SessionData data) 
     throws Exception
     {
@@ -757,9 +839,7 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
                 statement.setLong(11, data.getMaxInactiveMs());
 
                 ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(baos);
-                oos.writeObject(data.getAllAttributes());
-                oos.flush();
+                serializeAttributes(data.getAllAttributes(), baos);
                 byte[] bytes = baos.toByteArray();
 
                 ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
@@ -788,9 +868,7 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
                 statement.setLong(6, data.getMaxInactiveMs());
 
                 ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(baos);
-                oos.writeObject(data.getAllAttributes());
-                oos.flush();
+                serializeAttributes(data.getAllAttributes(), baos);
                 byte[] bytes = baos.toByteArray();
                 ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
                 statement.setBinaryStream(7, bais, bytes.length);//attribute map as blob
@@ -803,6 +881,29 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
     }
 
 
+    private void doUpdateAccess (String id, SessionData data)
+            throws Exception
+    {
+        try (Connection connection = _dbAdaptor.getConnection())        
+        {
+            connection.setAutoCommit(true);
+            try (PreparedStatement statement = _sessionTableSchema.getUpdateSessionAccessStatement(connection, data.getId(), _context))
+            {
+                statement.setString(1, data.getLastNode());//should be my node id
+                statement.setLong(2, data.getAccessed());//accessTime
+                statement.setLong(3, data.getLastAccessed()); //lastAccessTime
+                statement.setLong(4, data.getLastSaved()); //last saved time
+                statement.setLong(5, data.getExpiry());
+                statement.setLong(6, data.getMaxInactiveMs());
+                statement.executeUpdate();
+
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Updated access for session "+data);
+            }
+        }
+    }
+
+
 
     /** 
      * @see org.eclipse.jetty.server.session.SessionDataStore#getExpired(Set)
@@ -948,6 +1049,28 @@ public class JDBCSessionDataStore extends AbstractSessionDataStore
 
 
 
+   /** 
+    * @see org.eclipse.jetty.server.session.SessionDataStore#getLastSaved(java.lang.String)
+    */
+   @Override
+   public long getLastSaved(String id)
+   throws Exception
+   {
+       try (Connection connection = _dbAdaptor.getConnection();
+            PreparedStatement statement = _sessionTableSchema.getLastSavedStatement(connection, id, _context))
+       {
+           connection.setAutoCommit(true);
+           try (ResultSet result = statement.executeQuery())
+           {
+               if (!result.next())
+                   return 0; //no such session
+               return result.getLong(_sessionTableSchema.getLastSavedTimeColumn());
+           }
+       }
+   }
+   
+   
+   
    /** 
     * @see org.eclipse.jetty.server.session.SessionDataStore#exists(java.lang.String)
     */
@@ -49,6 +49,8 @@ public class JDBCSessionDataStoreFactory extends AbstractSessionDataStoreFactory
         ds.setSessionTableSchema(_schema);
         ds.setGracePeriodSec(getGracePeriodSec());
         ds.setSavePeriodSec(getSavePeriodSec());
+        if (getSessionDataSerializer() != null)
+            ds.setSessionDataSerializer(getSessionDataSerializer());
         return ds;
     }
 
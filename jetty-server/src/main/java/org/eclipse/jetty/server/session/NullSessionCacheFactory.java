@@ -28,6 +28,7 @@ public class NullSessionCacheFactory implements SessionCacheFactory
 {    
     boolean _saveOnCreate;
     boolean _removeUnloadableSessions;
+    int _nearCacheSize;
     
 
     /**
@@ -50,6 +51,27 @@ public class NullSessionCacheFactory implements SessionCacheFactory
 
 
 
+    /**
+     * @return the max number of evicted sessions kept for reuse
+     */
+    public int getNearCacheSize()
+    {
+        return _nearCacheSize;
+    }
+
+
+
+    /**
+     * @param nearCacheSize the max number of evicted sessions kept for reuse
+     * @see AbstractSessionCache#setNearCacheSize(int)
+     */
+    public void setNearCacheSize(int nearCacheSize)
+    {
+        _nearCacheSize = nearCacheSize;
+    }
+
+
+
     /**
      * @return the removeUnloadableSessions
      */
@@ -79,6 +101,7 @@ public class NullSessionCacheFactory implements SessionCacheFactory
         NullSessionCache cache = new NullSessionCache(handler);
         cache.setSaveOnCreate(isSaveOnCreate());
         cache.setRemoveUnloadableSessions(isRemoveUnloadableSessions());
+        cache.setNearCacheSize(getNearCacheSize());
         return cache;
         
     }
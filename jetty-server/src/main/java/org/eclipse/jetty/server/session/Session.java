@@ -86,12 +86,12 @@ public class Session implements SessionHandler.SessionIf
     protected SessionHandler _handler; //the manager of the session
     protected String _extendedId; //the _id plus the worker name
     protected long _requests;
-    protected boolean _idChanged; 
-    protected boolean _newSession;
-    protected State _state = State.VALID; //state of the session:valid,invalid or being invalidated
+    protected volatile boolean _idChanged; 
+    protected volatile boolean _newSession;
+    protected volatile State _state = State.VALID; //state of the session:valid,invalid or being invalidated
     protected Locker _lock = new Locker(); //sync lock
-    protected boolean _resident = false;
-    protected SessionInactivityTimeout _sessionInactivityTimer = null;
+    protected volatile boolean _resident = false;
+    protected volatile SessionInactivityTimeout _sessionInactivityTimer = null;
     
     
 
@@ -137,7 +137,7 @@ public class Session implements SessionHandler.SessionIf
             // True if:
             // 1. the session is still valid
             // BUT if passivated out to disk, do we really want this timer to keep going off?
-            try (Lock lock = _lock.lock())
+            try (Lock lock = acquireLock())
             {
                 return isValid() && isResident();
             }
@@ -198,7 +198,7 @@ public class Session implements SessionHandler.SessionIf
      */
     public long getRequests()
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             return _requests;
         }
@@ -214,10 +214,22 @@ public class Session implements SessionHandler.SessionIf
         _extendedId = extendedId;
     }
     
+    /* ------------------------------------------------------------- */
+    /* ------------------------------------------------------------- */
+    /**
+     * @return true if the SessionHandler allows reads of this session
+     * without the session lock
+     * @see SessionHandler#setReadMostlySessions(boolean)
+     */
+    protected boolean isReadMostly()
+    {
+        return _handler != null && _handler.isReadMostlySessions();
+    }
+    
     /* ------------------------------------------------------------- */
     protected void cookieSet()
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
            _sessionData.setCookieSet(_sessionData.getAccessed());
         }
@@ -225,7 +237,10 @@ public class Session implements SessionHandler.SessionIf
     /* ------------------------------------------------------------ */
     protected boolean access(long time)
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+            return accessReadMostly(time);
+
+        try (Lock lock = acquireLock())
         {
             if (!isValid())
                 return false;
@@ -246,10 +261,49 @@ public class Session implements SessionHandler.SessionIf
         }
     }
     
+    /* ------------------------------------------------------------ */
+    /**
+     * Update the access times without holding the session lock: only
+     * the request count is changed under the lock.
+     * 
+     * @param time the time of the access
+     * @return true if the session is valid and the request may proceed
+     */
+    private boolean accessReadMostly(long time)
+    {
+        if (!isValid())
+            return false;
+        _newSession=false;
+        long lastAccessed = _sessionData.getAccessed();
+        SessionInactivityTimeout timer = _sessionInactivityTimer;
+        if (timer != null)
+            timer.notIdle();
+        _sessionData.setAccessed(time);
+        _sessionData.setLastAccessed(lastAccessed);
+        _sessionData.calcAndSetExpiry(time);
+        if (_sessionData.isExpiredAt(time))
+        {
+            invalidate();
+            return false;
+        }
+        Lock lock = acquireLock();
+        try
+        {
+            if (!isValid())
+                return false; //invalidated since we checked
+            _requests++;
+            return true;
+        }
+        finally
+        {
+            lock.close();
+        }
+    }
+    
     /* ------------------------------------------------------------ */
     protected void complete()
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             _requests--;
         }
@@ -265,7 +319,7 @@ public class Session implements SessionHandler.SessionIf
      */
     protected boolean isExpiredAt(long time)
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             return _sessionData.isExpiredAt(time);
         }
@@ -281,7 +335,7 @@ public class Session implements SessionHandler.SessionIf
     protected boolean isIdleLongerThan (int sec)
     {
         long now = System.currentTimeMillis();
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             return ((_sessionData.getAccessed() + (sec*1000)) <= now);
         }
@@ -384,7 +438,9 @@ public class Session implements SessionHandler.SessionIf
     /* ------------------------------------------------------------ */
     public boolean isValid()
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+            return _state==State.VALID;
+        try (Lock lock = acquireLock())
         {
             return _state==State.VALID;
         }
@@ -394,7 +450,9 @@ public class Session implements SessionHandler.SessionIf
     /* ------------------------------------------------------------- */
     public long getCookieSetTime()
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+            return _sessionData.getCookieSet();
+        try (Lock lock = acquireLock())
         {
             return _sessionData.getCookieSet();
         }
@@ -405,7 +463,12 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public long getCreationTime() throws IllegalStateException
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+        {
+            assertValidForRead();
+            return _sessionData.getCreated();
+        }
+        try (Lock lock = acquireLock())
         {
             checkValidForRead();
             return _sessionData.getCreated();
@@ -420,7 +483,9 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public String getId()
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+            return _sessionData.getId();
+        try (Lock lock = acquireLock())
         {
             return _sessionData.getId();
         }
@@ -450,7 +515,9 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public long getLastAccessedTime()
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+            return _sessionData.getLastAccessed();
+        try (Lock lock = acquireLock())
         {
             return _sessionData.getLastAccessed();
         }
@@ -473,7 +540,7 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public void setMaxInactiveInterval(int secs)
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             _sessionData.setMaxInactiveMs((long)secs*1000L);  
             _sessionData.calcAndSetExpiry();
@@ -496,7 +563,7 @@ public class Session implements SessionHandler.SessionIf
      */
     public void updateInactivityTimer ()
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             if (LOG.isDebugEnabled())LOG.debug("updateInactivityTimer");
 
@@ -556,7 +623,7 @@ public class Session implements SessionHandler.SessionIf
      */
     public void stopInactivityTimer ()
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             if (_sessionInactivityTimer != null)
             {
@@ -573,7 +640,12 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public int getMaxInactiveInterval()
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+        {
+            long maxInactiveMs = _sessionData.getMaxInactiveMs();
+            return (int)(maxInactiveMs < 0 ? -1 : maxInactiveMs/1000);
+        }
+        try (Lock lock = acquireLock())
         {
             long maxInactiveMs = _sessionData.getMaxInactiveMs();
             return (int)(maxInactiveMs < 0 ? -1 : maxInactiveMs/1000);
@@ -628,11 +700,23 @@ public class Session implements SessionHandler.SessionIf
     protected void checkValidForRead () throws IllegalStateException
     {
         checkLocked();
-        
-        if (_state == State.INVALID)
+        assertValidForRead();
+    }
+    
+    
+    /* ------------------------------------------------------------- */
+    /**
+     * Check that the session data can be read, without requiring the lock.
+     * 
+     * @throws IllegalStateException if the session is invalid
+     */
+    private void assertValidForRead () throws IllegalStateException
+    {
+        State state = _state;
+        if (state == State.INVALID)
             throw new IllegalStateException("Invalid for read: id="+_sessionData.getId()+" created="+_sessionData.getCreated()+" accessed="+_sessionData.getAccessed()+" lastaccessed="+_sessionData.getLastAccessed()+" maxInactiveMs="+_sessionData.getMaxInactiveMs()+" expiry="+_sessionData.getExpiry());
         
-        if (_state == State.INVALIDATING)
+        if (state == State.INVALIDATING)
             return;
         
         if (!isResident())
@@ -654,7 +738,12 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public Object getAttribute(String name)
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+        {
+            assertValidForRead();
+            return _sessionData.getAttribute(name);
+        }
+        try (Lock lock = acquireLock())
         {
             checkValidForRead();
             return _sessionData.getAttribute(name);
@@ -668,7 +757,9 @@ public class Session implements SessionHandler.SessionIf
     @Deprecated
     public Object getValue(String name)
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+            return _sessionData.getAttribute(name);
+        try (Lock lock = acquireLock())
         { 
             return _sessionData.getAttribute(name);
         }
@@ -680,27 +771,38 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public Enumeration<String> getAttributeNames()
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+        {
+            assertValidForRead();
+            return newAttributeNames(_sessionData.getKeys().iterator());
+        }
+        try (Lock lock = acquireLock())
         {
             checkValidForRead();
-            final Iterator<String> itor = _sessionData.getKeys().iterator();
-            return new Enumeration<String> ()
-            {
+            return newAttributeNames(_sessionData.getKeys().iterator());
+        }
+    }
+    
+    
+    /* ------------------------------------------------------------ */
+    private Enumeration<String> newAttributeNames(final Iterator<String> itor)
+    {
+        return new Enumeration<String> ()
+        {
 
-                @Override
-                public boolean hasMoreElements()
-                {
-                    return itor.hasNext();
-                }
+            @Override
+            public boolean hasMoreElements()
+            {
+                return itor.hasNext();
+            }
 
-                @Override
-                public String nextElement()
-                {
-                    return itor.next();
-                }
+            @Override
+            public String nextElement()
+            {
+                return itor.next();
+            }
 
-            };
-        }
+        };
     }
 
 
@@ -731,18 +833,29 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public String[] getValueNames() throws IllegalStateException
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+        {
+            assertValidForRead();
+            return getValueNames(_sessionData.getKeys().iterator());
+        }
+        try (Lock lock = acquireLock())
         {
             checkValidForRead();
-            Iterator<String> itor = _sessionData.getKeys().iterator();
-            if (!itor.hasNext())
-                return new String[0];
-            ArrayList<String> names = new ArrayList<String>();
-            while (itor.hasNext())
-                names.add(itor.next());
-            return names.toArray(new String[names.size()]);
+            return getValueNames(_sessionData.getKeys().iterator());
         }
     }
+    
+    
+    /* ------------------------------------------------------------ */
+    private String[] getValueNames(Iterator<String> itor)
+    {
+        if (!itor.hasNext())
+            return new String[0];
+        ArrayList<String> names = new ArrayList<String>();
+        while (itor.hasNext())
+            names.add(itor.next());
+        return names.toArray(new String[names.size()]);
+    }
 
     /* ------------------------------------------------------------- */
     /** 
@@ -752,7 +865,7 @@ public class Session implements SessionHandler.SessionIf
     public void setAttribute(String name, Object value)
     {
         Object old=null;
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             //if session is not valid, don't accept the set
             checkValidForWrite();
@@ -813,7 +926,7 @@ public class Session implements SessionHandler.SessionIf
         
         String id = null;
         String extendedId = null;
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             checkValidForWrite(); //don't renew id on a session that is not valid
             id = _sessionData.getId(); //grab the values as they are now
@@ -821,7 +934,7 @@ public class Session implements SessionHandler.SessionIf
         }
         
         String newId = _handler._sessionIdManager.renewSessionId(id, extendedId, request); 
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             checkValidForWrite(); 
             _sessionData.setId(newId);
@@ -868,7 +981,7 @@ public class Session implements SessionHandler.SessionIf
      */
     public Lock lock ()
     {
-        return _lock.lock();
+        return acquireLock();
     }
     
     
@@ -878,7 +991,27 @@ public class Session implements SessionHandler.SessionIf
      */
     public Lock lockIfNotHeld ()
     {
-        return _lock.lock();
+        return acquireLock();
+    }
+    
+    
+    /* ------------------------------------------------------------- */
+    /** Grab the lock on the session, timing the wait for it if it 
+     * is held by another thread. All the acquisitions of the lock,
+     * internal or not, go through this method.
+     * @return the lock
+     */
+    private Lock acquireLock ()
+    {
+        SessionHandler handler = _handler;
+        if (handler == null || !_lock.isLocked() || _lock.isHeldByCurrentThread())
+            return _lock.lock();
+        
+        //the lock is held by another thread, time the wait for it
+        long start = System.nanoTime();
+        Lock lock = _lock.lock();
+        handler.recordSessionLockWait(System.nanoTime()-start);
+        return lock;
     }
     
     /* ------------------------------------------------------------- */
@@ -889,7 +1022,7 @@ public class Session implements SessionHandler.SessionIf
     {
         boolean result = false;
         
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             switch (_state)
             {
@@ -935,7 +1068,7 @@ public class Session implements SessionHandler.SessionIf
      */
     protected void finishInvalidate() throws IllegalStateException
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             try
             {
@@ -971,7 +1104,12 @@ public class Session implements SessionHandler.SessionIf
     @Override
     public boolean isNew() throws IllegalStateException
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+        {
+            assertValidForRead();
+            return _newSession;
+        }
+        try (Lock lock = acquireLock())
         {
             checkValidForRead();
             return _newSession;
@@ -983,7 +1121,7 @@ public class Session implements SessionHandler.SessionIf
     /* ------------------------------------------------------------- */
     public void setIdChanged(boolean changed)
     {
-        try (Lock lock = _lock.lock())
+        try (Lock lock = acquireLock())
         {
             _idChanged=changed;
         }
@@ -993,7 +1131,9 @@ public class Session implements SessionHandler.SessionIf
     /* ------------------------------------------------------------- */
     public boolean isIdChanged ()
     {
-        try (Lock lock = _lock.lock())
+        if (isReadMostly())
+            return _idChanged;
+        try (Lock lock = acquireLock())
         {
             return _idChanged;
         }
@@ -22,6 +22,8 @@ package org.eclipse.jetty.server.session;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,18 +45,20 @@ public class SessionData implements Serializable
    
     private static final long serialVersionUID = 1L;
 
-    protected String _id;
+    protected volatile String _id;
     protected String _contextPath;
     protected String _vhost;
     protected String _lastNode;
-    protected long _expiry; //precalculated time of expiry in ms since epoch
+    protected volatile long _expiry; //precalculated time of expiry in ms since epoch
     protected long _created;
-    protected long _cookieSet;
-    protected long _accessed;         // the time of the last access
-    protected long _lastAccessed;     // the time of the last access excluding this one
-    protected long _maxInactiveMs;
+    protected volatile long _cookieSet;
+    protected volatile long _accessed;         // the time of the last access
+    protected volatile long _lastAccessed;     // the time of the last access excluding this one
+    protected volatile long _maxInactiveMs;
     protected Map<String,Object> _attributes;
-    protected boolean _dirty;
+    protected volatile boolean _dirty;
+    protected transient Map<String,Long> _dirtyAttributes = new HashMap<>(); //names of attributes changed since last save, with the generation of the change
+    protected transient long _dirtyGeneration; //incremented on every change, guarded by _dirtyAttributes
     protected long _lastSaved; //time in msec since last save
     
     public SessionData (String id, String cpath, String vhost, long created, long accessed, long lastAccessed, long maxInactiveMs)
@@ -120,6 +124,18 @@ public class SessionData implements Serializable
     }
 
 
+    /**
+     * Update the state that a store changes when it saves the data, from
+     * a copy of this data that was saved instead of it.
+     * 
+     * @param saved the copy of this data that was saved
+     */
+    public void copySaveState (SessionData saved)
+    {
+        setLastSaved(saved.getLastSaved());
+    }
+
+
     /**
      * @return true if a session needs to be written out
      */
@@ -128,9 +144,21 @@ public class SessionData implements Serializable
         return _dirty;
     }
 
+    /**
+     * @param dirty true if the session needs to be written out, false
+     * if it has been written out, in which case the attributes are no 
+     * longer considered changed
+     */
     public void setDirty(boolean dirty)
     {
-        _dirty = dirty;
+        synchronized (_dirtyAttributes)
+        {
+            if (dirty)
+                ++_dirtyGeneration;
+            else
+                _dirtyAttributes.clear();
+            _dirty = dirty;
+        }
     }
     
     /**
@@ -160,9 +188,65 @@ public class SessionData implements Serializable
        return old;
     }
     
+    /**
+     * Mark an attribute as changed since the session was last saved.
+     * 
+     * @param name the name of the attribute
+     */
     public void setDirty (String name)
     {
-        setDirty (true);
+        synchronized (_dirtyAttributes)
+        {
+            _dirtyAttributes.put(name, ++_dirtyGeneration);
+            _dirty = true;
+        }
+    }
+    
+    /**
+     * @return the generation of the last change to the session, to be obtained
+     * before {@link #getDirtyAttributes()} and passed to {@link #setClean(Set, long)}
+     */
+    public long getDirtyGeneration()
+    {
+        synchronized (_dirtyAttributes)
+        {
+            return _dirtyGeneration;
+        }
+    }
+    
+    /**
+     * Mark the session as saved. Changes made after the given generation was 
+     * obtained, including changes to the saved attributes, remain dirty, so
+     * that a save that runs concurrently with a request does not lose them.
+     * 
+     * @param savedAttributes the names of the attributes that were saved
+     * @param generation the generation obtained from {@link #getDirtyGeneration()} 
+     * before the names of the saved attributes
+     */
+    public void setClean (Set<String> savedAttributes, long generation)
+    {
+        synchronized (_dirtyAttributes)
+        {
+            for (String name : savedAttributes)
+            {
+                Long changed = _dirtyAttributes.get(name);
+                if (changed != null && changed <= generation)
+                    _dirtyAttributes.remove(name);
+            }
+            _dirty = _dirtyGeneration != generation || !_dirtyAttributes.isEmpty();
+        }
+    }
+    
+    /**
+     * @return a copy of the names of the attributes added, changed or removed 
+     * since the session was last saved
+     */
+    public Set<String> getDirtyAttributes()
+    {
+        synchronized (_dirtyAttributes)
+        {
+            return new HashSet<>(_dirtyAttributes.keySet());
+        }
     }
     
     public void putAllAttributes (Map<String,Object> attributes)
@@ -361,6 +445,7 @@ public class SessionData implements Serializable
         _expiry = in.readLong(); 
         _maxInactiveMs = in.readLong();
         _attributes = (Map<String,Object>)in.readObject();
+        _dirtyAttributes = new HashMap<>();
     }
     
     public boolean isExpiredAt (long time)
@@ -0,0 +1,58 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * SessionDataSerializer
+ *
+ * Converts the attributes of a session to and from bytes, so that
+ * they can be persisted by a {@link SessionDataStore}.
+ * <p>
+ * The bytes written must not start with the java serialization
+ * stream magic (0xACED), which is used by SessionDataStores to 
+ * recognize sessions persisted by previous versions with java
+ * serialization.
+ */
+public interface SessionDataSerializer
+{
+    /**
+     * Write the session attributes.
+     * 
+     * @param attributes the session attributes
+     * @param out the stream to write to, which must not be closed
+     * @throws IOException if the attributes cannot be written
+     */
+    public void writeAttributes (Map<String,Object> attributes, OutputStream out) throws IOException;
+    
+    
+    /**
+     * Read session attributes written by {@link #writeAttributes(Map, OutputStream)}.
+     * 
+     * @param in the stream to read from, which must not be closed
+     * @return the session attributes
+     * @throws IOException if the attributes cannot be read
+     * @throws ClassNotFoundException if the class of an attribute cannot be loaded
+     */
+    public Map<String,Object> readAttributes (InputStream in) throws IOException, ClassNotFoundException;
+}
@@ -75,4 +75,22 @@ public interface SessionDataStore extends SessionDataMap
      */
     public boolean exists (String id) throws Exception;
     
+    
+    
+    /**
+     * Get the time at which the data for a session was last saved,
+     * without loading the session data. Stores that can answer this
+     * cheaply allow a previously loaded copy of the data to be reused
+     * if it has not been saved since.
+     * 
+     * @param id Identity of session
+     * @return the last saved time, 0 if there is no session data for
+     * the id, or -1 if the store cannot determine it without a full load
+     * @throws Exception if problem checking with persistence layer
+     */
+    public default long getLastSaved (String id) throws Exception
+    {
+        return -1;
+    }
+    
 }
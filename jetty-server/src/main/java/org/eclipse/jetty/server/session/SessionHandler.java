@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.AsyncEvent;
 import javax.servlet.AsyncListener;
@@ -62,6 +63,7 @@ import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.eclipse.jetty.util.thread.Scheduler;
@@ -99,6 +101,13 @@ public class SessionHandler extends ScopedHandler
     public final static String __DefaultSessionIdPathParameterName = "jsessionid";
     public final static String __CheckRemoteSessionEncoding = "org.eclipse.jetty.servlet.CheckingRemoteSessionIdEncoding";
 
+    /**
+     * Session read-mostly mode.
+     * Set by context init parameter. If true, attribute reads and request
+     * access time updates do not take the session lock.
+     */
+    public final static String __ReadMostlySessions = "org.eclipse.jetty.servlet.ReadMostlySessions";
+
 
     /* ------------------------------------------------------------ */
     /**
@@ -238,10 +247,12 @@ public class SessionHandler extends ScopedHandler
     protected int _refreshCookieAge;
     protected boolean _nodeIdInSessionId;
     protected boolean _checkingRemoteSessionIdEncoding;
+    protected boolean _readMostlySessions;
     protected String _sessionComment;
     protected SessionCache _sessionCache;
     protected final SampleStatistic _sessionTimeStats = new SampleStatistic();
     protected final CounterStatistic _sessionsCreatedStats = new CounterStatistic();
+    protected final HistogramStatistic _sessionLockWaitStats = new HistogramStatistic(); //in us
     public Set<SessionTrackingMode> _sessionTrackingModes;
 
     protected boolean _usingURLs;
@@ -496,6 +507,10 @@ public class SessionHandler extends ScopedHandler
             tmp=_context.getInitParameter(__CheckRemoteSessionEncoding);
             if (tmp!=null)
                 _checkingRemoteSessionIdEncoding=Boolean.parseBoolean(tmp);
+
+            tmp=_context.getInitParameter(__ReadMostlySessions);
+            if (tmp!=null)
+                _readMostlySessions=Boolean.parseBoolean(tmp);
         }
        
         _sessionContext = new SessionContext(_sessionIdManager.getWorkerName(), _context);             
@@ -846,6 +861,7 @@ public class SessionHandler extends ScopedHandler
     {
         _sessionsCreatedStats.reset();
         _sessionTimeStats.reset();
+        _sessionLockWaitStats.reset();
     }
 
     /* ------------------------------------------------------------ */
@@ -1178,6 +1194,85 @@ public class SessionHandler extends ScopedHandler
     }
 
 
+    /* ------------------------------------------------------------ */
+    /**
+     * Record the time a thread waited for a session lock that was held by another thread.
+     * 
+     * @param nanos the time waited in ns
+     */
+    protected void recordSessionLockWait(long nanos)
+    {
+        _sessionLockWaitStats.set(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the number of times a session lock was held by another thread when it was acquired
+     */
+    @ManagedAttribute("number of session lock acquisitions that waited")
+    public long getSessionLockWaits()
+    {
+        return _sessionLockWaitStats.getCount();
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the mean time waited for a held session lock
+     */
+    @ManagedAttribute("mean time waited for a held session lock (in us)")
+    public double getSessionLockWaitMean()
+    {
+        return _sessionLockWaitStats.getMean();
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the max time waited for a held session lock
+     */
+    @ManagedAttribute("max time waited for a held session lock (in us)")
+    public long getSessionLockWaitMax()
+    {
+        return _sessionLockWaitStats.getMax();
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the 99th percentile of the time waited for a held session lock
+     */
+    @ManagedAttribute("99th percentile of the time waited for a held session lock (in us)")
+    public long getSessionLockWait99th()
+    {
+        return _sessionLockWaitStats.getPercentile(99);
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return True if sessions are read without taking the session lock.
+     */
+    @ManagedAttribute("session attributes are read without locking")
+    public boolean isReadMostlySessions()
+    {
+        return _readMostlySessions;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * Set the session read-mostly mode.
+     * <p>
+     * In this mode, attribute reads, validity checks and the update of the
+     * access times as a request enters a session do not acquire the session
+     * lock, so that many simultaneous requests on the same session do not
+     * serialize. Attribute changes, invalidation and the request count are
+     * still guarded by the session lock.
+     *
+     * @param readMostly True if sessions are read without taking the session lock.
+     */
+    public void setReadMostlySessions(boolean readMostly)
+    {
+        _readMostlySessions=readMostly;
+    }
+
+
     /* ------------------------------------------------------------ */
     /** Change the existing session id.
     * 
@@ -0,0 +1,490 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+
+/**
+ * WriteBehindSessionDataStore
+ *
+ * A SessionDataStore that delegates to a pluggable SessionDataStore, but that
+ * defers the writes of session data so that they are not done by the request
+ * threads. 
+ * <p>
+ * Stored sessions are queued and written to the delegate store in the background,
+ * at most {@link #getMaxDelayMs()} milliseconds later. Repeated writes of the 
+ * same session before it is flushed are coalesced into a single write. If more
+ * than {@link #getMaxPending()} sessions are queued, sessions are written 
+ * synchronously until the queue drains.
+ * <p>
+ * A session with a pending write is flushed before it is loaded, checked for
+ * existence or checked for expiry, and all pending writes are flushed when this
+ * store is stopped. As the writes are deferred, sessions that are modified
+ * between the last flush and a crash of the server are lost.
+ */
+@ManagedObject
+public class WriteBehindSessionDataStore extends ContainerLifeCycle implements SessionDataStore
+{
+    private  final static Logger LOG = Log.getLogger("org.eclipse.jetty.server.session");
+    
+    /**
+     * The actual store for the session data
+     */
+    protected SessionDataStore _store;
+    
+    /**
+     * The sessions waiting to be written, by id
+     */
+    protected final ConcurrentHashMap<String, Pending> _pending = new ConcurrentHashMap<>();
+    
+    protected SessionContext _context;
+    protected Scheduler _scheduler;
+    protected long _maxDelayMs = 1000;
+    protected int _maxPending = 10000;
+    
+    private final AtomicBoolean _flushScheduled = new AtomicBoolean();
+    private final AtomicLong _writes = new AtomicLong();
+    private final AtomicLong _coalesced = new AtomicLong();
+    
+    /**
+     * Locks that serialize the writes and deletes of a session, by id
+     */
+    private final Object[] _locks = new Object[64];
+    
+    
+    /**
+     * A pending write of a session: a copy of its data, taken when it was 
+     * queued, and the changes to write with it
+     */
+    protected static class Pending
+    {
+        private SessionData _data;
+        private SessionData _snapshot;
+        private final Set<String> _dirtyAttributes = new HashSet<>();
+        private boolean _dirty;
+        
+        private void collect (SessionData data, SessionData snapshot, boolean dirty, Set<String> dirtyAttributes)
+        {
+            _data = data;
+            _snapshot = snapshot;
+            _dirty |= dirty;
+            _dirtyAttributes.addAll(dirtyAttributes);
+        }
+        
+        /**
+         * Mark the changes to write on the data, because the 
+         * delegate store clears them from the data when it saves it.
+         */
+        private void restore (SessionData data)
+        {
+            if (_dirty)
+                data.setDirty(true);
+            for (String name : _dirtyAttributes)
+                data.setDirty(name);
+        }
+    }
+    
+    
+    /**
+     * @param store the delegate store
+     */
+    public WriteBehindSessionDataStore (SessionDataStore store)
+    {
+        _store = store;
+        addBean(_store,true);
+        for (int i=0; i<_locks.length; i++)
+            _locks[i] = new Object();
+    }
+    
+    
+    /**
+     * @return the delegate session store
+     */
+    public SessionDataStore getSessionStore()
+    {
+        return _store;
+    }
+    
+    
+    /**
+     * @return the max time in ms a session write is deferred
+     */
+    @ManagedAttribute(value="max ms a session write is deferred", readonly=true)
+    public long getMaxDelayMs()
+    {
+        return _maxDelayMs;
+    }
+
+
+    /**
+     * @param maxDelayMs the max time in ms a session write is deferred
+     */
+    public void setMaxDelayMs(long maxDelayMs)
+    {
+        _maxDelayMs = maxDelayMs;
+    }
+
+
+    /**
+     * @return the max number of sessions waiting to be written before writes become synchronous
+     */
+    @ManagedAttribute(value="max sessions waiting to be written", readonly=true)
+    public int getMaxPending()
+    {
+        return _maxPending;
+    }
+
+
+    /**
+     * @param maxPending the max number of sessions waiting to be written before writes become synchronous
+     */
+    public void setMaxPending(int maxPending)
+    {
+        _maxPending = maxPending;
+    }
+    
+    
+    /**
+     * @return the scheduler used to flush the writes
+     */
+    public Scheduler getScheduler()
+    {
+        return _scheduler;
+    }
+
+
+    /**
+     * @param scheduler the scheduler used to flush the writes
+     */
+    public void setScheduler(Scheduler scheduler)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Already started");
+        updateBean(_scheduler, scheduler);
+        _scheduler = scheduler;
+    }
+
+
+    /**
+     * @return the number of sessions waiting to be written
+     */
+    @ManagedAttribute(value="sessions waiting to be written", readonly=true)
+    public int getPendingCount()
+    {
+        return _pending.size();
+    }
+
+
+    /**
+     * @return the number of session writes made to the delegate store
+     */
+    @ManagedAttribute(value="session writes made to the delegate store", readonly=true)
+    public long getWriteCount()
+    {
+        return _writes.get();
+    }
+
+
+    /**
+     * @return the number of session writes avoided by coalescing them
+     */
+    @ManagedAttribute(value="session writes coalesced", readonly=true)
+    public long getCoalescedCount()
+    {
+        return _coalesced.get();
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#initialize(org.eclipse.jetty.server.session.SessionContext)
+     */
+    @Override
+    public void initialize(SessionContext context) throws Exception
+    {
+        _context = context;
+        _store.initialize(context);
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.util.component.ContainerLifeCycle#doStart()
+     */
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_scheduler == null)
+        {
+            ScheduledExecutorScheduler scheduler = new ScheduledExecutorScheduler(String.format("WriteBehind-%x", hashCode()), false);
+            addBean(scheduler, true);
+            _scheduler = scheduler;
+        }
+        super.doStart();
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.util.component.ContainerLifeCycle#doStop()
+     */
+    @Override
+    protected void doStop() throws Exception
+    {
+        flush();
+        super.doStop();
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataMap#load(java.lang.String)
+     */
+    @Override
+    public SessionData load(String id) throws Exception
+    {
+        flush(id);
+        return _store.load(id);
+    }
+
+
+    /** 
+     * Queue the session to be written in the background. A copy of the data
+     * is queued, so the caller must hold the lock of the session, as the 
+     * {@link SessionCache} does, and the changes of the session are considered
+     * saved from then on.
+     * 
+     * @see org.eclipse.jetty.server.session.SessionDataMap#store(java.lang.String, org.eclipse.jetty.server.session.SessionData)
+     */
+    @Override
+    public void store(String id, SessionData data) throws Exception
+    {
+        if (data == null)
+            return;
+        
+        if (!isRunning() || _pending.size() >= _maxPending)
+        {
+            //write synchronously, including the changes of any pending write
+            synchronized (lockFor(id))
+            {
+                Pending pending = _pending.remove(id);
+                if (pending != null)
+                {
+                    _coalesced.incrementAndGet();
+                    pending.restore(data);
+                }
+                write(id, data);
+            }
+            return;
+        }
+        
+        //take the copy while the session cannot be changed
+        long generation = data.getDirtyGeneration();
+        Set<String> dirtyAttributes = data.getDirtyAttributes();
+        boolean dirty = data.isDirty();
+        SessionData snapshot = _store.newSessionData(id, data.getCreated(), data.getAccessed(), data.getLastAccessed(), data.getMaxInactiveMs());
+        snapshot.copy(data);
+        
+        _pending.compute(id, (k, pending) -> 
+        {
+            if (pending == null)
+                pending = new Pending();
+            else
+                _coalesced.incrementAndGet();
+            pending.collect(data, snapshot, dirty, dirtyAttributes);
+            return pending;
+        });
+        
+        //the changes are now written with the copy
+        data.setClean(dirtyAttributes, generation);
+        
+        if (_flushScheduled.compareAndSet(false, true))
+            _scheduler.schedule(this::flushAll, _maxDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+
+    /** 
+     * Any pending write of the session is discarded. A write of the session
+     * that is already in progress completes before the session is deleted, 
+     * so that it cannot bring the session back.
+     * 
+     * @see org.eclipse.jetty.server.session.SessionDataMap#delete(java.lang.String)
+     */
+    @Override
+    public boolean delete(String id) throws Exception
+    {
+        synchronized (lockFor(id))
+        {
+            _pending.remove(id);
+            return _store.delete(id);
+        }
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#newSessionData(java.lang.String, long, long, long, long)
+     */
+    @Override
+    public SessionData newSessionData(String id, long created, long accessed, long lastAccessed, long maxInactiveMs)
+    {
+        return _store.newSessionData(id, created, accessed, lastAccessed, maxInactiveMs);
+    }
+
+
+    /** 
+     * All pending writes are flushed first, so that the delegate store 
+     * knows the latest expiry of the sessions.
+     * 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#getExpired(java.util.Set)
+     */
+    @Override
+    public Set<String> getExpired(Set<String> candidates)
+    {
+        flush();
+        return _store.getExpired(candidates);
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#isPassivating()
+     */
+    @Override
+    public boolean isPassivating()
+    {
+        return _store.isPassivating();
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#exists(java.lang.String)
+     */
+    @Override
+    public boolean exists(String id) throws Exception
+    {
+        flush(id);
+        return _store.exists(id);
+    }
+
+    
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#getLastSaved(java.lang.String)
+     */
+    @Override
+    public long getLastSaved(String id) throws Exception
+    {
+        flush(id);
+        return _store.getLastSaved(id);
+    }
+
+
+    /**
+     * Write all the pending sessions to the delegate store.
+     */
+    @ManagedOperation(value="write all pending sessions", impact="ACTION")
+    public void flush()
+    {
+        for (String id : _pending.keySet())
+        {
+            try
+            {
+                flush(id);
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Write of session {} failed", id, e);
+            }
+        }
+    }
+
+
+    /**
+     * Write the session to the delegate store, if it has a pending write.
+     * 
+     * @param id the session id
+     * @throws Exception if the session cannot be written
+     */
+    protected void flush(String id) throws Exception
+    {
+        synchronized (lockFor(id))
+        {
+            Pending pending = _pending.remove(id);
+            if (pending == null)
+                return;
+
+            pending.restore(pending._snapshot);
+            try
+            {
+                write(id, pending._snapshot);
+                pending._data.copySaveState(pending._snapshot);
+            }
+            catch (Exception e)
+            {
+                //requeue it, unless a more recent write was queued
+                if (isRunning())
+                {
+                    _pending.putIfAbsent(id, pending);
+                    if (_flushScheduled.compareAndSet(false, true))
+                        _scheduler.schedule(this::flushAll, _maxDelayMs, TimeUnit.MILLISECONDS);
+                }
+                throw e;
+            }
+        }
+    }
+
+
+    private Object lockFor(String id)
+    {
+        return _locks[(id.hashCode() & 0x7FFFFFFF) % _locks.length];
+    }
+
+
+    private void write(String id, SessionData data) throws Exception
+    {
+        _store.store(id, data);
+        _writes.incrementAndGet();
+    }
+
+
+    private void flushAll()
+    {
+        _flushScheduled.set(false);
+        if (_context != null)
+            _context.run(this::flush);
+        else
+            flush();
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[store=%s,maxDelayMs=%d,maxPending=%d,pending=%d]", getClass().getSimpleName(), hashCode(), _store, _maxDelayMs, _maxPending, _pending.size());
+    }
+}
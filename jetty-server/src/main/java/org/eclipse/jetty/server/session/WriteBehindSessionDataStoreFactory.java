@@ -0,0 +1,94 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+/**
+ * WriteBehindSessionDataStoreFactory
+ *
+ * Factory for WriteBehindSessionDataStores, wrapping the
+ * SessionDataStores of another factory.
+ */
+public class WriteBehindSessionDataStoreFactory extends AbstractSessionDataStoreFactory
+{
+    /**
+     * The factory of the SessionDataStores that will store session data.
+     */
+    protected SessionDataStoreFactory _sessionStoreFactory;
+    protected long _maxDelayMs = 1000;
+    protected int _maxPending = 10000;
+    
+
+    /**
+     * @param factory The factory for the actual SessionDataStore that the
+     * WriteBehindSessionDataStore will delegate to
+     */
+    public void setSessionStoreFactory (SessionDataStoreFactory factory)
+    {
+        _sessionStoreFactory = factory;
+    }
+
+
+    /**
+     * @return the max time in ms a session write is deferred
+     */
+    public long getMaxDelayMs()
+    {
+        return _maxDelayMs;
+    }
+
+
+    /**
+     * @param maxDelayMs the max time in ms a session write is deferred
+     */
+    public void setMaxDelayMs(long maxDelayMs)
+    {
+        _maxDelayMs = maxDelayMs;
+    }
+
+
+    /**
+     * @return the max number of sessions waiting to be written
+     */
+    public int getMaxPending()
+    {
+        return _maxPending;
+    }
+
+
+    /**
+     * @param maxPending the max number of sessions waiting to be written
+     */
+    public void setMaxPending(int maxPending)
+    {
+        _maxPending = maxPending;
+    }
+
+
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStoreFactory#getSessionDataStore(org.eclipse.jetty.server.session.SessionHandler)
+     */
+    @Override
+    public SessionDataStore getSessionDataStore(SessionHandler handler) throws Exception
+    {
+        WriteBehindSessionDataStore store = new WriteBehindSessionDataStore(_sessionStoreFactory.getSessionDataStore(handler));
+        store.setMaxDelayMs(getMaxDelayMs());
+        store.setMaxPending(getMaxPending());
+        return store;
+    }
+}
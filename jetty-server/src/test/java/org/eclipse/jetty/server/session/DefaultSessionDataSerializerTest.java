@@ -0,0 +1,145 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DefaultSessionDataSerializerTest
+ */
+public class DefaultSessionDataSerializerTest
+{
+    private byte[] write(DefaultSessionDataSerializer serializer, Map<String,Object> attributes) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.writeAttributes(attributes, out);
+        return out.toByteArray();
+    }
+
+    private Map<String,Object> read(DefaultSessionDataSerializer serializer, byte[] bytes) throws Exception
+    {
+        return serializer.readAttributes(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        List<String> list = new ArrayList<>();
+        list.add("one");
+        list.add("two");
+
+        Map<String,Object> attributes = new HashMap<>();
+        attributes.put("string", "h\u00e9llo");
+        attributes.put("int", 42);
+        attributes.put("long", Long.MAX_VALUE);
+        attributes.put("boolean", Boolean.TRUE);
+        attributes.put("double", 3.14D);
+        attributes.put("float", 2.5F);
+        attributes.put("short", (short)7);
+        attributes.put("byte", (byte)-1);
+        attributes.put("char", 'x');
+        attributes.put("bytes", new byte[]{1,2,3});
+        attributes.put("list", list);
+        attributes.put("sameList", list);
+
+        DefaultSessionDataSerializer serializer = new DefaultSessionDataSerializer();
+        byte[] bytes = write(serializer, attributes);
+        Map<String,Object> result = read(serializer, bytes);
+
+        assertEquals(attributes.size(), result.size());
+        for (Map.Entry<String,Object> entry : attributes.entrySet())
+        {
+            if (entry.getValue() instanceof byte[])
+                assertArrayEquals((byte[])entry.getValue(), (byte[])result.get(entry.getKey()));
+            else
+                assertEquals(entry.getValue(), result.get(entry.getKey()));
+        }
+        //shared references are preserved
+        assertSame(result.get("list"), result.get("sameList"));
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception
+    {
+        Map<String,Object> attributes = new HashMap<>();
+        for (int i=0; i<10; i++)
+            attributes.put("attribute"+i, "value"+i);
+
+        ByteArrayOutputStream java = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(java))
+        {
+            oos.writeObject(attributes);
+        }
+
+        byte[] bytes = write(new DefaultSessionDataSerializer(), attributes);
+        assertTrue(bytes.length < java.size());
+        assertFalse((bytes[0]&0xFF) == 0xAC && (bytes[1]&0xFF) == 0xED);
+    }
+
+    @Test
+    public void testCompression() throws Exception
+    {
+        StringBuilder value = new StringBuilder();
+        for (int i=0; i<1000; i++)
+            value.append("compressible");
+        Map<String,Object> attributes = new HashMap<>();
+        attributes.put("value", value.toString());
+
+        DefaultSessionDataSerializer serializer = new DefaultSessionDataSerializer();
+        byte[] uncompressed = write(serializer, attributes);
+
+        serializer.setCompressionThreshold(1024);
+        byte[] compressed = write(serializer, attributes);
+        assertTrue(compressed.length < uncompressed.length / 10);
+        assertEquals(value.toString(), read(serializer, compressed).get("value"));
+
+        //compressed data can be read whatever the current setting
+        serializer.setCompressionThreshold(-1);
+        assertEquals(value.toString(), read(serializer, compressed).get("value"));
+    }
+
+    @Test(expected=StreamCorruptedException.class)
+    public void testInvalidMagic() throws Exception
+    {
+        read(new DefaultSessionDataSerializer(), new byte[]{(byte)0xAC, (byte)0xED, 0, 5, 0, 0, 0, 0});
+    }
+
+    @Test(expected=StreamCorruptedException.class)
+    public void testUnsupportedVersion() throws Exception
+    {
+        byte[] bytes = write(new DefaultSessionDataSerializer(), new HashMap<>());
+        bytes[2] = (byte)(DefaultSessionDataSerializer.VERSION + 1);
+        read(new DefaultSessionDataSerializer(), bytes);
+    }
+}
@@ -0,0 +1,136 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.toolchain.test.AdvancedRunner;
+import org.eclipse.jetty.toolchain.test.annotation.Stress;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * DefaultSessionIdManagerTest
+ */
+@RunWith(AdvancedRunner.class)
+public class DefaultSessionIdManagerTest
+{
+    private static final Logger LOG = Log.getLogger(DefaultSessionIdManagerTest.class);
+
+    @Test
+    public void testPooledIds() throws Exception
+    {
+        DefaultSessionIdManager idManager = new DefaultSessionIdManager(new Server());
+        idManager.setWorkerName("node0");
+        idManager.setRandomStripes(3);
+        idManager.setReseed(10);
+        idManager.initRandom();
+        assertNull(idManager.getRandom());
+        assertEquals(4, idManager.getRandomStripes());
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10000; i++)
+        {
+            String id = idManager.newSessionId(i);
+            assertEquals(5 + 22, id.length());
+            assertTrue(id.startsWith("node0"));
+            assertTrue(id, id.substring(5).matches("[A-Za-z0-9\\-~]+"));
+            assertTrue(ids.add(id));
+        }
+    }
+
+    @Test
+    public void testInjectedRandom() throws Exception
+    {
+        DefaultSessionIdManager idManager = new DefaultSessionIdManager(new Server(), new SecureRandom());
+        idManager.setWorkerName("");
+        idManager.initRandom();
+        assertEquals(-1, idManager.getRandomStripes());
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++)
+            assertTrue(ids.add(idManager.newSessionId(i)));
+    }
+
+    @Stress("High CPU")
+    @Test
+    public void testIdThroughput() throws Exception
+    {
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        int iterations = 200000;
+
+        DefaultSessionIdManager shared = new DefaultSessionIdManager(new Server(), new SecureRandom());
+        shared.setWorkerName("node0");
+        shared.initRandom();
+
+        DefaultSessionIdManager pooled = new DefaultSessionIdManager(new Server());
+        pooled.setWorkerName("node0");
+        pooled.initRandom();
+
+        // warm up
+        generate(shared, threads, iterations / 10);
+        generate(pooled, threads, iterations / 10);
+
+        long sharedNs = generate(shared, threads, iterations);
+        long pooledNs = generate(pooled, threads, iterations);
+        long total = (long)threads * iterations;
+        LOG.info("{} threads: shared Random {} ids/s, SecureRandom pool {} ids/s", threads,
+            total * TimeUnit.SECONDS.toNanos(1) / sharedNs,
+            total * TimeUnit.SECONDS.toNanos(1) / pooledNs);
+    }
+
+    private long generate(DefaultSessionIdManager idManager, int threads, int iterations) throws Exception
+    {
+        CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        Thread[] generators = new Thread[threads];
+        for (int t = 0; t < threads; t++)
+        {
+            generators[t] = new Thread(() ->
+            {
+                try
+                {
+                    barrier.await();
+                    for (int i = 0; i < iterations; i++)
+                        idManager.newSessionId(i);
+                }
+                catch (Exception x)
+                {
+                    LOG.warn(x);
+                }
+            });
+            generators[t].start();
+        }
+        long start = System.nanoTime();
+        barrier.await();
+        for (Thread generator : generators)
+            generator.join();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,179 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileLogSessionDataStoreTest
+{
+    private File _testDir;
+    private SessionHandler _handler;
+    
+    
+    @Before
+    public void before()
+    {
+        _testDir = MavenTestingUtils.getTargetTestingDir("segments");
+        FS.ensureEmpty(_testDir);
+    }
+    
+    
+    @After
+    public void after() throws Exception
+    {
+        if (_handler != null)
+            _handler.stop();
+        if (_testDir.exists())
+            FS.ensureEmpty(_testDir);
+    }
+    
+    
+    private FileLogSessionDataStore start (int segmentSize, double compactionRatio) throws Exception
+    {
+        Server server = new Server();
+        _handler = new SessionHandler();
+        _handler.setServer(server);
+        DefaultSessionIdManager idmgr = new DefaultSessionIdManager(server);
+        idmgr.setServer(server);
+        server.setSessionIdManager(idmgr);
+        
+        FileLogSessionDataStore ds = new FileLogSessionDataStore();
+        ds.setStoreDir(_testDir);
+        ds.setSegmentSize(segmentSize);
+        ds.setCompactionRatio(compactionRatio);
+        DefaultSessionCache ss = new DefaultSessionCache(_handler);
+        _handler.setSessionCache(ss);
+        ss.setSessionDataStore(ds);
+        _handler.setSessionIdManager(idmgr);
+        _handler.start();
+        return ds;
+    }
+    
+    
+    @Test
+    public void testStoreLoadDelete() throws Exception
+    {
+        FileLogSessionDataStore ds = start(4096, 0);
+        
+        long now = System.currentTimeMillis();
+        SessionData data = ds.newSessionData("abc", now-100, now, now-50, 60000);
+        data.setLastNode("node0");
+        data.setExpiry(now+60000);
+        data.setAttribute("a", "one");
+        data.setAttribute("b", 2);
+        ds.store("abc", data);
+        
+        Assert.assertTrue(ds.exists("abc"));
+        Assert.assertEquals(data.getLastSaved(), ds.getLastSaved("abc"));
+        Assert.assertEquals(1, ds.getStoreCount());
+        Assert.assertTrue(ds.getSerializedBytesTotal() > 0);
+        SessionData loaded = ds.load("abc");
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(now-100, loaded.getCreated());
+        Assert.assertEquals(now-50, loaded.getLastAccessed());
+        Assert.assertEquals(now+60000, loaded.getExpiry());
+        Assert.assertEquals("node0", loaded.getLastNode());
+        Assert.assertEquals("one", loaded.getAttribute("a"));
+        Assert.assertEquals(2, loaded.getAttribute("b"));
+        
+        //a later record replaces the earlier one
+        data.setAttribute("a", "uno");
+        ds.store("abc", data);
+        Assert.assertEquals("uno", ds.load("abc").getAttribute("a"));
+        Assert.assertEquals(1, ds.getSessionCount());
+        
+        Assert.assertTrue(ds.delete("abc"));
+        Assert.assertFalse(ds.delete("abc"));
+        Assert.assertFalse(ds.exists("abc"));
+        Assert.assertNull(ds.load("abc"));
+        Assert.assertEquals(0, ds.getLastSaved("abc"));
+    }
+    
+    
+    @Test
+    public void testRecovery() throws Exception
+    {
+        FileLogSessionDataStore ds = start(1024, 0);
+        
+        long now = System.currentTimeMillis();
+        for (int i=0; i<20; i++)
+        {
+            SessionData data = ds.newSessionData("s"+i, now, now, now, -1);
+            data.setAttribute("i", i);
+            ds.store("s"+i, data);
+        }
+        for (int i=0; i<20; i+=2)
+            ds.delete("s"+i);
+        SessionData data = ds.load("s1");
+        data.setAttribute("i", 100);
+        data.setDirty(true);
+        ds.store("s1", data);
+        Assert.assertTrue(ds.getSegmentCount() > 1);
+        _handler.stop();
+        
+        //the index is rebuilt from the segments
+        ds = start(1024, 0);
+        Assert.assertEquals(10, ds.getSessionCount());
+        for (int i=0; i<20; i++)
+            Assert.assertEquals(i%2 == 1, ds.exists("s"+i));
+        Assert.assertEquals(100, ds.load("s1").getAttribute("i"));
+        Assert.assertEquals(3, ds.load("s3").getAttribute("i"));
+    }
+    
+    
+    @Test
+    public void testCompaction() throws Exception
+    {
+        FileLogSessionDataStore ds = start(1024, 0.5);
+        
+        long now = System.currentTimeMillis();
+        for (int i=0; i<50; i++)
+            ds.store("s"+i, ds.newSessionData("s"+i, now, now, now, -1));
+        int segments = ds.getSegmentCount();
+        Assert.assertTrue(segments > 2);
+        
+        //leave a few live sessions spread over the segments
+        for (int i=0; i<50; i++)
+        {
+            if (i%10 != 0)
+                ds.delete("s"+i);
+        }
+        
+        ds.compact();
+        Assert.assertTrue(ds.getSegmentCount() < segments);
+        Assert.assertEquals(ds.getSegmentCount(), _testDir.list().length);
+        for (int i=0; i<50; i+=10)
+            Assert.assertEquals("s"+i, ds.load("s"+i).getId());
+        
+        //compaction dropped no live records
+        _handler.stop();
+        ds = start(1024, 0.5);
+        Assert.assertEquals(5, ds.getSessionCount());
+        Assert.assertTrue(ds.getExpired(Collections.emptySet()).isEmpty());
+    }
+}
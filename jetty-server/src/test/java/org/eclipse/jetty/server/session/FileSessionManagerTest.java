@@ -317,4 +317,66 @@ public class FileSessionManagerTest
         }
 
     }
+
+    
+    @Test
+    public void testExpiryIndex() throws Exception
+    {
+        Server server = new Server();
+        SessionHandler handler = new SessionHandler();
+        handler.setServer(server);
+        final DefaultSessionIdManager idmgr = new DefaultSessionIdManager(server);
+        idmgr.setServer(server);
+        server.setSessionIdManager(idmgr);
+
+        FileSessionDataStore ds = new FileSessionDataStore();
+        DefaultSessionCache ss = new DefaultSessionCache(handler);
+        handler.setSessionCache(ss);
+        ss.setSessionDataStore(ds);
+        File testDir = MavenTestingUtils.getTargetTestingDir("hashes");
+        FS.ensureEmpty(testDir);
+        
+        //a session stored before the store was started is indexed on start
+        long now = System.currentTimeMillis();
+        String existing = (now-1000)+"__0.0.0.0_existing";
+        Assert.assertTrue(new File(testDir, existing).createNewFile());
+        
+        ds.setStoreDir(testDir);
+        handler.setSessionIdManager(idmgr);
+        handler.start();
+        
+        Assert.assertEquals(1, ds.getSessionFileCount());
+        Assert.assertEquals(Collections.singleton("existing"), ds.getExpired(Collections.emptySet()));
+        Assert.assertTrue(ds.delete("existing"));
+        Assert.assertTrue(ds.getExpired(Collections.emptySet()).isEmpty());
+
+        SessionData expired = ds.newSessionData("expired", now, now, now, 1000);
+        expired.setLastNode("node0");
+        expired.setExpiry(now-1);
+        ds.store("expired", expired);
+        SessionData live = ds.newSessionData("live", now, now, now, 60000);
+        live.setLastNode("node0");
+        ds.store("live", live);
+        SessionData immortal = ds.newSessionData("immortal", now, now, now, -1);
+        immortal.setLastNode("node0");
+        ds.store("immortal", immortal);
+        Assert.assertEquals(3, ds.getSessionFileCount());
+        Assert.assertEquals(Collections.singleton("expired"), ds.getExpired(Collections.emptySet()));
+        
+        //storing with a new expiry replaces the file and updates the index
+        expired.setExpiry(now+60000);
+        expired.setDirty(true);
+        ds.store("expired", expired);
+        Assert.assertTrue(ds.getExpired(Collections.emptySet()).isEmpty());
+        Assert.assertEquals(3, testDir.list().length);
+        
+        //candidates without a file are expired
+        Assert.assertEquals(Collections.singleton("unknown"), ds.getExpired(Collections.singleton("unknown")));
+        
+        //a file written by another process is found, and then indexed
+        String other = (now+60000)+"__0.0.0.0_other";
+        Assert.assertTrue(new File(testDir, other).createNewFile());
+        Assert.assertTrue(ds.exists("other"));
+        Assert.assertEquals(4, ds.getSessionFileCount());
+    }
 }
@@ -0,0 +1,117 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.thread.Locker.Lock;
+import org.junit.Test;
+
+/**
+ * ReadMostlySessionTest
+ *
+ * Check that a session in read-mostly mode can be read while another
+ * thread holds the session lock.
+ */
+public class ReadMostlySessionTest
+{
+    private Session newSession(boolean readMostly)
+    {
+        SessionHandler handler = new SessionHandler();
+        handler.setReadMostlySessions(readMostly);
+        long now = System.currentTimeMillis();
+        Session session = new Session(handler, new SessionData("1234", "", "", now, now, now, -1));
+        session.setResident(true);
+        try (Lock lock = session.lock())
+        {
+            session.setAttribute("a", "one");
+        }
+        return session;
+    }
+
+    @Test
+    public void testReadWhileLocked() throws Exception
+    {
+        Session session = newSession(true);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<?> holder = executor.submit(() ->
+            {
+                try (Lock lock = session.lock())
+                {
+                    locked.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                return null;
+            });
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            //none of these may block on the lock held by the other thread
+            assertEquals("one", session.getAttribute("a"));
+            assertEquals("one", session.getValue("a"));
+            assertEquals(Collections.singletonList("a"), Collections.list(session.getAttributeNames()));
+            assertEquals(1, session.getValueNames().length);
+            assertTrue(session.isValid());
+            assertEquals("1234", session.getId());
+            assertEquals(-1, session.getMaxInactiveInterval());
+            assertFalse(session.isIdChanged());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAccessAndComplete() throws Exception
+    {
+        for (boolean readMostly : new boolean[]{false, true})
+        {
+            Session session = newSession(readMostly);
+            long accessed = session.getSessionData().getAccessed();
+            long now = accessed + 1000;
+
+            assertTrue(session.access(now));
+            assertTrue(session.access(now + 1));
+            assertEquals(2, session.getRequests());
+            assertEquals(now + 1, session.getSessionData().getAccessed());
+            assertEquals(now, session.getLastAccessedTime());
+
+            session.complete();
+            session.complete();
+            assertEquals(0, session.getRequests());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * SessionDataTest
+ *
+ * Test that a save does not clean changes made while it was in progress.
+ */
+public class SessionDataTest
+{
+    @Test
+    public void testSetCleanKeepsChangesMadeDuringSave() throws Exception
+    {
+        SessionData data = new SessionData("1234", "", "", 0, 0, 0, 0);
+        data.setAttribute("a", "1");
+        data.setAttribute("b", "1");
+        
+        //take the snapshot of a save
+        long generation = data.getDirtyGeneration();
+        Set<String> saved = data.getDirtyAttributes();
+        assertEquals(2, saved.size());
+        
+        //change a saved attribute again while the save is in progress
+        data.setAttribute("a", "2");
+        data.setClean(saved, generation);
+        assertTrue(data.isDirty());
+        assertEquals(Collections.singleton("a"), data.getDirtyAttributes());
+        
+        //a change that is not to an attribute is not lost either
+        generation = data.getDirtyGeneration();
+        saved = data.getDirtyAttributes();
+        data.setDirty(true);
+        data.setClean(saved, generation);
+        assertTrue(data.isDirty());
+        assertTrue(data.getDirtyAttributes().isEmpty());
+        
+        //nothing changed during the save
+        generation = data.getDirtyGeneration();
+        saved = data.getDirtyAttributes();
+        data.setClean(saved, generation);
+        assertFalse(data.isDirty());
+    }
+}
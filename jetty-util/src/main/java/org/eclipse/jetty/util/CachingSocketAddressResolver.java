@@ -0,0 +1,344 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>A {@link SocketAddressResolver} that caches the results of another {@link SocketAddressResolver}.</p>
+ * <p>Successful resolutions are cached for {@link #getTimeToLive() the time to live}; after that they are
+ * still served, for at most {@link #getStaleTime() the stale time}, while a single refresh is performed
+ * in the background by the wrapped resolver, so that callers never wait for an expired entry to be resolved
+ * again (stale-while-revalidate). If the refresh fails, the stale addresses keep being served until
+ * the stale time elapses.</p>
+ * <p>Failed resolutions are cached for {@link #getNegativeTimeToLive() the negative time to live},
+ * so that a storm of connections to an unknown host does not result in a storm of DNS lookups.</p>
+ * <p>Concurrent resolutions of the same host are coalesced into one resolution performed by the wrapped
+ * resolver. Each resolution returns all the addresses of the host, rotated so that successive resolutions
+ * start from a different address (round-robin).</p>
+ * <p>Example usage:</p>
+ * <pre>
+ * HttpClient httpClient = new HttpClient();
+ * httpClient.setExecutor(executor);
+ * httpClient.setScheduler(scheduler);
+ * httpClient.setSocketAddressResolver(new CachingSocketAddressResolver(new SocketAddressResolver.Async(executor, scheduler, 5000)));
+ * httpClient.start();
+ * </pre>
+ */
+@ManagedObject("The caching address resolver")
+public class CachingSocketAddressResolver implements SocketAddressResolver
+{
+    private static final Logger LOG = Log.getLogger(CachingSocketAddressResolver.class);
+
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final SocketAddressResolver resolver;
+    private long timeToLive = 30000;
+    private long staleTime = 30000;
+    private long negativeTimeToLive = 10000;
+    private int maxEntries = 1024;
+
+    /**
+     * @param resolver the resolver that performs the resolutions that are cached
+     */
+    public CachingSocketAddressResolver(SocketAddressResolver resolver)
+    {
+        this.resolver = resolver;
+    }
+
+    public SocketAddressResolver getSocketAddressResolver()
+    {
+        return resolver;
+    }
+
+    /**
+     * @return the time, in milliseconds, a successful resolution is considered fresh
+     */
+    @ManagedAttribute("The time, in milliseconds, a successful resolution is considered fresh")
+    public long getTimeToLive()
+    {
+        return timeToLive;
+    }
+
+    /**
+     * @param timeToLive the time, in milliseconds, a successful resolution is considered fresh
+     */
+    public void setTimeToLive(long timeToLive)
+    {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @return the time, in milliseconds, an expired resolution may still be served while it is refreshed
+     */
+    @ManagedAttribute("The time, in milliseconds, an expired resolution may still be served while it is refreshed")
+    public long getStaleTime()
+    {
+        return staleTime;
+    }
+
+    /**
+     * @param staleTime the time, in milliseconds, an expired resolution may still be served while it is refreshed
+     */
+    public void setStaleTime(long staleTime)
+    {
+        this.staleTime = staleTime;
+    }
+
+    /**
+     * @return the time, in milliseconds, a failed resolution is cached
+     */
+    @ManagedAttribute("The time, in milliseconds, a failed resolution is cached")
+    public long getNegativeTimeToLive()
+    {
+        return negativeTimeToLive;
+    }
+
+    /**
+     * @param negativeTimeToLive the time, in milliseconds, a failed resolution is cached
+     */
+    public void setNegativeTimeToLive(long negativeTimeToLive)
+    {
+        this.negativeTimeToLive = negativeTimeToLive;
+    }
+
+    /**
+     * @return the max number of hosts cached
+     */
+    @ManagedAttribute("The max number of hosts cached")
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    /**
+     * @param maxEntries the max number of hosts cached
+     */
+    public void setMaxEntries(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+    }
+
+    @ManagedAttribute("The number of hosts cached")
+    public int getSize()
+    {
+        return cache.size();
+    }
+
+    @ManagedOperation(value = "Clears the cache", impact = "ACTION")
+    public void clear()
+    {
+        cache.clear();
+    }
+
+    @Override
+    public void resolve(String host, int port, Promise<List<InetSocketAddress>> promise)
+    {
+        Entry entry = cache.get(host);
+        if (entry == null)
+        {
+            if (cache.size() >= getMaxEntries())
+                purge();
+            if (cache.size() >= getMaxEntries())
+            {
+                // Too many hosts, do not cache.
+                resolver.resolve(host, port, promise);
+                return;
+            }
+            entry = new Entry(host);
+            Entry existing = cache.putIfAbsent(host, entry);
+            if (existing != null)
+                entry = existing;
+        }
+        entry.resolve(port, promise);
+    }
+
+    private void purge()
+    {
+        long now = System.nanoTime();
+        cache.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private class Entry
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String host;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private List<InetAddress> addresses;
+        private Throwable failure;
+        private long expireNanoTime;
+        private long staleNanoTime;
+        private boolean resolving;
+
+        private Entry(String host)
+        {
+            this.host = host;
+        }
+
+        private void resolve(int port, Promise<List<InetSocketAddress>> promise)
+        {
+            List<InetAddress> result;
+            Throwable failure;
+            boolean refresh = false;
+            synchronized (this)
+            {
+                long now = System.nanoTime();
+                result = this.addresses;
+                failure = this.failure;
+                if (result != null)
+                {
+                    if (now - staleNanoTime >= 0)
+                    {
+                        result = null;
+                        waiters.add(new Waiter(port, promise));
+                    }
+                    else if (now - expireNanoTime >= 0)
+                    {
+                        refresh = !resolving;
+                    }
+                }
+                else if (failure == null || now - expireNanoTime >= 0)
+                {
+                    failure = null;
+                    waiters.add(new Waiter(port, promise));
+                }
+                if (result == null && failure == null || refresh)
+                {
+                    refresh = !resolving;
+                    resolving = true;
+                }
+            }
+
+            if (result != null)
+                promise.succeeded(toSocketAddresses(result, port));
+            else if (failure != null)
+                promise.failed(failure);
+
+            if (refresh)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Resolving {}", host);
+                resolver.resolve(host, 0, new Promise<List<InetSocketAddress>>()
+                {
+                    @Override
+                    public void succeeded(List<InetSocketAddress> result)
+                    {
+                        resolved(result, null);
+                    }
+
+                    @Override
+                    public void failed(Throwable x)
+                    {
+                        resolved(null, x);
+                    }
+                });
+            }
+        }
+
+        private void resolved(List<InetSocketAddress> socketAddresses, Throwable x)
+        {
+            List<Waiter> waiters;
+            List<InetAddress> result = null;
+            Throwable failure = x;
+            synchronized (this)
+            {
+                resolving = false;
+                long now = System.nanoTime();
+                if (socketAddresses != null)
+                {
+                    result = new ArrayList<>(socketAddresses.size());
+                    for (InetSocketAddress socketAddress : socketAddresses)
+                        result.add(socketAddress.getAddress());
+                    this.addresses = Collections.unmodifiableList(result);
+                    this.failure = null;
+                    this.expireNanoTime = now + TimeUnit.MILLISECONDS.toNanos(getTimeToLive());
+                    this.staleNanoTime = expireNanoTime + TimeUnit.MILLISECONDS.toNanos(getStaleTime());
+                }
+                else if (this.addresses != null && now - staleNanoTime < 0)
+                {
+                    // Keep serving the stale addresses.
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Could not refresh " + host + ", serving stale addresses", x);
+                    result = this.addresses;
+                    failure = null;
+                }
+                else
+                {
+                    this.addresses = null;
+                    this.failure = x;
+                    this.expireNanoTime = now + TimeUnit.MILLISECONDS.toNanos(getNegativeTimeToLive());
+                    this.staleNanoTime = expireNanoTime;
+                }
+                waiters = new ArrayList<>(this.waiters);
+                this.waiters.clear();
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Resolved {} to {}", host, result == null ? failure : result);
+
+            for (Waiter waiter : waiters)
+            {
+                if (result != null)
+                    waiter.promise.succeeded(toSocketAddresses(result, waiter.port));
+                else
+                    waiter.promise.failed(failure);
+            }
+        }
+
+        private synchronized boolean isExpired(long now)
+        {
+            return !resolving && now - staleNanoTime >= 0;
+        }
+
+        private List<InetSocketAddress> toSocketAddresses(List<InetAddress> addresses, int port)
+        {
+            int size = addresses.size();
+            int start = size > 1 ? Math.floorMod(counter.getAndIncrement(), size) : 0;
+            List<InetSocketAddress> result = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i)
+                result.add(new InetSocketAddress(addresses.get((start + i) % size), port));
+            return result;
+        }
+    }
+
+    private static class Waiter
+    {
+        private final int port;
+        private final Promise<List<InetSocketAddress>> promise;
+
+        private Waiter(int port, Promise<List<InetSocketAddress>> promise)
+        {
+            this.port = port;
+            this.promise = promise;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HistogramStatistic
+ * <p>
+ * A {@link SampleStatistic} that also records the distribution of the samples, so that
+ * percentiles (for example the 99th percentile of a latency) can be estimated.
+ * <p>
+ * Samples are recorded into logarithmic buckets, each power of two being split into
+ * {@value #SUB_BUCKETS} linear sub buckets, so that the relative error of the estimated
+ * percentiles is at most 1/{@value #SUB_BUCKETS}, with constant memory and lock free updates.
+ * Negative samples are recorded as zero.
+ */
+public class HistogramStatistic extends SampleStatistic
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+        for (int i = 0; i < BUCKETS; i++)
+            _buckets.set(i, 0);
+    }
+
+    @Override
+    public void set(long sample)
+    {
+        if (sample < 0)
+            sample = 0;
+        super.set(sample);
+        _buckets.incrementAndGet(bucketOf(sample));
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return an estimate of the value below which the given percentile of the samples fall,
+     * or 0 if there are no samples
+     */
+    public long getPercentile(double percentile)
+    {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Invalid percentile " + percentile);
+
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += _buckets.get(i);
+        if (count == 0)
+            return 0;
+
+        long threshold = (long)Math.ceil(count * percentile / 100.0);
+        if (threshold == 0)
+            threshold = 1;
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            cumulative += _buckets.get(i);
+            if (cumulative >= threshold)
+                return Math.min(upperBoundOf(i), getMax());
+        }
+        return getMax();
+    }
+
+    static int bucketOf(long sample)
+    {
+        if (sample < LINEAR_BUCKETS)
+            return (int)sample;
+        int exponent = 63 - Long.numberOfLeadingZeros(sample);
+        int subBucket = (int)(sample >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket)
+    {
+        if (bucket < LINEAR_BUCKETS)
+            return bucket;
+        int index = bucket - LINEAR_BUCKETS;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lowerBound = (1L << exponent) + subBucket * width;
+        return lowerBound + width - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{c=%d,m=%d,t=%d,p50=%d,p99=%d}", getClass().getSimpleName(), hashCode(), getCount(), getMax(), getTotal(), getPercentile(50), getPercentile(99));
+    }
+}
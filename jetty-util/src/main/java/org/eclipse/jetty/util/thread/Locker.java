@@ -64,6 +64,14 @@ public class Locker
         return _lock.isLocked();
     }
 
+    /**
+     * @return whether this lock has been acquired by the current thread
+     */
+    public boolean isHeldByCurrentThread()
+    {
+        return _lock.isHeldByCurrentThread();
+    }
+
     /**
      * @return a {@link Condition} associated with this lock
      */
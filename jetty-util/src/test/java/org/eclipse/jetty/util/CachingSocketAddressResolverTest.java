@@ -0,0 +1,211 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachingSocketAddressResolverTest
+{
+    @Test
+    public void testResolutionIsCached() throws Exception
+    {
+        CountingResolver counting = new CountingResolver("127.0.0.1");
+        CachingSocketAddressResolver resolver = new CachingSocketAddressResolver(counting);
+
+        List<InetSocketAddress> first = resolve(resolver, "host", 8080);
+        List<InetSocketAddress> second = resolve(resolver, "host", 9090);
+
+        Assert.assertEquals(1, counting.resolutions.get());
+        Assert.assertEquals(8080, first.get(0).getPort());
+        Assert.assertEquals(9090, second.get(0).getPort());
+        Assert.assertEquals(first.get(0).getAddress(), second.get(0).getAddress());
+    }
+
+    @Test
+    public void testConcurrentResolutionsAreCoalesced() throws Exception
+    {
+        CountingResolver counting = new CountingResolver("127.0.0.1");
+        counting.deferred = true;
+        CachingSocketAddressResolver resolver = new CachingSocketAddressResolver(counting);
+
+        List<CompletableFuture<List<InetSocketAddress>>> results = new ArrayList<>();
+        for (int i = 0; i < 10; ++i)
+        {
+            CompletableFuture<List<InetSocketAddress>> result = new CompletableFuture<>();
+            resolver.resolve("host", 80, Promise.from(result));
+            results.add(result);
+        }
+
+        Assert.assertEquals(1, counting.resolutions.get());
+        Assert.assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
+
+        counting.complete();
+        Assert.assertTrue(results.stream().allMatch(CompletableFuture::isDone));
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception
+    {
+        CountingResolver counting = new CountingResolver("127.0.0.1");
+        CachingSocketAddressResolver resolver = new CachingSocketAddressResolver(counting);
+        resolver.setTimeToLive(0);
+        resolver.setStaleTime(60000);
+
+        resolve(resolver, "host", 80);
+        Assert.assertEquals(1, counting.resolutions.get());
+
+        // The entry is expired: it is served immediately and refreshed in the background.
+        counting.deferred = true;
+        List<InetSocketAddress> stale = resolve(resolver, "host", 80);
+        Assert.assertNotNull(stale);
+        Assert.assertEquals(2, counting.resolutions.get());
+
+        // Only one refresh is performed.
+        resolve(resolver, "host", 80);
+        Assert.assertEquals(2, counting.resolutions.get());
+
+        // A failed refresh keeps serving the stale addresses.
+        counting.fail();
+        Assert.assertNotNull(resolve(resolver, "host", 80));
+    }
+
+    @Test
+    public void testFailureIsCached() throws Exception
+    {
+        CountingResolver counting = new CountingResolver();
+        CachingSocketAddressResolver resolver = new CachingSocketAddressResolver(counting);
+
+        Assert.assertTrue(failure(resolver, "host") instanceof UnknownHostException);
+        Assert.assertTrue(failure(resolver, "host") instanceof UnknownHostException);
+        Assert.assertEquals(1, counting.resolutions.get());
+
+        resolver.setNegativeTimeToLive(0);
+        resolver.clear();
+        failure(resolver, "host");
+        failure(resolver, "host");
+        Assert.assertEquals(3, counting.resolutions.get());
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception
+    {
+        CountingResolver counting = new CountingResolver("127.0.0.1", "127.0.0.2", "127.0.0.3");
+        CachingSocketAddressResolver resolver = new CachingSocketAddressResolver(counting);
+
+        List<InetAddress> firsts = new ArrayList<>();
+        for (int i = 0; i < 3; ++i)
+        {
+            List<InetSocketAddress> result = resolve(resolver, "host", 80);
+            Assert.assertEquals(3, result.size());
+            firsts.add(result.get(0).getAddress());
+        }
+
+        Assert.assertEquals(3, firsts.stream().distinct().count());
+    }
+
+    private List<InetSocketAddress> resolve(SocketAddressResolver resolver, String host, int port)
+    {
+        CompletableFuture<List<InetSocketAddress>> result = new CompletableFuture<>();
+        resolver.resolve(host, port, Promise.from(result));
+        return result.getNow(null);
+    }
+
+    private Throwable failure(SocketAddressResolver resolver, String host)
+    {
+        AtomicReference<Throwable> result = new AtomicReference<>();
+        resolver.resolve(host, 80, new Promise<List<InetSocketAddress>>()
+        {
+            @Override
+            public void succeeded(List<InetSocketAddress> addresses)
+            {
+            }
+
+            @Override
+            public void failed(Throwable x)
+            {
+                result.set(x);
+            }
+        });
+        return result.get();
+    }
+
+    private static class CountingResolver implements SocketAddressResolver
+    {
+        private final AtomicInteger resolutions = new AtomicInteger();
+        private final List<Promise<List<InetSocketAddress>>> pending = new ArrayList<>();
+        private final String[] addresses;
+        private boolean deferred;
+
+        private CountingResolver(String... addresses)
+        {
+            this.addresses = addresses;
+        }
+
+        @Override
+        public void resolve(String host, int port, Promise<List<InetSocketAddress>> promise)
+        {
+            resolutions.incrementAndGet();
+            if (deferred)
+                pending.add(promise);
+            else
+                succeed(port, promise);
+        }
+
+        private void complete()
+        {
+            for (Promise<List<InetSocketAddress>> promise : pending)
+                succeed(0, promise);
+            pending.clear();
+        }
+
+        private void fail()
+        {
+            for (Promise<List<InetSocketAddress>> promise : pending)
+                promise.failed(new UnknownHostException());
+            pending.clear();
+        }
+
+        private void succeed(int port, Promise<List<InetSocketAddress>> promise)
+        {
+            try
+            {
+                if (addresses.length == 0)
+                    throw new UnknownHostException();
+                List<InetSocketAddress> result = new ArrayList<>();
+                for (String address : addresses)
+                    result.add(new InetSocketAddress(InetAddress.getByName(address), port));
+                promise.succeeded(result);
+            }
+            catch (UnknownHostException x)
+            {
+                promise.failed(x);
+            }
+        }
+    }
+}
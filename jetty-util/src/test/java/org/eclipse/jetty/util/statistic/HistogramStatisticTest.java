@@ -0,0 +1,68 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testBuckets() throws Exception
+    {
+        for (long sample = 0; sample < 100_000; sample++)
+        {
+            int bucket = HistogramStatistic.bucketOf(sample);
+            assertTrue(HistogramStatistic.upperBoundOf(bucket) >= sample);
+            if (bucket > 0)
+                assertTrue(HistogramStatistic.upperBoundOf(bucket - 1) < sample);
+        }
+        int last = HistogramStatistic.bucketOf(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, HistogramStatistic.upperBoundOf(last));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception
+    {
+        HistogramStatistic stats = new HistogramStatistic();
+        assertEquals(0, stats.getPercentile(99));
+
+        for (long x = 1; x <= 1000; x++)
+            stats.set(x);
+
+        assertEquals(1000, stats.getCount());
+        assertEquals(1000, stats.getMax());
+        assertNearEnough(500, stats.getPercentile(50));
+        assertNearEnough(990, stats.getPercentile(99));
+        assertEquals(1000, stats.getPercentile(100));
+
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getPercentile(50));
+    }
+
+    private void assertNearEnough(long expected, long actual)
+    {
+        // Buckets have a relative error of at most 1/8.
+        assertTrue(actual >= expected);
+        assertTrue(actual <= expected + expected / 8);
+    }
+}
@@ -61,11 +61,11 @@ public abstract class JsrCallable extends CallableMethod
      */
     public JsrCallable(JsrCallable copy)
     {
-        this(copy.getPojo(),copy.getMethod());
+        super(copy);
         this.idxSession = copy.idxSession;
         this.idxConfig = copy.idxConfig;
-        System.arraycopy(copy.params,0,this.params,0,params.length);
-        System.arraycopy(copy.args,0,this.args,0,args.length);
+        this.params = copy.params.clone();
+        this.args = copy.args.clone();
     }
 
     protected void assertRoleRequired(int index, String description)
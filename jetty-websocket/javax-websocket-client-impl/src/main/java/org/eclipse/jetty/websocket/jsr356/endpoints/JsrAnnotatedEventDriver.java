@@ -120,7 +120,7 @@ public class JsrAnnotatedEventDriver extends AbstractJsrEventDriver
                 {
                     LOG.debug("Binary Message InputStream");
                 }
-                final MessageInputStream stream = new MessageInputStream();
+                final MessageInputStream stream = new MessageInputStream(session.getBufferPool());
                 activeMessage = stream;
 
                 // Always dispatch streaming read to another thread.
@@ -335,7 +335,7 @@ public class JsrAnnotatedEventDriver extends AbstractJsrEventDriver
                     LOG.debug("Text Message Writer");
                 }
 
-                final MessageReader stream = new MessageReader(new MessageInputStream());
+                final MessageReader stream = new MessageReader(new MessageInputStream(session.getBufferPool()));
                 activeMessage = stream;
 
                 // Always dispatch streaming read to another thread.
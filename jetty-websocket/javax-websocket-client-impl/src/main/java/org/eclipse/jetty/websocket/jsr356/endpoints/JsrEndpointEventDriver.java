@@ -88,7 +88,7 @@ public class JsrEndpointEventDriver extends AbstractJsrEventDriver
             }
             else if (wrapper.wantsStreams())
             {
-                final MessageInputStream stream = new MessageInputStream();
+                final MessageInputStream stream = new MessageInputStream(session.getBufferPool());
                 activeMessage = stream;
                 dispatch(new Runnable()
                 {
@@ -191,7 +191,7 @@ public class JsrEndpointEventDriver extends AbstractJsrEventDriver
             }
             else if (wrapper.wantsStreams())
             {
-                final MessageReader stream = new MessageReader(new MessageInputStream());
+                final MessageReader stream = new MessageReader(new MessageInputStream(session.getBufferPool()));
                 activeMessage = stream;
 
                 dispatch(new Runnable()
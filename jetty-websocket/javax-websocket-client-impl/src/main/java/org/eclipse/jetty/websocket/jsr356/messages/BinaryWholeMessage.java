@@ -50,7 +50,7 @@ public class BinaryWholeMessage extends SimpleBinaryMessage
     {
         super.finished = true;
 
-        byte data[] = out.toByteArray();
+        byte data[] = getData();
 
         DecoderFactory.Wrapper decoder = msgWrapper.getDecoder();
         Decoder.Binary<Object> binaryDecoder = (Binary<Object>)decoder.getDecoder();
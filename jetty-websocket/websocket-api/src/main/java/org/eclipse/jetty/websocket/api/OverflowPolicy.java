@@ -0,0 +1,47 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.api;
+
+/**
+ * What to do with a frame sent when the outgoing queue of a session is full.
+ * 
+ * @see WebSocketPolicy#setMaxOutgoingQueueBytes(long)
+ * @see WebSocketPolicy#setMaxOutgoingQueueFrames(int)
+ */
+public enum OverflowPolicy
+{
+    /**
+     * Fail the frame that does not fit in the queue.
+     */
+    REJECT,
+
+    /**
+     * Drop the oldest queued messages to make room for the new frame.
+     * <p>
+     * Only whole messages that are not yet being sent are dropped; if that
+     * is not enough, the new frame is rejected.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Fail the queued messages and close the session with
+     * {@link StatusCode#POLICY_VIOLATION}.
+     */
+    CLOSE
+}
@@ -180,4 +180,23 @@ public interface Session extends Closeable
      * @return the suspend token suitable for resuming the reading of data on the connection.
      */
     SuspendToken suspend();
+
+    /**
+     * Request more frames to be read from the connection.
+     * <p>
+     * Once called, reads are demand driven: each frame read (control frames included)
+     * consumes one unit of demand, and no more data is read from the network while
+     * the demand is exhausted, so that TCP flow control slows down the remote endpoint.
+     * Call it from the open event to have every frame flow controlled.
+     * <p>
+     * The default implementation throws {@link UnsupportedOperationException}, for
+     * the session implementations that do not support demand driven reads.
+     * 
+     * @param frames the number of additional frames to read, must be positive
+     * @throws UnsupportedOperationException if this session does not support demand driven reads
+     */
+    default void demand(long frames)
+    {
+        throw new UnsupportedOperationException("demand not supported");
+    }
 }
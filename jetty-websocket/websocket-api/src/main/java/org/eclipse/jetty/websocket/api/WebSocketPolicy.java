@@ -85,6 +85,16 @@ public class WebSocketPolicy
      */
     private long idleTimeout = 300000;
 
+    /**
+     * The time in ms (milliseconds) that a websocket may be idle before releasing
+     * the resources it does not need while idle, such as compression state.
+     * <p>
+     * Zero or negative values disable hibernation.
+     * <p>
+     * Default: 0 (disabled)
+     */
+    private long hibernateTimeout = 0;
+
     /**
      * The size of the input (read from network layer) buffer size.
      * <p>
@@ -92,6 +102,47 @@ public class WebSocketPolicy
      */
     private int inputBufferSize = 4 * KB;
 
+    /**
+     * The size of the buffer used to aggregate outgoing frames sent with {@link BatchMode#AUTO}
+     * before writing them to the network layer.
+     * <p>
+     * Default: 0 (same as the maxBinaryMessageBufferSize)
+     */
+    private int outputBufferSize = 0;
+
+    /**
+     * The maximum time in ms (milliseconds) that aggregated outgoing frames wait for more
+     * frames before being written to the network layer.
+     * <p>
+     * Default: 0 (written as soon as there are no more frames to send)
+     */
+    private long maxFlushDelay = 0;
+
+    /**
+     * The maximum number of payload bytes of the data frames queued for sending.
+     * <p>
+     * Zero or negative values indicate no limit.
+     * <p>
+     * Default: -1 (no limit)
+     */
+    private long maxOutgoingQueueBytes = -1;
+
+    /**
+     * The maximum number of data frames queued for sending.
+     * <p>
+     * Zero or negative values indicate no limit.
+     * <p>
+     * Default: -1 (no limit)
+     */
+    private int maxOutgoingQueueFrames = -1;
+
+    /**
+     * What to do with a frame sent when the outgoing queue is full.
+     * <p>
+     * Default: {@link OverflowPolicy#REJECT}
+     */
+    private OverflowPolicy outgoingQueueOverflowPolicy = OverflowPolicy.REJECT;
+
     /**
      * Behavior of the websockets
      */
@@ -146,11 +197,17 @@ public class WebSocketPolicy
     {
         WebSocketPolicy clone = new WebSocketPolicy(this.behavior);
         clone.idleTimeout = this.idleTimeout;
+        clone.hibernateTimeout = this.hibernateTimeout;
         clone.maxTextMessageSize = this.maxTextMessageSize;
         clone.maxTextMessageBufferSize = this.maxTextMessageBufferSize;
         clone.maxBinaryMessageSize = this.maxBinaryMessageSize;
         clone.maxBinaryMessageBufferSize = this.maxBinaryMessageBufferSize;
         clone.inputBufferSize = this.inputBufferSize;
+        clone.outputBufferSize = this.outputBufferSize;
+        clone.maxFlushDelay = this.maxFlushDelay;
+        clone.maxOutgoingQueueBytes = this.maxOutgoingQueueBytes;
+        clone.maxOutgoingQueueFrames = this.maxOutgoingQueueFrames;
+        clone.outgoingQueueOverflowPolicy = this.outgoingQueueOverflowPolicy;
         clone.asyncWriteTimeout = this.asyncWriteTimeout;
         return clone;
     }
@@ -182,6 +239,17 @@ public class WebSocketPolicy
         return idleTimeout;
     }
 
+    /**
+     * The time in ms (milliseconds) that a websocket may be idle before releasing
+     * the resources it does not need while idle.
+     * 
+     * @return the timeout in milliseconds for hibernation, zero or negative if disabled.
+     */
+    public long getHibernateTimeout()
+    {
+        return hibernateTimeout;
+    }
+
     /**
      * The size of the input (read from network layer) buffer size.
      * <p>
@@ -194,6 +262,59 @@ public class WebSocketPolicy
         return inputBufferSize;
     }
 
+    /**
+     * The size of the buffer used to aggregate outgoing frames sent with {@link BatchMode#AUTO}.
+     * 
+     * @return the size in bytes of the aggregation buffer
+     */
+    public int getOutputBufferSize()
+    {
+        if (outputBufferSize <= 0)
+            return maxBinaryMessageBufferSize;
+        return outputBufferSize;
+    }
+
+    /**
+     * The maximum time in ms (milliseconds) that aggregated outgoing frames wait for more
+     * frames before being written to the network layer.
+     * 
+     * @return the maximum flush delay in milliseconds, zero to write as soon as there are no more frames to send
+     */
+    public long getMaxFlushDelay()
+    {
+        return maxFlushDelay;
+    }
+
+    /**
+     * The maximum number of payload bytes of the data frames queued for sending.
+     * 
+     * @return the maximum bytes queued, zero or negative for no limit
+     */
+    public long getMaxOutgoingQueueBytes()
+    {
+        return maxOutgoingQueueBytes;
+    }
+
+    /**
+     * The maximum number of data frames queued for sending.
+     * 
+     * @return the maximum frames queued, zero or negative for no limit
+     */
+    public int getMaxOutgoingQueueFrames()
+    {
+        return maxOutgoingQueueFrames;
+    }
+
+    /**
+     * What to do with a frame sent when the outgoing queue is full.
+     * 
+     * @return the overflow policy of the outgoing queue
+     */
+    public OverflowPolicy getOutgoingQueueOverflowPolicy()
+    {
+        return outgoingQueueOverflowPolicy;
+    }
+
     /**
      * Get the maximum size of a binary message buffer (for streaming writing)
      * 
@@ -276,6 +397,18 @@ public class WebSocketPolicy
         this.idleTimeout = ms;
     }
 
+    /**
+     * The time in ms (milliseconds) that a websocket may be idle before releasing
+     * the resources it does not need while idle, such as compression state.
+     * 
+     * @param ms
+     *            the timeout in milliseconds, zero or negative to disable hibernation
+     */
+    public void setHibernateTimeout(long ms)
+    {
+        this.hibernateTimeout = ms;
+    }
+
     /**
      * The size of the input (read from network layer) buffer size.
      * 
@@ -288,6 +421,66 @@ public class WebSocketPolicy
         this.inputBufferSize = size;
     }
 
+    /**
+     * The size of the buffer used to aggregate outgoing frames sent with {@link BatchMode#AUTO}.
+     * 
+     * @param size
+     *            the size in bytes, zero to use the maxBinaryMessageBufferSize
+     */
+    public void setOutputBufferSize(int size)
+    {
+        this.outputBufferSize = size;
+    }
+
+    /**
+     * The maximum time in ms (milliseconds) that aggregated outgoing frames wait for more
+     * frames before being written to the network layer.
+     * <p>
+     * A small delay lets bursts of small frames coalesce into a single write.
+     * 
+     * @param ms
+     *            the delay in milliseconds, zero to write as soon as there are no more frames to send
+     */
+    public void setMaxFlushDelay(long ms)
+    {
+        this.maxFlushDelay = ms;
+    }
+
+    /**
+     * The maximum number of payload bytes of the data frames queued for sending.
+     * <p>
+     * Bounds the memory held for a slow peer; control frames are not limited.
+     * 
+     * @param bytes
+     *            the maximum bytes queued, zero or negative for no limit
+     */
+    public void setMaxOutgoingQueueBytes(long bytes)
+    {
+        this.maxOutgoingQueueBytes = bytes;
+    }
+
+    /**
+     * The maximum number of data frames queued for sending.
+     * 
+     * @param frames
+     *            the maximum frames queued, zero or negative for no limit
+     */
+    public void setMaxOutgoingQueueFrames(int frames)
+    {
+        this.maxOutgoingQueueFrames = frames;
+    }
+
+    /**
+     * What to do with a frame sent when the outgoing queue is full.
+     * 
+     * @param overflowPolicy
+     *            the overflow policy of the outgoing queue
+     */
+    public void setOutgoingQueueOverflowPolicy(OverflowPolicy overflowPolicy)
+    {
+        this.outgoingQueueOverflowPolicy = overflowPolicy == null ? OverflowPolicy.REJECT : overflowPolicy;
+    }
+
     /**
      * The maximum size of a binary message buffer.
      * <p>
@@ -372,7 +565,13 @@ public class WebSocketPolicy
         builder.append(",maxBinaryMessageBufferSize=").append(maxBinaryMessageBufferSize);
         builder.append(",asyncWriteTimeout=").append(asyncWriteTimeout);
         builder.append(",idleTimeout=").append(idleTimeout);
+        builder.append(",hibernateTimeout=").append(hibernateTimeout);
         builder.append(",inputBufferSize=").append(inputBufferSize);
+        builder.append(",outputBufferSize=").append(outputBufferSize);
+        builder.append(",maxFlushDelay=").append(maxFlushDelay);
+        builder.append(",maxOutgoingQueueBytes=").append(maxOutgoingQueueBytes);
+        builder.append(",maxOutgoingQueueFrames=").append(maxOutgoingQueueFrames);
+        builder.append(",outgoingQueueOverflowPolicy=").append(outgoingQueueOverflowPolicy);
         builder.append("]");
         return builder.toString();
     }
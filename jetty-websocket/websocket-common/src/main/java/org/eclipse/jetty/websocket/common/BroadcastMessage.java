@@ -0,0 +1,250 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketBehavior;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.Extension;
+import org.eclipse.jetty.websocket.api.extensions.OutgoingFrames;
+import org.eclipse.jetty.websocket.common.extensions.ExtensionStack;
+import org.eclipse.jetty.websocket.common.extensions.compress.CompressExtension;
+import org.eclipse.jetty.websocket.common.extensions.compress.PerMessageDeflateExtension;
+import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
+import org.eclipse.jetty.websocket.common.frames.DataFrame;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
+
+/**
+ * A whole TEXT or BINARY message to be sent to many sessions.
+ * <p>
+ * The payload is encoded once, into a shared read-only buffer, and each server session
+ * is sent a frame that references it. Sessions whose only extension is permessage-deflate
+ * without outgoing context takeover share a payload that is also compressed once.
+ * Sessions with other extensions are sent the shared plain payload, that their extensions
+ * then process for each session, as a compression context kept between messages cannot
+ * be shared.
+ * <p>
+ * Client sessions mask their frames in place, so are sent the message through their
+ * {@link RemoteEndpoint}, encoding it for each session.
+ */
+public class BroadcastMessage
+{
+    private static final Logger LOG = Log.getLogger(BroadcastMessage.class);
+    private static final byte[] TAIL_BYTES = new byte[] { 0x00, 0x00, (byte)0xFF, (byte)0xFF };
+
+    private final String text;
+    private final ByteBuffer data;
+    private volatile ByteBuffer plain;
+    private volatile ByteBuffer deflated;
+
+    /**
+     * @param text the payload of a TEXT message
+     */
+    public BroadcastMessage(String text)
+    {
+        this.text = text;
+        this.data = null;
+    }
+
+    /**
+     * @param data the payload of a BINARY message, which is not consumed
+     */
+    public BroadcastMessage(ByteBuffer data)
+    {
+        this.text = null;
+        this.data = data.slice();
+    }
+
+    /**
+     * Send the message to sessions.
+     * <p>
+     * Sessions that are not open are skipped.
+     * 
+     * @param sessions the sessions to send the message to
+     * @param callback the callback notified of the result of each send, may be null
+     * @return the number of sessions the message was sent to
+     */
+    public int broadcast(Collection<? extends Session> sessions, WriteCallback callback)
+    {
+        int sent = 0;
+        for (Session session : sessions)
+        {
+            if (!session.isOpen())
+                continue;
+            try
+            {
+                sendTo(session, callback);
+                sent++;
+            }
+            catch (Throwable x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Unable to broadcast to " + session, x);
+                if (callback != null)
+                    callback.writeFailed(x);
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Send the message to one session.
+     * 
+     * @param session the session to send the message to
+     * @param callback the callback notified of the result of the send, may be null
+     */
+    public void sendTo(Session session, WriteCallback callback)
+    {
+        RemoteEndpoint remote = session.getRemote();
+        if (session instanceof WebSocketSession && remote instanceof WebSocketRemoteEndpoint)
+        {
+            WebSocketSession wsSession = (WebSocketSession)session;
+            // Client frames are masked in place, so cannot share a payload.
+            if (wsSession.getPolicy().getBehavior() == WebSocketBehavior.SERVER)
+            {
+                DataFrame frame = newFrame(wsSession.getOutgoingHandler());
+                ((WebSocketRemoteEndpoint)remote).sendPreparedFrame(frame, callback);
+                return;
+            }
+        }
+
+        if (text != null)
+        {
+            remote.sendString(text, callback);
+        }
+        else
+        {
+            // Copied, as masking modifies the payload.
+            ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+            copy.put(data.slice()).flip();
+            remote.sendBytes(copy, callback);
+        }
+    }
+
+    /**
+     * @param outgoing the outgoing frames handler of a session
+     * @return a frame with a shared payload, encoded for the outgoing extensions if they allow it
+     */
+    private DataFrame newFrame(OutgoingFrames outgoing)
+    {
+        DataFrame frame = text != null ? new TextFrame() : new BinaryFrame();
+        if (outgoing instanceof ExtensionStack)
+        {
+            List<Extension> extensions = ((ExtensionStack)outgoing).getExtensions();
+            if (extensions.size() == 1 && extensions.get(0) instanceof PerMessageDeflateExtension &&
+                !((PerMessageDeflateExtension)extensions.get(0)).isOutgoingContextTakeover())
+            {
+                frame.setPayload(getDeflatedPayload().slice());
+                // Marks the payload as compressed, see CompressExtension.
+                frame.setRsv1(true);
+                return frame;
+            }
+        }
+        frame.setPayload(getPlainPayload().slice());
+        return frame;
+    }
+
+    private ByteBuffer getPlainPayload()
+    {
+        ByteBuffer payload = plain;
+        if (payload == null)
+        {
+            ByteBuffer bytes = text != null ? ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)) : data.slice();
+            // A direct buffer is written without a copy to a temporary direct buffer.
+            payload = ByteBuffer.allocateDirect(bytes.remaining());
+            payload.put(bytes).flip();
+            payload = payload.asReadOnlyBuffer();
+            plain = payload;
+        }
+        return payload;
+    }
+
+    private ByteBuffer getDeflatedPayload()
+    {
+        ByteBuffer payload = deflated;
+        if (payload == null)
+        {
+            ByteBuffer compressed = deflate(getPlainPayload().slice());
+            payload = ByteBuffer.allocateDirect(compressed.remaining());
+            payload.put(compressed).flip();
+            payload = payload.asReadOnlyBuffer();
+            deflated = payload;
+        }
+        return payload;
+    }
+
+    /**
+     * Compress a whole message as a permessage-deflate extension without context takeover would.
+     * 
+     * @param input the message payload
+     * @return the compressed payload
+     */
+    static ByteBuffer deflate(ByteBuffer input)
+    {
+        byte[] bytes = new byte[input.remaining()];
+        input.get(bytes);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try
+        {
+            deflater.setInput(bytes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(256, bytes.length / 2));
+            byte[] output = new byte[Math.max(256, bytes.length)];
+            while (true)
+            {
+                int compressed = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+                out.write(output, 0, compressed);
+                if (compressed < output.length)
+                    break;
+            }
+
+            ByteBuffer payload = ByteBuffer.wrap(out.toByteArray());
+            if (CompressExtension.endsWithTail(payload))
+                payload.limit(payload.limit() - TAIL_BYTES.length);
+            if (!payload.hasRemaining())
+            {
+                // See RFC 7692, 7.2.3.6. Generating an Empty Fragment Manually
+                payload = ByteBuffer.wrap(new byte[] { 0x00 });
+            }
+            return payload;
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s,length=%d]", getClass().getSimpleName(), hashCode(),
+                text != null ? "TEXT" : "BINARY", text != null ? text.length() : BufferUtil.length(data));
+    }
+}
@@ -145,6 +145,12 @@ public interface LogicalConnection extends OutgoingFrames, SuspendToken
      */
     SuspendToken suspend();
 
+    /**
+     * Request more frames to be read, switching the connection to demand driven reads.
+     * @param frames the number of additional frames to read
+     */
+    void demand(long frames);
+
     /**
      * Get Unique ID for the Connection
      * @return the unique ID for the connection
@@ -231,17 +231,35 @@ public class Parser
 
     public void parse(ByteBuffer buffer) throws WebSocketException
     {
+        parse(buffer,Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parse at most {@code maxFrames} frames from the buffer.
+     * <p>
+     * The bytes after the last notified frame are left in the buffer, so that
+     * parsing can continue from them once more frames are wanted.
+     *
+     * @param buffer the buffer to parse
+     * @param maxFrames the maximum number of frames to notify
+     * @return the number of frames notified
+     * @throws WebSocketException if the frames are not valid
+     */
+    public int parse(ByteBuffer buffer, int maxFrames) throws WebSocketException
+    {
+        int frames = 0;
         if (buffer.remaining() <= 0)
         {
-            return;
+            return frames;
         }
         try
         {
-            // parse through all the frames in the buffer
-            while (parseFrame(buffer))
+            // parse through the frames in the buffer
+            while (frames < maxFrames && parseFrame(buffer))
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("{} Parsed Frame: {}",policy.getBehavior(),frame);
+                frames++;
                 notifyFrame(frame);
                 if (frame.isDataFrame())
                 {
@@ -249,6 +267,7 @@ public class Parser
                 }
                 reset();
             }
+            return frames;
         }
         catch (WebSocketException e)
         {
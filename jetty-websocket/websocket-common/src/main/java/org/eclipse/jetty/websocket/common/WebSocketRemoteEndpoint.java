@@ -24,6 +24,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.log.Log;
@@ -33,6 +34,7 @@ import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.extensions.OutgoingFrames;
 import org.eclipse.jetty.websocket.common.BlockingWriteCallback.WriteBlocker;
+import org.eclipse.jetty.websocket.common.extensions.ExtensionStack;
 import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
 import org.eclipse.jetty.websocket.common.frames.ContinuationFrame;
 import org.eclipse.jetty.websocket.common.frames.DataFrame;
@@ -81,6 +83,8 @@ public class WebSocketRemoteEndpoint implements RemoteEndpoint
     private final OutgoingFrames outgoing;
     private final AtomicInteger msgState = new AtomicInteger();
     private final BlockingWriteCallback blocker = new BlockingWriteCallback();
+    private final AtomicLong messagesOut = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
     private volatile BatchMode batchMode;
 
     public WebSocketRemoteEndpoint(LogicalConnection connection, OutgoingFrames outgoing)
@@ -299,6 +303,30 @@ public class WebSocketRemoteEndpoint implements RemoteEndpoint
         }
     }
 
+    /**
+     * Asynchronous send of a whole message frame whose payload has already been
+     * encoded for the extensions in use, for example by a {@link BroadcastMessage}.
+     * 
+     * @param frame the frame to send
+     * @param callback the callback notified when the frame is written, may be null
+     */
+    public void sendPreparedFrame(WebSocketFrame frame, WriteCallback callback)
+    {
+        lockMsg(MsgType.ASYNC);
+        try
+        {
+            if (LOG.isDebugEnabled())
+            {
+                LOG.debug("sendPreparedFrame({}, {})", frame, callback);
+            }
+            uncheckedSendFrame(frame, callback == null ? NOOP_CALLBACK : callback);
+        }
+        finally
+        {
+            unlockMsg(MsgType.ASYNC);
+        }
+    }
+
     public void uncheckedSendFrame(WebSocketFrame frame, WriteCallback callback)
     {
         try
@@ -307,6 +335,9 @@ public class WebSocketRemoteEndpoint implements RemoteEndpoint
             if (frame.isDataFrame())
                 batchMode = getBatchMode();
             connection.getIOState().assertOutputOpen();
+            if (frame.isFin() && !frame.getType().isControl())
+                messagesOut.incrementAndGet();
+            bytesOut.addAndGet(frame.getPayloadLength());
             outgoing.outgoingFrame(frame, callback, batchMode);
         }
         catch (IOException e)
@@ -436,6 +467,47 @@ public class WebSocketRemoteEndpoint implements RemoteEndpoint
         }
     }
 
+    /**
+     * @return whether data can be sent without exceeding the limits of the outgoing queue
+     * @see org.eclipse.jetty.websocket.api.WebSocketPolicy#setMaxOutgoingQueueBytes(long)
+     */
+    public boolean isWritable()
+    {
+        if (outgoing instanceof ExtensionStack)
+            return ((ExtensionStack)outgoing).isWritable();
+        return true;
+    }
+
+    /**
+     * Run a task once the outgoing queue has drained to half its limits,
+     * so that producers can send more data without overflowing it.
+     * 
+     * @param task the task to run, immediately if the queue is already drained
+     */
+    public void onWritable(Runnable task)
+    {
+        if (outgoing instanceof ExtensionStack)
+            ((ExtensionStack)outgoing).onWritable(task);
+        else
+            task.run();
+    }
+
+    /**
+     * @return the number of messages sent
+     */
+    public long getMessagesOut()
+    {
+        return messagesOut.get();
+    }
+
+    /**
+     * @return the payload bytes sent, before any extension
+     */
+    public long getBytesOut()
+    {
+        return bytesOut.get();
+    }
+
     @Override
     public BatchMode getBatchMode()
     {
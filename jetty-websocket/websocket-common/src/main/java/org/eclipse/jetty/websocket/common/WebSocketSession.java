@@ -59,6 +59,7 @@ import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.eclipse.jetty.websocket.api.extensions.IncomingFrames;
 import org.eclipse.jetty.websocket.api.extensions.OutgoingFrames;
 import org.eclipse.jetty.websocket.common.events.EventDriver;
+import org.eclipse.jetty.websocket.common.extensions.ExtensionStack;
 import org.eclipse.jetty.websocket.common.frames.CloseFrame;
 import org.eclipse.jetty.websocket.common.io.IOState;
 import org.eclipse.jetty.websocket.common.io.IOState.ConnectionStateListener;
@@ -139,6 +140,12 @@ public class WebSocketSession extends ContainerLifeCycle implements Session, Rem
     private final Executor executor;
     private final WebSocketPolicy policy;
     private final AtomicBoolean closed = new AtomicBoolean();
+    // Only updated by the thread reading the connection
+    private volatile long framesIn;
+    private volatile long messagesIn;
+    private volatile long bytesIn;
+    private volatile long incomingNanos;
+    private volatile long incomingMaxNanos;
     private ClassLoader classLoader;
     private ExtensionFactory extensionFactory;
     private RemoteEndpointFactory remoteEndpointFactory;
@@ -470,8 +477,14 @@ public class WebSocketSession extends ContainerLifeCycle implements Session, Rem
             Thread.currentThread().setContextClassLoader(classLoader);
             if (connection.getIOState().isInputAvailable())
             {
+                onIncomingFrame(frame);
+                long start = System.nanoTime();
                 // Forward Frames Through Extension List
                 incomingHandler.incomingFrame(frame);
+                long nanos = System.nanoTime() - start;
+                incomingNanos += nanos;
+                if (nanos > incomingMaxNanos)
+                    incomingMaxNanos = nanos;
             }
         }
         finally
@@ -480,6 +493,72 @@ public class WebSocketSession extends ContainerLifeCycle implements Session, Rem
         }
     }
 
+    private void onIncomingFrame(Frame frame)
+    {
+        framesIn++;
+        bytesIn += frame.getPayloadLength();
+        if (frame.isFin() && !frame.getType().isControl())
+            messagesIn++;
+    }
+
+    @ManagedAttribute(readonly = true)
+    public long getFramesIn()
+    {
+        return framesIn;
+    }
+
+    @ManagedAttribute(readonly = true)
+    public long getMessagesIn()
+    {
+        return messagesIn;
+    }
+
+    /**
+     * @return the payload bytes received, as read from the network before any extension
+     */
+    @ManagedAttribute(readonly = true)
+    public long getBytesIn()
+    {
+        return bytesIn;
+    }
+
+    /**
+     * @return the total time spent handling the received frames, in nanoseconds
+     */
+    @ManagedAttribute(readonly = true)
+    public long getIncomingNanos()
+    {
+        return incomingNanos;
+    }
+
+    /**
+     * @return the longest time spent handling a received frame, in nanoseconds
+     */
+    @ManagedAttribute(readonly = true)
+    public long getIncomingMaxNanos()
+    {
+        return incomingMaxNanos;
+    }
+
+    @ManagedAttribute(readonly = true)
+    public long getMessagesOut()
+    {
+        if (remote instanceof WebSocketRemoteEndpoint)
+            return ((WebSocketRemoteEndpoint)remote).getMessagesOut();
+        return 0;
+    }
+
+    /**
+     * @return the payload bytes sent, before any extension
+     */
+    @ManagedAttribute(readonly = true)
+    public long getBytesOut()
+    {
+        if (remote instanceof WebSocketRemoteEndpoint)
+            return ((WebSocketRemoteEndpoint)remote).getBytesOut();
+        return 0;
+    }
+
     @Override
     public boolean isOpen()
     {
@@ -604,6 +683,13 @@ public class WebSocketSession extends ContainerLifeCycle implements Session, Rem
             // Upgrade success
             connection.getIOState().onConnected();
 
+            // Limit the outgoing queue
+            if (outgoingHandler instanceof ExtensionStack)
+            {
+                ((ExtensionStack)outgoingHandler).setOutgoingQueueLimits(policy.getMaxOutgoingQueueBytes(),policy.getMaxOutgoingQueueFrames(),
+                        policy.getOutgoingQueueOverflowPolicy(),() -> close(StatusCode.POLICY_VIOLATION,"Outgoing queue full"));
+            }
+
             // Connect remote
             remote = remoteEndpointFactory.newRemoteEndpoint(connection,outgoingHandler,getBatchMode());
             if(LOG_OPEN.isDebugEnabled())
@@ -707,6 +793,12 @@ public class WebSocketSession extends ContainerLifeCycle implements Session, Rem
         return connection.suspend();
     }
 
+    @Override
+    public void demand(long frames)
+    {
+        connection.demand(frames);
+    }
+
     /**
      * @return the default (initial) value for the batching mode.
      */
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.nio.ByteBuffer;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.websocket.api.BatchMode;
 import org.eclipse.jetty.websocket.api.WebSocketPolicy;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
@@ -41,6 +42,7 @@ public class JettyAnnotatedEventDriver extends AbstractEventDriver
 {
     private final JettyAnnotatedMetadata events;
     private boolean hasCloseBeenCalled = false;
+    private boolean partialBinary = false;
     private BatchMode batchMode;
 
     public JettyAnnotatedEventDriver(WebSocketPolicy policy, Object websocket, JettyAnnotatedMetadata events)
@@ -84,11 +86,20 @@ public class JettyAnnotatedEventDriver extends AbstractEventDriver
             return;
         }
 
+        if (events.onBinary.isPartial())
+        {
+            // hand each frame payload over as-is, without aggregating the message
+            partialBinary = !fin;
+            ByteBuffer payload = buffer == null ? BufferUtil.EMPTY_BUFFER : buffer.slice().asReadOnlyBuffer();
+            events.onBinary.call(websocket,session,payload,fin);
+            return;
+        }
+
         if (activeMessage == null)
         {
             if (events.onBinary.isStreaming())
             {
-                activeMessage = new MessageInputStream();
+                activeMessage = new MessageInputStream(session.getBufferPool());
                 final MessageAppender msg = activeMessage;
                 dispatch(new Runnable()
                 {
@@ -149,6 +160,18 @@ public class JettyAnnotatedEventDriver extends AbstractEventDriver
         }
     }
 
+    @Override
+    public void onContinuationFrame(ByteBuffer buffer, boolean fin) throws IOException
+    {
+        if (partialBinary)
+        {
+            onBinaryFrame(buffer,fin);
+            return;
+        }
+
+        super.onContinuationFrame(buffer,fin);
+    }
+
     @Override
     public void onError(Throwable cause)
     {
@@ -198,7 +221,7 @@ public class JettyAnnotatedEventDriver extends AbstractEventDriver
         {
             if (events.onText.isStreaming())
             {
-                activeMessage = new MessageReader(new MessageInputStream());
+                activeMessage = new MessageReader(new MessageInputStream(session.getBufferPool()));
                 final MessageAppender msg = activeMessage;
                 dispatch(new Runnable()
                 {
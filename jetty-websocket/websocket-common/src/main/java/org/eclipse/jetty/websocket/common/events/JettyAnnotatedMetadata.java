@@ -25,7 +25,7 @@ public class JettyAnnotatedMetadata
 {
     /** &#064;OnWebSocketConnect () */
     public CallableMethod onConnect;
-    /** &#064;OnWebSocketMessage (byte[], or ByteBuffer, or InputStream) */
+    /** &#064;OnWebSocketMessage (byte[], or InputStream, or partial ByteBuffer with fin flag) */
     public OptionalSessionCallableMethod onBinary;
     /** &#064;OnWebSocketMessage (String, or Reader) */
     public OptionalSessionCallableMethod onText;
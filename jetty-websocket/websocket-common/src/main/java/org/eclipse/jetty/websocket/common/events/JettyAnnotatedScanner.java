@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
@@ -95,6 +96,8 @@ public class JettyAnnotatedScanner extends AbstractMethodAnnotationScanner<Jetty
         validBinaryParams.addParams(Session.class,byte[].class,int.class,int.class);
         validBinaryParams.addParams(InputStream.class);
         validBinaryParams.addParams(Session.class,InputStream.class);
+        validBinaryParams.addParams(ByteBuffer.class,boolean.class);
+        validBinaryParams.addParams(Session.class,ByteBuffer.class,boolean.class);
 
         validFrameParams = new ParamList();
         validFrameParams.addParams(Frame.class);
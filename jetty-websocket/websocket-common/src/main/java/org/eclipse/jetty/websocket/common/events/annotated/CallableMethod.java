@@ -18,8 +18,12 @@
 
 package org.eclipse.jetty.websocket.common.events.annotated;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Objects;
 
 import org.eclipse.jetty.util.log.Log;
@@ -28,6 +32,10 @@ import org.eclipse.jetty.websocket.common.util.ReflectUtils;
 
 /**
  * A Callable Method
+ * <p>
+ * The method is bound to a {@link MethodHandle} when the endpoint is scanned, so that
+ * each event is dispatched without the access checks and argument validation of
+ * {@link Method#invoke(Object, Object...)}.
  */
 public class CallableMethod
 {
@@ -35,6 +43,7 @@ public class CallableMethod
     protected final Class<?> pojo;
     protected final Method method;
     protected Class<?>[] paramTypes;
+    private final MethodHandle handle;
 
     public CallableMethod(Class<?> pojo, Method method)
     {
@@ -43,6 +52,41 @@ public class CallableMethod
         this.pojo = pojo;
         this.method = method;
         this.paramTypes = method.getParameterTypes();
+        this.handle = bind(method,paramTypes.length);
+    }
+
+    /**
+     * Copy Constructor, sharing the already bound method.
+     * @param copy the CallableMethod to copy from
+     */
+    protected CallableMethod(CallableMethod copy)
+    {
+        this.pojo = copy.pojo;
+        this.method = copy.method;
+        this.paramTypes = copy.paramTypes;
+        this.handle = copy.handle;
+    }
+
+    /**
+     * Bind the method as {@code (Object obj, Object[] args) -> Object}.
+     * @return the bound method, or null if it cannot be accessed and must be called reflectively
+     */
+    private static MethodHandle bind(Method method, int paramCount)
+    {
+        if (Modifier.isStatic(method.getModifiers()))
+            return null;
+        try
+        {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            handle = handle.asType(MethodType.genericMethodType(paramCount + 1));
+            return handle.asSpreader(Object[].class,paramCount);
+        }
+        catch (IllegalAccessException e)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Cannot bind {}, using reflection",method,e);
+            return null;
+        }
     }
 
     public Object call(Object obj, Object... args)
@@ -68,7 +112,9 @@ public class CallableMethod
 
         try
         {
-            return this.method.invoke(obj,args);
+            if (handle == null || args.length != paramTypes.length)
+                return this.method.invoke(obj,args);
+            return handle.invokeExact(obj,args);
         }
         catch (Throwable t)
         {
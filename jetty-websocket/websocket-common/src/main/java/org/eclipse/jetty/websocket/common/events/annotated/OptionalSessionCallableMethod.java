@@ -21,6 +21,7 @@ package org.eclipse.jetty.websocket.common.events.annotated;
 import java.io.InputStream;
 import java.io.Reader;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.websocket.api.Session;
 
@@ -31,6 +32,7 @@ public class OptionalSessionCallableMethod extends CallableMethod
 {
     private final boolean wantsSession;
     private final boolean streaming;
+    private final boolean partial;
 
     public OptionalSessionCallableMethod(Class<?> pojo, Method method)
     {
@@ -38,6 +40,7 @@ public class OptionalSessionCallableMethod extends CallableMethod
 
         boolean foundConnection = false;
         boolean foundStreaming = false;
+        boolean foundPartial = false;
 
         if (paramTypes != null)
         {
@@ -51,11 +54,16 @@ public class OptionalSessionCallableMethod extends CallableMethod
                 {
                     foundStreaming = true;
                 }
+                if (ByteBuffer.class.isAssignableFrom(paramType))
+                {
+                    foundPartial = true;
+                }
             }
         }
 
         this.wantsSession = foundConnection;
         this.streaming = foundStreaming;
+        this.partial = foundPartial;
     }
 
     public void call(Object obj, Session connection, Object... args)
@@ -83,6 +91,14 @@ public class OptionalSessionCallableMethod extends CallableMethod
         return streaming;
     }
 
+    /**
+     * @return true if the method receives the message payload one frame at a time, as a (ByteBuffer, boolean) pair
+     */
+    public boolean isPartial()
+    {
+        return partial;
+    }
+
     @Override
     public String toString()
     {
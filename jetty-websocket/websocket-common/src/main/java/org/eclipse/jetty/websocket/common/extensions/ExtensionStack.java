@@ -21,10 +21,12 @@ package org.eclipse.jetty.websocket.common.extensions;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Queue;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -33,6 +35,8 @@ import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.OverflowPolicy;
+import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.eclipse.jetty.websocket.api.WebSocketPolicy;
 import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.extensions.Extension;
@@ -42,7 +46,9 @@ import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.eclipse.jetty.websocket.api.extensions.IncomingFrames;
 import org.eclipse.jetty.websocket.api.extensions.OutgoingFrames;
 import org.eclipse.jetty.websocket.common.Generator;
+import org.eclipse.jetty.websocket.common.OpCode;
 import org.eclipse.jetty.websocket.common.Parser;
+import org.eclipse.jetty.websocket.common.extensions.compress.CompressExtension;
 
 /**
  * Represents the stack of Extensions.
@@ -53,8 +59,15 @@ public class ExtensionStack extends ContainerLifeCycle implements IncomingFrames
     private static final Logger LOG = Log.getLogger(ExtensionStack.class);
 
     private final Queue<FrameEntry> entries = new ArrayDeque<>();
-    private final IteratingCallback flusher = new Flusher();
+    private final Flusher flusher = new Flusher();
     private final ExtensionFactory factory;
+    private final List<Runnable> writableListeners = new ArrayList<>();
+    private long maxQueuedBytes = -1;
+    private int maxQueuedFrames = -1;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+    private Runnable overflowCloser;
+    private long queuedBytes;
+    private int queuedFrames;
     private List<Extension> extensions;
     private IncomingFrames nextIncoming;
     private OutgoingFrames nextOutgoing;
@@ -166,6 +179,20 @@ public class ExtensionStack extends ContainerLifeCycle implements IncomingFrames
         return last;
     }
 
+    /**
+     * Release the state that the extensions do not need while the connection is idle.
+     */
+    public void hibernate()
+    {
+        if (extensions == null)
+            return;
+        for (Extension extension : extensions)
+        {
+            if (extension instanceof CompressExtension)
+                ((CompressExtension)extension).hibernate();
+        }
+    }
+
     /**
      * Get the list of negotiated extensions, each entry being a full "name; params" extension configuration
      * 
@@ -292,10 +319,192 @@ public class ExtensionStack extends ContainerLifeCycle implements IncomingFrames
         FrameEntry entry = new FrameEntry(frame,callback,batchMode);
         if (LOG.isDebugEnabled())
             LOG.debug("Queuing {}",entry);
-        offerEntry(entry);
+
+        List<FrameEntry> dropped = null;
+        boolean overflow = false;
+        OverflowPolicy overflowPolicy;
+        synchronized (this)
+        {
+            overflowPolicy = this.overflowPolicy;
+            if (entry.length >= 0 && !hasRoom(entry.length))
+            {
+                if (overflowPolicy == OverflowPolicy.DROP_OLDEST)
+                    dropped = dropQueued(entry.length,true);
+                else if (overflowPolicy == OverflowPolicy.CLOSE)
+                    dropped = dropQueued(entry.length,false);
+                overflow = !hasRoom(entry.length) || overflowPolicy == OverflowPolicy.CLOSE;
+            }
+            if (!overflow)
+                offerEntry(entry);
+        }
+
+        if (dropped != null)
+        {
+            WebSocketException failure = new WebSocketException("Dropped, outgoing queue full");
+            for (FrameEntry drop : dropped)
+                flusher.notifyCallbackFailure(drop.callback,failure);
+        }
+
+        if (overflow)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Outgoing queue full {}, {} {}",this,overflowPolicy,entry);
+            flusher.notifyCallbackFailure(callback,new WebSocketException("Outgoing queue full"));
+            Runnable closer = overflowCloser;
+            if (overflowPolicy == OverflowPolicy.CLOSE && closer != null)
+                closer.run();
+            return;
+        }
+
         flusher.iterate();
     }
 
+    /**
+     * Limit the data frames queued for sending.
+     * 
+     * @param maxBytes the maximum payload bytes queued, zero or negative for no limit
+     * @param maxFrames the maximum frames queued, zero or negative for no limit
+     * @param overflowPolicy what to do with a frame that does not fit in the queue
+     * @param closer closes the session, for {@link OverflowPolicy#CLOSE}
+     */
+    public void setOutgoingQueueLimits(long maxBytes, int maxFrames, OverflowPolicy overflowPolicy, Runnable closer)
+    {
+        synchronized (this)
+        {
+            this.maxQueuedBytes = maxBytes;
+            this.maxQueuedFrames = maxFrames;
+            this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.REJECT : overflowPolicy;
+            this.overflowCloser = closer;
+        }
+    }
+
+    /**
+     * @return whether a data frame can be sent without exceeding the outgoing queue limits
+     */
+    public boolean isWritable()
+    {
+        synchronized (this)
+        {
+            return hasRoom(0);
+        }
+    }
+
+    /**
+     * Run a task once the outgoing queue has drained to half its limits,
+     * or immediately if it already has.
+     * 
+     * @param task the task to run, typically sending more data
+     */
+    public void onWritable(Runnable task)
+    {
+        synchronized (this)
+        {
+            if (!isLowWater())
+            {
+                writableListeners.add(task);
+                return;
+            }
+        }
+        task.run();
+    }
+
+    public long getQueuedBytes()
+    {
+        synchronized (this)
+        {
+            return queuedBytes;
+        }
+    }
+
+    public int getQueuedFrames()
+    {
+        synchronized (this)
+        {
+            return queuedFrames;
+        }
+    }
+
+    private boolean hasRoom(int length)
+    {
+        if (maxQueuedFrames > 0 && queuedFrames >= maxQueuedFrames)
+            return false;
+        if (maxQueuedBytes > 0 && queuedFrames > 0 && queuedBytes + length > maxQueuedBytes)
+            return false;
+        return true;
+    }
+
+    private boolean isLowWater()
+    {
+        if (maxQueuedFrames > 0 && queuedFrames > maxQueuedFrames / 2)
+            return false;
+        if (maxQueuedBytes > 0 && queuedBytes > maxQueuedBytes / 2)
+            return false;
+        return true;
+    }
+
+    /**
+     * Remove queued data frames that are not being sent yet, oldest first.
+     * 
+     * @param length the length of the frame to make room for
+     * @param wholeMessages whether to only drop whole messages, until there is room,
+     * or all the data frames
+     * @return the dropped entries
+     */
+    private List<FrameEntry> dropQueued(int length, boolean wholeMessages)
+    {
+        List<FrameEntry> dropped = new ArrayList<>();
+        Iterator<FrameEntry> iterator = entries.iterator();
+        while (iterator.hasNext() && (!wholeMessages || !hasRoom(length)))
+        {
+            FrameEntry queued = iterator.next();
+            if (queued.length < 0)
+                continue;
+            if (wholeMessages && (!queued.frame.isFin() || queued.frame.getOpCode() == OpCode.CONTINUATION))
+                continue;
+            iterator.remove();
+            dequeued(queued);
+            dropped.add(queued);
+        }
+        return dropped;
+    }
+
+    private void dequeued(FrameEntry entry)
+    {
+        if (entry.length >= 0)
+        {
+            queuedBytes -= entry.length;
+            --queuedFrames;
+        }
+    }
+
+    private void completed(FrameEntry entry)
+    {
+        List<Runnable> writable = null;
+        synchronized (this)
+        {
+            dequeued(entry);
+            if (!writableListeners.isEmpty() && isLowWater())
+            {
+                writable = new ArrayList<>(writableListeners);
+                writableListeners.clear();
+            }
+        }
+        if (writable != null)
+        {
+            for (Runnable task : writable)
+            {
+                try
+                {
+                    task.run();
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Exception while notifying writable " + task,x);
+                }
+            }
+        }
+    }
+
     public void setNextIncoming(IncomingFrames nextIncoming)
     {
         this.nextIncoming = nextIncoming;
@@ -322,6 +531,11 @@ public class ExtensionStack extends ContainerLifeCycle implements IncomingFrames
         synchronized (this)
         {
             entries.offer(entry);
+            if (entry.length >= 0)
+            {
+                queuedBytes += entry.length;
+                ++queuedFrames;
+            }
         }
     }
 
@@ -385,12 +599,15 @@ public class ExtensionStack extends ContainerLifeCycle implements IncomingFrames
         private final Frame frame;
         private final WriteCallback callback;
         private final BatchMode batchMode;
+        /** The payload length of data frames, -1 for control frames that are not limited */
+        private final int length;
 
         private FrameEntry(Frame frame, WriteCallback callback, BatchMode batchMode)
         {
             this.frame = frame;
             this.callback = callback;
             this.batchMode = batchMode;
+            this.length = OpCode.isControlFrame(frame.getOpCode()) ? -1 : BufferUtil.length(frame.getPayload());
         }
 
         @Override
@@ -439,6 +656,7 @@ public class ExtensionStack extends ContainerLifeCycle implements IncomingFrames
         {
             // Notify first then call succeeded(), otherwise
             // write callbacks may be invoked out of order.
+            completed(current);
             notifyCallbackSuccess(current.callback);
             succeeded();
         }
@@ -451,6 +669,7 @@ public class ExtensionStack extends ContainerLifeCycle implements IncomingFrames
             // this flusher into a final state that cannot be exited,
             // and the failure of a frame may not mean that the whole
             // connection is now invalid.
+            completed(current);
             notifyCallbackFailure(current.callback,x);
             succeeded();
         }
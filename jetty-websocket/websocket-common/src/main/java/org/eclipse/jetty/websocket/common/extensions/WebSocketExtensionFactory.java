@@ -23,11 +23,16 @@ import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.eclipse.jetty.websocket.api.extensions.Extension;
 import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
 import org.eclipse.jetty.websocket.api.extensions.ExtensionFactory;
+import org.eclipse.jetty.websocket.common.extensions.compress.CompressExtension;
+import org.eclipse.jetty.websocket.common.extensions.compress.DeflaterPool;
+import org.eclipse.jetty.websocket.common.extensions.compress.InflaterPool;
 import org.eclipse.jetty.websocket.common.scopes.WebSocketContainerScope;
 
 public class WebSocketExtensionFactory extends ExtensionFactory
 {
     private WebSocketContainerScope container;
+    private final DeflaterPool deflaterPool = new DeflaterPool();
+    private final InflaterPool inflaterPool = new InflaterPool();
 
     public WebSocketExtensionFactory(WebSocketContainerScope container)
     {
@@ -35,6 +40,36 @@ public class WebSocketExtensionFactory extends ExtensionFactory
         this.container = container;
     }
 
+    /**
+     * @return the pool of Deflaters shared by the compression extensions created by this factory
+     */
+    public DeflaterPool getDeflaterPool()
+    {
+        return deflaterPool;
+    }
+
+    /**
+     * @return the pool of Inflaters shared by the compression extensions created by this factory
+     */
+    public InflaterPool getInflaterPool()
+    {
+        return inflaterPool;
+    }
+
+    /**
+     * Set a preset dictionary for the compression extensions created by this factory.
+     * <p>
+     * Preset dictionaries are not part of RFC 7692, so this is only for peers
+     * that are configured with the same dictionary.
+     * 
+     * @param dictionary the preset dictionary, or null for none
+     */
+    public void setCompressionDictionary(byte[] dictionary)
+    {
+        deflaterPool.setDictionary(dictionary);
+        inflaterPool.setDictionary(dictionary);
+    }
+
     @Override
     public Extension newInstance(ExtensionConfig config)
     {
@@ -62,6 +97,11 @@ public class WebSocketExtensionFactory extends ExtensionFactory
             {
                 AbstractExtension aext = (AbstractExtension)ext;
                 aext.init(container);
+                if (ext instanceof CompressExtension)
+                {
+                    ((CompressExtension)ext).setDeflaterPool(deflaterPool);
+                    ((CompressExtension)ext).setInflaterPool(inflaterPool);
+                }
                 aext.setConfig(config);
             }
             return ext;
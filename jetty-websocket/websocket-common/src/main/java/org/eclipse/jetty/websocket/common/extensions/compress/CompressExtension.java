@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
@@ -37,6 +38,7 @@ import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.eclipse.jetty.websocket.common.OpCode;
 import org.eclipse.jetty.websocket.common.extensions.AbstractExtension;
+import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
 import org.eclipse.jetty.websocket.common.frames.DataFrame;
 
 public abstract class CompressExtension extends AbstractExtension
@@ -72,11 +74,22 @@ public abstract class CompressExtension extends AbstractExtension
     
     private final static boolean NOWRAP = true;
 
+    /** Marker queued by {@link #hibernate()} to release the Deflater in order with the outgoing frames */
+    private static final Frame HIBERNATE_FRAME = new BinaryFrame();
+
     private final Queue<FrameEntry> entries = new ArrayDeque<>();
     private final IteratingCallback flusher = new Flusher();
+    private DeflaterPool deflaterPool;
+    private InflaterPool inflaterPool;
     private Deflater deflaterImpl;
     private Inflater inflaterImpl;
     protected AtomicInteger decompressCount = new AtomicInteger(0);
+    private final AtomicLong compressInputBytes = new AtomicLong();
+    private final AtomicLong compressOutputBytes = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+    private final AtomicLong decompressInputBytes = new AtomicLong();
+    private final AtomicLong decompressOutputBytes = new AtomicLong();
+    private final AtomicLong decompressNanos = new AtomicLong();
     private int tailDrop = TAIL_DROP_NEVER;
     private int rsvUse = RSV_USE_ALWAYS;
 
@@ -86,11 +99,40 @@ public abstract class CompressExtension extends AbstractExtension
         rsvUse = getRsvUseMode();
     }
 
+    public DeflaterPool getDeflaterPool()
+    {
+        return deflaterPool;
+    }
+
+    /**
+     * @param pool the pool to borrow the Deflater from, or null to create one for this extension
+     */
+    public void setDeflaterPool(DeflaterPool pool)
+    {
+        this.deflaterPool = pool;
+    }
+
+    public InflaterPool getInflaterPool()
+    {
+        return inflaterPool;
+    }
+
+    /**
+     * @param pool the pool to borrow the Inflater from, or null to create one for this extension
+     */
+    public void setInflaterPool(InflaterPool pool)
+    {
+        this.inflaterPool = pool;
+    }
+
     public Deflater getDeflater()
     {
         if (deflaterImpl == null)
         {
-            deflaterImpl = new Deflater(Deflater.DEFAULT_COMPRESSION,NOWRAP);
+            if (deflaterPool != null)
+                deflaterImpl = deflaterPool.acquire();
+            else
+                deflaterImpl = new Deflater(Deflater.DEFAULT_COMPRESSION,NOWRAP);
         }
         return deflaterImpl;
     }
@@ -99,11 +141,141 @@ public abstract class CompressExtension extends AbstractExtension
     {
         if (inflaterImpl == null)
         {
-            inflaterImpl = new Inflater(NOWRAP);
+            if (inflaterPool != null)
+                inflaterImpl = inflaterPool.acquire();
+            else
+                inflaterImpl = new Inflater(NOWRAP);
         }
         return inflaterImpl;
     }
 
+    /**
+     * Discard the compression context: return the Deflater to its pool, so
+     * that no native memory is held until the next message is compressed, or
+     * reset it if it is not pooled.
+     */
+    protected void releaseDeflater()
+    {
+        if (deflaterImpl == null)
+            return;
+        if (deflaterPool != null)
+        {
+            deflaterPool.release(deflaterImpl);
+            deflaterImpl = null;
+        }
+        else
+        {
+            deflaterImpl.reset();
+        }
+    }
+
+    /**
+     * Discard the decompression context: return the Inflater to its pool, so
+     * that no native memory is held until the next message is decompressed, or
+     * reset it if it is not pooled.
+     */
+    protected void releaseInflater()
+    {
+        if (inflaterImpl == null)
+            return;
+        if (inflaterPool != null)
+        {
+            inflaterPool.release(inflaterImpl);
+            inflaterImpl = null;
+        }
+        else
+        {
+            inflaterImpl.reset();
+        }
+    }
+
+    /**
+     * Release the compression state that is not needed while the connection is idle.
+     * <p>
+     * The Deflater is released in order with the outgoing frames, between two messages,
+     * and a new one is acquired for the next message. This is valid even with context
+     * takeover, since compressed data never has to refer to previous messages, but not
+     * with a preset dictionary, that the peer expects at the start of the window.
+     * <p>
+     * The Inflater is always kept: with context takeover the peer may refer to previous
+     * messages, and without it the Inflater is only used by the reading thread, that
+     * hibernation must not race with.
+     */
+    public void hibernate()
+    {
+        if (flusher.isFailed())
+            return;
+        offerEntry(new FrameEntry(HIBERNATE_FRAME,null,BatchMode.AUTO));
+        flusher.iterate();
+    }
+
+    private void hibernateDeflater()
+    {
+        if (deflaterImpl == null)
+            return;
+        if (deflaterPool != null)
+        {
+            if (deflaterPool.getDictionary() != null)
+                return;
+            deflaterPool.release(deflaterImpl);
+        }
+        else
+        {
+            deflaterImpl.end();
+        }
+        deflaterImpl = null;
+        if (LOG.isDebugEnabled())
+            LOG.debug("Hibernated {}",this);
+    }
+
+    /**
+     * @return the number of bytes given to the Deflater
+     */
+    public long getCompressInputBytes()
+    {
+        return compressInputBytes.get();
+    }
+
+    /**
+     * @return the number of compressed bytes sent
+     */
+    public long getCompressOutputBytes()
+    {
+        return compressOutputBytes.get();
+    }
+
+    /**
+     * @return the time spent compressing, in nanoseconds
+     */
+    public long getCompressNanos()
+    {
+        return compressNanos.get();
+    }
+
+    /**
+     * @return the number of compressed bytes given to the Inflater
+     */
+    public long getDecompressInputBytes()
+    {
+        return decompressInputBytes.get();
+    }
+
+    /**
+     * @return the number of bytes produced by the Inflater
+     */
+    public long getDecompressOutputBytes()
+    {
+        return decompressOutputBytes.get();
+    }
+
+    /**
+     * @return the time spent decompressing, in nanoseconds
+     */
+    public long getDecompressNanos()
+    {
+        return decompressNanos.get();
+    }
+
     /**
      * Indicates use of RSV1 flag for indicating deflation is in use.
      */
@@ -160,6 +332,8 @@ public abstract class CompressExtension extends AbstractExtension
             return;
         }
         byte[] output = new byte[DECOMPRESS_BUF_SIZE];
+        long start = System.nanoTime();
+        int input = buf.remaining();
         
         Inflater inflater = getInflater();
         
@@ -188,10 +362,14 @@ public abstract class CompressExtension extends AbstractExtension
                     }
     
                     accumulator.copyChunk(output,0,read);
+                    decompressOutputBytes.addAndGet(read);
                 }
             }
         }
 
+        decompressInputBytes.addAndGet(input - buf.remaining());
+        decompressNanos.addAndGet(System.nanoTime() - start);
+
         if (LOG.isDebugEnabled())
         {
             LOG.debug("Decompress: exiting {}",toDetail(inflater));
@@ -375,9 +553,21 @@ public abstract class CompressExtension extends AbstractExtension
     protected void doStop() throws Exception
     {
         if(deflaterImpl != null)
-            deflaterImpl.end();
+        {
+            if (deflaterPool != null)
+                deflaterPool.release(deflaterImpl);
+            else
+                deflaterImpl.end();
+            deflaterImpl = null;
+        }
         if(inflaterImpl != null)
-            inflaterImpl.end();
+        {
+            if (inflaterPool != null)
+                inflaterPool.release(inflaterImpl);
+            else
+                inflaterImpl.end();
+            inflaterImpl = null;
+        }
         super.doStop();
     }
 
@@ -411,6 +601,7 @@ public abstract class CompressExtension extends AbstractExtension
     {
         private FrameEntry current;
         private boolean finished = true;
+        private boolean fin = true;
         
         @Override
         public void failed(Throwable x)
@@ -425,6 +616,12 @@ public abstract class CompressExtension extends AbstractExtension
             if (finished)
             {
                 current = pollEntry();
+                while (current != null && current.frame == HIBERNATE_FRAME)
+                {
+                    if (fin)
+                        hibernateDeflater();
+                    current = pollEntry();
+                }
                 LOG.debug("Processing {}",current);
                 if (current == null)
                     return Action.IDLE;
@@ -448,6 +645,15 @@ public abstract class CompressExtension extends AbstractExtension
                 return;
             }
             
+            fin = frame.isFin();
+            if (frame.isRsv1())
+            {
+                // Already deflated (eg: a BroadcastMessage), but still
+                // queued here to keep the order of the outgoing frames
+                nextOutgoingFrame(frame,this,batchMode);
+                return;
+            }
+            
             compress(entry,true);
         }
 
@@ -467,6 +673,7 @@ public abstract class CompressExtension extends AbstractExtension
                 LOG.debug("Compressing {}: {} bytes in {} bytes chunk",entry,remaining,outputLength);
 
             boolean needsCompress = true;
+            long start = System.nanoTime();
             
             Deflater deflater = getDeflater();
 
@@ -480,7 +687,11 @@ public abstract class CompressExtension extends AbstractExtension
 
             byte[] output = new byte[outputLength];
 
-            boolean fin = frame.isFin();
+            // A payload without a backing array is supplied to the
+            // Deflater in chunks, the frame is complete only when
+            // all of its payload has been consumed.
+            finished = !data.hasRemaining();
+            boolean fin = frame.isFin() && finished;
 
             // Compress the data
             while (needsCompress)
@@ -517,7 +728,7 @@ public abstract class CompressExtension extends AbstractExtension
                 }
                 else if (tailDrop == TAIL_DROP_FIN_ONLY)
                 {
-                    if (frame.isFin() && endsWithTail(payload))
+                    if (fin && endsWithTail(payload))
                     {
                         payload.limit(payload.limit() - TAIL_BYTES.length);
                     }
@@ -537,6 +748,10 @@ public abstract class CompressExtension extends AbstractExtension
                 LOG.debug("Compressed {}: input:{} -> payload:{}",entry,outputLength,payload.remaining());
             }
 
+            compressInputBytes.addAndGet(remaining - data.remaining());
+            compressOutputBytes.addAndGet(payload.remaining());
+            compressNanos.addAndGet(System.nanoTime() - start);
+
             boolean continuation = frame.getType().isContinuation() || !first;
             DataFrame chunk = new DataFrame(frame,continuation);
             if (rsvUse == RSV_USE_ONLY_FIRST)
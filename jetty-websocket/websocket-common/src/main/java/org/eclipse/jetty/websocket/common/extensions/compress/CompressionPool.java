@@ -0,0 +1,198 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common.extensions.compress;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+
+/**
+ * A pool of zlib {@link java.util.zip.Deflater}s or {@link java.util.zip.Inflater}s.
+ * <p>
+ * Each holds native zlib memory until it is ended, so extensions that do not keep
+ * a compression context between messages borrow one for each message, rather than
+ * holding one for the lifetime of their connection. The pool also accounts for the
+ * estimated native memory of all the objects it has created that are not yet ended.
+ *
+ * @param <T> the type of the pooled objects
+ */
+@ManagedObject("Pool of zlib compression objects")
+public abstract class CompressionPool<T> extends AbstractLifeCycle
+{
+    private final Deque<T> pool = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idle = new AtomicInteger();
+    private final AtomicInteger live = new AtomicInteger();
+    private volatile int capacity = 1024;
+    private volatile byte[] dictionary;
+
+    /**
+     * @return a new object, with the preset dictionary if any
+     */
+    protected abstract T newObject();
+
+    /**
+     * Reset an object to its initial state, with the preset dictionary if any.
+     * 
+     * @param object the object to reset
+     */
+    protected abstract void reset(T object);
+
+    /**
+     * Release the native memory of an object.
+     * 
+     * @param object the object to end
+     */
+    protected abstract void end(T object);
+
+    /**
+     * @return the estimated native memory held by each object, in bytes
+     */
+    protected abstract long getNativeMemoryPerObject();
+
+    /**
+     * Take an object from the pool, or create one.
+     * 
+     * @return an object ready to use
+     */
+    public T acquire()
+    {
+        T object = pool.pollFirst();
+        if (object != null)
+        {
+            idle.decrementAndGet();
+            return object;
+        }
+        live.incrementAndGet();
+        return newObject();
+    }
+
+    /**
+     * Reset an object and return it to the pool, or end it if the pool is full.
+     * 
+     * @param object the object acquired from this pool
+     */
+    public void release(T object)
+    {
+        if (object == null)
+            return;
+        if (idle.incrementAndGet() <= capacity)
+        {
+            reset(object);
+            pool.offerFirst(object);
+        }
+        else
+        {
+            idle.decrementAndGet();
+            destroy(object);
+        }
+    }
+
+    private void destroy(T object)
+    {
+        live.decrementAndGet();
+        end(object);
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        T object;
+        while ((object = pool.pollFirst()) != null)
+        {
+            idle.decrementAndGet();
+            destroy(object);
+        }
+        super.doStop();
+    }
+
+    /**
+     * @return the max number of idle objects kept in the pool
+     */
+    @ManagedAttribute("max number of idle objects kept in the pool")
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @param capacity the max number of idle objects kept in the pool
+     */
+    public void setCapacity(int capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the preset dictionary, or null if none
+     */
+    public byte[] getDictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     * Set a preset dictionary, given to each object when it is created or reset.
+     * <p>
+     * Preset dictionaries are not part of RFC 7692: the peer must be configured
+     * to use the same dictionary, or it will be unable to decompress messages.
+     * 
+     * @param dictionary the preset dictionary, or null for none
+     */
+    public void setDictionary(byte[] dictionary)
+    {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return the number of idle objects in the pool
+     */
+    @ManagedAttribute("number of idle objects in the pool")
+    public int getIdleCount()
+    {
+        return idle.get();
+    }
+
+    /**
+     * @return the number of objects created by the pool that are not yet ended, either idle or in use
+     */
+    @ManagedAttribute("number of objects not yet ended, idle or in use")
+    public int getLiveCount()
+    {
+        return live.get();
+    }
+
+    /**
+     * @return the estimated native memory held by the objects not yet ended, in bytes
+     */
+    @ManagedAttribute("estimated native memory of the objects not yet ended (in bytes)")
+    public long getNativeMemory()
+    {
+        return live.get() * getNativeMemoryPerObject();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[idle=%d,live=%d,capacity=%d]", getClass().getSimpleName(), hashCode(), getIdleCount(), getLiveCount(), getCapacity());
+    }
+}
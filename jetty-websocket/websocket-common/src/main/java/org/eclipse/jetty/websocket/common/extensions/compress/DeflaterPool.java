@@ -0,0 +1,79 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common.extensions.compress;
+
+import java.util.zip.Deflater;
+
+/**
+ * A pool of raw (nowrap) {@link Deflater}s.
+ */
+public class DeflaterPool extends CompressionPool<Deflater>
+{
+    /**
+     * Estimated native memory of a zlib deflater with the default window
+     * bits (15) and memory level (8): (1 &lt;&lt; (15 + 2)) + (1 &lt;&lt; (8 + 9)), plus its state.
+     */
+    public static final long NATIVE_MEMORY = (1 << 17) + (1 << 17) + 6 * 1024;
+
+    private final int level;
+
+    public DeflaterPool()
+    {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level the compression level of the deflaters
+     */
+    public DeflaterPool(int level)
+    {
+        this.level = level;
+    }
+
+    @Override
+    protected Deflater newObject()
+    {
+        Deflater deflater = new Deflater(level, true);
+        byte[] dictionary = getDictionary();
+        if (dictionary != null)
+            deflater.setDictionary(dictionary);
+        return deflater;
+    }
+
+    @Override
+    protected void reset(Deflater deflater)
+    {
+        deflater.reset();
+        byte[] dictionary = getDictionary();
+        if (dictionary != null)
+            deflater.setDictionary(dictionary);
+    }
+
+    @Override
+    protected void end(Deflater deflater)
+    {
+        deflater.end();
+    }
+
+    @Override
+    protected long getNativeMemoryPerObject()
+    {
+        return NATIVE_MEMORY;
+    }
+}
@@ -0,0 +1,64 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common.extensions.compress;
+
+import java.util.zip.Inflater;
+
+/**
+ * A pool of raw (nowrap) {@link Inflater}s.
+ */
+public class InflaterPool extends CompressionPool<Inflater>
+{
+    /**
+     * Estimated native memory of a zlib inflater with the default window
+     * bits (15): (1 &lt;&lt; 15), plus its state.
+     */
+    public static final long NATIVE_MEMORY = (1 << 15) + 7 * 1024;
+
+    @Override
+    protected Inflater newObject()
+    {
+        Inflater inflater = new Inflater(true);
+        byte[] dictionary = getDictionary();
+        if (dictionary != null)
+            inflater.setDictionary(dictionary);
+        return inflater;
+    }
+
+    @Override
+    protected void reset(Inflater inflater)
+    {
+        inflater.reset();
+        byte[] dictionary = getDictionary();
+        if (dictionary != null)
+            inflater.setDictionary(dictionary);
+    }
+
+    @Override
+    protected void end(Inflater inflater)
+    {
+        inflater.end();
+    }
+
+    @Override
+    protected long getNativeMemoryPerObject()
+    {
+        return NATIVE_MEMORY;
+    }
+}
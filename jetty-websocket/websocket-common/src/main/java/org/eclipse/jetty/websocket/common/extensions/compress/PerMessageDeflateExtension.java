@@ -51,6 +51,15 @@ public class PerMessageDeflateExtension extends CompressExtension
         return "permessage-deflate";
     }
 
+    /**
+     * @return true if the compression context is kept from one outgoing message to the next,
+     * false if each outgoing message is compressed on its own
+     */
+    public boolean isOutgoingContextTakeover()
+    {
+        return outgoingContextTakeover;
+    }
+
     @Override
     public void incomingFrame(Frame frame)
     {
@@ -96,11 +105,11 @@ public class PerMessageDeflateExtension extends CompressExtension
     @Override
     protected void nextIncomingFrame(Frame frame)
     {
-        if (frame.isFin() && !incomingContextTakeover)
+        if (frame.isFin() && !incomingContextTakeover && !OpCode.isControlFrame(frame.getOpCode()))
         {
             LOG.debug("Incoming Context Reset");
             decompressCount.set(0);
-            getInflater().reset();
+            releaseInflater();
         }
         super.nextIncomingFrame(frame);
     }
@@ -108,10 +117,10 @@ public class PerMessageDeflateExtension extends CompressExtension
     @Override
     protected void nextOutgoingFrame(Frame frame, WriteCallback callback, BatchMode batchMode)
     {
-        if (frame.isFin() && !outgoingContextTakeover)
+        if (frame.isFin() && !outgoingContextTakeover && !OpCode.isControlFrame(frame.getOpCode()))
         {
             LOG.debug("Outgoing Context Reset");
-            getDeflater().reset();
+            releaseDeflater();
         }
         super.nextOutgoingFrame(frame, callback, batchMode);
     }
@@ -26,6 +26,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -53,6 +54,7 @@ import org.eclipse.jetty.websocket.common.Generator;
 import org.eclipse.jetty.websocket.common.LogicalConnection;
 import org.eclipse.jetty.websocket.common.Parser;
 import org.eclipse.jetty.websocket.common.WebSocketSession;
+import org.eclipse.jetty.websocket.common.extensions.ExtensionStack;
 import org.eclipse.jetty.websocket.common.io.IOState.ConnectionStateListener;
 
 /**
@@ -64,7 +66,15 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
     {
         private Flusher(ByteBufferPool bufferPool, Generator generator, EndPoint endpoint)
         {
-            super(bufferPool,generator,endpoint,getPolicy().getMaxBinaryMessageBufferSize(),8);
+            super(bufferPool,generator,endpoint,getPolicy().getOutputBufferSize(),8,scheduler,getPolicy().getMaxFlushDelay());
+        }
+
+        @Override
+        protected void onWrite(int frames, long bytes)
+        {
+            stats.countWrites.incrementAndGet();
+            stats.countFramesWritten.addAndGet(frames);
+            bytesOut.addAndGet(bytes);
         }
 
         @Override
@@ -89,6 +99,9 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
         private AtomicLong countFillInterestedEvents = new AtomicLong(0);
         private AtomicLong countOnFillableEvents = new AtomicLong(0);
         private AtomicLong countFillableErrors = new AtomicLong(0);
+        private AtomicLong countHibernations = new AtomicLong(0);
+        private AtomicLong countWrites = new AtomicLong(0);
+        private AtomicLong countFramesWritten = new AtomicLong(0);
 
         public long getFillableErrorCount()
         {
@@ -104,6 +117,30 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
         {
             return countOnFillableEvents.get();
         }
+
+        public long getHibernationCount()
+        {
+            return countHibernations.get();
+        }
+
+        public long getWriteCount()
+        {
+            return countWrites.get();
+        }
+
+        public long getFramesWrittenCount()
+        {
+            return countFramesWritten.get();
+        }
+
+        /**
+         * @return the mean number of frames per gathering write to the network
+         */
+        public double getFramesPerWrite()
+        {
+            long writes = countWrites.get();
+            return writes == 0 ? 0.0 : (double)countFramesWritten.get() / writes;
+        }
     }
 
     private enum ReadMode
@@ -136,6 +173,19 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
     private ReadMode readMode = ReadMode.PARSE;
     private IOState ioState;
     private Stats stats = new Stats();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicBoolean hibernateScheduled = new AtomicBoolean();
+    private volatile long lastActivity = System.nanoTime();
+    private volatile Scheduler.Task hibernateTask;
+    /**
+     * Frames the application still wants to read, or -1 if the application
+     * has never signalled demand and reads are not flow controlled.
+     */
+    private final AtomicLong demand = new AtomicLong(-1);
+    private final Object demandLock = new Object();
+    private boolean stalled;
+    private ByteBuffer stalledBuffer;
 
     public AbstractWebSocketConnection(EndPoint endp, Executor executor, Scheduler scheduler, WebSocketPolicy policy, ByteBufferPool bufferPool)
     {
@@ -294,6 +344,26 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
         return stats;
     }
 
+    @Override
+    public long getBytesIn()
+    {
+        return bytesIn.get();
+    }
+
+    @Override
+    public long getBytesOut()
+    {
+        return bytesOut.get();
+    }
+
+    /**
+     * @return the number of frames waiting to be written to the network
+     */
+    public int getOutgoingQueueSize()
+    {
+        return flusher.getQueueSize();
+    }
+
     @Override
     public boolean isOpen()
     {
@@ -317,6 +387,12 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
         if (LOG.isDebugEnabled())
             LOG.debug("{} onClose()",policy.getBehavior());
         super.onClose();
+        Scheduler.Task task = hibernateTask;
+        if (task != null)
+            task.cancel();
+        ByteBuffer buffer = takeStalledBuffer();
+        if (buffer != null)
+            bufferPool.release(buffer);
         ioState.onDisconnected();
     }
 
@@ -380,8 +456,11 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
         if (LOG.isDebugEnabled())
             LOG.debug("{} onFillable()",policy.getBehavior());
         stats.countOnFillableEvents.incrementAndGet();
+        onActivity();
 
-        ByteBuffer buffer = bufferPool.acquire(getInputBufferSize(),true);
+        ByteBuffer buffer = takeStalledBuffer();
+        if (buffer == null)
+            buffer = bufferPool.acquire(getInputBufferSize(),true);
 
         try
         {
@@ -398,7 +477,25 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
         }
         finally
         {
-            bufferPool.release(buffer);
+            // Bytes are only left unparsed when the demand is exhausted
+            if (readMode == ReadMode.PARSE && BufferUtil.hasContent(buffer))
+                setStalledBuffer(buffer);
+            else
+                bufferPool.release(buffer);
+        }
+
+        if (readMode == ReadMode.PARSE && demand.get() >= 0)
+        {
+            // Reading resumes when the application signals demand
+            if (stall())
+                return;
+            // Demand signalled after the parsing stopped does not resume
+            // reading, so parse the bytes already read before filling
+            if (hasStalledBuffer())
+            {
+                getExecutor().execute(this::onFillable);
+                return;
+            }
         }
 
         if ((readMode != ReadMode.EOF) && (suspendToken.get() == false))
@@ -446,6 +543,56 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
             LOG.debug("[{}] {}.onOpened()",policy.getBehavior(),this.getClass().getSimpleName());
         super.onOpen();
         this.ioState.onOpened();
+        onActivity();
+    }
+
+    /**
+     * Record read or write activity, and schedule the check for hibernation
+     * if the connection is not already waiting for it.
+     */
+    private void onActivity()
+    {
+        lastActivity = System.nanoTime();
+        long timeout = policy.getHibernateTimeout();
+        if (timeout > 0 && scheduler != null && hibernateScheduled.compareAndSet(false,true))
+            hibernateTask = scheduler.schedule(this::checkHibernate,timeout,TimeUnit.MILLISECONDS);
+    }
+
+    private void checkHibernate()
+    {
+        if (!isOpen())
+            return;
+
+        long timeout = policy.getHibernateTimeout();
+        long idle = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActivity);
+        if (timeout > 0 && idle < timeout)
+        {
+            hibernateTask = scheduler.schedule(this::checkHibernate,timeout - idle,TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        // The next activity schedules a new check.
+        hibernateScheduled.set(false);
+        if (timeout > 0)
+            hibernate();
+    }
+
+    /**
+     * Release the resources that the connection does not need while idle.
+     * <p>
+     * Called once the connection has been idle for {@link WebSocketPolicy#getHibernateTimeout()}.
+     * The read buffer is already returned to the pool after every read, so this
+     * releases the state held by the extensions, which is reacquired lazily on
+     * the next frame.
+     */
+    protected void hibernate()
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} hibernate() {}",policy.getBehavior(),this);
+        stats.countHibernations.incrementAndGet();
+        WebSocketSession session = this.session;
+        if (session != null && session.getOutgoingHandler() instanceof ExtensionStack)
+            ((ExtensionStack)session.getOutgoingHandler()).hibernate();
     }
 
     /**
@@ -492,6 +639,7 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
             LOG.debug("outgoingFrame({}, {})",frame,callback);
         }
 
+        onActivity();
         flusher.enqueue(frame,callback,batchMode);
     }
 
@@ -515,6 +663,7 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
                 }
                 else
                 {
+                    bytesIn.addAndGet(filled);
                     if (LOG.isDebugEnabled())
                         LOG.debug("Discarded {} bytes - {}",filled,BufferUtil.toDetailString(buffer));
                 }
@@ -540,6 +689,14 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
             // Process the content from the Endpoint next
             while(true)  // TODO: should this honor the LogicalConnection.suspend() ?
             {
+                if (demand.get() >= 0)
+                {
+                    // Only read from the network what the application asked for,
+                    // so that a slow application applies TCP backpressure
+                    if (!parseDemanded(buffer))
+                        return ReadMode.PARSE;
+                }
+
                 int filled = endPoint.fill(buffer);
                 if (filled < 0)
                 {
@@ -553,11 +710,13 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
                     return ReadMode.PARSE;
                 }
 
+                bytesIn.addAndGet(filled);
                 if (LOG.isDebugEnabled())
                 {
                     LOG.debug("Filled {} bytes - {}",filled,BufferUtil.toDetailString(buffer));
                 }
-                parser.parse(buffer);
+                if (demand.get() < 0)
+                    parser.parse(buffer);
             }
         }
         catch (IOException e)
@@ -583,6 +742,112 @@ public abstract class AbstractWebSocketConnection extends AbstractConnection imp
         }
     }
 
+    /**
+     * Parse the frames that are already read, up to the current demand.
+     *
+     * @param buffer the buffer of read bytes
+     * @return true if all the read bytes were parsed and more can be read, false if the demand is exhausted
+     */
+    private boolean parseDemanded(ByteBuffer buffer)
+    {
+        while (true)
+        {
+            long frames = demand.get();
+            if (frames == 0)
+                return false;
+            if (BufferUtil.isEmpty(buffer))
+                return true;
+
+            int parsed = parser.parse(buffer,(int)Math.min(frames,Integer.MAX_VALUE));
+            if (parsed > 0)
+                demand.addAndGet(-parsed);
+        }
+    }
+
+    /**
+     * Stop reading if the demand is exhausted, checked under the lock that
+     * {@link #demand(long)} takes to decide whether to resume reading.
+     *
+     * @return true if reading stalled, false if demand was signalled in the meantime
+     */
+    private boolean stall()
+    {
+        synchronized (demandLock)
+        {
+            if (demand.get() != 0)
+                return false;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Read stalled waiting for demand, {} bytes pending",BufferUtil.length(stalledBuffer));
+            stalled = true;
+            isFilling = false;
+            return true;
+        }
+    }
+
+    private void setStalledBuffer(ByteBuffer buffer)
+    {
+        synchronized (demandLock)
+        {
+            stalledBuffer = buffer;
+        }
+    }
+
+    private boolean hasStalledBuffer()
+    {
+        synchronized (demandLock)
+        {
+            return stalledBuffer != null;
+        }
+    }
+
+    private ByteBuffer takeStalledBuffer()
+    {
+        synchronized (demandLock)
+        {
+            ByteBuffer buffer = stalledBuffer;
+            stalledBuffer = null;
+            return buffer;
+        }
+    }
+
+    /**
+     * Signal that the application wants to read more frames.
+     * <p>
+     * The first call switches the connection to demand driven reads: from then on,
+     * each frame read from the network (control frames included) consumes one unit
+     * of demand, and once the demand is exhausted the connection stops reading until
+     * more is signalled, leaving the unread bytes to TCP flow control.
+     *
+     * @param frames the number of additional frames to read, must be positive
+     */
+    @Override
+    public void demand(long frames)
+    {
+        if (frames <= 0)
+            throw new IllegalArgumentException("Invalid demand " + frames);
+
+        while (true)
+        {
+            long current = demand.get();
+            long next = current < 0 ? frames : current + frames;
+            if (next < 0)
+                next = Long.MAX_VALUE;
+            if (demand.compareAndSet(current,next))
+                break;
+        }
+
+        synchronized (demandLock)
+        {
+            if (!stalled)
+                return;
+            stalled = false;
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("Read resumed with demand {}",demand.get());
+        getExecutor().execute(this::onFillable);
+    }
+
     @Override
     public void resume()
     {
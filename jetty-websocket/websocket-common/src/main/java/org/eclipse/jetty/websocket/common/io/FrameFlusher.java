@@ -25,6 +25,8 @@ import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EndPoint;
@@ -32,6 +34,7 @@ import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.websocket.api.BatchMode;
 import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.extensions.Frame;
@@ -49,6 +52,9 @@ public class FrameFlusher extends IteratingCallback
     private final int bufferSize;
     private final Generator generator;
     private final int maxGather;
+    private final Scheduler scheduler;
+    private final long flushDelay;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
     private final Deque<FrameEntry> queue = new ArrayDeque<>();
     private final List<FrameEntry> entries;
     private final List<ByteBuffer> buffers;
@@ -56,10 +62,28 @@ public class FrameFlusher extends IteratingCallback
     private Throwable terminated;
     private ByteBuffer aggregate;
     private BatchMode batchMode;
+    private int aggregated;
 
     public FrameFlusher(ByteBufferPool bufferPool, Generator generator, EndPoint endPoint, int bufferSize, int maxGather)
+    {
+        this(bufferPool,generator,endPoint,bufferSize,maxGather,null,0);
+    }
+
+    /**
+     * @param bufferPool the pool of the aggregate buffer
+     * @param generator the generator of the frame headers
+     * @param endPoint the endpoint to write to
+     * @param bufferSize the size of the buffer used to aggregate frames in {@link BatchMode#AUTO}
+     * @param maxGather the max number of frames written with a single gathering write
+     * @param scheduler the scheduler of the delayed flushes
+     * @param flushDelay the max time in ms that aggregated frames wait for more frames
+     *                   before being written, or zero to write them as soon as the queue is empty
+     */
+    public FrameFlusher(ByteBufferPool bufferPool, Generator generator, EndPoint endPoint, int bufferSize, int maxGather, Scheduler scheduler, long flushDelay)
     {
         this.bufferPool = bufferPool;
+        this.scheduler = scheduler;
+        this.flushDelay = scheduler == null ? 0 : flushDelay;
         this.endPoint = endPoint;
         this.bufferSize = bufferSize;
         this.generator = Objects.requireNonNull(generator);
@@ -146,6 +170,13 @@ public class FrameFlusher extends IteratingCallback
                 return Action.IDLE;
             }
 
+            if (flushDelay > 0 && !BufferUtil.isEmpty(aggregate))
+            {
+                // Wait for more frames to fill the aggregate buffer, at most flushDelay.
+                scheduleFlush();
+                return Action.IDLE;
+            }
+
             if (LOG.isDebugEnabled())
                 LOG.debug("{} auto flushing", this);
 
@@ -174,6 +205,7 @@ public class FrameFlusher extends IteratingCallback
             if (BufferUtil.hasContent(payload))
                 BufferUtil.append(aggregate, payload);
         }
+        aggregated += entries.size();
         if (LOG.isDebugEnabled())
             LOG.debug("{} aggregated {} frames: {}", this, entries.size(), entries);
 
@@ -183,8 +215,22 @@ public class FrameFlusher extends IteratingCallback
         return Action.SCHEDULED;
     }
 
+    private void scheduleFlush()
+    {
+        if (flushScheduled.compareAndSet(false,true))
+        {
+            scheduler.schedule(() ->
+            {
+                flushScheduled.set(false);
+                enqueue(FLUSH_FRAME,null,BatchMode.OFF);
+            },flushDelay,TimeUnit.MILLISECONDS);
+        }
+    }
+
     private Action flush()
     {
+        int frames = aggregated;
+        aggregated = 0;
         if (!BufferUtil.isEmpty(aggregate))
         {
             buffers.add(aggregate);
@@ -198,6 +244,7 @@ public class FrameFlusher extends IteratingCallback
             if (entry.frame == FLUSH_FRAME)
                 continue;
 
+            ++frames;
             buffers.add(entry.generateHeaderBytes());
             ByteBuffer payload = entry.frame.getPayload();
             if (BufferUtil.hasContent(payload))
@@ -215,12 +262,19 @@ public class FrameFlusher extends IteratingCallback
             return Action.IDLE;
         }
 
+        long bytes = 0;
+        for (ByteBuffer buffer : buffers)
+            bytes += buffer.remaining();
+        onWrite(frames,bytes);
         endPoint.write(this, buffers.toArray(new ByteBuffer[buffers.size()]));
         buffers.clear();
         return Action.SCHEDULED;
     }
 
-    private int getQueueSize()
+    /**
+     * @return the number of frames waiting to be flushed
+     */
+    public int getQueueSize()
     {
         synchronized (this)
         {
@@ -298,6 +352,16 @@ public class FrameFlusher extends IteratingCallback
             iterate();
     }
 
+    /**
+     * Called before each gathering write to the endpoint.
+     * 
+     * @param frames the number of frames in the write
+     * @param bytes the number of bytes in the write
+     */
+    protected void onWrite(int frames, long bytes)
+    {
+    }
+
     protected void notifyCallbackSuccess(WriteCallback callback)
     {
         try
@@ -36,25 +36,31 @@ public class DeMaskProcessor implements PayloadProcessor
             return;
         }
 
-        int maskInt = this.maskInt;
         int start = payload.position();
         int end = payload.limit();
         int offset = this.maskOffset;
-        int remaining;
-        while ((remaining = end - start) > 0)
+
+        // Rotate the mask so that it lines up with the current offset,
+        // then unmask 8 bytes at a time using long words.
+        int maskInt = Integer.rotateLeft(this.maskInt,(offset & 3) << 3);
+        long maskLong = ((long)maskInt << 32) | (maskInt & 0xFFFFFFFFL);
+        while (end - start >= 8)
+        {
+            payload.putLong(start,payload.getLong(start) ^ maskLong);
+            start += 8;
+            offset += 8;
+        }
+        if (end - start >= 4)
+        {
+            payload.putInt(start,payload.getInt(start) ^ maskInt);
+            start += 4;
+            offset += 4;
+        }
+        while (start < end)
         {
-            if (remaining >= 4 && (offset & 3) == 0)
-            {
-                payload.putInt(start,payload.getInt(start) ^ maskInt);
-                start += 4;
-                offset += 4;
-            }
-            else
-            {
-                payload.put(start,(byte)(payload.get(start) ^ maskBytes[offset & 3]));
-                ++start;
-                ++offset;
-            }
+            payload.put(start,(byte)(payload.get(start) ^ maskBytes[offset & 3]));
+            ++start;
+            ++offset;
         }
         maskOffset = offset;
     }
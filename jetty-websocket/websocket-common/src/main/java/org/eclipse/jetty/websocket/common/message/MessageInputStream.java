@@ -26,6 +26,7 @@ import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
@@ -34,6 +35,9 @@ import org.eclipse.jetty.util.log.Logger;
  * Support class for reading a (single) WebSocket BINARY message via a InputStream.
  * <p>
  * An InputStream that can access a queue of ByteBuffer payloads, along with expected InputStream blocking behavior.
+ * <p>
+ * When a {@link ByteBufferPool} is provided, the payload copies are acquired from it and released back to it
+ * by the reading thread, as soon as they have been fully read (or discarded on close).
  */
 public class MessageInputStream extends InputStream implements MessageAppender
 {
@@ -42,8 +46,10 @@ public class MessageInputStream extends InputStream implements MessageAppender
 
     private final BlockingDeque<ByteBuffer> buffers = new LinkedBlockingDeque<>();
     private AtomicBoolean closed = new AtomicBoolean(false);
+    private final ByteBufferPool bufferPool;
     private final long timeoutMs;
     private ByteBuffer activeBuffer = null;
+    private volatile Thread reader;
 
     public MessageInputStream()
     {
@@ -52,6 +58,17 @@ public class MessageInputStream extends InputStream implements MessageAppender
 
     public MessageInputStream(int timeoutMs)
     {
+        this(null,timeoutMs);
+    }
+
+    public MessageInputStream(ByteBufferPool bufferPool)
+    {
+        this(bufferPool,-1);
+    }
+
+    public MessageInputStream(ByteBufferPool bufferPool, int timeoutMs)
+    {
+        this.bufferPool = bufferPool;
         this.timeoutMs = timeoutMs;
     }
 
@@ -86,9 +103,18 @@ public class MessageInputStream extends InputStream implements MessageAppender
                 // skip if no payload data to copy
                 return;
             }
-            // TODO: the copy buffer should be pooled too, but no buffer pool available from here.
-            ByteBuffer copy = framePayload.isDirect()?ByteBuffer.allocateDirect(capacity):ByteBuffer.allocate(capacity);
-            copy.put(framePayload).flip();
+            ByteBuffer copy;
+            if (bufferPool != null)
+            {
+                copy = bufferPool.acquire(capacity,framePayload.isDirect());
+                BufferUtil.clear(copy);
+                BufferUtil.append(copy,framePayload);
+            }
+            else
+            {
+                copy = framePayload.isDirect()?ByteBuffer.allocateDirect(capacity):ByteBuffer.allocate(capacity);
+                copy.put(framePayload).flip();
+            }
             buffers.put(copy);
         }
         catch (InterruptedException e)
@@ -112,6 +138,13 @@ public class MessageInputStream extends InputStream implements MessageAppender
             buffers.offer(EOF);
             super.close();
         }
+
+        // Only the reading thread may release the active buffer, otherwise
+        // it is released when the reading thread finds the stream closed.
+        if (reader == Thread.currentThread())
+            releaseBuffers();
+        else
+            releaseQueuedBuffers();
     }
 
     @Override
@@ -137,18 +170,69 @@ public class MessageInputStream extends InputStream implements MessageAppender
     @Override
     public int read() throws IOException
     {
+        ByteBuffer buffer = nextBuffer();
+        if (buffer == null)
+            return -1;
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+            return 0;
+
+        // Same blocking semantic as InputStream.read(byte[],int,int),
+        // but copying whole chunks of the active buffer at a time.
+        int read = 0;
+        while (read < len)
+        {
+            ByteBuffer buffer;
+            try
+            {
+                buffer = nextBuffer();
+            }
+            catch (IOException x)
+            {
+                if (read == 0)
+                    throw x;
+                break;
+            }
+            if (buffer == null)
+                break;
+            int length = Math.min(len - read,buffer.remaining());
+            buffer.get(b,off + read,length);
+            read += length;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    /**
+     * Obtain the buffer to read from, waiting for one if necessary.
+     *
+     * @return the buffer with remaining bytes, or null if EOF has been reached
+     * @throws IOException if the read timed out
+     */
+    private ByteBuffer nextBuffer() throws IOException
+    {
+        reader = Thread.currentThread();
         try
         {
             if (closed.get())
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("Stream closed");
-                return -1;
+                releaseBuffers();
+                return null;
             }
 
             // grab a fresh buffer
             while (activeBuffer == null || !activeBuffer.hasRemaining())
             {
+                // the previous buffer has been fully consumed
+                release(activeBuffer);
+                activeBuffer = null;
+
                 if (LOG.isDebugEnabled())
                     LOG.debug("Waiting {} ms to read", timeoutMs);
                 if (timeoutMs < 0)
@@ -172,21 +256,53 @@ public class MessageInputStream extends InputStream implements MessageAppender
                         LOG.debug("Reached EOF");
                     // Be sure that this stream cannot be reused.
                     closed.set(true);
+                    activeBuffer = null;
                     // Removed buffers that may have remained in the queue.
-                    buffers.clear();
-                    return -1;
+                    releaseBuffers();
+                    return null;
                 }
             }
 
-            return activeBuffer.get() & 0xFF;
+            return activeBuffer;
         }
         catch (InterruptedException x)
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("Interrupted while waiting to read", x);
             closed.set(true);
-            return -1;
+            return null;
+        }
+    }
+
+    private void release(ByteBuffer buffer)
+    {
+        if (bufferPool != null && buffer != null && buffer != EOF)
+            bufferPool.release(buffer);
+    }
+
+    private void releaseBuffers()
+    {
+        release(activeBuffer);
+        activeBuffer = null;
+        releaseQueuedBuffers();
+    }
+
+    private void releaseQueuedBuffers()
+    {
+        // Buffers are polled one at a time, so that a buffer concurrently
+        // taken by the reading thread is never released by this thread.
+        boolean eof = false;
+        ByteBuffer buffer;
+        while ((buffer = buffers.poll()) != null)
+        {
+            if (buffer == EOF)
+                eof = true;
+            else
+                release(buffer);
         }
+        // EOF stays in the queue, for readers waiting for it.
+        if (eof)
+            buffers.offer(EOF);
     }
 
     @Override
@@ -27,16 +27,19 @@ import org.eclipse.jetty.websocket.common.events.EventDriver;
 
 public class SimpleBinaryMessage implements MessageAppender
 {
-    private static final int BUFFER_SIZE = 65535;
     private final EventDriver onEvent;
-    protected final ByteArrayOutputStream out;
+    /**
+     * Aggregates the payloads of fragmented messages, or null if the message
+     * so far is a single frame.
+     */
+    protected ByteArrayOutputStream out;
+    private byte[] data;
     private int size;
     protected boolean finished;
 
     public SimpleBinaryMessage(EventDriver onEvent)
     {
         this.onEvent = onEvent;
-        this.out = new ByteArrayOutputStream(BUFFER_SIZE);
         finished = false;
     }
 
@@ -57,14 +60,36 @@ public class SimpleBinaryMessage implements MessageAppender
         onEvent.getPolicy().assertValidBinaryMessageSize(size + payload.remaining());
         size += payload.remaining();
 
+        if (out == null)
+        {
+            if (isLast)
+            {
+                // Whole message in a single frame: copy it once, to its exact size.
+                data = BufferUtil.toArray(payload);
+                payload.position(payload.limit());
+                return;
+            }
+            out = new ByteArrayOutputStream(Math.max(size,1024) * 2);
+        }
         BufferUtil.writeTo(payload,out);
     }
 
+    /**
+     * @return the bytes of the message received so far
+     */
+    protected byte[] getData()
+    {
+        if (data != null)
+            return data;
+        if (out != null)
+            return out.toByteArray();
+        return new byte[0];
+    }
+
     @Override
     public void messageComplete()
     {
         finished = true;
-        byte data[] = out.toByteArray();
-        onEvent.onBinaryMessage(data);
+        onEvent.onBinaryMessage(getData());
     }
 }
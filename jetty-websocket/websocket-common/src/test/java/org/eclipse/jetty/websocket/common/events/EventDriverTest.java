@@ -29,6 +29,7 @@ import org.eclipse.jetty.websocket.api.WebSocketPolicy;
 import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.eclipse.jetty.websocket.common.CloseInfo;
 import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
+import org.eclipse.jetty.websocket.common.frames.ContinuationFrame;
 import org.eclipse.jetty.websocket.common.frames.PingFrame;
 import org.eclipse.jetty.websocket.common.frames.PongFrame;
 import org.eclipse.jetty.websocket.common.frames.TextFrame;
@@ -43,6 +44,7 @@ import org.junit.rules.TestName;
 
 import examples.AdapterConnectCloseSocket;
 import examples.AnnotatedBinaryArraySocket;
+import examples.AnnotatedBinaryPartialSocket;
 import examples.AnnotatedBinaryStreamSocket;
 import examples.AnnotatedFramesSocket;
 import examples.AnnotatedTextSocket;
@@ -167,6 +169,27 @@ public class EventDriverTest
         }
     }
 
+    @Test
+    public void testAnnotated_PartialBinary() throws Exception
+    {
+        AnnotatedBinaryPartialSocket socket = new AnnotatedBinaryPartialSocket();
+        EventDriver driver = wrap(socket);
+
+        try (LocalWebSocketSession conn = new CloseableLocalWebSocketSession(container,testname,driver))
+        {
+            conn.open();
+            driver.incomingFrame(makeBinaryFrame("Hello",false));
+            driver.incomingFrame(new ContinuationFrame().setPayload(" World").setFin(true));
+            driver.incomingFrame(new CloseInfo(StatusCode.NORMAL).asFrame());
+
+            socket.capture.assertEventCount(4);
+            socket.capture.pop().assertEventStartsWith("onConnect");
+            socket.capture.pop().assertEvent("onBinary([5],false)");
+            socket.capture.pop().assertEvent("onBinary([6],true)");
+            socket.capture.pop().assertEventStartsWith("onClose(1000,");
+        }
+    }
+
     @Test
     public void testListenerBasic_Text() throws Exception
     {
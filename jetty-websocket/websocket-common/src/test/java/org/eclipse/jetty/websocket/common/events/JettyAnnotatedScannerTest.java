@@ -37,6 +37,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import examples.AnnotatedBinaryArraySocket;
+import examples.AnnotatedBinaryPartialSocket;
 import examples.AnnotatedBinaryStreamSocket;
 import examples.AnnotatedTextSocket;
 import examples.AnnotatedTextStreamSocket;
@@ -160,6 +161,27 @@ public class JettyAnnotatedScannerTest
         Assert.assertFalse(classId + ".onBinary.isStreaming",metadata.onBinary.isStreaming());
     }
 
+    /**
+     * Test Case for socket for partial binary messages
+     */
+    @Test
+    public void testAnnotatedBinaryPartialSocket()
+    {
+        JettyAnnotatedScanner impl = new JettyAnnotatedScanner();
+        JettyAnnotatedMetadata metadata = impl.scan(AnnotatedBinaryPartialSocket.class);
+
+        String classId = AnnotatedBinaryPartialSocket.class.getSimpleName();
+
+        Assert.assertThat("EventMethods for " + classId,metadata,notNullValue());
+
+        assertHasEventMethod(classId + ".onBinary",metadata.onBinary);
+        assertNoEventMethod(classId + ".onText",metadata.onText);
+
+        Assert.assertFalse(classId + ".onBinary.isSessionAware",metadata.onBinary.isSessionAware());
+        Assert.assertFalse(classId + ".onBinary.isStreaming",metadata.onBinary.isStreaming());
+        Assert.assertTrue(classId + ".onBinary.isPartial",metadata.onBinary.isPartial());
+    }
+
     /**
      * Test Case for socket for binary stream messages
      */
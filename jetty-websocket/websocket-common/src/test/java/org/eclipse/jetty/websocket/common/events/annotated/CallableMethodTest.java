@@ -0,0 +1,119 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common.events.annotated;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CallableMethodTest
+{
+    public static class Target
+    {
+        public String last;
+
+        public void onBinary(byte[] buf, int offset, int length)
+        {
+            last = new String(buf,offset,length);
+        }
+
+        public String echo(String text, boolean fin)
+        {
+            return text + ":" + fin;
+        }
+
+        public void fail(String reason) throws IOException
+        {
+            throw new IOException(reason);
+        }
+
+        public void reject(String reason)
+        {
+            throw new IllegalStateException(reason);
+        }
+    }
+
+    private CallableMethod callable(String name, Class<?>... types) throws Exception
+    {
+        Method method = Target.class.getMethod(name,types);
+        return new CallableMethod(Target.class,method);
+    }
+
+    @Test
+    public void testPrimitiveArguments() throws Exception
+    {
+        Target target = new Target();
+        CallableMethod onBinary = callable("onBinary",byte[].class,int.class,int.class);
+        Object ret = onBinary.call(target,"Hello World".getBytes(),6,5);
+        Assert.assertThat(ret,nullValue());
+        Assert.assertThat(target.last,is("World"));
+    }
+
+    @Test
+    public void testReturnValue() throws Exception
+    {
+        CallableMethod echo = callable("echo",String.class,boolean.class);
+        Assert.assertThat(echo.call(new Target(),"Hello",true),is("Hello:true"));
+    }
+
+    @Test
+    public void testCopySharesMethod() throws Exception
+    {
+        CallableMethod echo = callable("echo",String.class,boolean.class);
+        CallableMethod copy = new CallableMethod(echo)
+        {
+        };
+        Assert.assertThat(copy.getMethod(),is(echo.getMethod()));
+        Assert.assertThat(copy.call(new Target(),"Copy",false),is("Copy:false"));
+    }
+
+    @Test
+    public void testRuntimeExceptionIsRethrown() throws Exception
+    {
+        try
+        {
+            callable("reject",String.class).call(new Target(),"rejected");
+            Assert.fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertThat(e.getMessage(),is("rejected"));
+        }
+    }
+
+    @Test
+    public void testCheckedExceptionIsWrapped() throws Exception
+    {
+        try
+        {
+            callable("fail",String.class).call(new Target(),"failed");
+            Assert.fail("Expected RuntimeException");
+        }
+        catch (RuntimeException e)
+        {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+            Assert.assertThat(e.getCause().getMessage(),is("failed"));
+        }
+    }
+}
@@ -22,15 +22,24 @@ import static org.hamcrest.Matchers.is;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.OverflowPolicy;
 import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.extensions.Extension;
 import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.eclipse.jetty.websocket.api.extensions.OutgoingFrames;
 import org.eclipse.jetty.websocket.common.extensions.identity.IdentityExtension;
+import org.eclipse.jetty.websocket.common.frames.PingFrame;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
 import org.eclipse.jetty.websocket.common.scopes.SimpleContainerScope;
 import org.eclipse.jetty.websocket.common.scopes.WebSocketContainerScope;
 import org.junit.Assert;
@@ -188,4 +197,138 @@ public class ExtensionStackTest
         Assert.assertThat("Negotiated Extensions", response, is("permessage-deflate"));
         LOG.debug("Shouldn't cause a NPE: {}",stack.toString());
     }
+
+    /**
+     * A slow peer: holds the frames without completing their callbacks.
+     */
+    private static class SlowOutgoingFrames implements OutgoingFrames
+    {
+        private final List<Frame> frames = new ArrayList<>();
+        private final List<WriteCallback> callbacks = new ArrayList<>();
+
+        @Override
+        public void outgoingFrame(Frame frame, WriteCallback callback, BatchMode batchMode)
+        {
+            frames.add(frame);
+            callbacks.add(callback);
+        }
+
+        public void completeNext()
+        {
+            callbacks.get(frames.size() - 1).writeSuccess();
+        }
+    }
+
+    private static class CountingCallback implements WriteCallback
+    {
+        private final AtomicInteger successes = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public void writeSuccess()
+        {
+            successes.incrementAndGet();
+        }
+
+        @Override
+        public void writeFailed(Throwable x)
+        {
+            failures.incrementAndGet();
+        }
+    }
+
+    private ExtensionStack createLimitedStack(SlowOutgoingFrames connection, OverflowPolicy overflowPolicy, Runnable closer) throws Exception
+    {
+        ExtensionStack stack = createExtensionStack();
+        stack.negotiate(new ArrayList<>());
+        stack.setNextOutgoing(connection);
+        stack.setNextIncoming(new DummyIncomingFrames("Session"));
+        stack.setOutgoingQueueLimits(-1,3,overflowPolicy,closer);
+        stack.start();
+        return stack;
+    }
+
+    @Test
+    public void testOutgoingQueueReject() throws Exception
+    {
+        SlowOutgoingFrames connection = new SlowOutgoingFrames();
+        ExtensionStack stack = createLimitedStack(connection,OverflowPolicy.REJECT,null);
+        try
+        {
+            CountingCallback callback = new CountingCallback();
+            for (int i = 0; i < 5; i++)
+                stack.outgoingFrame(new TextFrame().setPayload("msg" + i),callback,BatchMode.OFF);
+
+            Assert.assertThat("rejected",callback.failures.get(),is(2));
+            Assert.assertThat("queued",stack.getQueuedFrames(),is(3));
+            Assert.assertFalse(stack.isWritable());
+
+            // Control frames are not limited
+            stack.outgoingFrame(new PingFrame(),callback,BatchMode.OFF);
+            Assert.assertThat("rejected",callback.failures.get(),is(2));
+
+            final AtomicBoolean writable = new AtomicBoolean();
+            stack.onWritable(() -> writable.set(true));
+            connection.completeNext();
+            Assert.assertFalse("above low water",writable.get());
+            connection.completeNext();
+            Assert.assertTrue("at low water",writable.get());
+            Assert.assertTrue(stack.isWritable());
+        }
+        finally
+        {
+            stack.stop();
+        }
+    }
+
+    @Test
+    public void testOutgoingQueueDropOldest() throws Exception
+    {
+        SlowOutgoingFrames connection = new SlowOutgoingFrames();
+        ExtensionStack stack = createLimitedStack(connection,OverflowPolicy.DROP_OLDEST,null);
+        try
+        {
+            CountingCallback callback = new CountingCallback();
+            for (int i = 0; i < 5; i++)
+                stack.outgoingFrame(new TextFrame().setPayload("msg" + i),callback,BatchMode.OFF);
+
+            // msg0 is being sent, msg1 and msg2 were dropped for msg3 and msg4
+            Assert.assertThat("dropped",callback.failures.get(),is(2));
+            Assert.assertThat("queued",stack.getQueuedFrames(),is(3));
+
+            connection.completeNext();
+            connection.completeNext();
+            connection.completeNext();
+            Assert.assertThat(connection.frames.size(),is(3));
+            Assert.assertThat(connection.frames.get(1).getPayload(),is(new TextFrame().setPayload("msg3").getPayload()));
+            Assert.assertThat(connection.frames.get(2).getPayload(),is(new TextFrame().setPayload("msg4").getPayload()));
+        }
+        finally
+        {
+            stack.stop();
+        }
+    }
+
+    @Test
+    public void testOutgoingQueueClose() throws Exception
+    {
+        SlowOutgoingFrames connection = new SlowOutgoingFrames();
+        AtomicBoolean closed = new AtomicBoolean();
+        ExtensionStack stack = createLimitedStack(connection,OverflowPolicy.CLOSE,() -> closed.set(true));
+        try
+        {
+            CountingCallback callback = new CountingCallback();
+            for (int i = 0; i < 4; i++)
+                stack.outgoingFrame(new TextFrame().setPayload("msg" + i),callback,BatchMode.OFF);
+
+            Assert.assertTrue("closed",closed.get());
+            // msg1, msg2 failed with the queue, msg3 rejected
+            Assert.assertThat("failed",callback.failures.get(),is(3));
+            Assert.assertThat("queued",stack.getQueuedFrames(),is(1));
+        }
+        finally
+        {
+            stack.stop();
+        }
+    }
 }
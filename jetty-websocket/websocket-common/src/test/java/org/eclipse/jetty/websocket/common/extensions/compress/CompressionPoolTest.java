@@ -0,0 +1,107 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common.extensions.compress;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressionPoolTest
+{
+    @Test
+    public void testReuse() throws Exception
+    {
+        DeflaterPool pool = new DeflaterPool();
+        pool.start();
+
+        Deflater deflater = pool.acquire();
+        Assert.assertThat("live", pool.getLiveCount(), is(1));
+        Assert.assertThat("idle", pool.getIdleCount(), is(0));
+
+        pool.release(deflater);
+        Assert.assertThat("live", pool.getLiveCount(), is(1));
+        Assert.assertThat("idle", pool.getIdleCount(), is(1));
+
+        Assert.assertThat(pool.acquire(), sameInstance(deflater));
+        Assert.assertThat("idle", pool.getIdleCount(), is(0));
+        Assert.assertThat("native memory", pool.getNativeMemory(), is(DeflaterPool.NATIVE_MEMORY));
+
+        pool.stop();
+    }
+
+    @Test
+    public void testCapacity() throws Exception
+    {
+        InflaterPool pool = new InflaterPool();
+        pool.setCapacity(1);
+        pool.start();
+
+        Inflater i1 = pool.acquire();
+        Inflater i2 = pool.acquire();
+        Assert.assertThat(i1, not(sameInstance(i2)));
+        Assert.assertThat("live", pool.getLiveCount(), is(2));
+
+        pool.release(i1);
+        pool.release(i2);
+        Assert.assertThat("idle", pool.getIdleCount(), is(1));
+        Assert.assertThat("live", pool.getLiveCount(), is(1));
+
+        pool.stop();
+        Assert.assertThat("idle", pool.getIdleCount(), is(0));
+        Assert.assertThat("live", pool.getLiveCount(), is(0));
+    }
+
+    @Test
+    public void testDictionaryRoundTrip() throws Exception
+    {
+        byte[] dictionary = "{\"type\":\"update\",\"symbol\":\"price\":}".getBytes(StandardCharsets.UTF_8);
+        byte[] message = "{\"type\":\"update\",\"symbol\":\"ACME\",\"price\":42}".getBytes(StandardCharsets.UTF_8);
+
+        DeflaterPool deflaterPool = new DeflaterPool();
+        deflaterPool.setDictionary(dictionary);
+        InflaterPool inflaterPool = new InflaterPool();
+        inflaterPool.setDictionary(dictionary);
+
+        // Twice, so the second round trip runs on reset instances.
+        for (int round = 0; round < 2; ++round)
+        {
+            Deflater deflater = deflaterPool.acquire();
+            deflater.setInput(message);
+            byte[] compressed = new byte[256];
+            int clen = deflater.deflate(compressed, 0, compressed.length, Deflater.SYNC_FLUSH);
+            deflaterPool.release(deflater);
+
+            Inflater inflater = inflaterPool.acquire();
+            inflater.setInput(compressed, 0, clen);
+            byte[] decompressed = new byte[256];
+            int dlen = inflater.inflate(decompressed);
+            inflaterPool.release(inflater);
+
+            Assert.assertThat("round " + round, new String(decompressed, 0, dlen, StandardCharsets.UTF_8),
+                    is(new String(message, StandardCharsets.UTF_8)));
+        }
+    }
+}
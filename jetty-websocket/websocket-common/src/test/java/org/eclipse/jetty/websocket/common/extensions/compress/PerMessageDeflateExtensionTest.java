@@ -21,11 +21,13 @@ package org.eclipse.jetty.websocket.common.extensions.compress;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.Inflater;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
@@ -356,6 +358,61 @@ public class PerMessageDeflateExtensionTest extends AbstractExtensionTest
         ByteBufferAssert.assertEquals("Frame.payload", expected, actual.getPayload().slice());
     }
 
+    /**
+     * Outgoing payloads without a backing array (eg: direct or read-only buffers) larger than
+     * the Deflater input chunk must be compressed entirely, keeping the compression context
+     * between messages.
+     * @throws Exception on test failure
+     */
+    @Test
+    public void testOutgoingLargeDirectPayload_ContextTakeover() throws Exception
+    {
+        PerMessageDeflateExtension ext = new PerMessageDeflateExtension();
+        ext.setBufferPool(bufferPool);
+        ext.setPolicy(WebSocketPolicy.newServerPolicy());
+        ext.setConfig(ExtensionConfig.parse("permessage-deflate"));
+        Assert.assertThat("Context takeover",ext.isOutgoingContextTakeover(),is(true));
+
+        OutgoingFramesCapture capture = new OutgoingFramesCapture();
+        ext.setNextOutgoingFrames(capture);
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            text.append("score ").append(i).append(" - ").append(i * 7).append('\n');
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Assert.assertThat("Larger than the input chunk",bytes.length > CompressExtension.INPUT_MAX_BUFFER_SIZE,is(true));
+        ByteBuffer payload = ByteBuffer.allocateDirect(bytes.length);
+        payload.put(bytes).flip();
+        payload = payload.asReadOnlyBuffer();
+
+        // Twice, the second message uses the compression context of the first
+        ext.outgoingFrame(new TextFrame().setPayload(payload.slice()),null,BatchMode.OFF);
+        ext.outgoingFrame(new TextFrame().setPayload(payload.slice()),null,BatchMode.OFF);
+
+        Inflater inflater = new Inflater(true);
+        List<String> messages = new ArrayList<>();
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        for (WebSocketFrame frame : capture.getFrames())
+        {
+            message.write(BufferUtil.toArray(frame.getPayload()));
+            if (frame.isFin())
+            {
+                message.write(new byte[] { 0x00, 0x00, (byte)0xFF, (byte)0xFF });
+                inflater.setInput(message.toByteArray());
+                byte[] output = new byte[bytes.length * 2];
+                int length = inflater.inflate(output);
+                messages.add(new String(output,0,length,StandardCharsets.UTF_8));
+                message.reset();
+            }
+        }
+        inflater.end();
+
+        Assert.assertThat("Frame count",capture.getFrames().size() > 2,is(true));
+        Assert.assertThat("Message count",messages.size(),is(2));
+        Assert.assertThat("First message",messages.get(0),is(text.toString()));
+        Assert.assertThat("Second message",messages.get(1),is(text.toString()));
+    }
+
     @Test
     public void testPyWebSocket_Client_NoContextTakeover_ThreeOra()
     {
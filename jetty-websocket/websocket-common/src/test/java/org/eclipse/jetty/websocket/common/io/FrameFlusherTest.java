@@ -0,0 +1,126 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common.io;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.common.Generator;
+import org.eclipse.jetty.websocket.common.OpCode;
+import org.eclipse.jetty.websocket.common.Parser;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
+import org.eclipse.jetty.websocket.common.test.IncomingFramesCapture;
+import org.eclipse.jetty.websocket.common.test.UnitParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FrameFlusherTest
+{
+    private ScheduledExecutorScheduler scheduler;
+
+    @Before
+    public void startScheduler() throws Exception
+    {
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+    }
+
+    @After
+    public void stopScheduler() throws Exception
+    {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testSmallFramesCoalesceWithinFlushDelay() throws Exception
+    {
+        final int threads = 4;
+        final int framesPerThread = 50;
+        MappedByteBufferPool bufferPool = new MappedByteBufferPool();
+        Generator generator = new Generator(WebSocketPolicy.newServerPolicy(),bufferPool);
+        ByteArrayEndPoint endPoint = new ByteArrayEndPoint(scheduler,10000);
+        endPoint.setGrowOutput(true);
+
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger framesWritten = new AtomicInteger();
+        final FrameFlusher flusher = new FrameFlusher(bufferPool,generator,endPoint,32 * 1024,8,scheduler,50)
+        {
+            @Override
+            protected void onWrite(int frames, long bytes)
+            {
+                writes.incrementAndGet();
+                framesWritten.addAndGet(frames);
+            }
+        };
+
+        final CountDownLatch sent = new CountDownLatch(threads * framesPerThread);
+        final WriteCallback callback = new WriteCallback()
+        {
+            @Override
+            public void writeSuccess()
+            {
+                sent.countDown();
+            }
+
+            @Override
+            public void writeFailed(Throwable x)
+            {
+            }
+        };
+
+        for (int t = 0; t < threads; t++)
+        {
+            final int producer = t;
+            new Thread(() ->
+            {
+                for (int i = 0; i < framesPerThread; i++)
+                    flusher.enqueue(new TextFrame().setPayload("msg " + producer + "/" + i),callback,BatchMode.AUTO);
+            }).start();
+        }
+
+        Assert.assertTrue(sent.await(5,TimeUnit.SECONDS));
+
+        // Wait for the delayed flush.
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (framesWritten.get() < threads * framesPerThread && System.nanoTime() < end)
+            Thread.sleep(10);
+
+        Assert.assertThat("frames written",framesWritten.get(),is(threads * framesPerThread));
+        Assert.assertThat("writes",writes.get(),lessThan(threads * framesPerThread / 4));
+
+        Parser parser = new UnitParser(WebSocketPolicy.newClientPolicy());
+        IncomingFramesCapture capture = new IncomingFramesCapture();
+        parser.setIncomingFramesHandler(capture);
+        parser.parse(endPoint.takeOutput());
+        capture.assertNoErrors();
+        capture.assertHasFrame(OpCode.TEXT,threads * framesPerThread);
+    }
+}
@@ -236,6 +236,11 @@ public class LocalWebSocketConnection implements LogicalConnection, IncomingFram
         return null;
     }
 
+    @Override
+    public void demand(long frames)
+    {
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,182 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.common.io;
+
+import static org.hamcrest.Matchers.is;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.eclipse.jetty.websocket.api.extensions.IncomingFrames;
+import org.eclipse.jetty.websocket.common.WebSocketFrame;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
+import org.eclipse.jetty.websocket.common.test.IncomingFramesCapture;
+import org.eclipse.jetty.websocket.common.test.UnitGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReadDemandTest
+{
+    private static class DemandConnection extends AbstractWebSocketConnection
+    {
+        public DemandConnection(ByteArrayEndPoint endp, ByteBufferPool bufferPool)
+        {
+            // Run resumed reads in the calling thread, to keep the test deterministic
+            super(endp,Runnable::run,null,WebSocketPolicy.newServerPolicy(),bufferPool);
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress()
+        {
+            return getEndPoint().getLocalAddress();
+        }
+
+        @Override
+        public void setNextIncomingFrames(IncomingFrames incoming)
+        {
+            getParser().setIncomingFramesHandler(incoming);
+        }
+    }
+
+    private ByteBufferPool bufferPool = new MappedByteBufferPool();
+
+    private ByteBuffer textFrames(int from, int count)
+    {
+        List<WebSocketFrame> frames = new ArrayList<>();
+        for (int i = from; i < from + count; i++)
+            frames.add(new TextFrame().setPayload("frame-" + i));
+        return UnitGenerator.generate(frames);
+    }
+
+    @Test
+    public void testReadsOnlyDemandedFrames() throws Exception
+    {
+        ByteArrayEndPoint endp = new ByteArrayEndPoint();
+        DemandConnection connection = new DemandConnection(endp,bufferPool);
+        IncomingFramesCapture capture = new IncomingFramesCapture();
+        connection.setNextIncomingFrames(capture);
+
+        connection.demand(1);
+        connection.fillInterested();
+
+        // All three frames are read at once, but only the demanded one is delivered
+        endp.addInput(textFrames(0,3));
+        Assert.assertThat("first demand",capture.size(),is(1));
+
+        // No more network reads while the demand is exhausted
+        endp.addInput(textFrames(3,1));
+        Assert.assertThat("no demand",capture.size(),is(1));
+        Assert.assertThat("stalled",connection.isReading(),is(false));
+
+        // The frames already read are delivered first
+        connection.demand(2);
+        Assert.assertThat("second demand",capture.size(),is(3));
+
+        // Then reading resumes from the network
+        connection.demand(1);
+        Assert.assertThat("third demand",capture.size(),is(4));
+
+        connection.demand(5);
+        endp.addInput(textFrames(4,1));
+        Assert.assertThat("fourth demand",capture.size(),is(5));
+
+        capture.assertNoErrors();
+        int i = 0;
+        for (WebSocketFrame frame : capture.getFrames())
+            Assert.assertThat(frame.getPayloadAsUTF8(),is("frame-" + i++));
+    }
+
+    @Test
+    public void testDemandFromFrameCallback() throws Exception
+    {
+        ByteArrayEndPoint endp = new ByteArrayEndPoint();
+        DemandConnection connection = new DemandConnection(endp,bufferPool);
+        IncomingFramesCapture capture = new IncomingFramesCapture()
+        {
+            @Override
+            public void incomingFrame(Frame frame)
+            {
+                super.incomingFrame(frame);
+                // Demand one more frame for each frame handled
+                connection.demand(1);
+            }
+        };
+        connection.setNextIncomingFrames(capture);
+
+        connection.demand(1);
+        connection.fillInterested();
+        endp.addInput(textFrames(0,10));
+        Assert.assertThat(capture.size(),is(10));
+        capture.assertNoErrors();
+    }
+
+    @Test
+    public void testDemandFromOtherThread() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            ByteArrayEndPoint endp = new ByteArrayEndPoint();
+            DemandConnection connection = new DemandConnection(endp,bufferPool);
+            IncomingFramesCapture capture = new IncomingFramesCapture()
+            {
+                @Override
+                public void incomingFrame(Frame frame)
+                {
+                    super.incomingFrame(frame);
+                    // Demand from another thread while the reading thread may be stalling
+                    executor.execute(() -> connection.demand(1));
+                }
+            };
+            connection.setNextIncomingFrames(capture);
+
+            connection.demand(1);
+            connection.fillInterested();
+            int count = 2000;
+            endp.addInput(textFrames(0,count));
+
+            // All the frames are delivered without more bytes from the network
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (capture.size() < count && System.nanoTime() < end)
+                Thread.sleep(10);
+            Assert.assertThat(capture.size(),is(count));
+            capture.assertNoErrors();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDemand() throws Exception
+    {
+        new DemandConnection(new ByteArrayEndPoint(),bufferPool).demand(0);
+    }
+}
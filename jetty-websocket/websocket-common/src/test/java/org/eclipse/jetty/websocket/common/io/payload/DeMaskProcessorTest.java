@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.is;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Random;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.TypeUtil;
@@ -106,4 +107,40 @@ public class DeMaskProcessorTest
             Assert.assertThat("payload[" + i + "]",payload.get(i),is(msgChar));
         }
     }
+
+    @Test
+    public void testDeMaskLongWordsAtAnyOffset()
+    {
+        byte mask[] = Hex.asByteArray("A1B2C3D4");
+        Random random = new Random(42);
+
+        for (int length = 0; length <= 40; length++)
+        {
+            byte message[] = new byte[length];
+            random.nextBytes(message);
+            byte masked[] = new byte[length];
+            for (int i = 0; i < length; i++)
+                masked[i] = (byte)(message[i] ^ mask[i & 3]);
+
+            for (int split = 0; split <= length; split++)
+            {
+                for (boolean direct : new boolean[]{false,true})
+                {
+                    ByteBuffer payload = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+                    payload.put(masked).flip();
+
+                    DeMaskProcessor demask = new DeMaskProcessor();
+                    demask.reset(mask);
+                    ByteBuffer slice1 = payload.slice();
+                    slice1.limit(split);
+                    ByteBuffer slice2 = payload.slice();
+                    slice2.position(split);
+                    demask.process(slice1);
+                    demask.process(slice2);
+
+                    Assert.assertThat("length=" + length + ",split=" + split + ",direct=" + direct,BufferUtil.toArray(payload),is(message));
+                }
+            }
+        }
+    }
 }
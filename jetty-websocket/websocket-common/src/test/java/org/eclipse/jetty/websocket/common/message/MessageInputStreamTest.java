@@ -28,6 +28,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.LeakTrackingByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
 import org.eclipse.jetty.util.BufferUtil;
 import org.junit.Assert;
@@ -231,4 +232,124 @@ public class MessageInputStreamTest
             Assert.assertThat("Message",message,is("Hello World"));
         }
     }
+
+    @Test(timeout=10000)
+    public void testPooledBuffersReleased() throws IOException
+    {
+        LeakTrackingByteBufferPool pool = new LeakTrackingByteBufferPool(bufferPool);
+        try (MessageInputStream stream = new MessageInputStream(pool))
+        {
+            stream.appendFrame(BufferUtil.toBuffer("Hello ",StandardCharsets.UTF_8),false);
+            stream.appendFrame(BufferUtil.toBuffer("World",StandardCharsets.UTF_8),true);
+
+            // Read entire message it from the stream.
+            byte buf[] = new byte[32];
+            int len = stream.read(buf);
+            String message = new String(buf,0,len,StandardCharsets.UTF_8);
+
+            Assert.assertThat("Message",message,is("Hello World"));
+            Assert.assertThat("EOF",stream.read(),is(-1));
+        }
+        Assert.assertThat("Leaked Acquires",pool.getLeakedAcquires(),is(0L));
+        Assert.assertThat("Leaked Releases",pool.getLeakedReleases(),is(0L));
+        Assert.assertThat("Leaked Resources",pool.getLeakedResources(),is(0L));
+    }
+
+    @Test(timeout=10000)
+    public void testPooledBuffersReleasedOnClose() throws IOException
+    {
+        LeakTrackingByteBufferPool pool = new LeakTrackingByteBufferPool(bufferPool);
+        try (MessageInputStream stream = new MessageInputStream(pool))
+        {
+            stream.appendFrame(BufferUtil.toBuffer("Hello ",StandardCharsets.UTF_8),false);
+            stream.appendFrame(BufferUtil.toBuffer("World",StandardCharsets.UTF_8),false);
+
+            // Only consume part of the message before closing.
+            Assert.assertThat("Initial byte",stream.read(),is((int)'H'));
+        }
+        Assert.assertThat("Leaked Acquires",pool.getLeakedAcquires(),is(0L));
+        Assert.assertThat("Leaked Releases",pool.getLeakedReleases(),is(0L));
+        Assert.assertThat("Leaked Resources",pool.getLeakedResources(),is(0L));
+    }
+
+    @Test(timeout=10000)
+    public void testCloseWhileBlockedOnRead() throws Exception
+    {
+        LeakTrackingByteBufferPool pool = new LeakTrackingByteBufferPool(bufferPool);
+        try (MessageInputStream stream = new MessageInputStream(pool))
+        {
+            stream.appendFrame(BufferUtil.toBuffer("Hello",StandardCharsets.UTF_8),false);
+
+            final AtomicBoolean hadError = new AtomicBoolean(false);
+            final CountDownLatch readLatch = new CountDownLatch(1);
+
+            // Close the stream from another thread, while the reading thread waits for more frames.
+            new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        readLatch.await();
+                        TimeUnit.MILLISECONDS.sleep(200);
+                        stream.close();
+                    }
+                    catch (IOException | InterruptedException e)
+                    {
+                        hadError.set(true);
+                        e.printStackTrace(System.err);
+                    }
+                }
+            }).start();
+
+            byte buf[] = new byte[5];
+            Assert.assertThat("Read",stream.read(buf),is(5));
+            readLatch.countDown();
+
+            // Blocks until the stream is closed.
+            Assert.assertThat("EOF",stream.read(),is(-1));
+            Assert.assertThat("Error when closing",hadError.get(),is(false));
+        }
+        Assert.assertThat("Leaked Resources",pool.getLeakedResources(),is(0L));
+    }
+
+    @Test(timeout=10000)
+    public void testCloseRacingFirstRead() throws Exception
+    {
+        LeakTrackingByteBufferPool pool = new LeakTrackingByteBufferPool(bufferPool);
+        for (int i = 0; i < 100; i++)
+        {
+            final MessageInputStream stream = new MessageInputStream(pool);
+            for (int f = 0; f < 10; f++)
+                stream.appendFrame(BufferUtil.toBuffer("Hello",StandardCharsets.UTF_8),false);
+
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            // Read until EOF from another thread, while the stream is closed.
+            Thread reader = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        startLatch.await();
+                        while (stream.read() >= 0)
+                            Thread.yield();
+                    }
+                    catch (IOException | InterruptedException e)
+                    {
+                        e.printStackTrace(System.err);
+                    }
+                }
+            });
+            reader.start();
+
+            startLatch.countDown();
+            stream.close();
+            reader.join();
+        }
+        Assert.assertThat("Leaked Releases",pool.getLeakedReleases(),is(0L));
+        Assert.assertThat("Leaked Resources",pool.getLeakedResources(),is(0L));
+    }
 }
@@ -154,4 +154,9 @@ public class DummyConnection implements LogicalConnection
     {
         return null;
     }
+
+    @Override
+    public void demand(long frames)
+    {
+    }
 }
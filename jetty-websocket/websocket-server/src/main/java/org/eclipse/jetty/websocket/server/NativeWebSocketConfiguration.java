@@ -116,6 +116,7 @@ public class NativeWebSocketConfiguration extends ContainerLifeCycle implements
             wsCreator = new PersistedWebSocketCreator(creator);
         }
         mappings.put(pathSpec, wsCreator);
+        factory.getStatistics().addPathSpec(pathSpec);
     }
     
     /**
@@ -152,6 +153,7 @@ public class NativeWebSocketConfiguration extends ContainerLifeCycle implements
      */
     public void addMapping(PathSpec pathSpec, final Class<?> endpointClass)
     {
+        factory.getStatistics().addPathSpec(pathSpec);
         mappings.put(pathSpec, (req, resp) ->
         {
             try
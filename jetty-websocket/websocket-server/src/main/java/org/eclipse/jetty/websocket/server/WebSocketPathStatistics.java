@@ -0,0 +1,324 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.server;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.websocket.api.extensions.Extension;
+import org.eclipse.jetty.websocket.common.CloseInfo;
+import org.eclipse.jetty.websocket.common.LogicalConnection;
+import org.eclipse.jetty.websocket.common.WebSocketSession;
+import org.eclipse.jetty.websocket.common.extensions.ExtensionStack;
+import org.eclipse.jetty.websocket.common.extensions.compress.CompressExtension;
+import org.eclipse.jetty.websocket.common.io.AbstractWebSocketConnection;
+
+/**
+ * Statistics of the websocket sessions of a path spec.
+ * <p>
+ * The traffic totals are running aggregates of the sessions closed since
+ * the last reset: the values of a session are added when it is closed, so
+ * that reading the totals does not walk the open sessions. The values of
+ * an open session are available from the session itself.
+ */
+@ManagedObject("WebSocket statistics of a path spec")
+public class WebSocketPathStatistics
+{
+    private final String pathSpec;
+    private final Set<WebSocketSession> openSessions = ConcurrentHashMap.newKeySet();
+    private final CounterStatistic sessions = new CounterStatistic();
+    private final SampleStatistic sessionsDuration = new SampleStatistic();
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder wireBytesIn = new LongAdder();
+    private final LongAdder wireBytesOut = new LongAdder();
+    private final LongAdder framesIn = new LongAdder();
+    private final LongAdder incomingNanos = new LongAdder();
+    private final AtomicLong incomingMaxNanos = new AtomicLong();
+    private final LongAdder compressInput = new LongAdder();
+    private final LongAdder compressOutput = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressInput = new LongAdder();
+    private final LongAdder decompressOutput = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+    private final Map<Integer, LongAdder> closeCodes = new ConcurrentHashMap<>();
+
+    public WebSocketPathStatistics(String pathSpec)
+    {
+        this.pathSpec = pathSpec;
+    }
+
+    @ManagedAttribute("The path spec")
+    public String getPathSpec()
+    {
+        return pathSpec;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        sessions.reset(openSessions.size());
+        sessionsDuration.reset();
+        messagesIn.reset();
+        messagesOut.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        wireBytesIn.reset();
+        wireBytesOut.reset();
+        framesIn.reset();
+        incomingNanos.reset();
+        incomingMaxNanos.set(0);
+        compressInput.reset();
+        compressOutput.reset();
+        compressNanos.reset();
+        decompressInput.reset();
+        decompressOutput.reset();
+        decompressNanos.reset();
+        closeCodes.clear();
+    }
+
+    void onOpened(WebSocketSession session)
+    {
+        openSessions.add(session);
+        sessions.increment();
+    }
+
+    void onClosed(WebSocketSession session)
+    {
+        if (!openSessions.remove(session))
+            return;
+        sessions.decrement();
+        addClosed(session);
+
+        LogicalConnection connection = session.getConnection();
+        if (connection instanceof Connection)
+            sessionsDuration.set(System.currentTimeMillis() - ((Connection)connection).getCreatedTimeStamp());
+        CloseInfo close = connection.getIOState().getCloseInfo();
+        if (close != null)
+            closeCodes.computeIfAbsent(close.getStatusCode(),code -> new LongAdder()).increment();
+    }
+
+    private void addClosed(WebSocketSession session)
+    {
+        messagesIn.add(session.getMessagesIn());
+        messagesOut.add(session.getMessagesOut());
+        bytesIn.add(session.getBytesIn());
+        bytesOut.add(session.getBytesOut());
+        wireBytesIn.add(wireBytesIn(session));
+        wireBytesOut.add(wireBytesOut(session));
+        framesIn.add(session.getFramesIn());
+        incomingNanos.add(session.getIncomingNanos());
+        incomingMaxNanos.accumulateAndGet(session.getIncomingMaxNanos(),Math::max);
+        compressInput.add(compress(session,CompressExtension::getCompressInputBytes));
+        compressOutput.add(compress(session,CompressExtension::getCompressOutputBytes));
+        compressNanos.add(compress(session,CompressExtension::getCompressNanos));
+        decompressInput.add(compress(session,CompressExtension::getDecompressInputBytes));
+        decompressOutput.add(compress(session,CompressExtension::getDecompressOutputBytes));
+        decompressNanos.add(compress(session,CompressExtension::getDecompressNanos));
+    }
+
+    private static long wireBytesIn(WebSocketSession session)
+    {
+        LogicalConnection connection = session.getConnection();
+        return connection instanceof Connection ? Math.max(0,((Connection)connection).getBytesIn()) : 0;
+    }
+
+    private static long wireBytesOut(WebSocketSession session)
+    {
+        LogicalConnection connection = session.getConnection();
+        return connection instanceof Connection ? Math.max(0,((Connection)connection).getBytesOut()) : 0;
+    }
+
+    private static long compress(WebSocketSession session, ToLongFunction<CompressExtension> statistic)
+    {
+        long total = 0;
+        if (session.getOutgoingHandler() instanceof ExtensionStack)
+        {
+            for (Extension extension : ((ExtensionStack)session.getOutgoingHandler()).getExtensions())
+            {
+                if (extension instanceof CompressExtension)
+                    total += statistic.applyAsLong((CompressExtension)extension);
+            }
+        }
+        return total;
+    }
+
+    @ManagedAttribute("The current number of open sessions")
+    public long getSessions()
+    {
+        return sessions.getCurrent();
+    }
+
+    @ManagedAttribute("The max number of open sessions")
+    public long getSessionsMax()
+    {
+        return sessions.getMax();
+    }
+
+    @ManagedAttribute("The total number of sessions opened")
+    public long getSessionsTotal()
+    {
+        return sessions.getTotal();
+    }
+
+    @ManagedAttribute("The mean duration of a session in ms")
+    public double getSessionDurationMean()
+    {
+        return sessionsDuration.getMean();
+    }
+
+    @ManagedAttribute("The max duration of a session in ms")
+    public long getSessionDurationMax()
+    {
+        return sessionsDuration.getMax();
+    }
+
+    @ManagedAttribute("The number of messages received by the closed sessions")
+    public long getReceivedMessages()
+    {
+        return messagesIn.sum();
+    }
+
+    @ManagedAttribute("The number of messages sent by the closed sessions")
+    public long getSentMessages()
+    {
+        return messagesOut.sum();
+    }
+
+    @ManagedAttribute("The payload bytes received by the closed sessions, as read from the network")
+    public long getReceivedBytes()
+    {
+        return bytesIn.sum();
+    }
+
+    @ManagedAttribute("The payload bytes sent by the closed sessions, before compression")
+    public long getSentBytes()
+    {
+        return bytesOut.sum();
+    }
+
+    @ManagedAttribute("The bytes read from the network by the closed sessions, including framing")
+    public long getReceivedWireBytes()
+    {
+        return wireBytesIn.sum();
+    }
+
+    @ManagedAttribute("The bytes written to the network by the closed sessions, including framing")
+    public long getSentWireBytes()
+    {
+        return wireBytesOut.sum();
+    }
+
+    @ManagedAttribute("The mean time spent handling a received frame, in ns")
+    public long getIncomingFrameNanosMean()
+    {
+        long frames = framesIn.sum();
+        return frames == 0 ? 0 : incomingNanos.sum() / frames;
+    }
+
+    @ManagedAttribute("The max time spent handling a received frame, in ns")
+    public long getIncomingFrameNanosMax()
+    {
+        return incomingMaxNanos.get();
+    }
+
+    @ManagedAttribute("The number of frames queued for sending by the open sessions")
+    public long getOutgoingQueuedFrames()
+    {
+        long frames = 0;
+        for (WebSocketSession session : openSessions)
+            frames += getOutgoingQueuedFrames(session);
+        return frames;
+    }
+
+    @ManagedAttribute("The max number of frames queued for sending by an open session")
+    public long getOutgoingQueuedFramesMax()
+    {
+        long max = 0;
+        for (WebSocketSession session : openSessions)
+            max = Math.max(max,getOutgoingQueuedFrames(session));
+        return max;
+    }
+
+    private static long getOutgoingQueuedFrames(WebSocketSession session)
+    {
+        long frames = 0;
+        if (session.getOutgoingHandler() instanceof ExtensionStack)
+            frames += ((ExtensionStack)session.getOutgoingHandler()).getQueuedFrames();
+        if (session.getConnection() instanceof AbstractWebSocketConnection)
+            frames += ((AbstractWebSocketConnection)session.getConnection()).getOutgoingQueueSize();
+        return frames;
+    }
+
+    @ManagedAttribute("The ratio of compressed to uncompressed bytes sent")
+    public double getCompressRatio()
+    {
+        long input = compressInput.sum();
+        long output = compressOutput.sum();
+        return input == 0 ? 0.0 : (double)output / input;
+    }
+
+    @ManagedAttribute("The time spent compressing, in ms")
+    public long getCompressTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(compressNanos.sum());
+    }
+
+    @ManagedAttribute("The ratio of compressed to uncompressed bytes received")
+    public double getDecompressRatio()
+    {
+        long input = decompressInput.sum();
+        long output = decompressOutput.sum();
+        return output == 0 ? 0.0 : (double)input / output;
+    }
+
+    @ManagedAttribute("The time spent decompressing, in ms")
+    public long getDecompressTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(decompressNanos.sum());
+    }
+
+    @ManagedAttribute("The number of closed sessions per close status code")
+    public Map<Integer, Long> getCloseCodes()
+    {
+        Map<Integer, Long> codes = new TreeMap<>();
+        closeCodes.forEach((code,count) -> codes.put(code,count.sum()));
+        return codes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s,sessions=%d]",getClass().getSimpleName(),hashCode(),pathSpec,getSessions());
+    }
+}
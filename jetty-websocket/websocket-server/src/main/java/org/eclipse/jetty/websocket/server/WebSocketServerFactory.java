@@ -21,6 +21,7 @@ package org.eclipse.jetty.websocket.server;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -59,8 +60,10 @@ import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.websocket.api.InvalidWebSocketException;
 import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.extensions.ExtensionFactory;
 import org.eclipse.jetty.websocket.api.util.QuoteUtil;
+import org.eclipse.jetty.websocket.common.BroadcastMessage;
 import org.eclipse.jetty.websocket.common.LogicalConnection;
 import org.eclipse.jetty.websocket.common.SessionFactory;
 import org.eclipse.jetty.websocket.common.WebSocketSession;
@@ -96,6 +99,7 @@ public class WebSocketServerFactory extends ContainerLifeCycle implements WebSoc
     private final ServletContext context; // can be null when this factory is used from WebSocketHandler
     private final List<SessionFactory> sessionFactories = new ArrayList<>();
     private final List<Class<?>> registeredSocketClasses = new ArrayList<>();
+    private final WebSocketStatistics statistics = new WebSocketStatistics();
     private Executor executor;
     private DecoratedObjectFactory objectFactory;
     private WebSocketCreator creator;
@@ -174,6 +178,10 @@ public class WebSocketServerFactory extends ContainerLifeCycle implements WebSoc
         
         addBean(scheduler);
         addBean(bufferPool);
+        addBean(extensionFactory.getDeflaterPool());
+        addBean(extensionFactory.getInflaterPool());
+        addBean(statistics);
+        listeners.add(statistics);
     }
     
     public void addSessionListener(WebSocketSession.Listener listener)
@@ -363,11 +371,45 @@ public class WebSocketServerFactory extends ContainerLifeCycle implements WebSoc
         return getBeans(WebSocketSession.class);
     }
     
+    /**
+     * Send a TEXT message to all open sessions, encoding it once.
+     * 
+     * @param text the message
+     * @param callback the callback notified of the result of each send, may be null
+     * @return the number of sessions the message was sent to
+     * @see BroadcastMessage
+     */
+    public int broadcast(String text, WriteCallback callback)
+    {
+        return new BroadcastMessage(text).broadcast(getOpenSessions(), callback);
+    }
+    
+    /**
+     * Send a BINARY message to all open sessions, encoding it once.
+     * 
+     * @param data the message, which is not consumed
+     * @param callback the callback notified of the result of each send, may be null
+     * @return the number of sessions the message was sent to
+     * @see BroadcastMessage
+     */
+    public int broadcast(ByteBuffer data, WriteCallback callback)
+    {
+        return new BroadcastMessage(data).broadcast(getOpenSessions(), callback);
+    }
+    
     @Override
     public WebSocketPolicy getPolicy()
     {
         return defaultPolicy;
     }
+
+    /**
+     * @return the statistics of the sessions created by this factory
+     */
+    public WebSocketStatistics getStatistics()
+    {
+        return statistics;
+    }
     
     @Override
     public SslContextFactory getSslContextFactory()
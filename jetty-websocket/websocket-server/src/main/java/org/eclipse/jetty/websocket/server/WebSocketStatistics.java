@@ -0,0 +1,132 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.http.pathmap.PathMappings;
+import org.eclipse.jetty.http.pathmap.PathSpec;
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.eclipse.jetty.websocket.common.WebSocketSession;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
+
+/**
+ * A {@link WebSocketSession.Listener} that tracks the statistics of the websocket
+ * sessions of a {@link WebSocketServerFactory}, aggregated per path spec.
+ * <p>
+ * Sessions are aggregated under the most specific of the path specs added with
+ * {@link #addPathSpec(PathSpec)}, as matched by {@link PathMappings}, or under
+ * the default {@code "/"} path spec.
+ */
+@ManagedObject("WebSocket session statistics per path spec")
+public class WebSocketStatistics extends ContainerLifeCycle implements WebSocketSession.Listener
+{
+    private final PathMappings<WebSocketPathStatistics> mappings = new PathMappings<>();
+    private final Map<WebSocketSession, WebSocketPathStatistics> sessions = new ConcurrentHashMap<>();
+
+    public WebSocketStatistics()
+    {
+        addPathSpec(new ServletPathSpec("/"));
+    }
+
+    /**
+     * Aggregate the statistics of the sessions whose path matches the path spec.
+     *
+     * @param pathSpec the path spec
+     * @return the statistics of the path spec
+     */
+    public synchronized WebSocketPathStatistics addPathSpec(PathSpec pathSpec)
+    {
+        WebSocketPathStatistics statistics = mappings.get(pathSpec);
+        if (statistics == null)
+        {
+            statistics = new WebSocketPathStatistics(pathSpec.getDeclaration());
+            mappings.put(pathSpec,statistics);
+            addBean(statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * @param path the path of a websocket request, relative to the context
+     * @return the statistics the sessions of the path are aggregated under
+     */
+    public synchronized WebSocketPathStatistics getPathStatistics(String path)
+    {
+        MappedResource<WebSocketPathStatistics> mapped = mappings.getMatch(path);
+        return mapped == null ? null : mapped.getResource();
+    }
+
+    @ManagedAttribute("The statistics per path spec")
+    public synchronized List<WebSocketPathStatistics> getPathStatistics()
+    {
+        List<WebSocketPathStatistics> statistics = new ArrayList<>();
+        for (MappedResource<WebSocketPathStatistics> mapped : mappings)
+            statistics.add(mapped.getResource());
+        return statistics;
+    }
+
+    @ManagedAttribute("The current number of open sessions")
+    public long getSessions()
+    {
+        return sessions.size();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        for (WebSocketPathStatistics statistics : getPathStatistics())
+            statistics.reset();
+    }
+
+    @Override
+    public void onOpened(WebSocketSession session)
+    {
+        WebSocketPathStatistics statistics = getPathStatistics(getPath(session));
+        if (statistics == null)
+            return;
+        sessions.put(session,statistics);
+        statistics.onOpened(session);
+    }
+
+    @Override
+    public void onClosed(WebSocketSession session)
+    {
+        WebSocketPathStatistics statistics = sessions.remove(session);
+        if (statistics != null)
+            statistics.onClosed(session);
+    }
+
+    private static String getPath(WebSocketSession session)
+    {
+        UpgradeRequest request = session.getUpgradeRequest();
+        if (request instanceof ServletUpgradeRequest)
+            return ((ServletUpgradeRequest)request).getRequestPath();
+        return session.getRequestURI().getPath();
+    }
+}
@@ -357,6 +357,24 @@ public class WebSocketUpgradeFilter implements Filter, MappedWebSocketCreator, D
                 getFactory().getPolicy().setInputBufferSize(Integer.parseInt(max));
             }
             
+            max = config.getInitParameter("outputBufferSize");
+            if (max != null)
+            {
+                getFactory().getPolicy().setOutputBufferSize(Integer.parseInt(max));
+            }
+            
+            max = config.getInitParameter("maxFlushDelay");
+            if (max != null)
+            {
+                getFactory().getPolicy().setMaxFlushDelay(Long.parseLong(max));
+            }
+            
+            max = config.getInitParameter("hibernateTimeout");
+            if (max != null)
+            {
+                getFactory().getPolicy().setHibernateTimeout(Long.parseLong(max));
+            }
+            
             instanceKey = config.getInitParameter(CONTEXT_ATTRIBUTE_KEY);
             if (instanceKey == null)
             {
@@ -0,0 +1,159 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.server;
+
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.Extension;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.eclipse.jetty.websocket.common.WebSocketSession;
+import org.eclipse.jetty.websocket.common.extensions.ExtensionStack;
+import org.eclipse.jetty.websocket.common.extensions.compress.PerMessageDeflateExtension;
+import org.eclipse.jetty.websocket.common.util.Sha1Sum;
+import org.eclipse.jetty.websocket.server.helper.CaptureSocket;
+import org.eclipse.jetty.websocket.server.helper.EchoServlet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test sending a message to sessions with different extensions, encoding it once.
+ */
+public class BroadcastTest
+{
+    private SimpleServletServer server;
+    private WebSocketClient client;
+
+    @Before
+    public void startServer() throws Exception
+    {
+        server = new SimpleServletServer(new EchoServlet());
+        server.start();
+        client = new WebSocketClient();
+        client.start();
+    }
+
+    @After
+    public void stopServer() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    private CaptureSocket connect(String extensions) throws Exception
+    {
+        CaptureSocket socket = new CaptureSocket();
+        ClientUpgradeRequest request = new ClientUpgradeRequest();
+        if (extensions != null)
+            request.addExtensions(extensions);
+        request.setSubProtocols("echo");
+        client.connect(socket,server.getServerUri(),request).get(5,TimeUnit.SECONDS);
+        return socket;
+    }
+
+    @Test
+    public void testBroadcast() throws Exception
+    {
+        List<CaptureSocket> sockets = new ArrayList<>();
+        sockets.add(connect(null));
+        sockets.add(connect(null));
+        // Compressed once, shared
+        sockets.add(connect("permessage-deflate; client_no_context_takeover"));
+        sockets.add(connect("permessage-deflate; client_no_context_takeover"));
+        // Compressed for each session
+        sockets.add(connect("permessage-deflate"));
+
+        WebSocketServerFactory factory = (WebSocketServerFactory)server.getWebSocketServletFactory();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (factory.getOpenSessions().size() < sockets.size() && System.nanoTime() < end)
+            Thread.sleep(10);
+
+        // Exactly one server session keeps its outgoing compression context
+        int contextTakeover = 0;
+        for (WebSocketSession session : factory.getOpenSessions())
+        {
+            for (Extension extension : ((ExtensionStack)session.getOutgoingHandler()).getExtensions())
+            {
+                if (extension instanceof PerMessageDeflateExtension && ((PerMessageDeflateExtension)extension).isOutgoingContextTakeover())
+                    contextTakeover++;
+            }
+        }
+        Assert.assertThat("Sessions with context takeover",contextTakeover,is(1));
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            text.append("score ").append(i).append(" - ").append(i * 7).append('\n');
+
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch written = new CountDownLatch(sockets.size() * 2);
+        WriteCallback callback = new WriteCallback()
+        {
+            @Override
+            public void writeSuccess()
+            {
+                written.countDown();
+            }
+
+            @Override
+            public void writeFailed(Throwable x)
+            {
+                failures.incrementAndGet();
+                written.countDown();
+            }
+        };
+
+        // Twice, to check the compression context of the sessions that keep it
+        Assert.assertThat(factory.broadcast(text.toString(),callback),is(sockets.size()));
+        Assert.assertThat(factory.broadcast(text.toString(),callback),is(sockets.size()));
+        Assert.assertTrue(written.await(5,TimeUnit.SECONDS));
+        Assert.assertThat(failures.get(),is(0));
+
+        // Including the session with context takeover, whose payload is larger
+        // than the chunks its Deflater is supplied with
+        for (CaptureSocket socket : sockets)
+        {
+            socket.messages.awaitEventCount(2,5,TimeUnit.SECONDS);
+            Assert.assertThat(socket.messages.poll(),is(text.toString()));
+            Assert.assertThat(socket.messages.poll(),is(text.toString()));
+        }
+
+        byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        Assert.assertThat(factory.broadcast(buffer,null),is(sockets.size()));
+        Assert.assertThat("not consumed",buffer.remaining(),is(data.length));
+
+        String sha1 = Sha1Sum.calculate(data);
+        for (CaptureSocket socket : sockets)
+        {
+            socket.messages.awaitEventCount(1,5,TimeUnit.SECONDS);
+            Assert.assertThat(socket.messages.poll(),is("binary[sha1=" + sha1 + "]"));
+        }
+    }
+}
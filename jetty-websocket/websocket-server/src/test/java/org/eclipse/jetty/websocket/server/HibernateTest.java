@@ -0,0 +1,113 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.server;
+
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.eclipse.jetty.websocket.common.extensions.WebSocketExtensionFactory;
+import org.eclipse.jetty.websocket.common.extensions.compress.DeflaterPool;
+import org.eclipse.jetty.websocket.server.helper.CaptureSocket;
+import org.eclipse.jetty.websocket.server.helper.EchoServlet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that idle connections release their compression state, and measure
+ * the native memory held per idle connection before and after hibernation.
+ */
+public class HibernateTest
+{
+    private static final int CONNECTIONS = 10;
+
+    private SimpleServletServer server;
+    private WebSocketClient client;
+
+    @Before
+    public void startServer() throws Exception
+    {
+        server = new SimpleServletServer(new EchoServlet());
+        server.start();
+        server.getWebSocketServletFactory().getPolicy().setHibernateTimeout(1000);
+        client = new WebSocketClient();
+        client.start();
+    }
+
+    @After
+    public void stopServer() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    private long bytesPerConnection(DeflaterPool pool)
+    {
+        // Deflaters idle in the pool are not held by any connection.
+        return (pool.getLiveCount() - pool.getIdleCount()) * DeflaterPool.NATIVE_MEMORY / CONNECTIONS;
+    }
+
+    private void echo(List<CaptureSocket> sockets, String message) throws Exception
+    {
+        for (CaptureSocket socket : sockets)
+            socket.getSession().getRemote().sendString(message);
+        for (CaptureSocket socket : sockets)
+        {
+            socket.messages.awaitEventCount(1,5,TimeUnit.SECONDS);
+            Assert.assertThat(socket.messages.poll(),is(message));
+        }
+    }
+
+    @Test
+    public void testHibernateReleasesDeflater() throws Exception
+    {
+        List<CaptureSocket> sockets = new ArrayList<>();
+        for (int i = 0; i < CONNECTIONS; i++)
+        {
+            CaptureSocket socket = new CaptureSocket();
+            ClientUpgradeRequest request = new ClientUpgradeRequest();
+            // Keep the compression context, so only hibernation can release it.
+            request.addExtensions("permessage-deflate");
+            request.setSubProtocols("echo");
+            client.connect(socket,server.getServerUri(),request).get(5,TimeUnit.SECONDS);
+            sockets.add(socket);
+        }
+
+        WebSocketServerFactory factory = (WebSocketServerFactory)server.getWebSocketServletFactory();
+        DeflaterPool pool = ((WebSocketExtensionFactory)factory.getExtensionFactory()).getDeflaterPool();
+
+        echo(sockets,"Hello hibernation");
+        Assert.assertThat("active",bytesPerConnection(pool),is(DeflaterPool.NATIVE_MEMORY));
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bytesPerConnection(pool) > 0 && System.nanoTime() < end)
+            Thread.sleep(50);
+        Assert.assertThat("hibernated",bytesPerConnection(pool),is(0L));
+
+        // The compression state is reacquired lazily, and the peer still inflates it.
+        echo(sockets,"Hello again");
+        Assert.assertThat("woken up",bytesPerConnection(pool),is(DeflaterPool.NATIVE_MEMORY));
+    }
+}
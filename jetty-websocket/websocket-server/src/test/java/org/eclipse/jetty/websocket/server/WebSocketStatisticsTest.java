@@ -0,0 +1,111 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.websocket.server;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.eclipse.jetty.websocket.server.helper.CaptureSocket;
+import org.eclipse.jetty.websocket.server.helper.EchoServlet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WebSocketStatisticsTest
+{
+    private SimpleServletServer server;
+    private WebSocketClient client;
+
+    @Before
+    public void startServer() throws Exception
+    {
+        server = new SimpleServletServer(new EchoServlet());
+        server.start();
+        client = new WebSocketClient();
+        client.start();
+    }
+
+    @After
+    public void stopServer() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    @Test
+    public void testSessionStatistics() throws Exception
+    {
+        WebSocketServerFactory factory = (WebSocketServerFactory)server.getWebSocketServletFactory();
+        WebSocketPathStatistics statistics = factory.getStatistics().getPathStatistics("/");
+
+        CaptureSocket socket = new CaptureSocket();
+        ClientUpgradeRequest request = new ClientUpgradeRequest();
+        request.addExtensions("permessage-deflate");
+        request.setSubProtocols("echo");
+        client.connect(socket,server.getServerUri(),request).get(5,TimeUnit.SECONDS);
+
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            message.append("Hello Statistics ");
+        for (int i = 0; i < 3; i++)
+            socket.getSession().getRemote().sendString(message.toString());
+        socket.messages.awaitEventCount(3,5,TimeUnit.SECONDS);
+
+        Assert.assertThat("open sessions",statistics.getSessions(),is(1L));
+        // The totals only include the closed sessions
+        Assert.assertThat("received messages",statistics.getReceivedMessages(),is(0L));
+
+        socket.getSession().close(StatusCode.NORMAL,"bye");
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (statistics.getSessions() > 0 && System.nanoTime() < end)
+            Thread.sleep(10);
+
+        // The closed session values are added to the totals
+        Assert.assertThat("open sessions",statistics.getSessions(),is(0L));
+        Assert.assertThat("total sessions",statistics.getSessionsTotal(),is(1L));
+        Assert.assertThat("received messages",statistics.getReceivedMessages(),is(3L));
+        Assert.assertThat("sent messages",statistics.getSentMessages(),is(3L));
+        Assert.assertThat("sent bytes",statistics.getSentBytes(),is(3L * message.length()));
+        Assert.assertThat("compress ratio",statistics.getCompressRatio(),lessThan(0.5));
+        Assert.assertThat("decompress ratio",statistics.getDecompressRatio(),lessThan(0.5));
+        Assert.assertThat("wire bytes",statistics.getReceivedWireBytes(),greaterThan(0L));
+        Assert.assertThat("close codes",statistics.getCloseCodes().get(StatusCode.NORMAL),is(1L));
+    }
+
+    @Test
+    public void testPathSpecAggregation() throws Exception
+    {
+        WebSocketStatistics statistics = new WebSocketStatistics();
+        WebSocketPathStatistics chat = statistics.addPathSpec(new ServletPathSpec("/chat/*"));
+        WebSocketPathStatistics defaults = statistics.getPathStatistics("/");
+
+        Assert.assertThat(statistics.getPathStatistics("/chat/room1"),is(chat));
+        Assert.assertThat(statistics.getPathStatistics("/echo"),is(defaults));
+        Assert.assertThat(statistics.addPathSpec(new ServletPathSpec("/chat/*")),is(chat));
+        Assert.assertThat(statistics.getPathStatistics().size(),is(2));
+    }
+}
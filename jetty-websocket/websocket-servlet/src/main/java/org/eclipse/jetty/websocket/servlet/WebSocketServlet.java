@@ -78,6 +78,15 @@ import org.eclipse.jetty.websocket.api.annotations.WebSocket;
  * 
  * <dt>inputBufferSize</dt>
  * <dd>set the size in bytes of the buffer used to read raw bytes from the network layer<br>
+ * 
+ * <dt>outputBufferSize</dt>
+ * <dd>set the size in bytes of the buffer used to aggregate outgoing frames before writing them to the network layer<br>
+ * 
+ * <dt>maxFlushDelay</dt>
+ * <dd>set the max time in ms that aggregated outgoing frames wait for more frames before being written<br>
+ * 
+ * <dt>hibernateTimeout</dt>
+ * <dd>set the time in ms that a websocket may be idle before releasing its compression state<br>
  * </dl>
  */
 @SuppressWarnings("serial")
@@ -133,6 +142,24 @@ public abstract class WebSocketServlet extends HttpServlet
             {
                 policy.setInputBufferSize(Integer.parseInt(max));
             }
+
+            max = getInitParameter("outputBufferSize");
+            if (max != null)
+            {
+                policy.setOutputBufferSize(Integer.parseInt(max));
+            }
+
+            max = getInitParameter("maxFlushDelay");
+            if (max != null)
+            {
+                policy.setMaxFlushDelay(Long.parseLong(max));
+            }
+
+            max = getInitParameter("hibernateTimeout");
+            if (max != null)
+            {
+                policy.setHibernateTimeout(Long.parseLong(max));
+            }
     
             ServletContext ctx = getServletContext();
             factory = WebSocketServletFactory.Loader.load(ctx, policy);
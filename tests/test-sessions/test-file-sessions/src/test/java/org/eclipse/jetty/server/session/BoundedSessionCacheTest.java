@@ -0,0 +1,143 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * BoundedSessionCacheTest
+ *
+ * Test that the least recently used sessions are evicted to the
+ * store when the cache exceeds its bounds, and reloaded on their next use.
+ */
+public class BoundedSessionCacheTest
+{
+    @Before
+    public void before() throws Exception
+    {
+       FileTestHelper.setup();
+    }
+    
+    @After 
+    public void after()
+    {
+       FileTestHelper.teardown();
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed () throws Exception
+    {
+        String contextPath = "";
+        String servletMapping = "/server";
+        BoundedSessionCacheFactory cacheFactory = new BoundedSessionCacheFactory();
+        cacheFactory.setEvictionPolicy(SessionCache.NEVER_EVICT);
+        cacheFactory.setMaxSessions(2);
+        SessionDataStoreFactory storeFactory = FileTestHelper.newSessionDataStoreFactory();
+        TestServer server1 = new TestServer(0, TestServer.DEFAULT_MAX_INACTIVE, TestServer.DEFAULT_SCAVENGE_SEC, cacheFactory, storeFactory);
+        ServletContextHandler context = server1.addContext(contextPath);
+        context.addServlet(TestServlet.class, servletMapping);
+        try
+        {
+            server1.start();
+            int port1 = server1.getPort();
+            BoundedSessionCache cache = (BoundedSessionCache)context.getSessionHandler().getSessionCache();
+            
+            HttpClient client = new HttpClient();
+            client.start();
+            
+            try
+            {
+                String url = "http://localhost:" + port1 + contextPath + servletMapping;
+                String[] cookies = new String[3];
+                for (int i=0; i<cookies.length; i++)
+                {
+                    ContentResponse response = client.GET(url + "?action=init");
+                    assertEquals(HttpServletResponse.SC_OK,response.getStatus());
+                    String sessionCookie = response.getHeaders().get("Set-Cookie");
+                    assertNotNull(sessionCookie);
+                    cookies[i] = sessionCookie.replaceFirst("(\\W)(P|p)ath=", "$1\\$Path=");
+                }
+                
+                //the least recently used session has been evicted to the store
+                assertEquals(2, cache.getSessionsCurrent());
+                assertEquals(1, cache.getSessionsEvicted());
+                assertTrue(cache.getSessionsSize() > 0);
+                String evictedId = TestServer.extractSessionId(cookies[0]);
+                assertTrue(!cache.contains(evictedId));
+                FileTestHelper.assertFileExists(evictedId, true);
+                
+                //using the evicted session reloads it, and evicts the next least recently used
+                Request request = client.newRequest(url + "?action=check");
+                request.header("Cookie", cookies[0]);
+                ContentResponse response = request.send();
+                assertEquals(HttpServletResponse.SC_OK,response.getStatus());
+                assertTrue(cache.contains(evictedId));
+                assertTrue(!cache.contains(TestServer.extractSessionId(cookies[1])));
+                assertEquals(2, cache.getSessionsCurrent());
+                assertEquals(2, cache.getSessionsEvicted());
+            }
+            finally
+            {
+                client.stop();
+            }
+        }
+        finally
+        {
+            server1.stop();
+        }
+    }
+    
+    public static class TestServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+        {
+            String action = request.getParameter("action");
+            if ("init".equals(action))
+            {
+                HttpSession session = request.getSession(true);
+                session.setAttribute("A", "A");
+            }
+            else if ("check".equals(action))
+            {
+                HttpSession session = request.getSession(false);
+                if (session == null || !"A".equals(session.getAttribute("A")))
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+}
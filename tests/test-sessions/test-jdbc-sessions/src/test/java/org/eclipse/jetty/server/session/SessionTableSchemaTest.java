@@ -240,4 +240,58 @@ public class SessionTableSchemaTest
         }
         
     }
+    
+    
+    @Test
+    public void testUpdateAccess()
+    throws Exception
+    {
+        //set up the db
+        _da.initialize();
+        _tableSchema.prepareTables();
+        
+        //insert a fake session at the root context
+        JdbcTestHelper.insertSession("1234", "/", "0.0.0.0");
+
+
+        try (Connection con = _da.getConnection())
+        {
+            ContextHandler handler  = new ContextHandler();
+            handler.setContextPath("/");
+            SessionContext sc = new SessionContext("0", handler.getServletContext());
+            
+            //write an attribute map
+            PreparedStatement s = _tableSchema.getUpdateStatement(con, "1234", sc);
+            s.setString(1, "0");
+            s.setLong(2, System.currentTimeMillis());
+            s.setLong(3, System.currentTimeMillis());
+            s.setLong(4, System.currentTimeMillis());
+            s.setLong(5, System.currentTimeMillis());
+            s.setLong(6, 2000L);
+            byte[] bytes = new byte[3];
+            s.setBinaryStream(7, new ByteArrayInputStream(bytes), bytes.length);
+            assertEquals(1, s.executeUpdate());
+            
+            s = _tableSchema.getUpdateSessionAccessStatement(con, 
+                                                             "1234",
+                                                             sc);
+
+            long now = System.currentTimeMillis() + 1000L;
+            s.setString(1, "0");//should be my node id
+            s.setLong(2, now);
+            s.setLong(3, now);
+            s.setLong(4, now);
+            s.setLong(5, now);
+            s.setLong(6, 2000L);
+
+            assertEquals(1, s.executeUpdate());
+            
+            //the attribute map is left unchanged
+            s = _tableSchema.getLoadStatement(con, "1234", sc);
+            ResultSet rs = s.executeQuery();
+            assertTrue(rs.next());
+            assertEquals(now, rs.getLong(JdbcTestHelper.ACCESS_COL));
+            assertEquals(bytes.length, rs.getBytes(JdbcTestHelper.MAP_COL).length);
+        }
+    }
 }
@@ -54,6 +54,16 @@ public class TestSessionDataStore extends AbstractSessionDataStore
         return _map.containsKey(id);
     }
 
+    /** 
+     * @see org.eclipse.jetty.server.session.SessionDataStore#getLastSaved(java.lang.String)
+     */
+    @Override
+    public long getLastSaved(String id) throws Exception
+    {
+        SessionData sd = _map.get(id);
+        return (sd == null ? 0 : sd.getLastSaved());
+    }
+
     /** 
      * @see org.eclipse.jetty.server.session.SessionDataMap#load(java.lang.String)
      */
@@ -0,0 +1,102 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * NearCacheTest
+ *
+ * Test that the data of an evicted session is reused if the store
+ * shows it has not been saved since, and reloaded otherwise.
+ */
+public class NearCacheTest
+{
+    @Test
+    public void testReuseUnlessSavedElsewhere() throws Exception
+    {
+        final AtomicInteger loads = new AtomicInteger();
+        TestSessionDataStore store = new TestSessionDataStore()
+        {
+            @Override
+            public SessionData load(String id) throws Exception
+            {
+                loads.incrementAndGet();
+                return super.load(id);
+            }
+        };
+        
+        SessionHandler handler = new SessionHandler();
+        NullSessionCache cache = new NullSessionCache(handler);
+        handler.setSessionCache(cache);
+        cache.setSessionDataStore(store);
+        cache.setNearCacheSize(10);
+        cache.initialize(new SessionContext("0", null));
+        cache.start();
+        try
+        {
+            long now = System.currentTimeMillis();
+            SessionData data = store.newSessionData("1234", now, now, now, -1);
+            data.setAttribute("a", "a");
+            
+            //save and evict on exit, the data is kept
+            cache.put("1234", cache.newSession(data));
+            assertNotNull(store._map.get("1234"));
+            
+            //not saved since: reused without a load
+            Session session = cache.get("1234");
+            assertNotNull(session);
+            assertSame(data, session.getSessionData());
+            assertEquals(0, loads.get());
+            assertEquals(1, cache.getNearCacheHits());
+            
+            cache.put("1234", session);
+            
+            //saved by another node: reloaded
+            SessionData other = store.newSessionData("1234", now, now, now, -1);
+            other.copy(store._map.get("1234"));
+            other.setAttribute("a", "b");
+            other.setLastSaved(other.getLastSaved() + 1000);
+            store._map.put("1234", other);
+            
+            session = cache.get("1234");
+            assertNotNull(session);
+            assertEquals("b", session.getSessionData().getAttribute("a"));
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getNearCacheMisses());
+            
+            //deleted sessions are not kept
+            cache.put("1234", session);
+            cache.delete("1234");
+            assertNull(cache.get("1234"));
+            assertEquals(1, cache.getNearCacheHits());
+        }
+        finally
+        {
+            cache.stop();
+        }
+    }
+}
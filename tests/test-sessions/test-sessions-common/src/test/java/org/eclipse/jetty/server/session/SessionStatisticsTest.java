@@ -0,0 +1,85 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * SessionStatisticsTest
+ *
+ * Test the statistics kept by the SessionCache and SessionDataStore.
+ */
+public class SessionStatisticsTest
+{
+    @Test
+    public void testCacheAndStoreStatistics() throws Exception
+    {
+        TestSessionDataStore store = new TestSessionDataStore();
+        SessionHandler handler = new SessionHandler();
+        DefaultSessionCache cache = new DefaultSessionCache(handler);
+        handler.setSessionCache(cache);
+        cache.setSessionDataStore(store);
+        cache.initialize(new SessionContext("0", null));
+        cache.start();
+        try
+        {
+            long now = System.currentTimeMillis();
+            SessionData data = store.newSessionData("1234", now, now, now, -1);
+            store.store("1234", data);
+            assertEquals(1, store.getStoreCount());
+            
+            //not in the cache: a miss and a load
+            Session session = cache.get("1234");
+            assertNotNull(session);
+            assertEquals(0, cache.getCacheHits());
+            assertEquals(1, cache.getCacheMisses());
+            
+            //in the cache: a hit
+            assertNotNull(cache.get("1234"));
+            assertEquals(1, cache.getCacheHits());
+            assertEquals(0.5, cache.getCacheHitRatio(), 0.001);
+            
+            //not anywhere: a miss
+            assertNull(cache.get("5678"));
+            assertEquals(2, cache.getCacheMisses());
+            
+            //evicted on exit: passivated as the store passivates
+            cache.setEvictionPolicy(SessionCache.EVICT_ON_SESSION_EXIT);
+            session.getSessionData().setDirty(true);
+            cache.put("1234", session);
+            assertEquals(1, cache.getEvictions());
+            assertEquals(store.isPassivating() ? 1 : 0, cache.getSessionsPassivated());
+            assertEquals(2, store.getStoreCount());
+            
+            cache.resetStats();
+            store.resetStats();
+            assertEquals(0, cache.getCacheMisses());
+            assertEquals(0, cache.getEvictions());
+            assertEquals(0, store.getStoreCount());
+        }
+        finally
+        {
+            cache.stop();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * WriteBehindSessionDataStoreTest
+ *
+ * Test that session writes are deferred, coalesced and flushed.
+ */
+public class WriteBehindSessionDataStoreTest
+{
+    @Test
+    public void testWritesAreDeferredAndCoalesced() throws Exception
+    {
+        TestSessionDataStore delegate = new TestSessionDataStore();
+        WriteBehindSessionDataStore store = new WriteBehindSessionDataStore(delegate);
+        store.setMaxDelayMs(500);
+        store.initialize(new SessionContext("0", null));
+        store.start();
+        try
+        {
+            long now = System.currentTimeMillis();
+            SessionData data = store.newSessionData("1234", now, now, now, TimeUnit.MINUTES.toMillis(10));
+            for (int i=0; i<3; i++)
+            {
+                data.setAttribute("a", i);
+                store.store("1234", data);
+            }
+            
+            //nothing written yet
+            assertTrue(delegate._map.isEmpty());
+            assertEquals(1, store.getPendingCount());
+            assertEquals(2, store.getCoalescedCount());
+            
+            //written once in the background
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (store.getPendingCount() > 0 && System.nanoTime() < end)
+                Thread.sleep(10);
+            assertEquals(0, store.getPendingCount());
+            assertEquals(1, store.getWriteCount());
+            assertEquals(2, delegate._map.get("1234").getAttribute("a"));
+            
+            //a pending write is flushed before the session is loaded
+            data.setAttribute("b", "b");
+            store.store("1234", data);
+            SessionData loaded = store.load("1234");
+            assertNotNull(loaded);
+            assertEquals("b", loaded.getAttribute("b"));
+            assertEquals(2, store.getWriteCount());
+            
+            data.setAttribute("c", "c");
+            store.store("1234", data);
+        }
+        finally
+        {
+            store.stop();
+        }
+        
+        //pending writes are flushed on stop
+        assertEquals(3, store.getWriteCount());
+        assertEquals("c", delegate._map.get("1234").getAttribute("c"));
+    }
+    
+    
+    @Test
+    public void testCopyIsWritten() throws Exception
+    {
+        TestSessionDataStore delegate = new TestSessionDataStore();
+        WriteBehindSessionDataStore store = new WriteBehindSessionDataStore(delegate);
+        store.setMaxDelayMs(60000);
+        store.initialize(new SessionContext("0", null));
+        store.start();
+        try
+        {
+            long now = System.currentTimeMillis();
+            SessionData data = store.newSessionData("1234", now, now, now, TimeUnit.MINUTES.toMillis(10));
+            data.setAttribute("a", "queued");
+            store.store("1234", data);
+            assertFalse(data.isDirty());
+            
+            //a change after the session was queued is not written by the flush
+            data.setAttribute("a", "changed");
+            store.flush();
+            assertEquals("queued", delegate._map.get("1234").getAttribute("a"));
+            assertTrue(data.isDirty());
+            assertTrue(data.getLastSaved() > 0);
+        }
+        finally
+        {
+            store.stop();
+        }
+    }
+    
+    
+    @Test
+    public void testDeleteWaitsForFlushInProgress() throws Exception
+    {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        TestSessionDataStore delegate = new TestSessionDataStore()
+        {
+            @Override
+            public void doStore(String id, SessionData data, long lastSaveTime) throws Exception
+            {
+                writing.countDown();
+                proceed.await(5, TimeUnit.SECONDS);
+                super.doStore(id, data, lastSaveTime);
+            }
+        };
+        WriteBehindSessionDataStore store = new WriteBehindSessionDataStore(delegate);
+        store.setMaxDelayMs(10);
+        store.initialize(new SessionContext("0", null));
+        store.start();
+        try
+        {
+            long now = System.currentTimeMillis();
+            SessionData data = store.newSessionData("1234", now, now, now, TimeUnit.MINUTES.toMillis(10));
+            store.store("1234", data);
+            
+            //wait for the background write to start
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            
+            //delete while the write is in progress
+            CountDownLatch deleted = new CountDownLatch(1);
+            new Thread(() ->
+            {
+                try
+                {
+                    store.delete("1234");
+                    deleted.countDown();
+                }
+                catch (Exception e)
+                {
+                    e.printStackTrace();
+                }
+            }).start();
+            assertFalse(deleted.await(500, TimeUnit.MILLISECONDS));
+            
+            //the delete completes after the write, so the session stays deleted
+            proceed.countDown();
+            assertTrue(deleted.await(5, TimeUnit.SECONDS));
+            assertFalse(delegate._map.containsKey("1234"));
+        }
+        finally
+        {
+            store.stop();
+        }
+    }
+}